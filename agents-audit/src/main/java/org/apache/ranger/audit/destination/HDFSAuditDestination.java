@@ -20,9 +20,11 @@
 package org.apache.ranger.audit.destination;
 
 import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.AuditWriterFactory;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.audit.utils.RangerAuditWriter;
+import org.apache.ranger.audit.utils.RangerORCAuditWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 /**
  * This class write the logs to local file
@@ -99,48 +102,14 @@ public void flush() {
 
     @Override
     public synchronized boolean logJSON(final Collection<String> events) {
-        logStatusIfRequired();
-        addTotalCount(events.size());
-
-        if (!initDone) {
-            addDeferredCount(events.size());
-
-            return false;
-        }
-
-        if (isStopped) {
-            addDeferredCount(events.size());
-
-            logError("log() called after stop was requested. name={}", getName());
-
-            return false;
-        }
-
-        try {
-            boolean ret = auditWriter.log(events);
-
-            if (!ret) {
-                addDeferredCount(events.size());
-
-                return false;
-            }
-        } catch (Throwable t) {
-            addDeferredCount(events.size());
-
-            logError("Error writing to log file.", t);
-
-            return false;
-        } finally {
-            logger.debug("Flushing HDFS audit. Event Size:{}", events.size());
-
-            if (auditWriter != null) {
-                flush();
-            }
-        }
-
-        addSuccessCount(events.size());
+        return writeEvents(events.size(), () -> auditWriter.log(events));
+    }
 
-        return true;
+    /*
+     * Writes the events to ORC file directly, without converting them to JSON and back
+     */
+    public synchronized boolean logAsORC(final Collection<AuthzAuditEvent> events) {
+        return writeEvents(events.size(), () -> ((RangerORCAuditWriter) auditWriter).logAuditAsORC(events));
     }
 
     @Override
@@ -196,6 +165,14 @@ public boolean log(Collection<AuditEventBase> events) {
             return false;
         }
 
+        if (auditWriter instanceof RangerORCAuditWriter) {
+            List<AuthzAuditEvent> authzAuditEvents = toAuthzAuditEvents(events);
+
+            if (authzAuditEvents != null) {
+                return logAsORC(authzAuditEvents);
+            }
+        }
+
         List<String> jsonList = new ArrayList<>();
 
         for (AuditEventBase event : events) {
@@ -220,4 +197,64 @@ public RangerAuditWriter getWriter() throws Exception {
 
         return auditWriterFactory.getAuditWriter();
     }
+
+    private boolean writeEvents(int eventCount, Callable<Boolean> writer) {
+        logStatusIfRequired();
+        addTotalCount(eventCount);
+
+        if (!initDone) {
+            addDeferredCount(eventCount);
+
+            return false;
+        }
+
+        if (isStopped) {
+            addDeferredCount(eventCount);
+
+            logError("log() called after stop was requested. name={}", getName());
+
+            return false;
+        }
+
+        try {
+            boolean ret = writer.call();
+
+            if (!ret) {
+                addDeferredCount(eventCount);
+
+                return false;
+            }
+        } catch (Throwable t) {
+            addDeferredCount(eventCount);
+
+            logError("Error writing to log file.", t);
+
+            return false;
+        } finally {
+            logger.debug("Flushing HDFS audit. Event Size:{}", eventCount);
+
+            if (auditWriter != null) {
+                flush();
+            }
+        }
+
+        addSuccessCount(eventCount);
+
+        return true;
+    }
+
+    // returns null if any of the events is not an AuthzAuditEvent
+    private List<AuthzAuditEvent> toAuthzAuditEvents(Collection<AuditEventBase> events) {
+        List<AuthzAuditEvent> ret = new ArrayList<>(events.size());
+
+        for (AuditEventBase event : events) {
+            if (!(event instanceof AuthzAuditEvent)) {
+                return null;
+            }
+
+            ret.add((AuthzAuditEvent) event);
+        }
+
+        return ret;
+    }
 }
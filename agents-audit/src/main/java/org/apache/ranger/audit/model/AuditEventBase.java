@@ -19,9 +19,13 @@
 
 package org.apache.ranger.audit.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Date;
 
 public abstract class AuditEventBase {
+    private transient volatile EncodedAuditEvent encodedEvent; // cleared on update of the event
+
     protected AuditEventBase() {
     }
 
@@ -32,4 +36,25 @@ protected AuditEventBase() {
     public abstract void setEventCount(long eventCount);
 
     public abstract void setEventDurationMS(long eventDurationMS);
+
+    @JsonIgnore
+    public EncodedAuditEvent getEncodedEvent() {
+        return encodedEvent;
+    }
+
+    public void setEncodedEvent(EncodedAuditEvent encodedEvent) {
+        this.encodedEvent = encodedEvent;
+    }
+
+    /*
+     * hash of content that can be updated without a setter - like collections returned by getters. MiscUtil.encode()
+     * uses the encoded event only if this hash is unchanged since it was encoded.
+     */
+    public int computeMutableContentHash() {
+        return 0;
+    }
+
+    protected void resetEncodedEvent() {
+        this.encodedEvent = null;
+    }
 }
@@ -185,6 +185,8 @@ public int getRepositoryType() {
      */
     public void setRepositoryType(int repositoryType) {
         this.repositoryType = repositoryType;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -199,6 +201,8 @@ public String getRepositoryName() {
      */
     public void setRepositoryName(String repositoryName) {
         this.repositoryName = repositoryName;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -213,6 +217,8 @@ public String getUser() {
      */
     public void setUser(String user) {
         this.user = user;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -227,6 +233,8 @@ public String getAccessType() {
      */
     public void setAccessType(String accessType) {
         this.accessType = accessType;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -241,6 +249,8 @@ public String getResourcePath() {
      */
     public void setResourcePath(String resourcePath) {
         this.resourcePath = resourcePath;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -255,6 +265,8 @@ public String getResourceType() {
      */
     public void setResourceType(String resourceType) {
         this.resourceType = resourceType;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -269,6 +281,8 @@ public String getAction() {
      */
     public void setAction(String action) {
         this.action = action;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -283,6 +297,8 @@ public short getAccessResult() {
      */
     public void setAccessResult(short accessResult) {
         this.accessResult = accessResult;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -297,6 +313,8 @@ public String getAgentId() {
      */
     public void setAgentId(String agentId) {
         this.agentId = agentId;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -311,6 +329,8 @@ public long getPolicyId() {
      */
     public void setPolicyId(long policyId) {
         this.policyId = policyId;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -325,6 +345,8 @@ public String getResultReason() {
      */
     public void setResultReason(String resultReason) {
         this.resultReason = resultReason;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -339,6 +361,8 @@ public String getAclEnforcer() {
      */
     public void setAclEnforcer(String aclEnforcer) {
         this.aclEnforcer = aclEnforcer;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -353,6 +377,8 @@ public String getSessionId() {
      */
     public void setSessionId(String sessionId) {
         this.sessionId = sessionId;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -367,6 +393,8 @@ public String getClientType() {
      */
     public void setClientType(String clientType) {
         this.clientType = clientType;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -381,6 +409,8 @@ public String getClientIP() {
      */
     public void setClientIP(String clientIP) {
         this.clientIP = clientIP;
+
+        resetEncodedEvent();
     }
 
     /**
@@ -395,6 +425,8 @@ public String getRequestData() {
      */
     public void setRequestData(String requestData) {
         this.requestData = requestData;
+
+        resetEncodedEvent();
     }
 
     public String getAgentHostname() {
@@ -403,6 +435,8 @@ public String getAgentHostname() {
 
     public void setAgentHostname(String agentHostname) {
         this.agentHostname = agentHostname;
+
+        resetEncodedEvent();
     }
 
     public String getLogType() {
@@ -411,6 +445,8 @@ public String getLogType() {
 
     public void setLogType(String logType) {
         this.logType = logType;
+
+        resetEncodedEvent();
     }
 
     public String getEventId() {
@@ -419,6 +455,8 @@ public String getEventId() {
 
     public void setEventId(String eventId) {
         this.eventId = eventId;
+
+        resetEncodedEvent();
     }
 
     public long getSeqNum() {
@@ -427,6 +465,8 @@ public long getSeqNum() {
 
     public void setSeqNum(long seqNum) {
         this.seqNum = seqNum;
+
+        resetEncodedEvent();
     }
 
     public long getEventCount() {
@@ -435,6 +475,8 @@ public long getEventCount() {
 
     public void setEventCount(long frequencyCount) {
         this.eventCount = frequencyCount;
+
+        resetEncodedEvent();
     }
 
     public long getEventDurationMS() {
@@ -443,6 +485,8 @@ public long getEventDurationMS() {
 
     public void setEventDurationMS(long frequencyDurationMS) {
         this.eventDurationMS = frequencyDurationMS;
+
+        resetEncodedEvent();
     }
 
     public Set<String> getTags() {
@@ -451,6 +495,8 @@ public Set<String> getTags() {
 
     public void setTags(Set<String> tags) {
         this.tags = tags;
+
+        resetEncodedEvent();
     }
 
     public Set<String> getDatasets() {
@@ -459,6 +505,8 @@ public Set<String> getDatasets() {
 
     public void setDatasets(Set<String> datasets) {
         this.datasets = datasets;
+
+        resetEncodedEvent();
     }
 
     public Set<String> getProjects() {
@@ -467,6 +515,20 @@ public Set<String> getProjects() {
 
     public void setProjects(Set<String> projects) {
         this.projects = projects;
+
+        resetEncodedEvent();
+    }
+
+    // tags, datasets and projects can be updated through their getters, like getTags().addAll(), after the event is encoded
+    @Override
+    public int computeMutableContentHash() {
+        int ret = 1;
+
+        ret = 31 * ret + hashWithSize(tags);
+        ret = 31 * ret + hashWithSize(datasets);
+        ret = 31 * ret + hashWithSize(projects);
+
+        return ret;
     }
 
     public String getClusterName() {
@@ -475,6 +537,8 @@ public String getClusterName() {
 
     public void setClusterName(String clusterName) {
         this.clusterName = clusterName;
+
+        resetEncodedEvent();
     }
 
     public String getZoneName() {
@@ -483,6 +547,8 @@ public String getZoneName() {
 
     public void setZoneName(String zoneName) {
         this.zoneName = zoneName;
+
+        resetEncodedEvent();
     }
 
     public Long getPolicyVersion() {
@@ -491,6 +557,8 @@ public Long getPolicyVersion() {
 
     public void setPolicyVersion(Long policyVersion) {
         this.policyVersion = policyVersion;
+
+        resetEncodedEvent();
     }
 
     public String getAdditionalInfo() {
@@ -499,6 +567,8 @@ public String getAdditionalInfo() {
 
     public void setAdditionalInfo(String additionalInfo) {
         this.additionalInfo = additionalInfo;
+
+        resetEncodedEvent();
     }
 
     @JsonIgnore
@@ -519,6 +589,8 @@ public Date getEventTime() {
      */
     public void setEventTime(Date eventTime) {
         this.eventTime = eventTime;
+
+        resetEncodedEvent();
     }
 
     @Override
@@ -572,4 +644,9 @@ protected StringBuilder toString(StringBuilder sb) {
 
         return sb;
     }
+
+    // size is included, as hashCode() of a set doesn't change on addition of an element with hash 0, like ""
+    private static int hashWithSize(Set<String> values) {
+        return values != null ? 31 * values.hashCode() + values.size() : -1;
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.model;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+ * JSON form of an audit event, computed once and shared by all destinations and spools the event is sent to; see
+ * MiscUtil.encode(). UTF-8 bytes are derived on first use, for destinations that write bytes.
+ */
+public class EncodedAuditEvent {
+    private final    String json;
+    private final    int    mutableContentHash;
+    private volatile byte[] jsonBytes;
+
+    public EncodedAuditEvent(String json) {
+        this(json, 0);
+    }
+
+    public EncodedAuditEvent(String json, int mutableContentHash) {
+        this.json               = json;
+        this.mutableContentHash = mutableContentHash;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /*
+     * value of AuditEventBase.computeMutableContentHash() when the event was encoded
+     */
+    public int getMutableContentHash() {
+        return mutableContentHash;
+    }
+
+    public byte[] getJsonBytes() {
+        byte[] ret = jsonBytes;
+
+        if (ret == null) {
+            ret       = json.getBytes(StandardCharsets.UTF_8);
+            jsonBytes = ret;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -23,6 +23,8 @@
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.authentication.util.KerberosName;
 import org.apache.hadoop.security.authentication.util.KerberosUtil;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.EncodedAuditEvent;
 import org.apache.ranger.authorization.hadoop.utils.RangerCredentialProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -304,6 +306,8 @@ public static <T> String stringify(T log) {
         if (log != null) {
             if (log instanceof String) {
                 ret = (String) log;
+            } else if (log instanceof AuditEventBase) {
+                ret = encode((AuditEventBase) log).getJson();
             } else if (getMapper() != null) {
                 try {
                     ret = getMapper().writeValueAsString(log);
@@ -320,6 +324,34 @@ public static <T> String stringify(T log) {
         return ret;
     }
 
+    /*
+     * returns JSON form of the event; it is computed once, on first call after the event is created or updated, and
+     * shared by all destinations and spools the event is sent to. Updates made without setters, like getTags().add(),
+     * are detected by comparing the event's mutable content hash with the one saved at encoding.
+     */
+    public static EncodedAuditEvent encode(AuditEventBase event) {
+        EncodedAuditEvent ret                = event.getEncodedEvent();
+        int               mutableContentHash = event.computeMutableContentHash();
+
+        if (ret == null || ret.getMutableContentHash() != mutableContentHash) {
+            String json;
+
+            try {
+                json = getMapper().writeValueAsString(event);
+            } catch (Exception e) {
+                logger.error("Error occurred while processing JSOn object {}", event, e);
+
+                json = event.toString(); // Fallback to default toString() method
+            }
+
+            ret = new EncodedAuditEvent(json, mutableContentHash);
+
+            event.setEncodedEvent(ret);
+        }
+
+        return ret;
+    }
+
     public static <T> T fromJson(String jsonStr, Class<T> clazz) {
         try {
             return getMapper().readValue(jsonStr, clazz);
@@ -27,10 +27,14 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * This is a non-blocking queue with no limit on capacity.
+ * This is a non-blocking queue, bounded by queue size: a LinkedBlockingQueue, or
+ * an AuditRingBuffer when queue.type is ring. When the queue is full, events are
+ * handled as per queue.full.policy - drop by default.
  */
 public class AuditAsyncQueue extends AuditQueue implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(AuditAsyncQueue.class);
@@ -39,13 +43,21 @@ public class AuditAsyncQueue extends AuditQueue implements Runnable {
     static final String DEFAULT_NAME = "async";
     static       int    threadCount;
 
-    LinkedBlockingQueue<AuditEventBase> queue          = new LinkedBlockingQueue<>();
-    Thread                              consumerThread;
+    BlockingQueue<AuditEventBase> queue = new LinkedBlockingQueue<>(getMaxQueueSize());
+    Thread                        consumerThread;
 
     public AuditAsyncQueue(AuditHandler consumer) {
         super(consumer);
 
         setName(DEFAULT_NAME);
+        setFullQueuePolicy(FullQueuePolicy.DROP);
+    }
+
+    @Override
+    public void init(Properties props, String basePropertyName) {
+        super.init(props, basePropertyName);
+
+        queue = createQueue();
     }
 
     /*
@@ -61,16 +73,12 @@ public boolean log(AuditEventBase event) {
 
         addTotalCount(1);
 
-        // Add to the queue and return ASAP
-        if (queue.size() >= getMaxQueueSize()) {
-            addFailedCount(1);
-
-            return false;
+        try {
+            // Add to the queue and return ASAP, unless queue.full.policy is block
+            return addToQueue(queue, event);
+        } catch (InterruptedException excp) {
+            throw new RuntimeException(excp);
         }
-
-        queue.add(event);
-
-        return true;
     }
 
     @Override
@@ -79,6 +87,8 @@ public void logStatus() {
 
         if (isStatusLogEnabled()) {
             logger.info("AuditAsyncQueue.log(name={}): totalCount={}, currentQueueLength={}", getName(), getTotalCount(), queue.size());
+
+            logQueueStats(queue);
         }
     }
 
@@ -110,6 +120,11 @@ public void start() {
             logger.error("consumer is not set. Nothing will be sent to any consumer. name={}", getName());
         }
 
+        // events are spooled when the queue is full and queue.full.policy is spool or block
+        if (fileSpoolerEnabled) {
+            fileSpooler.start();
+        }
+
         consumerThread = new Thread(this, this.getClass().getName() + (threadCount++));
 
         consumerThread.setDaemon(true);
@@ -138,6 +153,10 @@ public void stop() {
         }
 
         consumerThread = null;
+
+        if (fileSpoolerEnabled) {
+            fileSpooler.stop();
+        }
     }
 
     /*
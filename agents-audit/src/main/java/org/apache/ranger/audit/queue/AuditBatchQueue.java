@@ -59,13 +59,11 @@ public AuditBatchQueue(AuditHandler consumer) {
     @Override
     public boolean log(AuditEventBase event) {
         try {
-            // Add to batchQueue. Block if full
-            queue.put(event);
+            // Add to batchQueue. Block if full, unless configured otherwise
+            return addToQueue(queue, event);
         } catch (InterruptedException ex) {
             throw new RuntimeException(ex);
         }
-
-        return true;
     }
 
     @Override
@@ -96,9 +94,15 @@ public synchronized void start() {
             return;
         }
 
-        logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
+        if (isRingQueue()) {
+            logger.info("Creating AuditRingBuffer with maxSize={}", getMaxQueueSize());
+
+            queue = new AuditRingBuffer<>(getMaxQueueSize());
+        } else {
+            logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
 
-        queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+            queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+        }
 
         // Start the consumer first
         consumer.start();
@@ -140,6 +144,15 @@ public void stop() {
         consumerThread = null;
     }
 
+    @Override
+    public void logStatus() {
+        super.logStatus();
+
+        if (isStatusLogEnabled() && queue != null) {
+            logQueueStats(queue);
+        }
+    }
+
     @Override
     public void init(Properties prop, String basePropertyName) {
         String propPrefix = "xasecure.audit.batch";
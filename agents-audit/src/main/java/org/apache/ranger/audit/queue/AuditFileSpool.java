@@ -21,6 +21,7 @@
 
 import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.model.AuditIndexRecord;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.model.SPOOL_FILE_STATUS;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.MiscUtil;
@@ -35,6 +36,7 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -60,6 +62,10 @@ public class AuditFileSpool implements Runnable {
     public static final String PROP_FILE_SPOOL_FILE_ROLLOVER           = "filespool.file.rollover.sec";
     public static final String PROP_FILE_SPOOL_INDEX_FILE              = "filespool.index.filename";
     public static final String PROP_FILE_SPOOL_DEST_RETRY_MS           = "filespool.destination.retry.ms";
+    public static final String PROP_FILE_SPOOL_FORMAT                  = "filespool.format";
+    public static final String PROP_FILE_SPOOL_SEGMENT_SIZE_MB         = "filespool.segment.size.mb";
+    public static final String FILE_SPOOL_FORMAT_JSON                  = "json";
+    public static final String FILE_SPOOL_FORMAT_BINARY                = "binary";
     public static final String CONSUMER                                = ", consumer=";
 
     AuditQueue                      queueProvider;
@@ -78,6 +84,8 @@ public class AuditFileSpool implements Runnable {
     int    retryDestinationMS = 30 * 1000; // Default 30 seconds
     int    fileRolloverSec    = 24 * 60 * 60; // In seconds
     int    maxArchiveFiles    = 100;
+    String spoolFormat        = FILE_SPOOL_FORMAT_JSON;
+    int    segmentSizeMB      = 64;
 
     int  errorLogIntervalMS = 30 * 1000; // Every 30 seconds
     long lastErrorLogMS;
@@ -88,9 +96,10 @@ public class AuditFileSpool implements Runnable {
     long    lastAttemptTime;
     boolean initDone;
 
-    PrintWriter      logWriter;
-    AuditIndexRecord currentWriterIndexRecord;
-    AuditIndexRecord currentConsumerIndexRecord;
+    PrintWriter       logWriter;
+    AuditSpoolSegment logSegment;
+    AuditIndexRecord  currentWriterIndexRecord;
+    AuditIndexRecord  currentConsumerIndexRecord;
 
     BufferedReader logReader;
 
@@ -132,10 +141,15 @@ public boolean init(Properties props, String basePropertyName) {
             retryDestinationMS = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_DEST_RETRY_MS, retryDestinationMS);
             fileRolloverSec    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_ROLLOVER, fileRolloverSec);
             maxArchiveFiles    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
+            spoolFormat        = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FORMAT, spoolFormat);
+            segmentSizeMB      = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_SEGMENT_SIZE_MB, segmentSizeMB);
+
+            spoolFormat = FILE_SPOOL_FORMAT_BINARY.equalsIgnoreCase(spoolFormat) ? FILE_SPOOL_FORMAT_BINARY : FILE_SPOOL_FORMAT_JSON;
 
             logger.info("retryDestinationMS={}, queueName={}", retryDestinationMS, queueProvider.getName());
             logger.info("fileRolloverSec={}, queueName={}", fileRolloverSec, queueProvider.getName());
             logger.info("maxArchiveFiles={}, queueName={}", maxArchiveFiles, queueProvider.getName());
+            logger.info("spoolFormat={}, segmentSizeMB={}, queueName={}", spoolFormat, segmentSizeMB, queueProvider.getName());
 
             if (logFolderProp == null || logFolderProp.isEmpty()) {
                 logger.error("Audit spool folder is not configured. Please set {}.{}.queueName={}", propPrefix, PROP_FILE_SPOOL_LOCAL_DIR, queueProvider.getName());
@@ -325,6 +339,8 @@ public void stop() {
             }
         }
 
+        closeLogSegment();
+
         try {
             if (destinationThread != null) {
                 destinationThread.interrupt();
@@ -389,10 +405,14 @@ public synchronized void stashLogs(AuditEventBase event) {
         try {
             isWriting = true;
 
-            PrintWriter logOut  = getLogFileStream();
-            String      jsonStr = MiscUtil.stringify(event); // Convert event to json
+            if (isBinaryFormat()) {
+                appendToLogSegment(MiscUtil.encode(event).getJsonBytes());
+            } else {
+                PrintWriter logOut  = getLogFileStream();
+                String      jsonStr = MiscUtil.stringify(event); // Convert event to json
 
-            logOut.println(jsonStr);
+                logOut.println(jsonStr);
+            }
 
             isPending = true;
         } catch (Exception ex) {
@@ -420,9 +440,13 @@ public synchronized void stashLogsString(String event) {
         try {
             isWriting = true;
 
-            PrintWriter logOut = getLogFileStream();
+            if (isBinaryFormat()) {
+                appendToLogSegment(event.getBytes(StandardCharsets.UTF_8));
+            } else {
+                PrintWriter logOut = getLogFileStream();
 
-            logOut.println(event);
+                logOut.println(event);
+            }
         } catch (Exception ex) {
             logger.error("Error writing to file. event={}", event, ex);
         } finally {
@@ -490,6 +514,46 @@ public void runLogAudit() {
                     printIndex();
 
                     isRemoveIndex = true;
+                } else if (AuditSpoolSegment.isSegment(consumerFile)) {
+                    try (AuditSpoolSegment segment = AuditSpoolSegment.open(consumerFile)) {
+                        List<byte[]> records    = new ArrayList<>();
+                        long         offset     = segment.getCheckpoint();
+                        long         nextOffset = segment.read(offset, queueProvider.getMaxBatchSize(), records);
+
+                        while (!records.isEmpty()) {
+                            boolean ret = sendEvents(records, segment, nextOffset, currentConsumerIndexRecord);
+
+                            if (!ret) {
+                                throw new Exception("Destination down");
+                            }
+
+                            offset = nextOffset;
+
+                            records.clear();
+
+                            nextOffset = segment.read(offset, queueProvider.getMaxBatchSize(), records);
+                        }
+
+                        logger.info("Done reading segment. file={}, queueName={}, consumer={}", currentConsumerIndexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
+
+                        currentConsumerIndexRecord.setStatus(SPOOL_FILE_STATUS.done);
+                        currentConsumerIndexRecord.setDoneCompleteTime(new Date());
+                        currentConsumerIndexRecord.setLastAttempt(true);
+
+                        isRemoveIndex = true;
+                    } catch (Exception ex) {
+                        isDestDown = true;
+
+                        logError("Destination down. queueName={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
+
+                        lastAttemptTime = System.currentTimeMillis();
+
+                        currentConsumerIndexRecord.setLastFailedTime(new Date());
+                        currentConsumerIndexRecord.setFailedAttemptCount(currentConsumerIndexRecord.getFailedAttemptCount() + 1);
+                        currentConsumerIndexRecord.setLastAttempt(false);
+
+                        saveIndexFile();
+                    }
                 } else {
                     // Let's open the file to write
                     try (BufferedReader br = new BufferedReader(new FileReader(currentConsumerIndexRecord.getFilePath()))) {
@@ -739,8 +803,24 @@ private synchronized PrintWriter getOpenLogFileStream() {
      * @throws Exception
      */
     private synchronized PrintWriter getLogFileStream() throws Exception {
+        openLogFileIfNeeded(0);
+
+        return logWriter;
+    }
+
+    private synchronized void openLogFileIfNeeded(int recordSize) throws Exception {
         closeFileIfNeeded();
 
+        if (currentWriterIndexRecord != null && logWriter == null && logSegment == null) {
+            File logFile = new File(currentWriterIndexRecord.getFilePath());
+
+            if (logFile.exists() && AuditSpoolSegment.isSegment(logFile) != isBinaryFormat()) {
+                logger.info("Spool format changed to {}. Closing file. queueName={}, fileName={}", spoolFormat, queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+                rollLogFile();
+            }
+        }
+
         // Either there are no open log file or the previous one has been rolled
         // over
         if (currentWriterIndexRecord == null) {
@@ -774,7 +854,13 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
             logger.info("Creating new file. queueName={}, filename={}", queueProvider.getName(), fileName);
 
             // Open the file
-            logWriter = new PrintWriter(new BufferedWriter(new FileWriter(outLogFile)));
+            if (isBinaryFormat()) {
+                int segmentSize = (int) Math.min(segmentSizeMB * 1024L * 1024L, Integer.MAX_VALUE - AuditSpoolSegment.HEADER_SIZE);
+
+                logSegment = AuditSpoolSegment.create(outLogFile, Math.max(segmentSize, AuditSpoolSegment.getRequiredCapacity(recordSize)));
+            } else {
+                logWriter = new PrintWriter(new BufferedWriter(new FileWriter(outLogFile)));
+            }
 
             AuditIndexRecord tmpIndexRecord = new AuditIndexRecord();
 
@@ -789,6 +875,12 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
             indexRecords.add(currentWriterIndexRecord);
 
             saveIndexFile();
+        } else if (isBinaryFormat()) {
+            if (logSegment == null) {
+                logger.info("Opening existing segment for append. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+                logSegment = AuditSpoolSegment.open(new File(currentWriterIndexRecord.getFilePath()));
+            }
         } else {
             if (logWriter == null) {
                 // This means the process just started. We need to open the file
@@ -797,8 +889,20 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
                 logWriter = new PrintWriter(new BufferedWriter(new FileWriter(currentWriterIndexRecord.getFilePath(), true)));
             }
         }
+    }
 
-        return logWriter;
+    private synchronized void appendToLogSegment(byte[] record) throws Exception {
+        openLogFileIfNeeded(record.length);
+
+        if (!logSegment.append(record)) {
+            logger.info("Segment is full. Closing file. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+            rollLogFile();
+
+            openLogFileIfNeeded(record.length);
+
+            logSegment.append(record);
+        }
     }
 
     private synchronized void closeFileIfNeeded() throws IOException {
@@ -818,28 +922,50 @@ private synchronized void closeFileIfNeeded() throws IOException {
             }
 
             if (closeFile) {
-                // Roll the file
-                if (logWriter != null) {
-                    logWriter.flush();
-                    logWriter.close();
+                rollLogFile();
+            }
+        }
+    }
 
-                    logWriter = null;
-                }
+    private synchronized void rollLogFile() throws IOException {
+        // Roll the file
+        if (logWriter != null) {
+            logWriter.flush();
+            logWriter.close();
 
-                currentWriterIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
-                currentWriterIndexRecord.setWriteCompleteTime(new Date());
+            logWriter = null;
+        }
 
-                saveIndexFile();
+        closeLogSegment();
 
-                logger.info("Adding file to queue. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+        currentWriterIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
+        currentWriterIndexRecord.setWriteCompleteTime(new Date());
 
-                indexQueue.add(currentWriterIndexRecord);
+        saveIndexFile();
 
-                currentWriterIndexRecord = null;
+        logger.info("Adding file to queue. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+        indexQueue.add(currentWriterIndexRecord);
+
+        currentWriterIndexRecord = null;
+    }
+
+    private synchronized void closeLogSegment() {
+        if (logSegment != null) {
+            try {
+                logSegment.close();
+            } catch (IOException excp) {
+                logger.error("Error closing spool segment. queueName={}, filename={}", queueProvider.getName(), logSegment.getFile(), excp);
             }
+
+            logSegment = null;
         }
     }
 
+    private boolean isBinaryFormat() {
+        return FILE_SPOOL_FORMAT_BINARY.equals(spoolFormat);
+    }
+
     private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int currLine) {
         boolean ret = true;
 
@@ -870,4 +996,50 @@ private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int
 
         return ret;
     }
+
+    private boolean sendEvents(List<byte[]> records, AuditSpoolSegment segment, long nextOffset, AuditIndexRecord indexRecord) {
+        boolean ret;
+
+        try {
+            List<AuditEventBase> events = new ArrayList<>(records.size());
+
+            for (byte[] record : records) {
+                try {
+                    events.add(MiscUtil.getMapper().readValue(record, AuthzAuditEvent.class));
+                } catch (IOException excp) {
+                    logger.error("Error parsing audit event in segment {}: {}", segment.getFile(), new String(record, StandardCharsets.UTF_8), excp);
+                }
+            }
+
+            ret = events.isEmpty() || consumerProvider.log(events);
+
+            if (!ret) {
+                // Need to log error after fixed interval
+                logError("Error sending logs to consumer. provider={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
+            } else {
+                // progress is recorded in the segment; index is updated only when the status changes
+                segment.setCheckpoint(nextOffset);
+
+                if (indexRecord.getStatus() != SPOOL_FILE_STATUS.read_inprogress) {
+                    indexRecord.setStatus(SPOOL_FILE_STATUS.read_inprogress);
+                    indexRecord.setLastSuccessTime(new Date());
+                    indexRecord.setLastAttempt(true);
+
+                    saveIndexFile();
+                }
+
+                if (isDestDown) {
+                    isDestDown = false;
+
+                    logger.info("Destination up now. {}, queueName={}, consumer={}", indexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
+                }
+            }
+        } catch (Exception t) {
+            logger.error("Error while sending logs to consumer. provider={}, consumer={}, logEventCount={}", queueProvider.getName(), consumerProvider.getName(), records.size(), t);
+
+            ret = false;
+        }
+
+        return ret;
+    }
 }
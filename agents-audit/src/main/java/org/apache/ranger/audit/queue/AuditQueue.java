@@ -20,6 +20,7 @@
 package org.apache.ranger.audit.queue;
 
 import org.apache.ranger.audit.destination.AuditDestination;
+import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.BaseAuditHandler;
 import org.apache.ranger.audit.provider.MiscUtil;
@@ -27,6 +28,9 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AuditQueue extends BaseAuditHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AuditQueue.class);
@@ -42,6 +46,10 @@ public abstract class AuditQueue extends BaseAuditHandler {
     public static final String PROP_FILE_SPOOL_ENABLE              = "filespool.enable";
     public static final String PROP_FILE_SPOOL_WAIT_FOR_FULL_DRAIN = "filespool.drain.full.wait.ms";
     public static final String PROP_FILE_SPOOL_QUEUE_THRESHOLD     = "filespool.drain.threshold.percent";
+    public static final String PROP_QUEUE_TYPE                     = "queue.type";
+    public static final String PROP_QUEUE_FULL_POLICY              = "queue.full.policy";
+    public static final String PROP_QUEUE_FULL_WAIT_MS             = "queue.full.wait.ms";
+    public static final String QUEUE_TYPE_RING                     = "ring";
 
     protected final AuditHandler   consumer;
     protected       AuditFileSpool fileSpooler;
@@ -54,10 +62,13 @@ public abstract class AuditQueue extends BaseAuditHandler {
 
     boolean isConsumerDestination;
 
-    private int     maxQueueSize     = AUDIT_MAX_QUEUE_SIZE_DEFAULT;
-    private int     maxBatchInterval = AUDIT_BATCH_INTERVAL_DEFAULT_MS;
-    private int     maxBatchSize     = AUDIT_BATCH_SIZE_DEFAULT;
-    private boolean isDrain;
+    private int             maxQueueSize     = AUDIT_MAX_QUEUE_SIZE_DEFAULT;
+    private int             maxBatchInterval = AUDIT_BATCH_INTERVAL_DEFAULT_MS;
+    private int             maxBatchSize     = AUDIT_BATCH_SIZE_DEFAULT;
+    private boolean         isDrain;
+    private boolean         isRingQueue;
+    private FullQueuePolicy fullQueuePolicy  = FullQueuePolicy.BLOCK;
+    private long            fullQueueWaitMs  = -1; // wait until space is available
 
     /**
      * @param consumer
@@ -85,6 +96,12 @@ public void init(Properties props, String basePropertyName) {
         setMaxQueueSize(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_QUEUE_SIZE, getMaxQueueSize()));
         setMaxBatchInterval(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_INTERVAL, getMaxBatchInterval()));
 
+        isRingQueue     = QUEUE_TYPE_RING.equalsIgnoreCase(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_QUEUE_TYPE));
+        fullQueuePolicy = FullQueuePolicy.fromString(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_QUEUE_FULL_POLICY), fullQueuePolicy);
+        fullQueueWaitMs = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_QUEUE_FULL_WAIT_MS, fullQueueWaitMs);
+
+        LOG.info("{}: isRingQueue={}, fullQueuePolicy={}, fullQueueWaitMs={}", getName(), isRingQueue, fullQueuePolicy, fullQueueWaitMs);
+
         fileSpoolerEnabled = MiscUtil.getBooleanProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ENABLE, false);
 
         String logFolderProp = MiscUtil.getStringProperty(props, propPrefix + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR);
@@ -182,6 +199,18 @@ public void setMaxBatchSize(int maxBatchSize) {
         this.maxBatchSize = maxBatchSize;
     }
 
+    public boolean isRingQueue() {
+        return isRingQueue;
+    }
+
+    public FullQueuePolicy getFullQueuePolicy() {
+        return fullQueuePolicy;
+    }
+
+    public void setFullQueuePolicy(FullQueuePolicy fullQueuePolicy) {
+        this.fullQueuePolicy = fullQueuePolicy;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -212,4 +241,84 @@ public void flush() {
             consumer.flush();
         }
     }
+
+    /**
+     * Used by batch, async and summary queues to add an event to their queue, which is bounded by maxQueueSize.
+     * Adds the event to the queue; when the queue is full, applies fullQueuePolicy:
+     * BLOCK waits for up to queue.full.wait.ms (no limit if negative) and then
+     * falls back to SPOOL; SPOOL writes the event to the file spool, if enabled;
+     * the event is dropped otherwise
+     */
+    protected boolean addToQueue(BlockingQueue<AuditEventBase> queue, AuditEventBase event) throws InterruptedException {
+        boolean ret = queue.offer(event);
+
+        if (!ret && fullQueuePolicy == FullQueuePolicy.BLOCK) {
+            if (fullQueueWaitMs < 0) {
+                queue.put(event);
+
+                ret = true;
+            } else {
+                ret = queue.offer(event, fullQueueWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (!ret && fullQueuePolicy != FullQueuePolicy.DROP && fileSpoolerEnabled) {
+            fileSpooler.stashLogs(event);
+
+            addStashedCount(1);
+
+            ret = true;
+        }
+
+        if (!ret) {
+            addFailedCount(1);
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return AuditRingBuffer when queue.type is ring, LinkedBlockingQueue otherwise; bounded by maxQueueSize
+     */
+    protected BlockingQueue<AuditEventBase> createQueue() {
+        final BlockingQueue<AuditEventBase> ret;
+
+        if (isRingQueue) {
+            LOG.info("Creating AuditRingBuffer with maxSize={}. name={}", maxQueueSize, getName());
+
+            ret = new AuditRingBuffer<>(maxQueueSize);
+        } else {
+            LOG.info("Creating LinkedBlockingQueue with maxSize={}. name={}", maxQueueSize, getName());
+
+            ret = new LinkedBlockingQueue<>(maxQueueSize);
+        }
+
+        return ret;
+    }
+
+    protected void logQueueStats(BlockingQueue<AuditEventBase> queue) {
+        if (queue instanceof AuditRingBuffer) {
+            AuditRingBuffer<AuditEventBase> ringBuffer = (AuditRingBuffer<AuditEventBase>) queue;
+
+            LOG.info("{}: queueSize={}, queueDepth={}, queueLatencyMs={}", getName(), ringBuffer.size(), ringBuffer.getDepthHistogram(), ringBuffer.getLatencyHistogram());
+        }
+    }
+
+    public enum FullQueuePolicy {
+        BLOCK, SPOOL, DROP;
+
+        public static FullQueuePolicy fromString(String value, FullQueuePolicy defaultValue) {
+            FullQueuePolicy ret = defaultValue;
+
+            if (value != null && !value.trim().isEmpty()) {
+                try {
+                    ret = FullQueuePolicy.valueOf(value.trim().toUpperCase());
+                } catch (IllegalArgumentException excp) {
+                    LOG.warn("invalid value {}: {}. Using {}", PROP_QUEUE_FULL_POLICY, value, defaultValue);
+                }
+            }
+
+            return ret;
+        }
+    }
 }
@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer queue, used by audit queues when
+ * queue.type is ring. Producers claim a slot with a CAS on the tail, without
+ * a lock; the consumer thread - only one thread may call poll(), take() and
+ * drainTo() - drains a batch of events and frees their slots with a single
+ * update of the head.
+ *
+ * Depth of the queue and time spent by events in the queue are recorded in
+ * histograms, at each drain.
+ */
+public class AuditRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final    int                     capacity;
+    private final    int                     mask;
+    private final    AtomicReferenceArray<E> slots;
+    private final    long[]                  enqueueTimeNanos;
+    private final    AtomicLong              tail             = new AtomicLong();
+    private final    Histogram               depthHistogram   = new Histogram();
+    private final    Histogram               latencyHistogram = new Histogram();
+    private volatile long                    head;
+    private volatile Thread                  waitingConsumer;
+
+    public AuditRingBuffer(int capacity) {
+        int size = 1;
+
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+
+        this.capacity         = Math.max(1, Math.min(capacity, size));
+        this.mask             = size - 1;
+        this.slots            = new AtomicReferenceArray<>(size);
+        this.enqueueTimeNanos = new long[size];
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        long slot;
+
+        do {
+            slot = tail.get();
+
+            if (slot - head >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+
+        int idx = (int) slot & mask;
+
+        enqueueTimeNanos[idx] = System.nanoTime(); // published by the volatile write below
+
+        slots.set(idx, e);
+
+        Thread consumer = waitingConsumer;
+
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                return false;
+            }
+
+            LockSupport.parkNanos(this, Math.min(remaining, PRODUCER_WAIT_NANOS));
+        }
+
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            LockSupport.parkNanos(this, PRODUCER_WAIT_NANOS);
+        }
+    }
+
+    @Override
+    public E poll() {
+        long h   = head;
+        int  idx = (int) h & mask;
+        E    ret = slots.get(idx);
+
+        if (ret != null) {
+            long now = System.nanoTime();
+
+            depthHistogram.record(tail.get() - h);
+            latencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(now - enqueueTimeNanos[idx]));
+
+            slots.lazySet(idx, null);
+
+            head = h + 1;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E ret = poll();
+
+        if (ret == null) {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+            waitingConsumer = Thread.currentThread();
+
+            try {
+                for (ret = poll(); ret == null; ret = poll()) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    LockSupport.parkNanos(this, remaining);
+                }
+            } finally {
+                waitingConsumer = null;
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E ret = null;
+
+        while (ret == null) {
+            ret = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        long h     = head;
+        long now   = System.nanoTime();
+        int  count = 0;
+
+        depthHistogram.record(tail.get() - h);
+
+        while (count < maxElements) {
+            int idx = (int) (h + count) & mask;
+            E   e   = slots.get(idx);
+
+            if (e == null) { // empty, or the producer is yet to publish
+                break;
+            }
+
+            latencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(now - enqueueTimeNanos[idx]));
+
+            slots.lazySet(idx, null);
+
+            c.add(e);
+
+            count++;
+        }
+
+        if (count > 0) {
+            head = h + count;
+        }
+
+        return count;
+    }
+
+    @Override
+    public E peek() {
+        return slots.get((int) head & mask);
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head;
+
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over events in the queue, from head to tail: it doesn't throw
+     * ConcurrentModificationException, and may or may not return events added or removed after its creation.
+     * Events removed by the consumer as the iteration proceeds are skipped, except the next event, which is read ahead
+     * by the iterator. remove() is not supported, as only the consumer thread may remove events.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    public Histogram getDepthHistogram() {
+        return depthHistogram;
+    }
+
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    private class Itr implements Iterator<E> {
+        private final long end  = tail.get();
+        private       long next = head;
+        private       E    nextEvent;
+
+        Itr() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEvent != null;
+        }
+
+        @Override
+        public E next() {
+            E ret = nextEvent;
+
+            if (ret == null) {
+                throw new NoSuchElementException();
+            }
+
+            advance();
+
+            return ret;
+        }
+
+        private void advance() {
+            nextEvent = null;
+
+            while (nextEvent == null && next < end) {
+                long h = head;
+
+                if (next < h) { // events up to head were removed by the consumer
+                    next = h;
+
+                    continue;
+                }
+
+                nextEvent = slots.get((int) next & mask); // null if the producer is yet to publish
+
+                next++;
+            }
+        }
+    }
+
+    /**
+     * Counts of values in power-of-2 buckets: 0, 1, 2-3, 4-7, ...
+     */
+    public static class Histogram {
+        private static final int BUCKET_COUNT = 32;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        public void record(long value) {
+            int bucket = value <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+
+            counts.incrementAndGet(bucket);
+        }
+
+        public long getCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        public long getBucketMax(int bucket) {
+            return bucket == 0 ? 0 : (1L << bucket) - 1;
+        }
+
+        public int getBucketCount() {
+            return BUCKET_COUNT;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("{");
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = counts.get(i);
+
+                if (count > 0) {
+                    if (sb.length() > 1) {
+                        sb.append(", ");
+                    }
+
+                    sb.append("<=").append(getBucketMax(i)).append(":").append(count);
+                }
+            }
+
+            return sb.append("}").toString();
+        }
+    }
+}
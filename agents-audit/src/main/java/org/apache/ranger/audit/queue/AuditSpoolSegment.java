@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, append-only file of audit records, used by AuditFileSpool when
+ * filespool.format is binary. Layout:
+ *
+ * <pre>
+ *   header : magic (int), version (int), checkpoint (long), reserved (16 bytes)
+ *   record : length (int), crc32 of data (int), data (length bytes)
+ * </pre>
+ *
+ * Length of a record is written after its data, and a zero length marks the end
+ * of records; hence a record torn by a crash is not read. Checkpoint is the
+ * offset of the first record not yet sent to the destination - it is updated in
+ * place after each batch, instead of rewriting the spool index file.
+ */
+public class AuditSpoolSegment implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpoolSegment.class);
+
+    public static final int HEADER_SIZE        = 32;
+    public static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAGIC             = 0x52415350; // RASP
+    private static final int VERSION           = 1;
+    private static final int OFFSET_CHECKPOINT = 8;
+
+    private final File             file;
+    private final RandomAccessFile raFile;
+    private final MappedByteBuffer buffer;
+    private final CRC32            crc = new CRC32();
+    private       int              writeOffset;
+
+    private AuditSpoolSegment(File file, RandomAccessFile raFile, MappedByteBuffer buffer, int writeOffset) {
+        this.file        = file;
+        this.raFile      = raFile;
+        this.buffer      = buffer;
+        this.writeOffset = writeOffset;
+    }
+
+    /**
+     * Creates a segment that can hold records of total size up to capacity bytes
+     */
+    public static AuditSpoolSegment create(File file, int capacity) throws IOException {
+        RandomAccessFile raFile = new RandomAccessFile(file, "rw");
+
+        try {
+            MappedByteBuffer buffer = raFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(OFFSET_CHECKPOINT, HEADER_SIZE);
+
+            return new AuditSpoolSegment(file, raFile, buffer, HEADER_SIZE);
+        } catch (IOException | RuntimeException excp) {
+            raFile.close();
+
+            throw excp;
+        }
+    }
+
+    /**
+     * Opens an existing segment, to append or to read records
+     */
+    public static AuditSpoolSegment open(File file) throws IOException {
+        RandomAccessFile raFile = new RandomAccessFile(file, "rw");
+
+        try {
+            MappedByteBuffer buffer = raFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raFile.length());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + ": not an audit spool segment");
+            }
+
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException(file + ": unsupported audit spool segment version " + buffer.getInt(4));
+            }
+
+            AuditSpoolSegment ret = new AuditSpoolSegment(file, raFile, buffer, HEADER_SIZE);
+
+            ret.writeOffset = ret.findEndOfRecords();
+
+            return ret;
+        } catch (IOException | RuntimeException excp) {
+            raFile.close();
+
+            throw excp;
+        }
+    }
+
+    public static boolean isSegment(File file) {
+        boolean ret = false;
+
+        if (file.length() >= HEADER_SIZE) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                ret = in.readInt() == MAGIC;
+            } catch (IOException excp) {
+                logger.warn("isSegment({}): failed to read header", file, excp);
+            }
+        }
+
+        return ret;
+    }
+
+    public static int getRequiredCapacity(int recordSize) {
+        return RECORD_HEADER_SIZE + recordSize + 4; // 4: end-of-records marker
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return false if the segment doesn't have space for the record
+     */
+    public synchronized boolean append(byte[] record) {
+        int nextOffset = writeOffset + RECORD_HEADER_SIZE + record.length;
+
+        if (nextOffset > buffer.capacity()) {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(record, 0, record.length);
+
+        ((Buffer) buffer).position(writeOffset + RECORD_HEADER_SIZE); // Buffer.position(): MappedByteBuffer.position(int) is not in Java 8 runtime
+        buffer.put(record);
+        buffer.putInt(writeOffset + 4, (int) crc.getValue());
+
+        if (nextOffset + 4 <= buffer.capacity()) {
+            buffer.putInt(nextOffset, 0);
+        }
+
+        buffer.putInt(writeOffset, record.length);
+
+        writeOffset = nextOffset;
+
+        return true;
+    }
+
+    /**
+     * Reads up to maxRecords records starting at the given offset
+     *
+     * @return offset of the record after the last one read
+     */
+    public synchronized long read(long offset, int maxRecords, List<byte[]> records) {
+        int readOffset = (int) offset;
+
+        while (records.size() < maxRecords && readOffset < writeOffset) {
+            int    length = buffer.getInt(readOffset);
+            byte[] record = new byte[length];
+
+            // checksum of records up to writeOffset was verified by open()
+            ((Buffer) buffer).position(readOffset + RECORD_HEADER_SIZE);
+            buffer.get(record);
+
+            records.add(record);
+
+            readOffset += RECORD_HEADER_SIZE + length;
+        }
+
+        return readOffset;
+    }
+
+    public synchronized long getCheckpoint() {
+        return buffer.getLong(OFFSET_CHECKPOINT);
+    }
+
+    public synchronized void setCheckpoint(long offset) {
+        buffer.putLong(OFFSET_CHECKPOINT, offset);
+    }
+
+    /**
+     * Writes the records to the disk, and truncates the file to the size of records
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            buffer.force();
+
+            if (raFile.length() > writeOffset) {
+                raFile.setLength(writeOffset);
+            }
+        } catch (IOException excp) {
+            logger.warn("{}: failed to truncate to {} bytes", file, writeOffset, excp);
+        } finally {
+            raFile.close();
+        }
+    }
+
+    private int findEndOfRecords() {
+        int offset = HEADER_SIZE;
+
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            byte[] record = new byte[length];
+
+            ((Buffer) buffer).position(offset + RECORD_HEADER_SIZE);
+            buffer.get(record);
+
+            crc.reset();
+            crc.update(record, 0, length);
+
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                logger.warn("{}: checksum mismatch at offset {}. Records from this offset will be ignored", file, offset);
+
+                break;
+            }
+
+            offset += RECORD_HEADER_SIZE + length;
+        }
+
+        return offset;
+    }
+}
@@ -22,51 +22,74 @@
 import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.queue.AuditSummaryTable.SummaryDimension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
- * This is a non-blocking queue with no limit on capacity.
+ * This is a non-blocking queue, bounded by queue size: a LinkedBlockingQueue, or
+ * an AuditRingBuffer when queue.type is ring. When the queue is full, events are
+ * handled as per queue.full.policy - drop by default.
  */
 public class AuditSummaryQueue extends AuditQueue implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(AuditSummaryQueue.class);
 
-    public static final String PROP_SUMMARY_INTERVAL = "summary.interval.ms";
+    public static final String PROP_SUMMARY_INTERVAL   = "summary.interval.ms";
+    public static final String PROP_SUMMARY_DIMENSIONS = "summary.dimensions";
+    public static final String PROP_SUMMARY_SHARDS     = "summary.shards";
 
-    private static final int MAX_DRAIN = 100000;
+    private static final int MAX_DRAIN  = 100000;
+    private static final int MAX_SHARDS = 64;
 
     static final String DEFAULT_NAME = "summary";
     static       int    threadCount;
 
-    Thread                              consumerThread;
-    LinkedBlockingQueue<AuditEventBase> queue      = new LinkedBlockingQueue<>();
-    HashMap<String, AuditSummary>       summaryMap = new HashMap<>();
+    Thread                        consumerThread;
+    BlockingQueue<AuditEventBase> queue         = new LinkedBlockingQueue<>(getMaxQueueSize());
+    AuditSummaryTable[]           summaryTables = {new AuditSummaryTable(SummaryDimension.values())};
 
-    private int maxSummaryIntervalMs = 5000;
+    private int                maxSummaryIntervalMs = 5000;
+    private SummaryDimension[] summaryDimensions    = SummaryDimension.values();
+    private ExecutorService    flushExecutor;
 
     public AuditSummaryQueue(AuditHandler consumer) {
         super(consumer);
 
         setName(DEFAULT_NAME);
+        setFullQueuePolicy(FullQueuePolicy.DROP);
     }
 
     @Override
     public void init(Properties props, String propPrefix) {
         super.init(props, propPrefix);
 
+        queue = createQueue();
+
         maxSummaryIntervalMs = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_SUMMARY_INTERVAL, maxSummaryIntervalMs);
+        summaryDimensions    = SummaryDimension.fromString(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_SUMMARY_DIMENSIONS));
+
+        int shardCount = Math.max(1, Math.min(MAX_SHARDS, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_SUMMARY_SHARDS, 1)));
+
+        summaryTables = new AuditSummaryTable[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            summaryTables[i] = new AuditSummaryTable(summaryDimensions);
+        }
 
-        logger.info("maxSummaryInterval={}, name={}", maxSummaryIntervalMs, getName());
+        logger.info("maxSummaryInterval={}, summaryDimensions={}, summaryShards={}, name={}", maxSummaryIntervalMs, SummaryDimension.toString(summaryDimensions), shardCount, getName());
     }
 
     /*
@@ -78,14 +101,12 @@ public void init(Properties props, String propPrefix) {
      */
     @Override
     public boolean log(AuditEventBase event) {
-        // Add to the queue and return ASAP
-        if (queue.size() >= getMaxQueueSize()) {
-            return false;
+        try {
+            // Add to the queue and return ASAP, unless queue.full.policy is block
+            return addToQueue(queue, event);
+        } catch (InterruptedException excp) {
+            throw new RuntimeException(excp);
         }
-
-        queue.add(event);
-
-        return true;
     }
 
     @Override
@@ -103,6 +124,15 @@ public boolean log(Collection<AuditEventBase> events) {
         return ret;
     }
 
+    @Override
+    public void logStatus() {
+        super.logStatus();
+
+        if (isStatusLogEnabled()) {
+            logQueueStats(queue);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -114,6 +144,23 @@ public void start() {
             consumer.start();
         }
 
+        // events are spooled when the queue is full and queue.full.policy is spool or block; these are not summarized
+        if (fileSpoolerEnabled) {
+            fileSpooler.start();
+        }
+
+        if (summaryTables.length > 1) {
+            String threadName = getName() + ".flush";
+
+            flushExecutor = Executors.newFixedThreadPool(summaryTables.length, r -> {
+                Thread t = new Thread(r, threadName);
+
+                t.setDaemon(true);
+
+                return t;
+            });
+        }
+
         consumerThread = new Thread(this, this.getClass().getName() + (threadCount++));
 
         consumerThread.setDaemon(true);
@@ -142,6 +189,10 @@ public void stop() {
         }
 
         consumerThread = null;
+
+        if (fileSpoolerEnabled) {
+            fileSpooler.stop();
+        }
     }
 
     /*
@@ -161,13 +212,14 @@ public void run() {
     }
 
     public void runLogAudit() {
-        long lastDispatchTime = System.currentTimeMillis();
+        long                 lastDispatchTime = System.currentTimeMillis();
+        List<AuditEventBase> eventList        = new ArrayList<>();
 
         while (true) {
             // Time to next dispatch
             long nextDispatchDuration = lastDispatchTime - System.currentTimeMillis() + maxSummaryIntervalMs;
 
-            Collection<AuditEventBase> eventList = new ArrayList<>();
+            eventList.clear();
 
             try {
                 final AuditEventBase event;
@@ -195,54 +247,21 @@ public void runLogAudit() {
             }
 
             for (AuditEventBase event : eventList) {
-                // Add to hash map
-                String       key          = event.getEventKey();
-                AuditSummary auditSummary = summaryMap.get(key);
-
-                if (auditSummary == null) {
-                    auditSummary = new AuditSummary();
+                long hash = AuditSummaryTable.hash(event, summaryDimensions);
 
-                    auditSummary.event     = event;
-                    auditSummary.startTime = event.getEventTime();
-                    auditSummary.endTime   = event.getEventTime();
-                    auditSummary.count     = 1;
-
-                    summaryMap.put(key, auditSummary);
-                } else {
-                    auditSummary.endTime = event.getEventTime();
-
-                    auditSummary.count++;
-                }
+                // high bits of the hash pick the shard; low bits are used for index within the shard
+                summaryTables[(int) ((hash >>> 32) & Integer.MAX_VALUE) % summaryTables.length].add(event, hash);
             }
 
             if (isDrain() || nextDispatchDuration <= 0) {
                 // Reset time just before sending the logs
                 lastDispatchTime = System.currentTimeMillis();
 
-                for (Map.Entry<String, AuditSummary> entry : summaryMap.entrySet()) {
-                    AuditSummary auditSummary = entry.getValue();
-
-                    auditSummary.event.setEventCount(auditSummary.count);
-
-                    long timeDiff = auditSummary.endTime.getTime() - auditSummary.startTime.getTime();
-
-                    timeDiff = timeDiff > 0 ? timeDiff : 1;
-
-                    auditSummary.event.setEventDurationMS(timeDiff);
-
-                    boolean ret = consumer.log(auditSummary.event);
-
-                    if (!ret) {
-                        // We need to drop this event
-                        logFailedEvent(auditSummary.event);
-                    }
-                }
-
-                summaryMap.clear();
+                flushSummaries();
             }
 
             if (isDrain()) {
-                if (summaryMap.isEmpty() && queue.isEmpty()) {
+                if (queue.isEmpty()) { // summaries were flushed above
                     break;
                 }
 
@@ -254,6 +273,10 @@ public void runLogAudit() {
 
         logger.info("Exiting polling loop. name={}", getName());
 
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+
         try {
             // Call stop on the consumer
             logger.info("Calling to stop consumer. name={}, consumer.name={}", getName(), consumer.getName());
@@ -265,10 +288,55 @@ public void runLogAudit() {
         logger.info("Exiting consumerThread.run() method. name={}", getName());
     }
 
-    static class AuditSummary {
-        Date           startTime;
-        Date           endTime;
-        int            count;
-        AuditEventBase event;
+    /*
+     * Sends summaries in all shards to the consumer. Shards are flushed in parallel when summary.shards is more than 1;
+     * returns after all shards are flushed, as the shards are updated only by the consumer thread.
+     */
+    private void flushSummaries() {
+        if (flushExecutor == null) {
+            for (AuditSummaryTable summaryTable : summaryTables) {
+                sendSummaries(summaryTable);
+            }
+        } else {
+            List<Future<?>> futures       = new ArrayList<>(summaryTables.length);
+            boolean         isInterrupted = false;
+
+            for (AuditSummaryTable summaryTable : summaryTables) {
+                if (!summaryTable.isEmpty()) {
+                    futures.add(flushExecutor.submit(() -> sendSummaries(summaryTable)));
+                }
+            }
+
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+
+                        break;
+                    } catch (InterruptedException excp) {
+                        isInterrupted = true;
+                    } catch (ExecutionException excp) {
+                        logger.error("Error while sending summaries. name={}", getName(), excp.getCause());
+
+                        break;
+                    }
+                }
+            }
+
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void sendSummaries(AuditSummaryTable summaryTable) {
+        for (AuditEventBase event : summaryTable.flush()) {
+            boolean ret = consumer.log(event);
+
+            if (!ret) {
+                // We need to drop this event
+                logFailedEvent(event);
+            }
+        }
     }
 }
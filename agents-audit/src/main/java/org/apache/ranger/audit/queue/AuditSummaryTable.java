@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Summary of audit events received in a time window, used by AuditSummaryQueue.
+ * Events having same values for the configured dimensions are collapsed into the
+ * first such event, with count and duration updated when the window is flushed.
+ *
+ * For AuthzAuditEvent, the key is a hash computed from the dimension fields and
+ * entries are kept in open-addressing arrays, to avoid creating objects for each
+ * event; other events are keyed by getEventKey().
+ */
+public class AuditSummaryTable {
+    private static final int   INITIAL_CAPACITY = 1024;
+    private static final float LOAD_FACTOR      = 0.5f;
+
+    private final SummaryDimension[] dimensions;
+
+    private long[]           hashes;
+    private AuditEventBase[] events;
+    private long[]           startTimes;
+    private long[]           endTimes;
+    private int[]            counts;
+    private String[]         eventKeys; // only for events other than AuthzAuditEvent
+    private int              size;
+
+    public AuditSummaryTable(SummaryDimension[] dimensions) {
+        this.dimensions = dimensions;
+
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return hash of values of the given dimensions for AuthzAuditEvent, hash of getEventKey() for other events
+     */
+    public static long hash(AuditEventBase event, SummaryDimension[] dimensions) {
+        long ret = 1;
+
+        if (event instanceof AuthzAuditEvent) {
+            for (SummaryDimension dimension : dimensions) {
+                ret = 31 * ret + dimension.hash((AuthzAuditEvent) event);
+            }
+        } else {
+            ret = Objects.hashCode(event.getEventKey());
+        }
+
+        // spread the bits, so that the low bits used as table index depend on all fields
+        ret ^= ret >>> 33;
+        ret *= 0xff51afd7ed558ccdL;
+        ret ^= ret >>> 33;
+
+        return ret;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(AuditEventBase event) {
+        add(event, hash(event, dimensions));
+    }
+
+    /**
+     * @param hash value returned by hash() for the event, with dimensions of this table
+     */
+    public void add(AuditEventBase event, long hash) {
+        Date   eventTime = event.getEventTime();
+        long   time      = eventTime != null ? eventTime.getTime() : 0;
+        String eventKey  = null;
+
+        if (!(event instanceof AuthzAuditEvent)) {
+            eventKey = event.getEventKey();
+        }
+
+        int mask = hashes.length - 1;
+        int idx  = (int) hash & mask;
+
+        while (events[idx] != null) {
+            if (hashes[idx] == hash && isSameKey(event, eventKey, idx)) {
+                endTimes[idx] = time;
+
+                counts[idx]++;
+
+                return;
+            }
+
+            idx = (idx + 1) & mask;
+        }
+
+        hashes[idx]     = hash;
+        events[idx]     = event;
+        startTimes[idx] = time;
+        endTimes[idx]   = time;
+        counts[idx]     = 1;
+        eventKeys[idx]  = eventKey;
+
+        size++;
+
+        if (size > hashes.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * Updates count and duration of summarized events, returns them and clears the table
+     */
+    public List<AuditEventBase> flush() {
+        List<AuditEventBase> ret = new ArrayList<>(size);
+
+        for (int i = 0; i < events.length; i++) {
+            AuditEventBase event = events[i];
+
+            if (event != null) {
+                long duration = endTimes[i] - startTimes[i];
+
+                event.setEventCount(counts[i]);
+                event.setEventDurationMS(duration > 0 ? duration : 1);
+
+                ret.add(event);
+
+                events[i]    = null;
+                eventKeys[i] = null;
+            }
+        }
+
+        size = 0;
+
+        return ret;
+    }
+
+    private boolean isSameKey(AuditEventBase event, String eventKey, int idx) {
+        final boolean ret;
+
+        if (!(event instanceof AuthzAuditEvent)) {
+            ret = !(events[idx] instanceof AuthzAuditEvent) && Objects.equals(eventKey, eventKeys[idx]);
+        } else if (events[idx] instanceof AuthzAuditEvent) {
+            AuthzAuditEvent e1      = (AuthzAuditEvent) event;
+            AuthzAuditEvent e2      = (AuthzAuditEvent) events[idx];
+            boolean         isEqual = true;
+
+            for (SummaryDimension dimension : dimensions) {
+                if (!dimension.isEqual(e1, e2)) {
+                    isEqual = false;
+
+                    break;
+                }
+            }
+
+            ret = isEqual;
+        } else {
+            ret = false;
+        }
+
+        return ret;
+    }
+
+    private void resize() {
+        long[]           oldHashes     = hashes;
+        AuditEventBase[] oldEvents     = events;
+        long[]           oldStartTimes = startTimes;
+        long[]           oldEndTimes   = endTimes;
+        int[]            oldCounts     = counts;
+        String[]         oldEventKeys  = eventKeys;
+
+        allocate(oldHashes.length * 2);
+
+        int mask = hashes.length - 1;
+
+        for (int i = 0; i < oldEvents.length; i++) {
+            if (oldEvents[i] != null) {
+                int idx = (int) oldHashes[i] & mask;
+
+                while (events[idx] != null) {
+                    idx = (idx + 1) & mask;
+                }
+
+                hashes[idx]     = oldHashes[i];
+                events[idx]     = oldEvents[i];
+                startTimes[idx] = oldStartTimes[i];
+                endTimes[idx]   = oldEndTimes[i];
+                counts[idx]     = oldCounts[i];
+                eventKeys[idx]  = oldEventKeys[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes     = new long[capacity];
+        events     = new AuditEventBase[capacity];
+        startTimes = new long[capacity];
+        endTimes   = new long[capacity];
+        counts     = new int[capacity];
+        eventKeys  = new String[capacity];
+    }
+
+    /**
+     * Fields of AuthzAuditEvent that events are summarized by; by default, all fields used in getEventKey()
+     */
+    public enum SummaryDimension {
+        USER("user"),
+        ACCESS_TYPE("accessType"),
+        RESOURCE_PATH("resourcePath"),
+        RESOURCE_TYPE("resourceType"),
+        ACTION("action"),
+        ACCESS_RESULT("accessResult"),
+        SESSION_ID("sessionId"),
+        CLIENT_IP("clientIP");
+
+        private final String propertyValue;
+
+        SummaryDimension(String propertyValue) {
+            this.propertyValue = propertyValue;
+        }
+
+        /**
+         * @param value comma separated names of dimensions, like user,accessType,resourcePath
+         * @return all dimensions if value is empty
+         */
+        public static SummaryDimension[] fromString(String value) {
+            List<SummaryDimension> ret = new ArrayList<>();
+
+            if (value != null) {
+                for (String name : value.split(",")) {
+                    for (SummaryDimension dimension : values()) {
+                        if (dimension.propertyValue.equalsIgnoreCase(name.trim()) && !ret.contains(dimension)) {
+                            ret.add(dimension);
+                        }
+                    }
+                }
+            }
+
+            return ret.isEmpty() ? values() : ret.toArray(new SummaryDimension[0]);
+        }
+
+        public static String toString(SummaryDimension[] dimensions) {
+            String[] names = new String[dimensions.length];
+
+            for (int i = 0; i < dimensions.length; i++) {
+                names[i] = dimensions[i].propertyValue;
+            }
+
+            return Arrays.toString(names);
+        }
+
+        int hash(AuthzAuditEvent event) {
+            switch (this) {
+                case USER:
+                    return Objects.hashCode(event.getUser());
+                case ACCESS_TYPE:
+                    return Objects.hashCode(event.getAccessType());
+                case RESOURCE_PATH:
+                    return Objects.hashCode(event.getResourcePath());
+                case RESOURCE_TYPE:
+                    return Objects.hashCode(event.getResourceType());
+                case ACTION:
+                    return Objects.hashCode(event.getAction());
+                case ACCESS_RESULT:
+                    return event.getAccessResult();
+                case SESSION_ID:
+                    return Objects.hashCode(event.getSessionId());
+                case CLIENT_IP:
+                    return Objects.hashCode(event.getClientIP());
+                default:
+                    return 0;
+            }
+        }
+
+        boolean isEqual(AuthzAuditEvent e1, AuthzAuditEvent e2) {
+            switch (this) {
+                case USER:
+                    return Objects.equals(e1.getUser(), e2.getUser());
+                case ACCESS_TYPE:
+                    return Objects.equals(e1.getAccessType(), e2.getAccessType());
+                case RESOURCE_PATH:
+                    return Objects.equals(e1.getResourcePath(), e2.getResourcePath());
+                case RESOURCE_TYPE:
+                    return Objects.equals(e1.getResourceType(), e2.getResourceType());
+                case ACTION:
+                    return Objects.equals(e1.getAction(), e2.getAction());
+                case ACCESS_RESULT:
+                    return e1.getAccessResult() == e2.getAccessResult();
+                case SESSION_ID:
+                    return Objects.equals(e1.getSessionId(), e2.getSessionId());
+                case CLIENT_IP:
+                    return Objects.equals(e1.getClientIP(), e2.getClientIP());
+                default:
+                    return true;
+            }
+        }
+    }
+}
@@ -40,17 +40,26 @@
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
-import java.text.Format;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ORCFileUtil {
     private static final Logger logger = LoggerFactory.getLogger(ORCFileUtil.class);
 
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    // values of these fields rarely repeat within a batch, hence aren't looked up in a dictionary
+    private static final Set<String> UNIQUE_VALUED_FIELDS = new HashSet<>(Arrays.asList("eventId", "eventTime"));
+
     private static volatile ORCFileUtil me;
 
     protected CompressionKind    defaultCompression = CompressionKind.SNAPPY;
@@ -62,6 +71,9 @@ public class ORCFileUtil {
 
     protected ArrayList<String>         schemaFields          = new ArrayList<>();
     protected Map<String, ColumnVector> vectorizedRowBatchMap = new HashMap<>();
+    protected Field[]                   schemaFieldAccessors;
+    protected List<Map<String, byte[]>> columnDictionaries    = new ArrayList<>();
+    protected SimpleDateFormat          dateFormatter;
     protected int                       orcBufferSize;
     protected long                      orcStripeSize;
 
@@ -162,40 +174,34 @@ public void close(Writer writer) throws Exception {
         logger.debug("<== ORCFileUtil.close()");
     }
 
+    /*
+     * Writes the events in batches of orcBufferSize rows. Each batch is filled one column at a time, reading the field
+     * with an accessor resolved at init. String values are encoded once per batch, and rows having the same value refer
+     * to the same bytes.
+     */
     public void log(Writer writer, Collection<AuthzAuditEvent> events) throws Exception {
         int eventBatchSize = events.size();
 
         logger.debug("==> ORCFileUtil.log() : EventSize: {} ORC bufferSize:{}", eventBatchSize, orcBufferSize);
 
-        try {
-            for (AuthzAuditEvent event : events) {
-                int row = batch.size++;
-
-                for (String fieldName : schemaFields) {
-                    SchemaInfo   schemaInfo   = getFieldValue(event, fieldName);
-                    ColumnVector columnVector = vectorizedRowBatchMap.get(fieldName);
-
-                    if (columnVector instanceof LongColumnVector) {
-                        ((LongColumnVector) columnVector).vector[row] = castLongObject(schemaInfo.getValue());
-                    } else if (columnVector instanceof BytesColumnVector) {
-                        ((BytesColumnVector) columnVector).setVal(row, getBytesValues(castStringObject(schemaInfo.getValue())));
-                    }
-                }
+        AuthzAuditEvent[] eventArray = events.toArray(new AuthzAuditEvent[0]);
 
-                if (batch.size == orcBufferSize) {
-                    writer.addRowBatch(batch);
+        try {
+            for (int offset = 0; offset < eventArray.length; offset += orcBufferSize) {
+                int rowCount = Math.min(orcBufferSize, eventArray.length - offset);
 
-                    batch.reset();
+                for (int col = 0; col < schemaFieldAccessors.length; col++) {
+                    fillColumn(col, eventArray, offset, rowCount);
                 }
-            }
 
-            if (batch.size != 0) {
+                batch.size = rowCount;
+
                 writer.addRowBatch(batch);
 
-                batch.reset();
+                resetBatch();
             }
         } catch (Exception e) {
-            batch.reset();
+            resetBatch();
 
             logger.error("Error while writing into ORC File:", e);
 
@@ -205,20 +211,12 @@ public void log(Writer writer, Collection<AuthzAuditEvent> events) throws Except
         logger.debug("<== ORCFileUtil.log(): EventSize = {}", eventBatchSize);
     }
 
-    protected byte[] getBytesValues(String val) {
-        byte[] ret = "".getBytes();
-
-        if (val != null) {
-            ret = val.getBytes();
-        }
-
-        return ret;
-    }
-
     protected String getDateString(Date date) {
-        Format formatter = new SimpleDateFormat(dateFormat);
+        if (dateFormatter == null) {
+            dateFormatter = new SimpleDateFormat(dateFormat);
+        }
 
-        return formatter.format(date);
+        return dateFormatter.format(date);
     }
 
     protected void initORCAuditSchema() throws Exception {
@@ -232,6 +230,7 @@ protected void initORCAuditSchema() throws Exception {
         batch  = schema.createRowBatch(orcBufferSize);
 
         buildVectorRowBatch(schemaFieldTypeMap);
+        buildSchemaFieldAccessors();
 
         logger.debug("<== ORCWriter.initORCAuditSchema()");
     }
@@ -273,25 +272,19 @@ protected void buildVectorRowBatch(Map<String, String> schemaFieldTypeMap) throw
         }
     }
 
-    protected SchemaInfo getFieldValue(AuthzAuditEvent event, String fieldName) {
-        SchemaInfo ret = new SchemaInfo();
+    protected void buildSchemaFieldAccessors() throws Exception {
+        schemaFieldAccessors = new Field[schemaFields.size()];
+        columnDictionaries   = new ArrayList<>(schemaFields.size());
 
-        try {
-            Class<AuthzAuditEvent> aClass = AuthzAuditEvent.class;
-            Field                  fld    = aClass.getDeclaredField(fieldName);
+        for (int i = 0; i < schemaFields.size(); i++) {
+            Field fld = AuthzAuditEvent.class.getDeclaredField(schemaFields.get(i));
 
             fld.setAccessible(true);
 
-            Class<?> cls   = fld.getType();
-            Object   value = fld.get(event);
+            schemaFieldAccessors[i] = fld;
 
-            ret.setField(fieldName);
-            ret.setType(cls.getName());
-            ret.setValue(value);
-        } catch (Exception e) {
-            logger.error("Error while writing into ORC File:", e);
+            columnDictionaries.add(UNIQUE_VALUED_FIELDS.contains(schemaFields.get(i)) ? null : new HashMap<>());
         }
-        return ret;
     }
 
     protected ColumnVector getColumnVectorType(String fieldType) throws Exception {
@@ -332,24 +325,6 @@ protected ColumnVector getColumnVectorType(String fieldType) throws Exception {
         return ret;
     }
 
-    protected Long castLongObject(Object object) {
-        long ret = 0L;
-
-        try {
-            if (object instanceof Long) {
-                ret = ((Long) object);
-            } else if (object instanceof Integer) {
-                ret = ((Integer) object).longValue();
-            } else if (object instanceof String) {
-                ret = Long.parseLong((String) object);
-            }
-        } catch (Exception e) {
-            logger.error("Error while writing into ORC File:", e);
-        }
-
-        return ret;
-    }
-
     protected String castStringObject(Object object) {
         String ret = null;
 
@@ -456,33 +431,68 @@ protected CompressionKind getORCCompression(String compression) {
         return ret;
     }
 
-    static class SchemaInfo {
-        String field;
-        String type;
-        Object value;
+    private void fillColumn(int col, AuthzAuditEvent[] events, int offset, int rowCount) {
+        ColumnVector columnVector = batch.cols[col];
+        Field        fld          = schemaFieldAccessors[col];
 
-        public String getField() {
-            return field;
-        }
+        if (columnVector instanceof LongColumnVector) {
+            long[] values = ((LongColumnVector) columnVector).vector;
 
-        public void setField(String field) {
-            this.field = field;
-        }
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = getLongValue(fld, events[offset + row]);
+            }
+        } else if (columnVector instanceof BytesColumnVector) {
+            BytesColumnVector   bytesVector = (BytesColumnVector) columnVector;
+            Map<String, byte[]> dictionary  = columnDictionaries.get(col);
+
+            for (int row = 0; row < rowCount; row++) {
+                String       value = castStringObject(getValue(fld, events[offset + row]));
+                final byte[] bytes;
+
+                if (value == null) {
+                    bytes = EMPTY_BYTES;
+                } else if (dictionary == null) {
+                    bytes = value.getBytes(StandardCharsets.UTF_8);
+                } else {
+                    bytes = dictionary.computeIfAbsent(value, v -> v.getBytes(StandardCharsets.UTF_8));
+                }
 
-        public String getType() {
-            return type;
+                bytesVector.setRef(row, bytes, 0, bytes.length);
+            }
         }
+    }
+
+    private long getLongValue(Field fld, AuthzAuditEvent event) {
+        long ret = 0L;
 
-        public void setType(String type) {
-            this.type = type;
+        try {
+            ret = fld.getLong(event);
+        } catch (Exception e) {
+            logger.error("Error while writing into ORC File:", e);
         }
 
-        public Object getValue() {
-            return value;
+        return ret;
+    }
+
+    private Object getValue(Field fld, AuthzAuditEvent event) {
+        Object ret = null;
+
+        try {
+            ret = fld.get(event);
+        } catch (Exception e) {
+            logger.error("Error while writing into ORC File:", e);
         }
 
-        public void setValue(Object value) {
-            this.value = value;
+        return ret;
+    }
+
+    private void resetBatch() {
+        batch.reset();
+
+        for (Map<String, byte[]> dictionary : columnDictionaries) {
+            if (dictionary != null) {
+                dictionary.clear();
+            }
         }
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.provider;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.model.EncodedAuditEvent;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MiscUtilTest {
+    @Test
+    public void testEncodeOnce() {
+        AuthzAuditEvent   event    = createEvent();
+        EncodedAuditEvent encoded1 = MiscUtil.encode(event);
+        EncodedAuditEvent encoded2 = MiscUtil.encode(event);
+
+        assertSame(encoded1, encoded2);
+        assertSame(encoded1.getJson(), MiscUtil.stringify(event));
+        assertArrayEquals(encoded1.getJson().getBytes(StandardCharsets.UTF_8), encoded1.getJsonBytes());
+        assertFalse(encoded1.getJson().contains("encodedEvent"));
+
+        AuthzAuditEvent parsed = MiscUtil.fromJson(encoded1.getJson(), AuthzAuditEvent.class);
+
+        assertEquals(event.getUser(), parsed.getUser());
+        assertEquals(event.getResourcePath(), parsed.getResourcePath());
+    }
+
+    @Test
+    public void testEncodeAfterUpdate() {
+        AuthzAuditEvent   event    = createEvent();
+        EncodedAuditEvent encoded1 = MiscUtil.encode(event);
+
+        event.setEventCount(5);
+
+        EncodedAuditEvent encoded2 = MiscUtil.encode(event);
+
+        assertNotSame(encoded1, encoded2);
+        assertTrue(encoded2.getJson().contains("\"event_count\":5"));
+    }
+
+    @Test
+    public void testEncodeAfterUpdateThroughGetter() {
+        AuthzAuditEvent   event    = createEvent();
+        EncodedAuditEvent encoded1 = MiscUtil.encode(event);
+
+        event.getTags().add("PII");
+
+        EncodedAuditEvent encoded2 = MiscUtil.encode(event);
+
+        assertNotSame(encoded1, encoded2);
+        assertTrue(encoded2.getJson().contains("PII"));
+        assertSame(encoded2, MiscUtil.encode(event));
+    }
+
+    private static AuthzAuditEvent createEvent() {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setUser("user1");
+        ret.setResourcePath("/tmp/file1");
+        ret.setAccessType("read");
+        ret.setAccessResult((short) 1);
+
+        return ret;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AuditAsyncQueueTest {
+    private static final String PROP_PREFIX = "xasecure.audit.provider.async";
+
+    @Test
+    public void testFullQueuePolicy() {
+        for (String queueType : new String[] {"linked", AuditQueue.QUEUE_TYPE_RING}) {
+            // queue is not started, hence events stay in the queue
+            AuditAsyncQueue dropQueue  = createQueue(queueType, null);
+            AuditAsyncQueue blockQueue = createQueue(queueType, "block");
+
+            assertEquals(AuditQueue.FullQueuePolicy.DROP, dropQueue.getFullQueuePolicy());
+            assertEquals(AuditQueue.FullQueuePolicy.BLOCK, blockQueue.getFullQueuePolicy());
+
+            for (AuditAsyncQueue queue : new AuditAsyncQueue[] {dropQueue, blockQueue}) {
+                assertTrue(queue.log(new AuthzAuditEvent()));
+                assertTrue(queue.log(new AuthzAuditEvent()));
+                assertFalse("queueType=" + queueType + ", policy=" + queue.getFullQueuePolicy(), queue.log(new AuthzAuditEvent()));
+                assertEquals(2, queue.size());
+            }
+        }
+    }
+
+    private static AuditAsyncQueue createQueue(String queueType, String fullQueuePolicy) {
+        AuditAsyncQueue queue = new AuditAsyncQueue(null);
+        Properties      props = new Properties();
+
+        props.setProperty(PROP_PREFIX + "." + AuditQueue.PROP_QUEUE_SIZE, "2");
+        props.setProperty(PROP_PREFIX + "." + AuditQueue.PROP_QUEUE_TYPE, queueType);
+        props.setProperty(PROP_PREFIX + "." + AuditQueue.PROP_QUEUE_FULL_WAIT_MS, "10");
+
+        if (fullQueuePolicy != null) {
+            props.setProperty(PROP_PREFIX + "." + AuditQueue.PROP_QUEUE_FULL_POLICY, fullQueuePolicy);
+        }
+
+        queue.init(props, PROP_PREFIX);
+
+        return queue;
+    }
+}
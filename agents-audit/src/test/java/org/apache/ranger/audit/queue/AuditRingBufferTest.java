@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuditRingBufferTest {
+    @Test
+    public void testOfferAndDrain() {
+        AuditRingBuffer<Integer> queue = new AuditRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+
+        List<Integer> batch = new ArrayList<>();
+
+        assertEquals(3, queue.drainTo(batch, 3));
+        assertEquals(Integer.valueOf(0), batch.get(0));
+        assertEquals(Integer.valueOf(2), batch.get(2));
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+
+        // slots are reused after wrap around
+        assertTrue(queue.offer(5));
+        assertEquals(Integer.valueOf(5), queue.poll());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception {
+        AuditRingBuffer<Integer> queue = new AuditRingBuffer<>(4);
+
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i, 10, TimeUnit.MILLISECONDS));
+        }
+
+        assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testIterator() {
+        AuditRingBuffer<Integer> queue = new AuditRingBuffer<>(4);
+
+        assertEquals("[]", queue.toString());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertEquals("[0, 1, 2, 3]", queue.toString());
+        assertTrue(queue.contains(2));
+
+        Iterator<Integer> iter = queue.iterator();
+
+        assertEquals(Integer.valueOf(0), iter.next());
+
+        // events removed by the consumer during iteration are skipped, except the one already read by the iterator
+        queue.drainTo(new ArrayList<>(), 3);
+
+        assertEquals(Integer.valueOf(1), iter.next());
+        assertEquals(Integer.valueOf(3), iter.next());
+        assertFalse(iter.hasNext());
+
+        // after wrap around
+        assertTrue(queue.offer(4));
+        assertTrue(queue.offer(5));
+        assertEquals(Arrays.asList(3, 4, 5), new ArrayList<>(queue));
+    }
+
+    @Test
+    public void testMultipleProducers() throws Exception {
+        final int                producerCount = 8;
+        final int                eventCount    = 10000;
+        AuditRingBuffer<Integer> queue         = new AuditRingBuffer<>(128);
+        List<Thread>             producers     = new ArrayList<>();
+
+        for (int p = 0; p < producerCount; p++) {
+            final int base = p * eventCount;
+
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < eventCount; i++) {
+                    try {
+                        queue.put(base + i);
+                    } catch (InterruptedException excp) {
+                        Thread.currentThread().interrupt();
+
+                        return;
+                    }
+                }
+            });
+
+            producers.add(producer);
+
+            producer.start();
+        }
+
+        Set<Integer>  received = new HashSet<>();
+        List<Integer> batch    = new ArrayList<>();
+
+        while (received.size() < producerCount * eventCount) {
+            Integer event = queue.poll(5, TimeUnit.SECONDS);
+
+            assertNotNull(event);
+
+            batch.add(event);
+
+            queue.drainTo(batch, 100);
+
+            received.addAll(batch);
+
+            batch.clear();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(producerCount * eventCount, received.size());
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.getLatencyHistogram().toString().startsWith("{<="));
+    }
+}
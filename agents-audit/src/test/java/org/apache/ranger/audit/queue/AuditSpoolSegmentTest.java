@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AuditSpoolSegmentTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        File file = tempFolder.newFile("spool_1.log");
+
+        try (AuditSpoolSegment segment = AuditSpoolSegment.create(file, 1024)) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(segment.append(("event-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        assertTrue(AuditSpoolSegment.isSegment(file));
+
+        try (AuditSpoolSegment segment = AuditSpoolSegment.open(file)) {
+            List<byte[]> records = new ArrayList<>();
+            long         offset  = segment.read(segment.getCheckpoint(), 3, records);
+
+            assertEquals(3, records.size());
+            assertEquals("event-0", new String(records.get(0), StandardCharsets.UTF_8));
+
+            segment.setCheckpoint(offset);
+        }
+
+        // reading resumes from the checkpoint
+        try (AuditSpoolSegment segment = AuditSpoolSegment.open(file)) {
+            List<byte[]> records = new ArrayList<>();
+
+            segment.read(segment.getCheckpoint(), 10, records);
+
+            assertEquals(2, records.size());
+            assertEquals("event-3", new String(records.get(0), StandardCharsets.UTF_8));
+            assertEquals("event-4", new String(records.get(1), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testSegmentFull() throws Exception {
+        File file = tempFolder.newFile("spool_2.log");
+
+        try (AuditSpoolSegment segment = AuditSpoolSegment.create(file, 32)) {
+            assertTrue(segment.append(new byte[16]));
+            assertFalse(segment.append(new byte[16]));
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws Exception {
+        File file = tempFolder.newFile("spool_3.log");
+
+        try (AuditSpoolSegment segment = AuditSpoolSegment.create(file, 1024)) {
+            segment.append("event-0".getBytes(StandardCharsets.UTF_8));
+            segment.append("event-1".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // corrupt the data of the last record
+        try (RandomAccessFile raFile = new RandomAccessFile(file, "rw")) {
+            raFile.seek(raFile.length() - 1);
+            raFile.write('X');
+        }
+
+        try (AuditSpoolSegment segment = AuditSpoolSegment.open(file)) {
+            List<byte[]> records = new ArrayList<>();
+
+            segment.read(segment.getCheckpoint(), 10, records);
+
+            assertEquals(1, records.size());
+
+            // appends continue after the last valid record
+            assertTrue(segment.append("event-2".getBytes(StandardCharsets.UTF_8)));
+
+            records.clear();
+
+            segment.read(segment.getCheckpoint(), 10, records);
+
+            assertEquals(2, records.size());
+            assertEquals("event-2", new String(records.get(1), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testJsonFileIsNotSegment() throws Exception {
+        File file = tempFolder.newFile("spool_4.log");
+
+        try (RandomAccessFile raFile = new RandomAccessFile(file, "rw")) {
+            raFile.write("{\"reqUser\":\"user1\",\"access\":\"read\",\"resource\":\"/tmp\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertFalse(AuditSpoolSegment.isSegment(file));
+    }
+}
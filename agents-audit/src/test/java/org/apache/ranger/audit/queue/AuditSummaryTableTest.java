@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.queue.AuditSummaryTable.SummaryDimension;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AuditSummaryTableTest {
+    @Test
+    public void testSummarize() {
+        AuditSummaryTable table = new AuditSummaryTable(SummaryDimension.values());
+
+        table.add(createEvent("user1", "/path1", "10.0.0.1", 1000));
+        table.add(createEvent("user1", "/path1", "10.0.0.1", 1500));
+        table.add(createEvent("user1", "/path1", "10.0.0.1", 3000));
+        table.add(createEvent("user2", "/path1", "10.0.0.1", 2000));
+
+        assertEquals(2, table.size());
+
+        List<AuditEventBase> summaries = table.flush();
+
+        assertEquals(2, summaries.size());
+        assertTrue(table.isEmpty());
+
+        for (AuditEventBase summary : summaries) {
+            AuthzAuditEvent event = (AuthzAuditEvent) summary;
+
+            if ("user1".equals(event.getUser())) {
+                assertEquals(3, event.getEventCount());
+                assertEquals(2000, event.getEventDurationMS());
+            } else {
+                assertEquals(1, event.getEventCount());
+                assertEquals(1, event.getEventDurationMS());
+            }
+        }
+    }
+
+    @Test
+    public void testDimensions() {
+        SummaryDimension[] dimensions = SummaryDimension.fromString("user, resourcePath,accessResult");
+        AuditSummaryTable  table      = new AuditSummaryTable(dimensions);
+
+        assertArrayEquals(new SummaryDimension[] {SummaryDimension.USER, SummaryDimension.RESOURCE_PATH, SummaryDimension.ACCESS_RESULT}, dimensions);
+        assertArrayEquals(SummaryDimension.values(), SummaryDimension.fromString(null));
+
+        // clientIP is not a dimension, hence these events are summarized together
+        table.add(createEvent("user1", "/path1", "10.0.0.1", 1000));
+        table.add(createEvent("user1", "/path1", "10.0.0.2", 1000));
+        table.add(createEvent("user1", "/path2", "10.0.0.2", 1000));
+
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testResize() {
+        AuditSummaryTable table = new AuditSummaryTable(SummaryDimension.values());
+
+        for (int i = 0; i < 10000; i++) {
+            table.add(createEvent("user" + (i % 5000), "/path", "10.0.0.1", i));
+        }
+
+        assertEquals(5000, table.size());
+
+        long count = 0;
+
+        for (AuditEventBase summary : table.flush()) {
+            count += ((AuthzAuditEvent) summary).getEventCount();
+        }
+
+        assertEquals(10000, count);
+    }
+
+    private static AuthzAuditEvent createEvent(String user, String resourcePath, String clientIP, long eventTime) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setUser(user);
+        ret.setAccessType("read");
+        ret.setResourcePath(resourcePath);
+        ret.setResourceType("path");
+        ret.setAction("read");
+        ret.setAccessResult((short) 1);
+        ret.setClientIP(clientIP);
+        ret.setEventTime(new Date(eventTime));
+
+        return ret;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.destination.HDFSAuditDestination;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ORCFileUtilTest {
+    private static final String PROP_PREFIX = "xasecure.audit.destination.hdfs";
+    private static final int    BUFFER_SIZE = 4;
+    private static final int    EVENT_COUNT = 10; // more than 2 batches, with the last one partially filled
+    private static final long   EVENT_TIME  = 1700000000000L;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testColumnValues() throws Exception {
+        ORCFileUtil           orcFileUtil = new ORCFileUtil();
+        Configuration         conf        = new Configuration();
+        File                  file        = new File(tempFolder.getRoot(), "audit.orc");
+        List<AuthzAuditEvent> events      = createEvents();
+
+        orcFileUtil.init(BUFFER_SIZE, 100000L, "none");
+
+        Writer writer = orcFileUtil.createWriter(conf, FileSystem.getLocal(conf), file.getPath());
+
+        orcFileUtil.log(writer, events);
+        orcFileUtil.close(writer);
+
+        List<Map<String, Object>> rows          = readRows(file);
+        SimpleDateFormat          dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        assertEquals(EVENT_COUNT, rows.size());
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            AuthzAuditEvent     event = events.get(i);
+            Map<String, Object> row   = rows.get(i);
+
+            // int and long fields
+            assertEquals((long) event.getRepositoryType(), row.get("repositoryType"));
+            assertEquals(event.getPolicyId(), row.get("policyId"));
+            assertEquals(event.getSeqNum(), row.get("seqNum"));
+            assertEquals(event.getEventCount(), row.get("eventCount"));
+            assertEquals(event.getEventDurationMS(), row.get("eventDurationMS"));
+
+            // string fields, with unique and repeated values
+            assertEquals(event.getEventId(), row.get("eventId"));
+            assertEquals(event.getRepositoryName(), row.get("repositoryName"));
+            assertEquals(event.getResourcePath(), row.get("resourcePath"));
+            assertEquals(toNonNull(event.getResultReason()), row.get("resultReason"));
+
+            // Date fields are written as formatted strings
+            assertEquals(dateFormatter.format(event.getEventTime()), row.get("eventTime"));
+
+            // null strings, and short fields - declared as string in the schema, are written as empty strings
+            assertEquals(toNonNull(event.getUser()), row.get("user"));
+            assertEquals("", row.get("accessResult"));
+        }
+    }
+
+    @Test
+    public void testJsonAndDirectPathsWriteSameRows() throws Exception {
+        List<AuthzAuditEvent> events     = createEvents();
+        List<String>          jsonEvents = new ArrayList<>();
+
+        for (AuthzAuditEvent event : events) {
+            jsonEvents.add(MiscUtil.stringify(event));
+        }
+
+        HDFSAuditDestination jsonDestination   = createDestination("json");
+        HDFSAuditDestination directDestination = createDestination("direct");
+
+        assertTrue(jsonDestination.logJSON(jsonEvents));
+        assertTrue(directDestination.log(new ArrayList<AuditEventBase>(events))); // AuthzAuditEvents are written via logAsORC()
+
+        jsonDestination.stop();
+        directDestination.stop();
+
+        List<Map<String, Object>> jsonRows   = readRows(getORCFile("json"));
+        List<Map<String, Object>> directRows = readRows(getORCFile("direct"));
+
+        assertEquals(EVENT_COUNT, directRows.size());
+        assertEquals(jsonRows, directRows);
+    }
+
+    private static List<AuthzAuditEvent> createEvents() {
+        List<AuthzAuditEvent> ret = new ArrayList<>();
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setEventId("event-" + i);
+            event.setRepositoryType(i % 3);
+            event.setRepositoryName("hdfsdev");
+            event.setUser(i % 2 == 0 ? "user-" + (i % 4) : null);
+            event.setEventTime(new Date(EVENT_TIME + i * 1000L));
+            event.setAccessType("read");
+            event.setResourcePath("/tmp/donn\u00e9es/file-" + (i % 5));
+            event.setResourceType("path");
+            event.setAccessResult((short) (i % 2));
+            event.setPolicyId(100L + i);
+            event.setResultReason(i % 3 == 0 ? null : "reason-" + (i % 3));
+            event.setAclEnforcer("ranger-acl");
+            event.setSeqNum(Long.MAX_VALUE - i);
+            event.setEventCount(i + 1);
+            event.setEventDurationMS(i * 10L);
+
+            ret.add(event);
+        }
+
+        return ret;
+    }
+
+    private static String toNonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private HDFSAuditDestination createDestination(String subDir) {
+        Properties           props = new Properties();
+        HDFSAuditDestination ret   = new HDFSAuditDestination();
+
+        props.setProperty(PROP_PREFIX + ".dir", tempFolder.getRoot().toURI().toString()); // with file: scheme
+        props.setProperty(PROP_PREFIX + ".subdir", subDir);
+        props.setProperty(PROP_PREFIX + ".filename.format", "audit.orc");
+        props.setProperty(PROP_PREFIX + ".batch.filequeue.filetype", "orc");
+        props.setProperty(PROP_PREFIX + ".orc.buffersize", Integer.toString(BUFFER_SIZE));
+        props.setProperty(PROP_PREFIX + ".orc.compression", "none");
+
+        ret.init(props, PROP_PREFIX);
+
+        return ret;
+    }
+
+    private File getORCFile(String subDir) {
+        File ret = new File(new File(tempFolder.getRoot(), subDir), "audit.orc");
+
+        assertTrue("ORC file not found: " + ret, ret.isFile());
+
+        return ret;
+    }
+
+    private static List<Map<String, Object>> readRows(File file) throws Exception {
+        List<Map<String, Object>> ret    = new ArrayList<>();
+        Reader                    reader = OrcFile.createReader(new Path(file.getPath()), OrcFile.readerOptions(new Configuration()));
+        List<String>              fields = reader.getSchema().getFieldNames();
+        VectorizedRowBatch        batch  = reader.getSchema().createRowBatch();
+
+        try (RecordReader rows = reader.rows()) {
+            while (rows.nextBatch(batch)) {
+                for (int row = 0; row < batch.size; row++) {
+                    Map<String, Object> values = new HashMap<>();
+
+                    for (int col = 0; col < fields.size(); col++) {
+                        values.put(fields.get(col), getValue(batch.cols[col], row));
+                    }
+
+                    ret.add(values);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static Object getValue(ColumnVector columnVector, int row) {
+        final Object ret;
+        int          idx = columnVector.isRepeating ? 0 : row;
+
+        if (!columnVector.noNulls && columnVector.isNull[idx]) {
+            ret = null;
+        } else if (columnVector instanceof LongColumnVector) {
+            ret = ((LongColumnVector) columnVector).vector[idx];
+        } else {
+            BytesColumnVector bytesVector = (BytesColumnVector) columnVector;
+
+            assertNotNull(bytesVector.vector[idx]);
+
+            ret = new String(bytesVector.vector[idx], bytesVector.start[idx], bytesVector.length[idx], StandardCharsets.UTF_8);
+        }
+
+        return ret;
+    }
+}
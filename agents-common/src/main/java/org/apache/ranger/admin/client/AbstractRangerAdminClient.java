@@ -127,6 +127,11 @@ public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActiva
         return null;
     }
 
+    @Override
+    public Boolean waitForChange(int entityType, long lastKnownVersion, long timeoutMs) throws Exception {
+        return null;
+    }
+
     public boolean isKerberosEnabled(UserGroupInformation user) {
         final boolean ret;
 
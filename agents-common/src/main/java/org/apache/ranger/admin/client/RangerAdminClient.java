@@ -63,4 +63,11 @@ public interface RangerAdminClient {
     RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception;
 
     ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception;
+
+    /*
+     * waits until the version of given entity type (RangerPluginInfo.ENTITY_TYPE_*) in Ranger admin differs from lastKnownVersion.
+     * Returns true if the version changed, false if it didn't change within timeoutMs, and null if Ranger admin doesn't support
+     * or can't currently service such wait - in which case the caller should fall back to polling.
+     */
+    Boolean waitForChange(int entityType, long lastKnownVersion, long timeoutMs) throws Exception;
 }
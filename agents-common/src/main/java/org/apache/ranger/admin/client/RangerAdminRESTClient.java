@@ -29,6 +29,7 @@
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
@@ -49,10 +50,12 @@
 
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.NewCookie;
 
 import java.io.UnsupportedEncodingException;
 import java.security.PrivilegedExceptionAction;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +77,8 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
     private       boolean          isRangerCookieEnabled;
     private       String           rangerAdminCookieName;
     private       Cookie           sessionId;
+    private       String           policiesETag;
+    private       volatile boolean isChangeNotificationSupported;
 
     @Override
     public void init(String serviceName, String appId, String propertyPrefix, Configuration config) {
@@ -143,7 +148,9 @@ public ServicePolicies getServicePoliciesIfUpdated(final long lastKnownVersion,
         queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_POLICY_DELTAS, Boolean.toString(supportsPolicyDeltas));
         queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
 
-        final ClientResponse response;
+        final String              eTag    = this.policiesETag;
+        final Map<String, String> headers = eTag != null ? Collections.singletonMap(HttpHeaders.IF_NONE_MATCH, eTag) : null; // the server returns 304 if policies for lastKnownVersion are same as the last download, for example after a failure to apply them
+        final ClientResponse      response;
 
         if (isSecureMode) {
             LOG.debug("Checking Service policy if updated as user : {}", user);
@@ -152,7 +159,7 @@ public ServicePolicies getServicePoliciesIfUpdated(final long lastKnownVersion,
                 try {
                     String relativeURL = RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED + serviceNameUrlParam;
 
-                    return restClient.get(relativeURL, queryParams, sessionId);
+                    return restClient.get(relativeURL, queryParams, sessionId, headers);
                 } catch (Exception e) {
                     LOG.error("Failed to get response, Error is : {}", e.getMessage());
                 }
@@ -164,10 +171,11 @@ public ServicePolicies getServicePoliciesIfUpdated(final long lastKnownVersion,
 
             String relativeURL = RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + serviceNameUrlParam;
 
-            response = restClient.get(relativeURL, queryParams, sessionId);
+            response = restClient.get(relativeURL, queryParams, sessionId, headers);
         }
 
         checkAndResetSessionCookie(response);
+        updateAdminCapabilities(response);
 
         if (response == null || response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED || response.getStatus() == HttpServletResponse.SC_NO_CONTENT) {
             if (response == null) {
@@ -182,6 +190,10 @@ public ServicePolicies getServicePoliciesIfUpdated(final long lastKnownVersion,
             ret = null;
         } else if (response.getStatus() == HttpServletResponse.SC_OK) {
             ret = JsonUtilsV2.readResponse(response, ServicePolicies.class);
+
+            if (ret != null) {
+                policiesETag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+            }
         } else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
             ret = null;
 
@@ -247,6 +259,7 @@ public RangerRoles getRolesIfUpdated(final long lastKnownRoleVersion, final long
         }
 
         checkAndResetSessionCookie(response);
+        updateAdminCapabilities(response);
 
         if (response == null || response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED || response.getStatus() == HttpServletResponse.SC_NO_CONTENT) {
             if (response == null) {
@@ -789,6 +802,7 @@ public ServiceTags getServiceTagsIfUpdated(final long lastKnownVersion, final lo
         }
 
         checkAndResetSessionCookie(response);
+        updateAdminCapabilities(response);
 
         final ServiceTags ret;
 
@@ -919,6 +933,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
         }
 
         checkAndResetSessionCookie(response);
+        updateAdminCapabilities(response);
 
         final RangerUserStore ret;
 
@@ -1038,6 +1053,68 @@ public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActiva
         return ret;
     }
 
+    @Override
+    public Boolean waitForChange(final int entityType, final long lastKnownVersion, final long timeoutMs) throws Exception {
+        LOG.debug("==> RangerAdminRESTClient.waitForChange({}, {}, {})", entityType, lastKnownVersion, timeoutMs);
+
+        final Boolean              ret;
+        final UserGroupInformation user         = MiscUtil.getUGILoginUser();
+        final boolean              isSecureMode = isKerberosEnabled(user);
+        final String               relativeURL  = getWaitForChangeUrl(entityType, isSecureMode);
+
+        if (!isChangeNotificationSupported || relativeURL == null) {
+            ret = null;
+        } else {
+            final Cookie              sessionId   = this.sessionId;
+            final Map<String, String> queryParams = new HashMap<>();
+
+            queryParams.put(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, Long.toString(lastKnownVersion));
+            queryParams.put(RangerRESTUtils.REST_PARAM_WAIT_TIMEOUT_MS, Long.toString(timeoutMs));
+
+            final ClientResponse response;
+
+            if (isSecureMode) {
+                response = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<ClientResponse>) () -> {
+                    try {
+                        return restClient.get(relativeURL + serviceNameUrlParam, queryParams, sessionId);
+                    } catch (Exception e) {
+                        LOG.error("Failed to get response, Error is : {}", e.getMessage());
+                    }
+
+                    return null;
+                });
+            } else {
+                response = restClient.get(relativeURL + serviceNameUrlParam, queryParams, sessionId);
+            }
+
+            checkAndResetSessionCookie(response);
+
+            if (response == null) {
+                ret = null;
+
+                LOG.error("Error waiting for change - received NULL response: entityType={}, secureMode={}, user={}, serviceName={}", entityType, isSecureMode, user, serviceName);
+            } else if (response.getStatus() == HttpServletResponse.SC_OK || response.getStatus() == HttpServletResponse.SC_NO_CONTENT) {
+                ret = Boolean.TRUE;
+            } else if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                ret = Boolean.FALSE;
+            } else {
+                ret = null;
+
+                if (response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+                    LOG.debug("Ranger admin can't service wait for change now: entityType={}, serviceName={}", entityType, serviceName);
+                } else {
+                    RESTResponse resp = RESTResponse.fromClientResponse(response);
+
+                    LOG.warn("Error waiting for change: entityType={}, secureMode={}, user={}, response={}, serviceName={}", entityType, isSecureMode, user, resp, serviceName);
+                }
+            }
+        }
+
+        LOG.debug("<== RangerAdminRESTClient.waitForChange({}, {}, {}): ret={}", entityType, lastKnownVersion, timeoutMs, ret);
+
+        return ret;
+    }
+
     private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs, int restClientReadTimeOutMs, int restClientMaxRetryAttempts, int restClientRetryIntervalMs, Configuration config) {
         LOG.debug("==> RangerAdminRESTClient.init({}, {})", url, sslConfigFileName);
 
@@ -1051,6 +1128,52 @@ private void init(String url, String sslConfigFileName, int restClientConnTimeOu
         LOG.debug("<== RangerAdminRESTClient.init({}, {})", url, sslConfigFileName);
     }
 
+    private String getWaitForChangeUrl(int entityType, boolean isSecureMode) {
+        final String ret;
+
+        switch (entityType) {
+            case RangerPluginInfo.ENTITY_TYPE_POLICIES:
+                ret = isSecureMode ? RangerRESTUtils.REST_URL_SECURE_POLICY_WAIT_FOR_CHANGE : RangerRESTUtils.REST_URL_POLICY_WAIT_FOR_CHANGE;
+                break;
+            case RangerPluginInfo.ENTITY_TYPE_TAGS:
+                ret = isSecureMode ? RangerRESTUtils.REST_URL_SECURE_TAGS_WAIT_FOR_CHANGE : RangerRESTUtils.REST_URL_TAGS_WAIT_FOR_CHANGE;
+                break;
+            case RangerPluginInfo.ENTITY_TYPE_ROLES:
+                ret = isSecureMode ? RangerRESTUtils.REST_URL_SECURE_ROLES_WAIT_FOR_CHANGE : RangerRESTUtils.REST_URL_ROLES_WAIT_FOR_CHANGE;
+                break;
+            case RangerPluginInfo.ENTITY_TYPE_USERSTORE:
+                ret = isSecureMode ? RangerRESTUtils.REST_URL_SECURE_USERSTORE_WAIT_FOR_CHANGE : RangerRESTUtils.REST_URL_USERSTORE_WAIT_FOR_CHANGE;
+                break;
+            default:
+                ret = null;
+                break;
+        }
+
+        return ret;
+    }
+
+    // Ranger admin advertises its capabilities in responses to download requests
+    private void updateAdminCapabilities(ClientResponse response) {
+        if (response != null && (response.getStatus() == HttpServletResponse.SC_OK || response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED)) {
+            String  adminCapabilities = response.getHeaders().getFirst(RangerRESTUtils.REST_HEADER_ADMIN_CAPABILITIES);
+            boolean isSupported       = false;
+
+            if (!StringUtil.isEmpty(adminCapabilities)) {
+                try {
+                    isSupported = new RangerPluginCapability(Long.parseUnsignedLong(adminCapabilities.trim(), 16)).isSupported(RangerPluginCapability.RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_CHANGE_NOTIFICATION);
+                } catch (NumberFormatException excp) {
+                    LOG.warn("invalid value in header {}: {}", RangerRESTUtils.REST_HEADER_ADMIN_CAPABILITIES, adminCapabilities);
+                }
+            }
+
+            if (isSupported != isChangeNotificationSupported) {
+                LOG.info("Ranger admin {} change notification", isSupported ? "supports" : "doesn't support");
+
+                isChangeNotificationSupported = isSupported;
+            }
+        }
+    }
+
     private void checkAndResetSessionCookie(ClientResponse response) {
         if (isRangerCookieEnabled) {
             if (response == null) {
@@ -24,6 +24,9 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
+import org.apache.ranger.plugin.policyengine.RangerScriptExpression;
+import org.apache.ranger.plugin.util.CachedScriptEngine;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.ScriptEngineUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,13 +36,23 @@
 import java.util.List;
 import java.util.Map;
 
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_BINDINGS_POOL;
 import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_JSON_CTX;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_NATIVE_EVAL;
 
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
     private static final Logger LOG = LoggerFactory.getLogger(RangerScriptConditionEvaluator.class);
 
-    private ScriptEngine scriptEngine;
-    private Boolean      enableJsonCtx;
+    private static final Logger PERF_POLICY_CONDITION_SCRIPT_LOG = RangerPerfTracer.getPerfLogger("policy.condition.script");
+
+    private          String                 engineName;
+    private          int                    maxPooledBindings;
+    private volatile boolean                isScriptEngineInitDone;
+    private volatile CachedScriptEngine     scriptEngine;
+    private          Boolean                enableJsonCtx;
+    private          boolean                enableNativeEval = true;
+    private volatile boolean                isNativeExpressionInitDone;
+    private volatile RangerScriptExpression nativeExpression;
 
     @Override
     public void init() {
@@ -47,8 +60,8 @@ public void init() {
 
         super.init();
 
-        String              engineName  = "JavaScript";
-        Map<String, String> evalOptions = conditionDef.getEvaluatorOptions();
+        boolean             enableBindingsPool = true;
+        Map<String, String> evalOptions        = conditionDef.getEvaluatorOptions();
 
         if (MapUtils.isNotEmpty(evalOptions)) {
             engineName = evalOptions.get("engineName");
@@ -58,23 +71,29 @@ public void init() {
             if (StringUtils.isNotEmpty(strEnableJsonCtx)) {
                 enableJsonCtx = Boolean.parseBoolean(strEnableJsonCtx);
             }
+
+            String strEnableBindingsPool = evalOptions.get(SCRIPT_OPTION_ENABLE_BINDINGS_POOL);
+
+            if (StringUtils.isNotEmpty(strEnableBindingsPool)) {
+                enableBindingsPool = Boolean.parseBoolean(strEnableBindingsPool);
+            }
+
+            String strEnableNativeEval = evalOptions.get(SCRIPT_OPTION_ENABLE_NATIVE_EVAL);
+
+            if (StringUtils.isNotEmpty(strEnableNativeEval)) {
+                enableNativeEval = Boolean.parseBoolean(strEnableNativeEval);
+            }
         }
 
         if (StringUtils.isBlank(engineName)) {
             engineName = "JavaScript";
         }
 
-        LOG.debug("RangerScriptConditionEvaluator.init() - engineName={}", engineName);
+        maxPooledBindings = enableBindingsPool ? CachedScriptEngine.DEFAULT_MAX_POOLED_BINDINGS : 0;
 
-        scriptEngine = ScriptEngineUtil.createScriptEngine(serviceDef.getName());
+        LOG.debug("RangerScriptConditionEvaluator.init() - engineName={}, enableBindingsPool={}, enableNativeEval={}", engineName, enableBindingsPool, enableNativeEval);
 
-        if (scriptEngine == null) {
-            String conditionType = condition != null ? condition.getType() : null;
-
-            LOG.error("failed to initialize condition '{}': script engine '{}' was not created", conditionType, engineName);
-        } else {
-            LOG.info("ScriptEngine for engineName=[{}] is successfully created", engineName);
-        }
+        // script engine is created on first evaluation of a script that is not supported by RangerScriptExpression
 
         LOG.debug("<== RangerScriptConditionEvaluator.init({})", condition);
     }
@@ -84,31 +103,50 @@ public boolean isMatched(RangerAccessRequest request) {
         LOG.debug("==> RangerScriptConditionEvaluator.isMatched()");
 
         boolean result = true;
+        String  script = getScript();
 
-        if (scriptEngine != null) {
-            String script = getScript();
+        if (StringUtils.isBlank(script)) {
+            String conditionType = condition != null ? condition.getType() : null;
 
-            if (StringUtils.isNotBlank(script)) {
-                LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={{}}", script);
+            LOG.error("failed to evaluate condition '{}': script is empty", conditionType);
+        } else {
+            LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={{}}", script);
 
-                if (enableJsonCtx == null) { // if not specified in evaluatorOptions, set it on first call to isMatched()
-                    enableJsonCtx = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
-                }
+            if (enableJsonCtx == null) { // if not specified in evaluatorOptions, set it on first call to isMatched()
+                enableJsonCtx = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
+            }
 
-                RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request, scriptEngine, enableJsonCtx);
+            RangerScriptExpression expression = getNativeExpression(script);
 
-                evaluator.evaluateConditionScript(script);
+            CachedScriptEngine engine = expression == null ? getScriptEngine() : null; // created only when needed
 
-                result = evaluator.getResult();
+            if (expression != null || engine != null) {
+                RangerPerfTracer perf = null;
+
+                if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_CONDITION_SCRIPT_LOG)) {
+                    perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_LOG, "RangerScriptConditionEvaluator.isMatched(condition=" + condition.getType() + ", isNative=" + (expression != null) + ", script=" + script + ")");
+                }
+
+                if (expression != null) {
+                    try {
+                        result = expression.isMatched(request);
+                    } finally {
+                        RangerPerfTracer.log(perf);
+                    }
+                } else {
+                    try (RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request, engine, enableJsonCtx)) {
+                        evaluator.evaluateConditionScript(script);
+
+                        result = evaluator.getResult();
+                    } finally {
+                        RangerPerfTracer.log(perf);
+                    }
+                }
             } else {
                 String conditionType = condition != null ? condition.getType() : null;
 
-                LOG.error("failed to evaluate condition '{}': script is empty", conditionType);
+                LOG.error("failed to evaluate condition '{}': script engine not found", conditionType);
             }
-        } else {
-            String conditionType = condition != null ? condition.getType() : null;
-
-            LOG.error("failed to evaluate condition '{}': script engine not found", conditionType);
         }
 
         LOG.debug("<== RangerScriptConditionEvaluator.isMatched(), result={}", result);
@@ -116,6 +154,52 @@ public boolean isMatched(RangerAccessRequest request) {
         return result;
     }
 
+    /*
+     * scripts that use only the subset supported by RangerScriptExpression are evaluated without the script engine.
+     * Compiled on first call, as getScript() of subclasses might not return the script until their init() completes.
+     */
+    private RangerScriptExpression getNativeExpression(String script) {
+        if (!isNativeExpressionInitDone) {
+            RangerScriptExpression expression = enableNativeEval ? RangerScriptExpression.compile(script) : null;
+
+            // without JSON context, USER and TAG are not available to scripts; retain the script engine's behavior in such cases
+            if (expression != null && expression.needsJsonCtx() && !Boolean.TRUE.equals(enableJsonCtx)) {
+                expression = null;
+            }
+
+            LOG.debug("RangerScriptConditionEvaluator.getNativeExpression({}): ret={}", script, expression);
+
+            nativeExpression           = expression;
+            isNativeExpressionInitDone = true;
+        }
+
+        return nativeExpression;
+    }
+
+    private CachedScriptEngine getScriptEngine() {
+        if (!isScriptEngineInitDone) {
+            synchronized (this) {
+                if (!isScriptEngineInitDone) {
+                    ScriptEngine engine = ScriptEngineUtil.createScriptEngine(serviceDef.getName());
+
+                    if (engine != null) {
+                        scriptEngine = new CachedScriptEngine(engine, CachedScriptEngine.DEFAULT_MAX_COMPILED_SCRIPTS, maxPooledBindings);
+
+                        LOG.info("ScriptEngine for engineName=[{}] is successfully created", engineName);
+                    } else {
+                        String conditionType = condition != null ? condition.getType() : null;
+
+                        LOG.error("failed to initialize condition '{}': script engine '{}' was not created", conditionType, engineName);
+                    }
+
+                    isScriptEngineInitDone = true;
+                }
+            }
+        }
+
+        return scriptEngine;
+    }
+
     protected String getScript() {
         String       ret    = null;
         List<String> values = condition.getValues();
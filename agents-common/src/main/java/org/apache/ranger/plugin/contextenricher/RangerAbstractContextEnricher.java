@@ -181,6 +181,19 @@ public void notifyAuthContextChanged() {
         }
     }
 
+    /*
+     * applies the update in the plugin's engine updater, so that it doesn't interleave with other updates of the plugin
+     */
+    public void executeEngineUpdate(String updateName, Runnable update) {
+        RangerPluginContext pluginContext = this.pluginContext;
+
+        if (pluginContext != null) {
+            pluginContext.getEngineUpdater().execute(updateName, update);
+        } else {
+            update.run();
+        }
+    }
+
     public String getPropertyPrefix() {
         RangerPluginConfig pluginConfig = getPluginConfig();
 
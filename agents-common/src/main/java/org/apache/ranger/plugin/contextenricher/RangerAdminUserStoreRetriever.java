@@ -22,6 +22,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
@@ -69,4 +70,9 @@ public RangerUserStore retrieveUserStoreInfo(long lastKnownVersion, long lastAct
         }
         return rangerUserStore;
     }
+
+    @Override
+    public Boolean waitForChange(long lastKnownVersion, long timeoutMs) throws Exception {
+        return adminClient != null ? adminClient.waitForChange(RangerPluginInfo.ENTITY_TYPE_USERSTORE, lastKnownVersion, timeoutMs) : null;
+    }
 }
@@ -29,15 +29,12 @@
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -48,10 +45,10 @@ public class RangerGdsEnricher extends RangerAbstractContextEnricher {
     public static final String REFRESHER_POLLINGINTERVAL_OPTION = "refresherPollingInterval";
     public static final String RETRIEVER_CLASSNAME_OPTION       = "retrieverClassName";
 
-    private RangerGdsInfoRetriever gdsInfoRetriever;
-    private RangerGdsInfoRefresher gdsInfoRefresher;
-    private RangerServiceDefHelper serviceDefHelper;
-    private GdsPolicyEngine        gdsPolicyEngine;
+    private          RangerGdsInfoRetriever gdsInfoRetriever;
+    private          RangerGdsInfoRefresher gdsInfoRefresher;
+    private          RangerServiceDefHelper serviceDefHelper;
+    private volatile GdsPolicyEngine        gdsPolicyEngine;
 
     @Override
     public void init() {
@@ -158,9 +155,11 @@ public void enrich(RangerAccessRequest request) {
     }
 
     public void setGdsInfo(ServiceGdsInfo gdsInfo) {
-        this.gdsPolicyEngine = new GdsPolicyEngine(gdsInfo, serviceDefHelper, getPluginContext());
+        executeEngineUpdate("setGdsInfo", () -> {
+            this.gdsPolicyEngine = new GdsPolicyEngine(gdsInfo, serviceDefHelper, getPluginContext());
 
-        setGdsInfoInPlugin();
+            setGdsInfoInPlugin();
+        });
     }
 
     public RangerServiceDefHelper getServiceDefHelper() {
@@ -265,9 +264,9 @@ ServiceGdsInfo loadFromCache() {
             ServiceGdsInfo ret       = null;
             File           cacheFile = org.apache.commons.lang.StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-            if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-                try (Reader reader = new FileReader(cacheFile)) {
-                    ret = JsonUtilsV2.readValue(reader, ServiceGdsInfo.class);
+            if (cacheFile != null && RangerCacheFileUtil.exists(cacheFile)) {
+                try {
+                    ret = RangerCacheFileUtil.read(cacheFile, JsonUtilsV2.getMapper(), ServiceGdsInfo.class);
                 } catch (Exception excp) {
                     LOG.error("failed to load gdsInfo from cache file {}", cacheFile.getAbsolutePath(), excp);
                 }
@@ -287,8 +286,8 @@ void saveToCache(ServiceGdsInfo gdsInfo) {
                 File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
                 if (cacheFile != null) {
-                    try (Writer writer = new FileWriter(cacheFile)) {
-                        JsonUtilsV2.writeValue(writer, gdsInfo);
+                    try {
+                        RangerCacheFileUtil.write(cacheFile, JsonUtilsV2.getMapper(), gdsInfo, RangerCacheFileUtil.isBinaryFormat(getPluginConfig()));
                     } catch (Exception excp) {
                         LOG.error("failed to save gdsInfo to cache file '{}'", cacheFile.getAbsolutePath(), excp);
                     }
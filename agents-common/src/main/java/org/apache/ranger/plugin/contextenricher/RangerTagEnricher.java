@@ -44,6 +44,8 @@
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
+import org.apache.ranger.plugin.util.RangerChangeWatcher;
 import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
@@ -54,10 +56,6 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -92,6 +90,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
     private       Timer                          tagDownloadTimer;
+    private       RangerChangeWatcher            tagChangeWatcher;
     private       RangerServiceDefHelper         serviceDefHelper;
 
     public static RangerServiceResourceMatcher createRangerServiceResourceMatcher(RangerServiceResource serviceResource, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies, RangerPluginContext pluginContext) {
@@ -204,10 +203,18 @@ public void init() {
                 tagRefresher.setDaemon(true);
                 tagRefresher.startRefresher();
 
+                if (RangerChangeWatcher.isEnabled(getPluginConfig())) {
+                    RangerTagRefresher refresher = tagRefresher;
+
+                    tagChangeWatcher = new RangerChangeWatcher("TagChangeWatcher(serviceName=" + serviceName + ")", tagRetriever::waitForChange, refresher::getLastKnownVersion, tagDownloadQueue, RangerChangeWatcher.getTimeoutMs(getPluginConfig()), pollingIntervalMs);
+
+                    tagChangeWatcher.start();
+                }
+
                 tagDownloadTimer = new Timer("policyDownloadTimer", true);
 
                 try {
-                    tagDownloadTimer.schedule(new DownloaderTask(tagDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+                    tagDownloadTimer.schedule(new DownloaderTask(tagDownloadQueue, tagChangeWatcher), pollingIntervalMs, pollingIntervalMs);
 
                     LOG.debug("Scheduled tagDownloadRefresher to download tags every {} milliseconds", pollingIntervalMs);
                 } catch (IllegalStateException exception) {
@@ -278,6 +285,14 @@ public boolean preCleanup() {
             tagDownloadTimer.cancel();
         }
 
+        RangerChangeWatcher tagChangeWatcher = this.tagChangeWatcher;
+
+        this.tagChangeWatcher = null;
+
+        if (tagChangeWatcher != null) {
+            tagChangeWatcher.stopWatcher();
+        }
+
         RangerTagRefresher tagRefresher = this.tagRefresher;
 
         this.tagRefresher = null;
@@ -305,7 +320,7 @@ public void enrich(RangerAccessRequest request) {
     public void setServiceTags(final ServiceTags serviceTags) {
         boolean rebuildOnlyIndex = false;
 
-        setServiceTags(serviceTags, rebuildOnlyIndex);
+        executeEngineUpdate("setServiceTags", () -> setServiceTags(serviceTags, rebuildOnlyIndex));
     }
 
     public Long getServiceTagsVersion() {
@@ -465,7 +480,7 @@ private EnrichedServiceTags processServiceTags(ServiceTags serviceTags) {
                 serviceResourceTrie = new HashMap<>();
 
                 for (RangerResourceDef resourceDef : serviceDef.getResources()) {
-                    serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null));
+                    serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().optimizeTagTrieForCompactNodes, null));
                 }
             }
 
@@ -509,7 +524,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
                             } else {
                                 LOG.debug("Trying to add resource-matcher to new trie for {}", resourceDef.getName());
 
-                                trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null);
+                                trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().optimizeTagTrieForCompactNodes, null);
 
                                 serviceResourceTrie.put(resourceDef.getName(), trie);
                             }
@@ -856,6 +871,10 @@ static class RangerTagRefresher extends Thread {
             setName("RangerTagRefresher(serviceName=" + tagRetriever.getServiceName() + ")-" + getId());
         }
 
+        public long getLastKnownVersion() {
+            return lastKnownVersion;
+        }
+
         public long getLastActivationTimeInMillis() {
             return lastActivationTimeInMillis;
         }
@@ -919,13 +938,9 @@ final ServiceTags loadFromCache() {
 
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-            if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-                Reader reader = null;
-
+            if (cacheFile != null && RangerCacheFileUtil.exists(cacheFile)) {
                 try {
-                    reader = new FileReader(cacheFile);
-
-                    serviceTags = JsonUtils.jsonToObject(reader, ServiceTags.class);
+                    serviceTags = RangerCacheFileUtil.read(cacheFile, JsonUtils.getMapper(), ServiceTags.class);
 
                     if (serviceTags != null && !StringUtils.equals(tagEnricher.getServiceName(), serviceTags.getServiceName())) {
                         LOG.warn("ignoring unexpected serviceName '{}' in cache file '{}'", serviceTags.getServiceName(), cacheFile.getAbsolutePath());
@@ -934,14 +949,6 @@ final ServiceTags loadFromCache() {
                     }
                 } catch (Exception excp) {
                     LOG.error("failed to load service-tags from cache file {}", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (reader != null) {
-                        try {
-                            reader.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file {}", cacheFile.getAbsolutePath(), excp);
-                        }
-                    }
                 }
             } else {
                 LOG.warn("cache file does not exist or not readable '{}'", (cacheFile == null ? null : cacheFile.getAbsolutePath()));
@@ -959,22 +966,10 @@ final void saveToCache(ServiceTags serviceTags) {
                 File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
                 if (cacheFile != null) {
-                    Writer writer = null;
-
                     try {
-                        writer = new FileWriter(cacheFile);
-
-                        JsonUtils.objectToWriter(writer, serviceTags);
+                        RangerCacheFileUtil.write(cacheFile, JsonUtils.getMapper(), serviceTags, RangerCacheFileUtil.isBinaryFormat(tagEnricher.getPluginConfig()));
                     } catch (Exception excp) {
                         LOG.error("failed to save service-tags to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                    } finally {
-                        if (writer != null) {
-                            try {
-                                writer.close();
-                            } catch (Exception excp) {
-                                LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                            }
-                        }
                     }
                 }
             } else {
@@ -989,6 +984,10 @@ final void disableCache() {
 
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
+            if (cacheFile != null) {
+                RangerCacheFileUtil.deleteSnapshot(cacheFile);
+            }
+
             if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
                 LOG.warn("Cleaning up local tags cache");
 
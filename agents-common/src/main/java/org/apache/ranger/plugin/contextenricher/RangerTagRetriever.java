@@ -37,6 +37,13 @@ public abstract class RangerTagRetriever {
 
     public abstract ServiceTags retrieveTags(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception;
 
+    /*
+     * waits for tags version to change from lastKnownVersion; returns null if the retriever doesn't support such wait
+     */
+    public Boolean waitForChange(long lastKnownVersion, long timeoutMs) throws Exception {
+        return null;
+    }
+
     public String getServiceName() {
         return serviceName;
     }
@@ -25,6 +25,7 @@
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerChangeWatcher;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
@@ -49,6 +50,7 @@ public class RangerUserStoreEnricher extends RangerAbstractContextEnricher {
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
     private       Timer                          userStoreDownloadTimer;
+    private       RangerChangeWatcher            userStoreChangeWatcher;
 
     @Override
     public void init() {
@@ -109,10 +111,18 @@ public void init() {
                 userStoreRefresher.setDaemon(true);
                 userStoreRefresher.startRefresher();
 
+                if (RangerChangeWatcher.isEnabled(getPluginConfig())) {
+                    RangerUserStoreRefresher refresher = userStoreRefresher;
+
+                    userStoreChangeWatcher = new RangerChangeWatcher("UserStoreChangeWatcher(serviceName=" + serviceName + ")", userStoreRetriever::waitForChange, refresher::getLastKnownVersion, userStoreDownloadQueue, RangerChangeWatcher.getTimeoutMs(getPluginConfig()), pollingIntervalMs);
+
+                    userStoreChangeWatcher.start();
+                }
+
                 userStoreDownloadTimer = new Timer("userStoreDownloadTimer", true);
 
                 try {
-                    userStoreDownloadTimer.schedule(new DownloaderTask(userStoreDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+                    userStoreDownloadTimer.schedule(new DownloaderTask(userStoreDownloadQueue, userStoreChangeWatcher), pollingIntervalMs, pollingIntervalMs);
 
                     LOG.debug("Scheduled userStoreDownloadRefresher to download userstore every {} milliseconds", pollingIntervalMs);
                 } catch (IllegalStateException exception) {
@@ -161,6 +171,11 @@ public boolean preCleanup() {
             userStoreDownloadTimer = null;
         }
 
+        if (userStoreChangeWatcher != null) {
+            userStoreChangeWatcher.stopWatcher();
+            userStoreChangeWatcher = null;
+        }
+
         if (userStoreRefresher != null) {
             userStoreRefresher.cleanup();
             userStoreRefresher = null;
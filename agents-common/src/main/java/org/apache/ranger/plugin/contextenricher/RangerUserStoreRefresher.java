@@ -26,6 +26,7 @@
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
@@ -37,10 +38,6 @@
 import javax.servlet.http.HttpServletResponse;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.nio.channels.ClosedByInterruptException;
 import java.security.PrivilegedExceptionAction;
 import java.util.HashMap;
@@ -71,6 +68,10 @@ public RangerUserStoreRefresher(RangerUserStoreRetriever userStoreRetriever, Ran
         setName("RangerUserStoreRefresher(serviceName=" + userStoreRetriever.getServiceName() + ")-" + getId());
     }
 
+    public long getLastKnownVersion() {
+        return lastKnownVersion;
+    }
+
     public long getLastActivationTimeInMillis() {
         return lastActivationTimeInMillis;
     }
@@ -245,22 +246,10 @@ public void saveToCache(RangerUserStore rangerUserStore) {
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
             if (cacheFile != null) {
-                Writer writer = null;
-
                 try {
-                    writer = new FileWriter(cacheFile);
-
-                    JsonUtils.objectToWriter(writer, rangerUserStore);
+                    RangerCacheFileUtil.write(cacheFile, JsonUtils.getMapper(), rangerUserStore, RangerCacheFileUtil.isBinaryFormat(userStoreEnricher != null ? userStoreEnricher.getPluginConfig() : null));
                 } catch (Exception excp) {
                     LOG.error("failed to save userstore information to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                        }
-                    }
                 }
             }
         } else {
@@ -277,23 +266,11 @@ private RangerUserStore loadFromCache() {
 
         File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-            Reader reader = null;
-
+        if (cacheFile != null && RangerCacheFileUtil.exists(cacheFile)) {
             try {
-                reader = new FileReader(cacheFile);
-
-                rangerUserStore = JsonUtils.jsonToObject(reader, RangerUserStore.class);
+                rangerUserStore = RangerCacheFileUtil.read(cacheFile, JsonUtils.getMapper(), RangerUserStore.class);
             } catch (Exception excp) {
                 LOG.error("failed to load userstore information from cache file {}", cacheFile.getAbsolutePath(), excp);
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (Exception excp) {
-                        LOG.error("error while closing opened cache file {}", cacheFile.getAbsolutePath(), excp);
-                    }
-                }
             }
         } else {
             LOG.warn("cache file does not exist or not readable '{}'", (cacheFile == null ? null : cacheFile.getAbsolutePath()));
@@ -309,6 +286,10 @@ private void disableCache() {
 
         File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
+        if (cacheFile != null) {
+            RangerCacheFileUtil.deleteSnapshot(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local userstore cache");
 
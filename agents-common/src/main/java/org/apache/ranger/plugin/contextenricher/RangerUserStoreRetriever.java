@@ -37,6 +37,13 @@ public abstract class RangerUserStoreRetriever {
 
     public abstract RangerUserStore retrieveUserStoreInfo(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception;
 
+    /*
+     * waits for userstore version to change from lastKnownVersion; returns null if the retriever doesn't support such wait
+     */
+    public Boolean waitForChange(long lastKnownVersion, long timeoutMs) throws Exception {
+        return null;
+    }
+
     public String getServiceName() {
         return serviceName;
     }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bounded cache for concurrent use, as an alternative to Collections.synchronizedMap(new CacheMap<>(maxSize)).
+ *
+ * In an access-ordered CacheMap every get() updates the LRU list, hence all readers serialize on the map's monitor.
+ * Here get() is a lookup in a ConcurrentHashMap that only sets a 'referenced' flag in the entry, if not set already.
+ * Eviction uses the CLOCK (second-chance) algorithm, an approximation of LRU: the clock-hand sweeps over the entries,
+ * clearing the flag of referenced entries and removing the first unreferenced entry. Only one thread evicts at a time;
+ * puts that find eviction in progress don't wait, hence size() can briefly exceed maxSize - by up to 1/8 of maxSize,
+ * after which puts wait for the eviction to complete.
+ */
+public class ConcurrentCacheMap<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentCacheMap.class);
+
+    private final int                              maxSize;
+    private final int                              overflowSize;
+    private final ConcurrentHashMap<K, Entry<V>>   entries      = new ConcurrentHashMap<>();
+    private final ReentrantLock                    evictionLock = new ReentrantLock();
+    private       Iterator<Map.Entry<K, Entry<V>>> clockHand; // guarded by evictionLock
+
+    public ConcurrentCacheMap(int maxSize) {
+        this.maxSize      = maxSize;
+        this.overflowSize = maxSize + Math.max(maxSize / 8, 1);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public V get(K key) {
+        final V  ret;
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null) {
+            if (!entry.isReferenced) { // avoid writing to the entry when the flag is already set
+                entry.isReferenced = true;
+            }
+
+            ret = entry.value;
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns the number of entries evicted by this call, to let callers track evictions
+     */
+    public int put(K key, V value) {
+        entries.put(key, new Entry<>(value));
+
+        return evict();
+    }
+
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+
+        return entry != null ? entry.value : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentCacheMap={maxSize=" + maxSize + ", size=" + entries.size() + "}";
+    }
+
+    /*
+     * size is checked again after releasing the lock, to evict entries added by puts that didn't get the lock
+     */
+    private int evict() {
+        int ret = 0;
+
+        while (entries.size() > maxSize) {
+            if (!evictionLock.tryLock()) {
+                if (entries.size() <= overflowSize) {
+                    break;
+                }
+
+                evictionLock.lock(); // evicting thread is falling behind, possibly not scheduled; wait for it to keep the cache bounded
+            }
+
+            try {
+                int evictedCount = 0;
+                int scanCount    = 0;
+                int maxScanCount = 2 * entries.size(); // a full sweep clears all flags; bound the scan in case concurrent gets keep setting them
+
+                while (entries.size() > maxSize) {
+                    if (clockHand == null || !clockHand.hasNext()) {
+                        clockHand = entries.entrySet().iterator();
+
+                        if (!clockHand.hasNext()) {
+                            break;
+                        }
+                    }
+
+                    Map.Entry<K, Entry<V>> mapEntry = clockHand.next();
+                    Entry<V>               entry    = mapEntry.getValue();
+
+                    if (entry.isReferenced && scanCount++ < maxScanCount) {
+                        entry.isReferenced = false;
+                    } else if (entries.remove(mapEntry.getKey(), entry)) {
+                        evictedCount++;
+                    }
+                }
+
+                LOG.debug("ConcurrentCacheMap.evict(): evictedCount={}, scanCount={}, size={}", evictedCount, scanCount, entries.size());
+
+                ret += evictedCount;
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        return ret;
+    }
+
+    private static final class Entry<V> {
+        private final V       value;
+        private       boolean isReferenced; // not volatile: a missed update only affects the choice of entry to evict
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -32,7 +32,9 @@
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever.TrieLookupCache;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -65,6 +67,7 @@ public class PolicyEngine {
     private final RangerSecurityZoneMatcher           zoneMatcher;
     private final Map<String, StringTokenReplacer>    tokenReplacers         = new HashMap<>();
     private final RangerReadWriteLock                 lock;
+    private final RangerPrincipalIndex                principalIndex; // shared with engines created with deltas, as are policy evaluators
     private       boolean                             useForwardedIPAddress;
     private       String[]                            trustedProxyAddresses;
 
@@ -85,9 +88,10 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
         normalizeServiceDefs(servicePolicies);
         pluginContext.cleanResourceMatchers();
 
-        this.pluginContext = pluginContext;
-        this.lock          = new RangerReadWriteLock(isUseReadWriteLock);
-        this.zoneMatcher   = new RangerSecurityZoneMatcher(servicePolicies.getSecurityZones(), servicePolicies.getServiceDef(), pluginContext);
+        this.pluginContext  = pluginContext;
+        this.lock           = new RangerReadWriteLock(isUseReadWriteLock, pluginContext.getConfig().getPolicyEngineOptions().readWriteLockType);
+        this.zoneMatcher    = new RangerSecurityZoneMatcher(servicePolicies.getSecurityZones(), servicePolicies.getServiceDef(), pluginContext);
+        this.principalIndex = new RangerPrincipalIndex();
 
         Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(servicePolicies);
 
@@ -111,7 +115,7 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
             options.evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
         }
 
-        policyRepository = new RangerPolicyRepository(servicePolicies, this.pluginContext);
+        policyRepository = new RangerPolicyRepository(servicePolicies, this.pluginContext, principalIndex);
         serviceDefHelper = new RangerServiceDefHelper(policyRepository.getServiceDef(), false);
 
         ServicePolicies.TagPolicies tagPolicies = servicePolicies.getTagPolicies();
@@ -119,7 +123,7 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
         if (!options.disableTagPolicyEvaluation && tagPolicies != null && !StringUtils.isEmpty(tagPolicies.getServiceName()) && tagPolicies.getServiceDef() != null) {
             LOG.debug("PolicyEngine : Building tag-policy-repository for tag-service {}", tagPolicies.getServiceName());
 
-            tagPolicyRepository = new RangerPolicyRepository(tagPolicies, this.pluginContext, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
+            tagPolicyRepository = new RangerPolicyRepository(tagPolicies, this.pluginContext, principalIndex, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
         } else {
             LOG.debug("PolicyEngine : No tag-policy-repository for service {}", servicePolicies.getServiceName());
 
@@ -144,7 +148,7 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
 
         if (MapUtils.isNotEmpty(servicePolicies.getSecurityZones())) {
             for (Map.Entry<String, SecurityZoneInfo> zone : servicePolicies.getSecurityZones().entrySet()) {
-                RangerPolicyRepository policyRepository = new RangerPolicyRepository(servicePolicies, this.pluginContext, zone.getKey());
+                RangerPolicyRepository policyRepository = new RangerPolicyRepository(servicePolicies, this.pluginContext, principalIndex, zone.getKey());
 
                 zonePolicyRepositories.put(zone.getKey(), policyRepository);
             }
@@ -183,6 +187,7 @@ private PolicyEngine(final PolicyEngine other, ServicePolicies servicePolicies)
         this.serviceDefHelper      = other.serviceDefHelper;
         this.pluginContext         = other.pluginContext;
         this.lock                  = other.lock;
+        this.principalIndex        = other.principalIndex;
         this.zoneMatcher           = new RangerSecurityZoneMatcher(servicePolicies.getSecurityZones(), servicePolicies.getServiceDef(), pluginContext);
 
         long                    policyVersion                   = servicePolicies.getPolicyVersion() != null ? servicePolicies.getPolicyVersion() : -1L;
@@ -230,7 +235,7 @@ private PolicyEngine(final PolicyEngine other, ServicePolicies servicePolicies)
 
                 servicePolicies.getTagPolicies().setPolicies(tagPolicies);
 
-                this.tagPolicyRepository = new RangerPolicyRepository(servicePolicies.getTagPolicies(), this.pluginContext, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
+                this.tagPolicyRepository = new RangerPolicyRepository(servicePolicies.getTagPolicies(), this.pluginContext, principalIndex, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
             } else {
                 LOG.debug("Current policy-engine has a tagPolicyRepository");
 
@@ -325,6 +330,10 @@ public List<RangerContextEnricher> getAllContextEnrichers() {
         return allContextEnrichers;
     }
 
+    public RangerPrincipalIndex getPrincipalIndex() {
+        return principalIndex;
+    }
+
     public RangerPluginContext getPluginContext() {
         return pluginContext;
     }
@@ -461,7 +470,11 @@ public Set<String> getMatchedZonesForResourceAndChildren(Map<String, ?> resource
     }
 
     public Set<String> getMatchedZonesForResourceAndChildren(RangerAccessResource resource) {
-        Set<String> ret = zoneMatcher.getZonesForResourceAndChildren(resource);
+        return getMatchedZonesForResourceAndChildren(resource, null);
+    }
+
+    public Set<String> getMatchedZonesForResourceAndChildren(RangerAccessResource resource, TrieLookupCache lookupCache) {
+        Set<String> ret = zoneMatcher.getZonesForResourceAndChildren(resource, lookupCache);
 
         LOG.debug("getMatchedZonesForResourceAndChildren(resource={}): ret={}", resource, ret);
 
@@ -537,6 +550,49 @@ public void preCleanup(boolean isForced) {
         LOG.debug("<== PolicyEngine.preCleanup(isForced={})", isForced);
     }
 
+    /*
+     * returns the number of enabled policies, in all repositories of this engine, that don't have an evaluator
+     */
+    public int getMissingPolicyEvaluatorCount() {
+        int ret = 0;
+
+        if (policyRepository != null) {
+            ret += policyRepository.getMissingPolicyEvaluatorCount();
+        }
+
+        if (tagPolicyRepository != null) {
+            ret += tagPolicyRepository.getMissingPolicyEvaluatorCount();
+        }
+
+        if (MapUtils.isNotEmpty(this.zonePolicyRepositories)) {
+            for (RangerPolicyRepository zonePolicyRepository : this.zonePolicyRepositories.values()) {
+                ret += zonePolicyRepository.getMissingPolicyEvaluatorCount();
+            }
+        }
+
+        return ret;
+    }
+
+    public void warmUp() {
+        LOG.debug("==> PolicyEngine.warmUp()");
+
+        if (policyRepository != null) {
+            policyRepository.warmUp();
+        }
+
+        if (tagPolicyRepository != null) {
+            tagPolicyRepository.warmUp();
+        }
+
+        if (MapUtils.isNotEmpty(this.zonePolicyRepositories)) {
+            for (RangerPolicyRepository zonePolicyRepository : this.zonePolicyRepositories.values()) {
+                zonePolicyRepository.warmUp();
+            }
+        }
+
+        LOG.debug("<== PolicyEngine.warmUp()");
+    }
+
     RangerSecurityZoneMatcher getZoneMatcher() {
         return zoneMatcher;
     }
@@ -696,7 +752,7 @@ private void getDeltasSortedByZones(PolicyEngine current, ServicePolicies servic
 
                         servicePolicies.getSecurityZones().get(zoneName).setPolicies(policies);
 
-                        policyRepository = new RangerPolicyRepository(servicePolicies, current.pluginContext, zoneName);
+                        policyRepository = new RangerPolicyRepository(servicePolicies, current.pluginContext, current.principalIndex, zoneName);
                     } else {
                         policyRepository = new RangerPolicyRepository(otherRepository, zoneDeltas, policyVersion);
                     }
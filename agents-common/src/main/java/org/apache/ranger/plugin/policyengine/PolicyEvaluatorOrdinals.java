@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Dense ordinals of policy evaluators of a policy-repository, assigned in evaluation order (EVAL_ORDER_COMPARATOR).
+ *
+ * Evaluators retrieved from resource-tries can include duplicates (a policy with additional resources has a resource
+ * evaluator for each) and are in no specific order. With ordinals, duplicates are removed and the evaluation order is
+ * restored by setting bits in a bitset (or sorting an int[], when the ordinals are sparse) and iterating over them -
+ * without boxing of policy-ids, HashSet or comparator-based sort for each request.
+ *
+ * Ordinals are kept here and not in the evaluators, as a policy-repository created with deltas shares evaluators with
+ * the repository it was created from. For deltas, ordinals are updated with update(): only the changed evaluators are
+ * sorted, the others are already in evaluation order.
+ */
+final class PolicyEvaluatorOrdinals {
+    private final RangerPolicyEvaluator[]             evaluators; // index is the ordinal
+    private final Map<RangerPolicyEvaluator, Integer> ordinals;
+
+    @SafeVarargs
+    PolicyEvaluatorOrdinals(Collection<RangerPolicyEvaluator>... evaluatorLists) {
+        List<RangerPolicyEvaluator> allEvaluators = new ArrayList<>();
+
+        for (Collection<RangerPolicyEvaluator> evaluatorList : evaluatorLists) {
+            if (evaluatorList != null) {
+                allEvaluators.addAll(evaluatorList);
+            }
+        }
+
+        allEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+        this.evaluators = new RangerPolicyEvaluator[allEvaluators.size()];
+        this.ordinals   = new IdentityHashMap<>(allEvaluators.size());
+
+        for (RangerPolicyEvaluator evaluator : allEvaluators) {
+            if (!ordinals.containsKey(evaluator)) {
+                evaluators[ordinals.size()] = evaluator;
+
+                ordinals.put(evaluator, ordinals.size());
+            }
+        }
+    }
+
+    /*
+     * evaluators must be in evaluation order, without duplicates
+     */
+    private PolicyEvaluatorOrdinals(RangerPolicyEvaluator[] evaluators) {
+        this.evaluators = evaluators;
+        this.ordinals   = new IdentityHashMap<>(evaluators.length);
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            ordinals.put(evaluator, ordinals.size());
+        }
+    }
+
+    int size() {
+        return ordinals.size();
+    }
+
+    int getOrdinal(RangerPolicyEvaluator evaluator) {
+        Integer ret = ordinals.get(evaluator);
+
+        return ret != null ? ret : -1;
+    }
+
+    /*
+     * returns ordinals with removed evaluators dropped and added evaluators placed in evaluation order. This instance is
+     * not modified, as it can be in use by the repository the deltas were applied to. Only the added evaluators are
+     * sorted, and each is placed by a binary search over the current evaluators - instead of sorting all evaluators.
+     */
+    PolicyEvaluatorOrdinals update(Collection<RangerPolicyEvaluator> removed, Collection<RangerPolicyEvaluator> added) {
+        final PolicyEvaluatorOrdinals ret;
+
+        if (removed.isEmpty() && added.isEmpty()) {
+            ret = this;
+        } else {
+            Set<RangerPolicyEvaluator> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<RangerPolicyEvaluator> toAddSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            toRemove.addAll(removed);
+
+            for (RangerPolicyEvaluator evaluator : added) {
+                if (!toRemove.contains(evaluator)) {
+                    toAddSet.add(evaluator);
+                }
+            }
+
+            toRemove.addAll(toAddSet); // an added evaluator that already has an ordinal is moved to its position
+
+            List<RangerPolicyEvaluator> toAdd = new ArrayList<>(toAddSet);
+
+            toAdd.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+            List<RangerPolicyEvaluator> current = new ArrayList<>(evaluators.length);
+
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                if (!toRemove.contains(evaluator)) {
+                    current.add(evaluator);
+                }
+            }
+
+            RangerPolicyEvaluator[] updated = new RangerPolicyEvaluator[current.size() + toAdd.size()];
+            int                     count   = 0;
+            int                     from    = 0;
+
+            for (RangerPolicyEvaluator evaluator : toAdd) {
+                int to = getInsertionIndex(current, from, evaluator);
+
+                while (from < to) {
+                    updated[count++] = current.get(from++);
+                }
+
+                updated[count++] = evaluator;
+            }
+
+            while (from < current.size()) {
+                updated[count++] = current.get(from++);
+            }
+
+            ret = new PolicyEvaluatorOrdinals(updated);
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns policy-evaluators of given resource-evaluators, without duplicates, in evaluation order.
+     * Returns null if any of the policy-evaluators doesn't have an ordinal.
+     */
+    List<RangerPolicyEvaluator> getPolicyEvaluators(Collection<RangerPolicyResourceEvaluator> resourceEvaluators) {
+        int[] candidates = new int[resourceEvaluators.size()];
+        int   count      = 0;
+        int   maxOrdinal = -1;
+
+        for (RangerPolicyResourceEvaluator resourceEvaluator : resourceEvaluators) {
+            Integer ordinal = ordinals.get(resourceEvaluator.getPolicyEvaluator());
+
+            if (ordinal == null) {
+                count = -1;
+
+                break;
+            }
+
+            candidates[count++] = ordinal;
+
+            if (ordinal > maxOrdinal) {
+                maxOrdinal = ordinal;
+            }
+        }
+
+        final List<RangerPolicyEvaluator> ret;
+
+        if (count == -1) {
+            ret = null;
+        } else if (count == 0) {
+            ret = new ArrayList<>();
+        } else {
+            int wordCount = (maxOrdinal >>> 6) + 1;
+
+            if (wordCount <= count) { // dense: a bitset costs no more than sorting the candidates
+                long[] bits = new long[wordCount];
+
+                for (int i = 0; i < count; i++) {
+                    bits[candidates[i] >>> 6] |= 1L << candidates[i];
+                }
+
+                ret = new ArrayList<>(count);
+
+                for (int i = 0; i < wordCount; i++) {
+                    for (long word = bits[i]; word != 0; word &= word - 1) {
+                        ret.add(evaluators[(i << 6) + Long.numberOfTrailingZeros(word)]);
+                    }
+                }
+            } else {
+                Arrays.sort(candidates, 0, count);
+
+                ret = new ArrayList<>(count);
+
+                for (int i = 0; i < count; i++) {
+                    if (i == 0 || candidates[i] != candidates[i - 1]) {
+                        ret.add(evaluators[candidates[i]]);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns the index, in [fromIndex, evaluators.size()], of the first evaluator to be evaluated after the given one
+     */
+    private static int getInsertionIndex(List<RangerPolicyEvaluator> evaluators, int fromIndex, RangerPolicyEvaluator evaluator) {
+        int low  = fromIndex;
+        int high = evaluators.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR.compare(evaluators.get(mid), evaluator) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
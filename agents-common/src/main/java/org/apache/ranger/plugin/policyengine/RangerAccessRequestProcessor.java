@@ -19,8 +19,17 @@
 
 package org.apache.ranger.plugin.policyengine;
 
+import java.util.Collection;
+
 public interface RangerAccessRequestProcessor {
     void preProcess(RangerAccessRequest request);
 
+    // implementations can override to share work across requests of a batch, like resolving roles of the user
+    default void preProcess(Collection<RangerAccessRequest> requests) {
+        for (RangerAccessRequest request : requests) {
+            preProcess(request);
+        }
+    }
+
     default void enrich(RangerAccessRequest request) {}
 }
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceMatchingScope;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerMetricsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded, concurrent cache of access results computed by the policy-engine.
+ *
+ * Entries are held in a generation that is tagged with the policy-engine and the versions of policies, roles, tags and
+ * user-store that were in effect when it was created. When the engine or any of these versions change, the generation
+ * is replaced atomically, discarding all entries computed earlier. A cache is shared by the policy-engines of a plugin
+ * (see RangerPluginContext.getAccessResultCache()), so that its stats are registered once and accumulate across engine
+ * rebuilds.
+ *
+ * When a generation is full, the least recently used entries are evicted - approximately, by ConcurrentCacheMap, as
+ * an access-ordered LinkedHashMap would serialize all lookups.
+ */
+public class RangerAccessResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAccessResultCache.class);
+
+    public static final String CACHE_NAME_PREFIX = "policyengine.access.result.cache.";
+
+    private final String                      name;
+    private final int                         maxSize;
+    private final AtomicReference<Generation> generation;
+    private final AtomicLong                  hitCount;
+    private final AtomicLong                  missCount;
+    private final AtomicLong                  evictionCount;
+    private final AtomicLong                  invalidationCount;
+    private final AtomicLong                  bypassCount;
+
+    public RangerAccessResultCache(String serviceName, int maxSize) {
+        this.name              = CACHE_NAME_PREFIX + serviceName;
+        this.maxSize           = maxSize;
+        this.generation        = new AtomicReference<>(new Generation(null, -1, -1, -1, -1));
+        this.hitCount          = new AtomicLong();
+        this.missCount         = new AtomicLong();
+        this.evictionCount     = new AtomicLong();
+        this.invalidationCount = new AtomicLong();
+        this.bypassCount       = new AtomicLong();
+
+        RangerMetricsUtil.registerCacheStats(name, this::getStats);
+
+        LOG.info("Created RangerAccessResultCache(name={}, maxSize={})", name, maxSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /*
+     * returns the generation for the given engine and versions. If the current generation was created for a different
+     * engine or versions, it is replaced with an empty one; callers racing on the replacement will all end up with the
+     * same generation. The engine is compared by identity: an engine rebuilt with the same versions, for example from
+     * a different source, doesn't use results computed by the earlier engine
+     */
+    public Generation getGeneration(Object engine, long policyVersion, long roleVersion, long tagVersion, long userStoreVersion) {
+        Generation ret = generation.get();
+
+        while (!ret.isFor(engine, policyVersion, roleVersion, tagVersion, userStoreVersion)) {
+            Generation newGeneration = new Generation(engine, policyVersion, roleVersion, tagVersion, userStoreVersion);
+
+            if (generation.compareAndSet(ret, newGeneration)) {
+                LOG.debug("RangerAccessResultCache({}): invalidated {} entries; versions: policy={}, role={}, tag={}, userStore={}", name, ret.size(), policyVersion, roleVersion, tagVersion, userStoreVersion);
+
+                if (ret.size() > 0) {
+                    invalidationCount.incrementAndGet();
+                }
+
+                ret = newGeneration;
+            } else {
+                ret = generation.get();
+            }
+        }
+
+        return ret;
+    }
+
+    public void recordBypass() {
+        bypassCount.incrementAndGet();
+    }
+
+    public void invalidate() {
+        Generation current = generation.get();
+
+        generation.compareAndSet(current, new Generation(null, -1, -1, -1, -1));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put("maxSize", maxSize);
+        ret.put("size", generation.get().size());
+        ret.put("hitCount", hitCount.get());
+        ret.put("missCount", missCount.get());
+        ret.put("evictionCount", evictionCount.get());
+        ret.put("invalidationCount", invalidationCount.get());
+        ret.put("bypassCount", bypassCount.get());
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerAccessResultCache={name=" + name + ", stats=" + getStats() + "}";
+    }
+
+    public final class Generation {
+        private final Object                                           engine;
+        private final long                                             policyVersion;
+        private final long                                             roleVersion;
+        private final long                                             tagVersion;
+        private final long                                             userStoreVersion;
+        private final ConcurrentCacheMap<CacheKey, RangerAccessResult> entries;
+
+        private Generation(Object engine, long policyVersion, long roleVersion, long tagVersion, long userStoreVersion) {
+            this.engine           = engine;
+            this.policyVersion    = policyVersion;
+            this.roleVersion      = roleVersion;
+            this.tagVersion       = tagVersion;
+            this.userStoreVersion = userStoreVersion;
+            this.entries          = new ConcurrentCacheMap<>(maxSize);
+        }
+
+        public RangerAccessResult get(CacheKey key) {
+            RangerAccessResult ret = entries.get(key);
+
+            if (ret != null) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+            }
+
+            return ret;
+        }
+
+        public void put(CacheKey key, RangerAccessResult result) {
+            RangerAccessResult value = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), null);
+
+            value.setAccessResultFrom(result);
+            value.setAuditResultFrom(result);
+
+            int evictedCount = entries.put(key.copy(), value);
+
+            if (evictedCount > 0) {
+                evictionCount.addAndGet(evictedCount);
+            }
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        private boolean isFor(Object engine, long policyVersion, long roleVersion, long tagVersion, long userStoreVersion) {
+            return this.engine == engine && this.policyVersion == policyVersion && this.roleVersion == roleVersion && this.tagVersion == tagVersion && this.userStoreVersion == userStoreVersion;
+        }
+    }
+
+    public static final class CacheKey {
+        private final int                                       policyType;
+        private final String                                    user;
+        private final Set<String>                               userGroups;
+        private final Set<String>                               userRoles;
+        private final String                                    resource;
+        private final String                                    resourceOwner;
+        private final String                                    accessType;
+        private final Set<String>                               allAccessTypes;
+        private final Set<String>                               ignoreIfNotDeniedAccessTypes;
+        private final Set<Set<String>>                          accessTypeGroups;
+        private final boolean                                   isAccessTypeAny;
+        private final boolean                                   ignoreDescendantDeny;
+        private final ResourceMatchingScope                     resourceMatchingScope;
+        private final Map<String, ResourceElementMatchingScope> resourceElementMatchingScopes;
+        private final int                                       hashCode;
+
+        private CacheKey(int policyType, String user, Set<String> userGroups, Set<String> userRoles, String resource, String resourceOwner, String accessType, Set<String> allAccessTypes, Set<String> ignoreIfNotDeniedAccessTypes, Set<Set<String>> accessTypeGroups, boolean isAccessTypeAny, boolean ignoreDescendantDeny, ResourceMatchingScope resourceMatchingScope, Map<String, ResourceElementMatchingScope> resourceElementMatchingScopes) {
+            this.policyType                    = policyType;
+            this.user                          = user;
+            this.userGroups                    = userGroups;
+            this.userRoles                     = userRoles;
+            this.resource                      = resource;
+            this.resourceOwner                 = resourceOwner;
+            this.accessType                    = accessType;
+            this.allAccessTypes                = allAccessTypes;
+            this.ignoreIfNotDeniedAccessTypes  = ignoreIfNotDeniedAccessTypes;
+            this.accessTypeGroups              = accessTypeGroups;
+            this.isAccessTypeAny               = isAccessTypeAny;
+            this.ignoreDescendantDeny          = ignoreDescendantDeny;
+            this.resourceMatchingScope         = resourceMatchingScope;
+            this.resourceElementMatchingScopes = resourceElementMatchingScopes;
+            this.hashCode                      = Objects.hash(policyType, user, userGroups, userRoles, resource, resourceOwner, accessType, allAccessTypes, ignoreIfNotDeniedAccessTypes, accessTypeGroups, isAccessTypeAny, ignoreDescendantDeny, resourceMatchingScope, resourceElementMatchingScopes);
+        }
+
+        /*
+         * returns null if the request can't be cached - for example, when the resource is not associated with a service-def.
+         * The key refers to collections in the request, without making a copy; copy() is called before the key is stored in the cache
+         */
+        public static CacheKey of(RangerAccessRequest request, int policyType) {
+            RangerAccessResource resource    = request.getResource();
+            String               resourceKey = resource != null ? resource.getCacheKey() : null;
+
+            if (resourceKey == null) {
+                return null;
+            }
+
+            Map<String, Object> context = request.getContext();
+
+            return new CacheKey(policyType,
+                    request.getUser(),
+                    request.getUserGroups(),
+                    context != null ? RangerAccessRequestUtil.getCurrentUserRolesFromContext(context) : request.getUserRoles(),
+                    resourceKey,
+                    resource.getOwnerUser(),
+                    request.getAccessType(),
+                    context != null ? RangerAccessRequestUtil.getAllRequestedAccessTypes(request) : null,
+                    context != null ? RangerAccessRequestUtil.getIgnoreIfNotDeniedAccessTypes(request) : null,
+                    context != null ? RangerAccessRequestUtil.getAllRequestedAccessTypeGroups(request) : null,
+                    request.isAccessTypeAny(),
+                    request.ignoreDescendantDeny(),
+                    request.getResourceMatchingScope(),
+                    request.getResourceElementMatchingScopes());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+
+            return hashCode == other.hashCode &&
+                    policyType == other.policyType &&
+                    isAccessTypeAny == other.isAccessTypeAny &&
+                    ignoreDescendantDeny == other.ignoreDescendantDeny &&
+                    resourceMatchingScope == other.resourceMatchingScope &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(accessType, other.accessType) &&
+                    Objects.equals(resource, other.resource) &&
+                    Objects.equals(resourceOwner, other.resourceOwner) &&
+                    Objects.equals(userGroups, other.userGroups) &&
+                    Objects.equals(userRoles, other.userRoles) &&
+                    Objects.equals(allAccessTypes, other.allAccessTypes) &&
+                    Objects.equals(ignoreIfNotDeniedAccessTypes, other.ignoreIfNotDeniedAccessTypes) &&
+                    Objects.equals(accessTypeGroups, other.accessTypeGroups) &&
+                    Objects.equals(resourceElementMatchingScopes, other.resourceElementMatchingScopes);
+        }
+
+        @Override
+        public String toString() {
+            return "CacheKey={policyType=" + policyType + ", user=" + user + ", userGroups=" + userGroups + ", userRoles=" + userRoles +
+                    ", resource=" + resource + ", resourceOwner=" + resourceOwner + ", accessType=" + accessType + ", allAccessTypes=" + allAccessTypes +
+                    ", isAccessTypeAny=" + isAccessTypeAny + ", resourceMatchingScope=" + resourceMatchingScope + "}";
+        }
+
+        CacheKey copy() {
+            return new CacheKey(policyType, user, copyOf(userGroups), copyOf(userRoles), resource, resourceOwner, accessType,
+                    copyOf(allAccessTypes), copyOf(ignoreIfNotDeniedAccessTypes), copyOf(accessTypeGroups), isAccessTypeAny, ignoreDescendantDeny,
+                    resourceMatchingScope, resourceElementMatchingScopes == null ? null : Collections.unmodifiableMap(new HashMap<>(resourceElementMatchingScopes)));
+        }
+
+        private static <T> Set<T> copyOf(Set<T> set) {
+            return set == null ? null : Collections.unmodifiableSet(new HashSet<>(set));
+        }
+    }
+}
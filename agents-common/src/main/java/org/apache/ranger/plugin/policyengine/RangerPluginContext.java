@@ -25,8 +25,10 @@
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.service.RangerAccessRequestSampler;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerAuthContextListener;
+import org.apache.ranger.plugin.util.RangerEngineUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,12 +42,17 @@ public class RangerPluginContext {
     private final RangerPluginConfig                                                         config;
     private final Map<String, Map<RangerPolicy.RangerPolicyResource, RangerResourceMatcher>> resourceMatchers = new HashMap<>();
     private final ReentrantReadWriteLock                                                     lock             = new ReentrantReadWriteLock(true); // fair lock
+    private final RangerEngineUpdater                                                        engineUpdater;
+    private final RangerAccessRequestSampler                                                 requestSampler;
     private       RangerAuthContext                                                          authContext;
     private       RangerAuthContextListener                                                  authContextListener;
     private       RangerAdminClient                                                          adminClient;
+    private volatile RangerAccessResultCache                                                 accessResultCache;
 
     public RangerPluginContext(RangerPluginConfig config) {
-        this.config = config;
+        this.config         = config;
+        this.engineUpdater  = new RangerEngineUpdater(config != null ? config.getServiceName() : null);
+        this.requestSampler = RangerAccessRequestSampler.create(config);
     }
 
     public RangerPluginConfig getConfig() {
@@ -60,6 +67,38 @@ public String getClusterType() {
         return config.getClusterType();
     }
 
+    public RangerEngineUpdater getEngineUpdater() {
+        return engineUpdater;
+    }
+
+    public RangerAccessRequestSampler getRequestSampler() {
+        return requestSampler;
+    }
+
+    /*
+     * access-result cache is shared by the policy-engines of the plugin - so that its stats are registered once and
+     * accumulate across engine rebuilds. Created on first use, as options can be updated after the context is created;
+     * returns null if the cache is not enabled
+     */
+    public RangerAccessResultCache getAccessResultCache() {
+        RangerAccessResultCache   ret     = accessResultCache;
+        RangerPolicyEngineOptions options = config != null ? config.getPolicyEngineOptions() : null;
+
+        if (ret == null && options != null && options.enableAccessResultCache) {
+            synchronized (this) {
+                ret = accessResultCache;
+
+                if (ret == null) {
+                    ret = new RangerAccessResultCache(config.getServiceName(), options.accessResultCacheMaxSize);
+
+                    accessResultCache = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public RangerAuthContext getAuthContext() {
         return authContext;
     }
@@ -25,6 +25,8 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
@@ -38,6 +40,7 @@
 import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever.TrieLookupCache;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.slf4j.Logger;
@@ -66,6 +69,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
     private final PolicyEngine                 policyEngine;
     private final RangerAccessRequestProcessor requestProcessor;
     private final ServiceConfig                serviceConfig;
+    private final RangerAccessResultCache      accessResultCache;
 
     public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerRoles roles) {
         final boolean isUseReadWriteLock;
@@ -80,15 +84,17 @@ public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginConte
             isUseReadWriteLock = false;
         }
 
-        policyEngine     = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
-        serviceConfig    = new ServiceConfig(servicePolicies.getServiceConfig());
-        requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+        policyEngine      = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
+        serviceConfig     = new ServiceConfig(servicePolicies.getServiceConfig());
+        requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+        accessResultCache = pluginContext != null ? pluginContext.getAccessResultCache() : null;
     }
 
     private RangerPolicyEngineImpl(final PolicyEngine policyEngine, RangerPolicyEngineImpl other) {
-        this.policyEngine     = policyEngine;
-        this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
-        this.serviceConfig    = new ServiceConfig(other.serviceConfig);
+        this.policyEngine      = policyEngine;
+        this.requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+        this.serviceConfig     = new ServiceConfig(other.serviceConfig);
+        this.accessResultCache = other.accessResultCache;
     }
 
     public static RangerPolicyEngine getPolicyEngine(final RangerPolicyEngineImpl other, final ServicePolicies servicePolicies) {
@@ -215,9 +221,11 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
                 LOG.debug("Acquired lock - {}", readLock);
             }
 
+            RangerAccessResultCache.Generation cacheGeneration = getAccessResultCacheGeneration();
+
             requestProcessor.preProcess(request);
 
-            ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+            ret = zoneAwareAccessEvaluationWithCache(request, policyType, cacheGeneration);
 
             if (resultProcessor != null) {
                 RangerPerfTracer perfAuditTracer = null;
@@ -253,13 +261,29 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
             }
 
             if (requests != null) {
+                RangerAccessResultCache.Generation cacheGeneration = getAccessResultCacheGeneration();
+                TrieLookupCache                    lookupCache     = requests.size() > 1 ? new TrieLookupCache() : null; // to share trie lookups for common resource values, like database/table of columns
+
+                // set before preProcess(), so that zone lookups are shared as well
                 for (RangerAccessRequest request : requests) {
-                    requestProcessor.preProcess(request);
+                    RangerAccessRequestUtil.setTrieLookupCacheInContext(request.getContext(), lookupCache);
+                }
 
-                    RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+                try {
+                    requestProcessor.preProcess(requests);
 
-                    ret.add(result);
+                    for (RangerAccessRequest request : requests) {
+                        RangerAccessResult result = zoneAwareAccessEvaluationWithCache(request, policyType, cacheGeneration);
+
+                        ret.add(result);
+                    }
+                } finally {
+                    for (RangerAccessRequest request : requests) {
+                        RangerAccessRequestUtil.setTrieLookupCacheInContext(request.getContext(), null);
+                    }
                 }
+
+                LOG.debug("RangerPolicyEngineImpl.evaluatePolicies(requestCount={}): lookupCache={}", requests.size(), lookupCache);
             }
 
             if (resultProcessor != null) {
@@ -407,7 +431,7 @@ public Set<String> getRolesFromUserAndGroups(String user, Set<String> groups) {
                 LOG.debug("Acquired lock - {}", readLock);
             }
 
-            ret = policyEngine.getPluginContext().getAuthContext().getRolesForUserAndGroups(user, groups);
+            ret = new HashSet<>(policyEngine.getPluginContext().getAuthContext().getEffectivePrincipals(policyEngine.getPrincipalIndex(), user, groups).getRoles()); // copy, as the cached set is shared
         }
 
         return ret;
@@ -534,6 +558,18 @@ public void releaseResources(boolean isForced) {
         LOG.debug("<== RangerPolicyEngineImpl.releaseResources(isForced={})", isForced);
     }
 
+    public void warmUp() {
+        LOG.debug("==> RangerPolicyEngineImpl.warmUp()");
+
+        PolicyEngine policyEngine = this.policyEngine;
+
+        if (policyEngine != null) {
+            policyEngine.warmUp();
+        }
+
+        LOG.debug("<== RangerPolicyEngineImpl.warmUp()");
+    }
+
     public boolean isServiceAdmin(String userName) {
         boolean ret = serviceConfig.isServiceAdmin(userName);
 
@@ -554,6 +590,69 @@ public RangerAccessRequestProcessor getRequestProcessor() {
         return requestProcessor;
     }
 
+    private RangerAccessResultCache.Generation getAccessResultCacheGeneration() {
+        final RangerAccessResultCache.Generation ret;
+
+        if (accessResultCache != null) {
+            long tagVersion = -1L;
+
+            if (CollectionUtils.isNotEmpty(policyEngine.getAllContextEnrichers())) {
+                for (RangerContextEnricher enricher : policyEngine.getAllContextEnrichers()) {
+                    if (enricher instanceof RangerTagEnricher) {
+                        Long serviceTagsVersion = ((RangerTagEnricher) enricher).getServiceTagsVersion();
+
+                        tagVersion = serviceTagsVersion != null ? serviceTagsVersion : -1L;
+                    }
+                }
+            }
+
+            RangerPluginContext pluginContext = policyEngine.getPluginContext();
+
+            ret = accessResultCache.getGeneration(policyEngine, policyEngine.getPolicyVersion(), policyEngine.getRoleVersion(), tagVersion, pluginContext.getAuthContext().getUserStoreVersion());
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /*
+     * cacheGeneration must be obtained before the request is pre-processed, so that a result computed with
+     * tags/roles/user-store retrieved after the generation was created is never stored in a newer generation
+     */
+    private RangerAccessResult zoneAwareAccessEvaluationWithCache(RangerAccessRequest request, int policyType, RangerAccessResultCache.Generation cacheGeneration) {
+        if (cacheGeneration == null) {
+            return zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+        }
+
+        final RangerAccessResult               ret;
+        final RangerAccessResultCache.CacheKey cacheKey     = RangerAccessResultCache.CacheKey.of(request, policyType);
+        final RangerAccessResult               cachedResult = cacheKey != null ? cacheGeneration.get(cacheKey) : null;
+
+        if (cachedResult != null) {
+            LOG.debug("RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithCache(): found in cache - {}", cacheKey);
+
+            ret = new RangerAccessResult(policyType, cachedResult.getServiceName(), cachedResult.getServiceDef(), request);
+
+            ret.setAccessResultFrom(cachedResult);
+            ret.setAuditResultFrom(cachedResult);
+        } else {
+            ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+
+            if (cacheKey == null || RangerAccessRequestUtil.getIsAccessResultNotCacheable(request.getContext()) || RangerAccessRequestUtil.getGdsResultFromContext(request.getContext()) != null) {
+                LOG.debug("RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithCache(): access result is not cacheable - {}", request);
+
+                accessResultCache.recordBypass();
+            } else {
+                cacheGeneration.put(cacheKey, ret);
+            }
+
+            RangerAccessRequestUtil.setIsAccessResultNotCacheable(request.getContext(), null);
+        }
+
+        return ret;
+    }
+
     private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType) {
         LOG.debug("==> RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithNoAudit({}, policyType={})", request, policyType);
 
@@ -687,6 +786,10 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
             List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType);
 
             for (RangerPolicyEvaluator evaluator : evaluators) {
+                if (isTimeOrContextDependent(evaluator)) {
+                    RangerAccessRequestUtil.setIsAccessResultNotCacheable(request.getContext(), Boolean.TRUE);
+                }
+
                 if (!evaluator.isApplicable(accessTime)) {
                     continue;
                 }
@@ -761,6 +864,16 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
         Set<RangerTagForEval>       tags             = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
         List<PolicyEvaluatorForTag> policyEvaluators = tagPolicyRepository == null ? null : tagPolicyRepository.getLikelyMatchPolicyEvaluators(request, tags, policyType, accessTime);
 
+        if (CollectionUtils.isNotEmpty(tags)) {
+            for (RangerTagForEval tag : tags) {
+                if (CollectionUtils.isNotEmpty(tag.getValidityPeriods())) { // temporal tags make the result time dependent
+                    RangerAccessRequestUtil.setIsAccessResultNotCacheable(request.getContext(), Boolean.TRUE);
+
+                    break;
+                }
+            }
+        }
+
         if (CollectionUtils.isNotEmpty(policyEvaluators)) {
             final boolean useTagPoliciesFromDefaultZone = !policyEngine.isResourceZoneAssociatedWithTagService(zoneName);
 
@@ -768,6 +881,10 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
                 RangerPolicyEvaluator evaluator      = policyEvaluator.getEvaluator();
                 String                policyZoneName = evaluator.getPolicy().getZoneName();
 
+                if (isTimeOrContextDependent(evaluator)) {
+                    RangerAccessRequestUtil.setIsAccessResultNotCacheable(request.getContext(), Boolean.TRUE);
+                }
+
                 if (useTagPoliciesFromDefaultZone) {
                     if (StringUtils.isNotEmpty(policyZoneName)) {
                         LOG.debug("Tag policy [zone:{}] does not belong to default zone. Not evaluating this policy:[{}]", policyZoneName, evaluator.getPolicy());
@@ -856,6 +973,11 @@ private RangerAccessResult createAccessResult(RangerAccessRequest request, int p
         return ret;
     }
 
+    // results of policies with validity-schedules or conditions (script, time-of-day, IP, ..) depend on more than the request attributes used as cache-key
+    private static boolean isTimeOrContextDependent(RangerPolicyEvaluator evaluator) {
+        return evaluator.getValidityScheduleEvaluatorsCount() > 0 || evaluator.getPolicyConditionsCount() > 0 || evaluator.getCustomConditionsCount() > 0;
+    }
+
     private boolean isAuditExcludedUser(String userName, Set<String> userGroups, Set<String> userRoles) {
         boolean ret = serviceConfig.isAuditExcludedUser(userName);
 
@@ -21,9 +21,11 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerReadWriteLock;
 
 public class RangerPolicyEngineOptions {
-    public String evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO;
+    public String                       evaluatorType     = RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO;
+    public RangerReadWriteLock.LockType readWriteLockType = RangerReadWriteLock.LockType.FAIR;
 
     public boolean disableContextEnrichers;
     public boolean disableCustomConditions;
@@ -45,6 +47,10 @@ public class RangerPolicyEngineOptions {
     public boolean optimizeTrieForSpace;
     public boolean optimizeTagTrieForRetrieval;
     public boolean optimizeTagTrieForSpace;
+    public boolean optimizeTrieForCompactNodes;
+    public boolean optimizeTagTrieForCompactNodes;
+    public boolean enableAccessResultCache;
+    public int     accessResultCacheMaxSize                    = 10000;
 
     private RangerServiceDefHelper serviceDefHelper;
 
@@ -71,6 +77,11 @@ public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other) {
         this.optimizeTrieForSpace                      = other.optimizeTrieForSpace;
         this.optimizeTagTrieForRetrieval               = other.optimizeTagTrieForRetrieval;
         this.optimizeTagTrieForSpace                   = other.optimizeTagTrieForSpace;
+        this.optimizeTrieForCompactNodes               = other.optimizeTrieForCompactNodes;
+        this.optimizeTagTrieForCompactNodes            = other.optimizeTagTrieForCompactNodes;
+        this.enableAccessResultCache                   = other.enableAccessResultCache;
+        this.accessResultCacheMaxSize                  = other.accessResultCacheMaxSize;
+        this.readWriteLockType                         = other.readWriteLockType;
     }
 
     public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other, RangerServiceDefHelper serviceDefHelper) {
@@ -103,6 +114,11 @@ public void configureForPlugin(Configuration conf, String propertyPrefix) {
         optimizeTrieForSpace                      = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
         optimizeTagTrieForRetrieval               = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
         optimizeTagTrieForSpace                   = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", false);
+        optimizeTrieForCompactNodes               = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.compact.nodes", false);
+        optimizeTagTrieForCompactNodes            = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.compact.nodes", false);
+        enableAccessResultCache                   = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.access.result.cache", false);
+        accessResultCacheMaxSize                  = conf.getInt(propertyPrefix + ".policyengine.option.access.result.cache.max.size", 10000);
+        readWriteLockType                         = RangerReadWriteLock.LockType.fromString(conf.get(propertyPrefix + ".policyengine.option.readwrite.lock.type"), RangerReadWriteLock.LockType.FAIR);
     }
 
     public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -158,10 +174,12 @@ public void configureRangerAdminForPolicySearch(Configuration conf, String prope
         enableTagEnricherWithLocalRefresher       = true;
         enableUserStoreEnricherWithLocalRefresher = true;
 
-        optimizeTrieForSpace        = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
-        optimizeTagTrieForRetrieval = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
-        optimizeTagTrieForSpace     = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", true);
-        enableResourceMatcherReuse  = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.resourcematcher.reuse", true);
+        optimizeTrieForSpace           = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
+        optimizeTagTrieForRetrieval    = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
+        optimizeTagTrieForSpace        = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", true);
+        optimizeTrieForCompactNodes    = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.compact.nodes", false);
+        optimizeTagTrieForCompactNodes = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.compact.nodes", false);
+        enableResourceMatcherReuse     = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.resourcematcher.reuse", true);
     }
 
     public RangerServiceDefHelper getServiceDefHelper() {
@@ -214,8 +232,16 @@ public int hashCode() {
         ret *= 2;
         ret += optimizeTagTrieForSpace ? 1 : 0;
         ret *= 2;
+        ret += optimizeTrieForCompactNodes ? 1 : 0;
+        ret *= 2;
+        ret += optimizeTagTrieForCompactNodes ? 1 : 0;
+        ret *= 2;
         ret += enableResourceMatcherReuse ? 1 : 0;
         ret *= 2;
+        ret += enableAccessResultCache ? 1 : 0;
+        ret *= 2;
+        ret += readWriteLockType == RangerReadWriteLock.LockType.STRIPED ? 1 : 0;
+        ret *= 2;
         return ret;
     }
 
@@ -241,7 +267,12 @@ public boolean equals(Object other) {
                     && this.optimizeTrieForSpace == that.optimizeTrieForSpace
                     && this.optimizeTagTrieForRetrieval == that.optimizeTagTrieForRetrieval
                     && this.optimizeTagTrieForSpace == that.optimizeTagTrieForSpace
-                    && this.enableResourceMatcherReuse == that.enableResourceMatcherReuse;
+                    && this.optimizeTrieForCompactNodes == that.optimizeTrieForCompactNodes
+                    && this.optimizeTagTrieForCompactNodes == that.optimizeTagTrieForCompactNodes
+                    && this.enableResourceMatcherReuse == that.enableResourceMatcherReuse
+                    && this.enableAccessResultCache == that.enableAccessResultCache
+                    && this.accessResultCacheMaxSize == that.accessResultCacheMaxSize
+                    && this.readWriteLockType == that.readWriteLockType;
         }
         return ret;
     }
@@ -267,7 +298,12 @@ public String toString() {
                 ", optimizeTrieForSpace: " + optimizeTrieForSpace +
                 ", optimizeTagTrieForRetrieval: " + optimizeTagTrieForRetrieval +
                 ", optimizeTagTrieForSpace: " + optimizeTagTrieForSpace +
+                ", optimizeTrieForCompactNodes: " + optimizeTrieForCompactNodes +
+                ", optimizeTagTrieForCompactNodes: " + optimizeTagTrieForCompactNodes +
                 ", enableResourceMatcherReuse: " + enableResourceMatcherReuse +
+                ", enableAccessResultCache: " + enableAccessResultCache +
+                ", accessResultCacheMaxSize: " + accessResultCacheMaxSize +
+                ", readWriteLockType: " + readWriteLockType +
                 " }";
     }
 }
@@ -45,14 +45,18 @@
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever.TrieLookupCache;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -80,10 +84,11 @@ public class RangerPolicyRepository {
     private final String                                                         appId;
     private final RangerPolicyEngineOptions                                      options;
     private final RangerPluginContext                                            pluginContext;
+    private final RangerPrincipalIndex                                           principalIndex;
     private final RangerServiceDef                                               serviceDef;
     private final long                                                           policyVersion;
     private final AuditModeEnum                                                  auditModeEnum;
-    private final Map<String, AuditInfo>                                         accessAuditCache;
+    private final ConcurrentCacheMap<String, AuditInfo>                          accessAuditCache;
     private final String                                                         componentServiceName;
     private final RangerServiceDef                                               componentServiceDef;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> policyResourceTrie;
@@ -97,6 +102,7 @@ public class RangerPolicyRepository {
     private       List<RangerPolicyEvaluator>                                    dataMaskPolicyEvaluators;
     private       List<RangerPolicyEvaluator>                                    rowFilterPolicyEvaluators;
     private       Map<Long, RangerPolicyEvaluator>                               policyEvaluatorsMap;
+    private       PolicyEvaluatorOrdinals                                        evaluatorOrdinals;
     private       boolean                                                        isContextEnrichersShared;
     private       boolean                                                        isPreCleaned;
 
@@ -106,6 +112,7 @@ public class RangerPolicyRepository {
         this.appId                     = other.appId;
         this.options                   = other.options;
         this.pluginContext             = other.pluginContext;
+        this.principalIndex            = other.principalIndex;
         this.serviceDef                = other.serviceDef;
         this.policies                  = new ArrayList<>(other.policies);
         this.policyEvaluators          = new ArrayList<>(other.policyEvaluators);
@@ -158,15 +165,17 @@ public class RangerPolicyRepository {
         }
 
         if (other.accessAuditCache != null) {
-            int auditResultCacheSize = other.accessAuditCache.size();
+            int auditResultCacheSize = other.accessAuditCache.getMaxSize();
 
-            this.accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+            this.accessAuditCache = new ConcurrentCacheMap<>(auditResultCacheSize);
         } else {
             this.accessAuditCache = null;
         }
 
         final boolean isExistingPolicies = CollectionUtils.isNotEmpty(this.policies);
 
+        this.evaluatorOrdinals = other.evaluatorOrdinals; // updated, not modified, by updateResourceTrie()
+
         updateResourceTrie(deltas);
 
         if (CollectionUtils.isNotEmpty(this.policies)) {
@@ -181,10 +190,14 @@ public class RangerPolicyRepository {
     }
 
     public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginContext pluginContext) {
-        this(servicePolicies, pluginContext, null);
+        this(servicePolicies, pluginContext, new RangerPrincipalIndex(), null);
+    }
+
+    RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerPrincipalIndex principalIndex) {
+        this(servicePolicies, pluginContext, principalIndex, null);
     }
 
-    RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginContext pluginContext, String zoneName) {
+    RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerPrincipalIndex principalIndex, String zoneName) {
         super();
 
         this.serviceName          = servicePolicies.getServiceName();
@@ -195,6 +208,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
         this.appId                = pluginContext.getConfig().getAppId();
         this.options              = new RangerPolicyEngineOptions(pluginContext.getConfig().getPolicyEngineOptions());
         this.pluginContext        = pluginContext;
+        this.principalIndex       = principalIndex;
 
         if (StringUtils.isEmpty(zoneName)) {
             this.policies = servicePolicies.getPolicies();
@@ -220,7 +234,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             if (options.cacheAuditResults) {
                 int auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
 
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                accessAuditCache = new ConcurrentCacheMap<>(auditResultCacheSize);
             } else {
                 accessAuditCache = null;
             }
@@ -246,14 +260,16 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             rowFilterResourceTrie   = null;
             auditFilterResourceTrie = null;
         } else {
-            policyResourceTrie      = createResourceTrieMap(policyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            dataMaskResourceTrie    = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
+            policyResourceTrie      = createResourceTrieMap(policyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            dataMaskResourceTrie    = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
         }
+
+        this.evaluatorOrdinals = buildEvaluatorOrdinals();
     }
 
-    RangerPolicyRepository(ServicePolicies.TagPolicies tagPolicies, RangerPluginContext pluginContext, RangerServiceDef componentServiceDef, String componentServiceName) {
+    RangerPolicyRepository(ServicePolicies.TagPolicies tagPolicies, RangerPluginContext pluginContext, RangerPrincipalIndex principalIndex, RangerServiceDef componentServiceDef, String componentServiceName) {
         super();
 
         this.serviceName          = tagPolicies.getServiceName();
@@ -264,6 +280,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
         this.appId                = pluginContext.getConfig().getAppId();
         this.options              = new RangerPolicyEngineOptions(pluginContext.getConfig().getPolicyEngineOptions());
         this.pluginContext        = pluginContext;
+        this.principalIndex       = principalIndex;
         this.policies             = normalizeAndPrunePolicies(tagPolicies.getPolicies(), componentServiceDef.getName());
         this.policyVersion        = tagPolicies.getPolicyVersion() != null ? tagPolicies.getPolicyVersion() : -1;
 
@@ -297,11 +314,13 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             rowFilterResourceTrie   = null;
             auditFilterResourceTrie = null;
         } else {
-            policyResourceTrie      = createResourceTrieMap(policyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            dataMaskResourceTrie    = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
-            auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
+            policyResourceTrie      = createResourceTrieMap(policyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            dataMaskResourceTrie    = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
+            auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes);
         }
+
+        this.evaluatorOrdinals = buildEvaluatorOrdinals();
     }
 
     @Override
@@ -482,6 +501,20 @@ void preCleanup(boolean isForced) {
         LOG.debug("<== preCleanup(isForced={})", isForced);
     }
 
+    void warmUp() {
+        LOG.debug("==> warmUp()");
+
+        for (Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> trieMap : Arrays.asList(policyResourceTrie, dataMaskResourceTrie, rowFilterResourceTrie, auditFilterResourceTrie)) {
+            if (trieMap != null) {
+                for (RangerResourceTrie<RangerPolicyResourceEvaluator> trie : trieMap.values()) {
+                    trie.warmUp();
+                }
+            }
+        }
+
+        LOG.debug("<== warmUp()");
+    }
+
     void cleanup() {
         LOG.debug("==> cleanup()");
 
@@ -644,6 +677,23 @@ RangerPolicyEvaluator getPolicyEvaluator(Long id) {
         return policyEvaluatorsMap.get(id);
     }
 
+    int getMissingPolicyEvaluatorCount() {
+        int ret = 0;
+
+        for (RangerPolicy policy : policies) {
+            Integer policyType          = policy.getPolicyType();
+            boolean isEvaluatorExpected = policyType == null || policyType == RangerPolicy.POLICY_TYPE_ACCESS || policyType == RangerPolicy.POLICY_TYPE_DATAMASK || policyType == RangerPolicy.POLICY_TYPE_ROWFILTER;
+
+            if (isEvaluatorExpected && !skipBuildingPolicyEvaluator(policy, options) && !policyEvaluatorsMap.containsKey(policy.getId())) {
+                LOG.warn("RangerPolicyRepository(serviceName={}, zoneName={}): no evaluator for policy id={}", serviceName, zoneName, policy.getId());
+
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
     List<RangerPolicyEvaluator> getLikelyMatchAuditPolicyEvaluators(RangerAccessRequest request) {
         RangerAccessResource resource    = request.getResource();
         String               resourceStr = resource == null ? null : resource.getAsString();
@@ -743,7 +793,8 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerPolicyRepository.getLikelyMatchEvaluators(resource=" + resource.getAsString() + ")");
         }
 
-        Collection<RangerPolicyResourceEvaluator> smallestList = RangerResourceEvaluatorsRetriever.getEvaluators(resourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes());
+        TrieLookupCache                           lookupCache  = RangerAccessRequestUtil.getTrieLookupCacheFromContext(request.getContext());
+        Collection<RangerPolicyResourceEvaluator> smallestList = RangerResourceEvaluatorsRetriever.getEvaluators(resourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes(), lookupCache);
 
         if (smallestList != null) {
             if (smallestList.isEmpty()) {
@@ -757,6 +808,10 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
                     ret.add(policyEvaluator);
                 }
             } else {
+                ret = evaluatorOrdinals != null ? evaluatorOrdinals.getPolicyEvaluators(smallestList) : null;
+            }
+
+            if (ret == null) { // evaluators without ordinals: remove duplicates and sort
                 ret = new ArrayList<>(smallestList.size());
 
                 Set<Long> policyIds = new HashSet<>();
@@ -1127,6 +1182,7 @@ private RangerPolicyEvaluator buildPolicyEvaluator(RangerPolicy policy, RangerSe
         }
 
         ret.setPluginContext(pluginContext);
+        ret.setPrincipalIndex(principalIndex);
         ret.init(policy, serviceDef, options);
 
         LOG.debug("<== RangerPolicyRepository.buildPolicyEvaluator({}, {}): {}", policy, serviceDef, ret);
@@ -1205,14 +1261,28 @@ private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPoli
         return ret;
     }
 
-    private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> createResourceTrieMap(List<? extends RangerPolicyEvaluator> evaluators, boolean optimizeTrieForRetrieval, boolean optimizeTrieForSpace) {
+    private PolicyEvaluatorOrdinals buildEvaluatorOrdinals() {
+        final PolicyEvaluatorOrdinals ret;
+
+        if (policyResourceTrie != null || dataMaskResourceTrie != null || rowFilterResourceTrie != null || auditFilterResourceTrie != null) {
+            ret = new PolicyEvaluatorOrdinals(policyEvaluators, dataMaskPolicyEvaluators, rowFilterPolicyEvaluators, auditPolicyEvaluators);
+        } else { // ordinals are used only to order evaluators retrieved from tries
+            ret = null;
+        }
+
+        LOG.debug("RangerPolicyRepository.buildEvaluatorOrdinals(): evaluatorCount={}", (ret != null ? ret.size() : 0));
+
+        return ret;
+    }
+
+    private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> createResourceTrieMap(List<? extends RangerPolicyEvaluator> evaluators, boolean optimizeTrieForRetrieval, boolean optimizeTrieForSpace, boolean optimizeTrieForCompactNodes) {
         final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> ret;
 
         if (serviceDef != null && CollectionUtils.isNotEmpty(serviceDef.getResources())) {
             ret = new HashMap<>();
 
             for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, pluginContext));
+                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, optimizeTrieForCompactNodes, pluginContext));
             }
         } else {
             ret = null;
@@ -1234,7 +1304,7 @@ private void updateTrie(Map<String, RangerResourceTrie<RangerPolicyResourceEvalu
                     LOG.warn("policyDeltaType is not for POLICY_CREATE and trie for resourceDef:[{}] was null! Should not have happened!!", resourceDefName);
                 }
 
-                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, pluginContext);
+                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.optimizeTrieForCompactNodes, pluginContext);
 
                 trieMap.put(resourceDefName, trie);
             }
@@ -1421,7 +1491,9 @@ private RangerPolicyEvaluator update(final RangerPolicyDelta delta, final Ranger
     }
 
     private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
-        boolean[] flags = new boolean[RangerPolicy.POLICY_TYPES.length];
+        boolean[]                   flags             = new boolean[RangerPolicy.POLICY_TYPES.length];
+        List<RangerPolicyEvaluator> removedEvaluators = new ArrayList<>();
+        List<RangerPolicyEvaluator> addedEvaluators   = new ArrayList<>();
 
         for (RangerPolicyDelta delta : deltas) {
             final Integer changeType  = delta.getChangeType();
@@ -1470,7 +1542,17 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
                     break;
             }
 
-            evaluator = update(delta, evaluator);
+            RangerPolicyEvaluator currentEvaluator = evaluator;
+
+            evaluator = update(delta, currentEvaluator);
+
+            if (currentEvaluator != null && (changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE || changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE)) {
+                removedEvaluators.add(currentEvaluator);
+            }
+
+            if (evaluator != null && changeType != RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE) {
+                addedEvaluators.add(evaluator);
+            }
 
             if (evaluator != null) {
                 switch (changeType) {
@@ -1511,6 +1593,14 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
                 entry.getValue().wrapUpUpdate();
             }
         }
+
+        if (evaluatorOrdinals != null) { // only the changed evaluators are placed, instead of sorting all evaluators again
+            evaluatorOrdinals = evaluatorOrdinals.update(removedEvaluators, addedEvaluators);
+        } else {
+            evaluatorOrdinals = buildEvaluatorOrdinals();
+        }
+
+        LOG.debug("RangerPolicyRepository.updateResourceTrie(): removedEvaluators={}, addedEvaluators={}, evaluatorCount={}", removedEvaluators.size(), addedEvaluators.size(), (evaluatorOrdinals != null ? evaluatorOrdinals.size() : 0));
     }
 
     enum AuditModeEnum {
@@ -25,6 +25,7 @@
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.util.CachedScriptEngine;
 import org.apache.ranger.plugin.util.JavaScriptEdits;
 import org.apache.ranger.plugin.util.MacroProcessor;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
@@ -52,6 +53,7 @@
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -148,7 +150,7 @@
 import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_tag;
 import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_tagAttr;
 
-public final class RangerRequestScriptEvaluator {
+public final class RangerRequestScriptEvaluator implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(RangerRequestScriptEvaluator.class);
 
     private static final Logger  PERF_POLICY_CONDITION_SCRIPT_TOJSON          = RangerPerfTracer.getPerfLogger("policy.condition.script.tojson");
@@ -203,8 +205,10 @@ public final class RangerRequestScriptEvaluator {
 
     private final RangerAccessRequest                 accessRequest;
     private final ScriptEngine                        scriptEngine;
+    private final CachedScriptEngine                  cachedScriptEngine;
     private final Bindings                            bindings;
     private       boolean                             initDone;
+    private       boolean                             isClosed;
     private       Map<String, String>                 userAttrs  = Collections.emptyMap();
     private       Map<String, Map<String, String>>    groupAttrs = Collections.emptyMap();
     private       Map<String, Map<String, Object>>    tags       = Collections.emptyMap();
@@ -219,9 +223,22 @@ public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEng
     }
 
     public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEngine scriptEngine, boolean enableJsonCtx) {
-        this.accessRequest = accessRequest.getReadOnlyCopy();
-        this.scriptEngine  = scriptEngine;
-        this.bindings      = scriptEngine.createBindings();
+        this(accessRequest, scriptEngine, null, enableJsonCtx);
+    }
+
+    /*
+     * evaluates scripts compiled once by cachedScriptEngine, using Bindings borrowed from its pool; close() must be called
+     * after evaluation to return the Bindings to the pool.
+     */
+    public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, CachedScriptEngine cachedScriptEngine, boolean enableJsonCtx) {
+        this(accessRequest, cachedScriptEngine.getScriptEngine(), cachedScriptEngine, enableJsonCtx);
+    }
+
+    private RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEngine scriptEngine, CachedScriptEngine cachedScriptEngine, boolean enableJsonCtx) {
+        this.accessRequest      = accessRequest.getReadOnlyCopy();
+        this.scriptEngine       = scriptEngine;
+        this.cachedScriptEngine = cachedScriptEngine;
+        this.bindings           = cachedScriptEngine != null ? cachedScriptEngine.borrowBindings() : scriptEngine.createBindings();
 
         RangerTagForEval    currentTag = this.getCurrentTag();
         Map<String, String> tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.emptyMap();
@@ -240,13 +257,23 @@ public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEng
 
         if (StringUtils.isNotBlank(preExecScript)) {
             try {
-                scriptEngine.eval(preExecScript, bindings);
+                eval(preExecScript, null);
             } catch (ScriptException excp) {
                 LOG.error("RangerRequestScriptEvaluator(): initialization failed", excp);
             }
         }
     }
 
+    /*
+     * used to evaluate scripts compiled by RangerScriptExpression, hence doesn't need a script engine
+     */
+    RangerRequestScriptEvaluator(RangerAccessRequest accessRequest) {
+        this.accessRequest      = accessRequest.getReadOnlyCopy();
+        this.scriptEngine       = null;
+        this.cachedScriptEngine = null;
+        this.bindings           = null;
+    }
+
     public static boolean needsJsonCtxEnabled(String script) {
         boolean ret = false;
 
@@ -326,8 +353,6 @@ public static void init(Configuration config) {
     }
 
     public Object evaluateScript(String script) {
-        script = expandMacros(script);
-
         return evaluateScriptImpl(script);
     }
 
@@ -345,6 +370,16 @@ public Object evaluateConditionScript(String script) {
         return ret;
     }
 
+    @Override
+    public void close() {
+        if (cachedScriptEngine != null && !isClosed) {
+            isClosed = true;
+
+            // variables of this request, including those set by pre-exec and condition scripts, are removed before pooling
+            cachedScriptEngine.returnBindings(bindings);
+        }
+    }
+
     public String getResource() {
         String               ret = null;
         RangerAccessResource val = RangerAccessRequestUtil.getCurrentResourceFromContext(getRequestContext());
@@ -959,21 +994,7 @@ private Object evaluateScriptImpl(String script) {
                 perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_EVAL, "RangerRequestScriptEvaluator.evaluateScript(requestHash=" + accessRequest.hashCode() + ")");
             }
 
-            String preExec = SCRIPT_SAFE_PREEXEC;
-
-            if (script.contains(".includes(")) {
-                preExec += SCRIPT_POLYFILL_INCLUDES;
-            }
-
-            if (script.contains(".intersects(")) {
-                preExec += SCRIPT_POLYFILL_INTERSECTS;
-            }
-
-            if (JavaScriptEdits.hasDoubleBrackets(script)) {
-                script = JavaScriptEdits.replaceDoubleBrackets(script);
-            }
-
-            ret = scriptEngine.eval(preExec + script, bindings);
+            ret = eval(script, RangerRequestScriptEvaluator::prepareScript);
         } catch (NullPointerException nullp) {
             LOG.error("RangerRequestScriptEvaluator.evaluateScript(): eval called with NULL argument(s)", nullp);
         } catch (ScriptException excp) {
@@ -987,6 +1008,39 @@ private Object evaluateScriptImpl(String script) {
         return ret;
     }
 
+    // when cachedScriptEngine is used, the script is compiled only once; hence preprocessor is applied only once per script
+    private Object eval(String script, UnaryOperator<String> preprocessor) throws ScriptException {
+        final Object ret;
+
+        if (cachedScriptEngine != null) {
+            ret = cachedScriptEngine.eval(script, preprocessor, bindings);
+        } else {
+            ret = scriptEngine.eval(preprocessor != null ? preprocessor.apply(script) : script, bindings);
+        }
+
+        return ret;
+    }
+
+    private static String prepareScript(String script) {
+        script = expandMacros(script);
+
+        String preExec = SCRIPT_SAFE_PREEXEC;
+
+        if (script.contains(".includes(")) {
+            preExec += SCRIPT_POLYFILL_INCLUDES;
+        }
+
+        if (script.contains(".intersects(")) {
+            preExec += SCRIPT_POLYFILL_INTERSECTS;
+        }
+
+        if (JavaScriptEdits.hasDoubleBrackets(script)) {
+            script = JavaScriptEdits.replaceDoubleBrackets(script);
+        }
+
+        return preExec + script;
+    }
+
     private String toJson() {
         RangerPerfTracer perf = null;
 
@@ -1107,6 +1161,20 @@ private void init() {
         }
     }
 
+    // USER in scripts
+    Map<String, String> getUserAttributesForScript() {
+        init();
+
+        return userAttrs;
+    }
+
+    // TAG in scripts
+    Map<String, Object> getCurrentTagForScript() {
+        init();
+
+        return tag;
+    }
+
     private Map<String, Object> getRequestContext() {
         return accessRequest.getContext();
     }
@@ -37,6 +37,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,6 +48,7 @@
 import java.util.Stack;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 
 import static org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher.DEFAULT_PATH_SEPARATOR_CHAR;
 import static org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher.OPTION_PATH_SEPARATOR;
@@ -66,9 +68,13 @@
     private final String            wildcardChars;
     private final boolean           isOptimizedForRetrieval;
     private final boolean           isOptimizedForSpace;
+    private final boolean           isCompactNodes;
     private final Character         separatorChar;
-    private final TrieNode<T>       root;
+    private final TrieNodeOptions   nodeOptions;
+    private final int               generation;
+    private       TrieNode<T>       root;
     private       Set<T>            inheritedEvaluators;
+    private       boolean           isInheritedEvaluatorsShared;
 
     public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators) {
         this(resourceDef, evaluators, true, null);
@@ -81,23 +87,19 @@ public RangerResourceTrie(RangerResourceTrie<T> other) {
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.copyTrie(name=" + other.resourceDef.getName() + ")");
         }
 
-        this.resourceDef             = other.resourceDef;
-        this.optIgnoreCase           = other.optIgnoreCase;
-        this.optWildcard             = other.optWildcard;
-        this.wildcardChars           = other.wildcardChars;
-        this.isOptimizedForSpace     = other.isOptimizedForSpace;
-        this.isOptimizedForRetrieval = other.isOptimizedForRetrieval;
-        this.separatorChar           = other.separatorChar;
-        this.inheritedEvaluators     = other.inheritedEvaluators != null ? new HashSet<>(other.inheritedEvaluators) : null;
-        this.root                    = copyTrieSubtree(other.root, null);
-
-        wrapUpUpdate();
-
-        if (!isOptimizedForRetrieval) {
-            LOG.debug("Trie for {} is not optimized for retrieval. Resetting isSetup flag by calling undoSetup() on the root", this.resourceDef.getName());
-
-            root.undoSetup();
-        }
+        this.resourceDef                 = other.resourceDef;
+        this.optIgnoreCase               = other.optIgnoreCase;
+        this.optWildcard                 = other.optWildcard;
+        this.wildcardChars               = other.wildcardChars;
+        this.isOptimizedForSpace         = other.isOptimizedForSpace;
+        this.isOptimizedForRetrieval     = other.isOptimizedForRetrieval;
+        this.isCompactNodes              = other.isCompactNodes;
+        this.separatorChar               = other.separatorChar;
+        this.nodeOptions                 = other.nodeOptions;
+        this.generation                  = other.generation + 1;
+        this.inheritedEvaluators         = other.inheritedEvaluators;
+        this.isInheritedEvaluatorsShared = other.inheritedEvaluators != null;
+        this.root                        = other.root; // nodes are shared with other trie, until updated in this trie - see TrieNode.getOwnedChild()
 
         RangerPerfTracer.logAlways(perf);
 
@@ -115,7 +117,11 @@ public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators, boo
     }
 
     public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, RangerPluginContext pluginContext) {
-        LOG.debug("==> RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={})", resourceDef.getName(), evaluators.size(), isOptimizedForRetrieval, isOptimizedForSpace);
+        this(resourceDef, evaluators, isOptimizedForRetrieval, isOptimizedForSpace, false, pluginContext);
+    }
+
+    public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, boolean isCompactNodes, RangerPluginContext pluginContext) {
+        LOG.debug("==> RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}, isCompactNodes={})", resourceDef.getName(), evaluators.size(), isOptimizedForRetrieval, isOptimizedForSpace, isCompactNodes);
 
         RangerPerfTracer perf = null;
 
@@ -159,7 +165,10 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
         this.wildcardChars           = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : tokenReplaceSpecialChars;
         this.isOptimizedForSpace     = isOptimizedForSpace;
         this.isOptimizedForRetrieval = !isOptimizedForSpace && isOptimizedForRetrieval;  // isOptimizedForSpace takes precedence
+        this.isCompactNodes          = isCompactNodes;
         this.separatorChar           = ServiceDefUtil.getCharOption(matcherOptions, OPTION_PATH_SEPARATOR, DEFAULT_PATH_SEPARATOR_CHAR);
+        this.nodeOptions             = new TrieNodeOptions(optIgnoreCase, this.isOptimizedForSpace, isCompactNodes);
+        this.generation              = 0;
 
         final TrieNode<T> tmpRoot = buildTrie(resourceDef, evaluators, builderThreadCount);
 
@@ -181,7 +190,7 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
             TRACE_LOG.trace("Trie Dump from RangerResourceTrie.init(name={}):\n[{}]", resourceDef.getName(), dumpTrie());
         }
 
-        LOG.debug("<== RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}): {}", resourceDef.getName(), evaluators.size(), this.isOptimizedForRetrieval, this.isOptimizedForSpace, this);
+        LOG.debug("<== RangerResourceTrie({}, evaluatorCount={}, isOptimizedForRetrieval={}, isOptimizedForSpace={}, isCompactNodes={}): {}", resourceDef.getName(), evaluators.size(), this.isOptimizedForRetrieval, this.isOptimizedForSpace, this.isCompactNodes, this);
     }
 
     public Set<T> getEvaluatorsForResource(Object resource) {
@@ -241,7 +250,7 @@ public void add(RangerPolicyResource resource, T evaluator) {
             } else {
                 if (CollectionUtils.isNotEmpty(resource.getValues())) {
                     for (String value : resource.getValues()) {
-                        insert(root, value, resource.getIsRecursive(), evaluator);
+                        insert(getOwnedRoot(), value, resource.getIsRecursive(), evaluator);
                     }
                 }
             }
@@ -286,7 +295,17 @@ public void delete(RangerPolicyResource resource, T evaluator) {
 
     public void wrapUpUpdate() {
         if (root != null) {
-            root.wrapUpUpdate();
+            if (isOptimizedForRetrieval) {
+                RangerPerfTracer postSetupPerf = null;
+
+                if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                    postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
+                }
+
+                root.postSetup(null);
+
+                RangerPerfTracer.logAlways(postSetupPerf);
+            }
 
             if (TRACE_LOG.isTraceEnabled()) {
                 TRACE_LOG.trace("Trie Dump from RangerResourceTrie.wrapUpUpdate(name={}):\n[{}]", resourceDef.getName(), dumpTrie());
@@ -294,6 +313,25 @@ public void wrapUpUpdate() {
         }
     }
 
+    /*
+     * sets up all nodes that are otherwise set up lazily, on first access - so that a newly built trie doesn't slow down
+     * the first requests that reach its nodes. Nothing to do when the trie is optimized for retrieval, as all nodes are
+     * set up in wrapUpUpdate(), or for space, as nodes are never set up.
+     */
+    public void warmUp() {
+        if (root != null && !isOptimizedForRetrieval && !isOptimizedForSpace) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.warmUp(name=" + resourceDef.getName() + ")");
+            }
+
+            root.warmUp(null);
+
+            RangerPerfTracer.logAlways(perf);
+        }
+    }
+
     public StringBuilder dumpTrie() {
         StringBuilder sb = new StringBuilder();
         if (root != null) {
@@ -386,12 +424,14 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
 
             if (isSelfMatch) { // resource == path(curr)
                 if (resourceEndsWithSep) { // ex: resource=/tmp/
-                    curr.getChildren().values().forEach(c -> c.collectChildEvaluators(separatorChar, 0, handler));
+                    final TrieNode<T> self = curr;
+
+                    curr.forEachChild(c -> c.collectChildEvaluators(self, separatorChar, 0, handler));
                 } else { // ex: resource=/tmp
-                    curr = curr.getChild(separatorChar);
+                    child = curr.getChild(separatorChar);
 
-                    if (curr != null) {
-                        curr.collectChildEvaluators(separatorChar, 1, handler);
+                    if (child != null) {
+                        child.collectChildEvaluators(curr, separatorChar, 1, handler);
                     }
                 }
             } else if (child != null) { // resource != path(child) ex: (resource=/tmp, path(child)=/tmp/test.txt or path(child)=/tmpdir)
@@ -400,9 +440,9 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
 
                 if (isPrefixMatch) {
                     if (resourceEndsWithSep) { // ex: resource=/tmp/
-                        child.collectChildEvaluators(separatorChar, remainingLen, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen, handler);
                     } else if (child.getStr().charAt(remainingLen) == separatorChar) { //  ex: resource=/tmp
-                        child.collectChildEvaluators(separatorChar, remainingLen + 1, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen + 1, handler);
                     }
                 }
             }
@@ -425,6 +465,7 @@ public String toString() {
         sb.append("; optIgnoreCase=").append(optIgnoreCase);
         sb.append("; optWildcard=").append(optWildcard);
         sb.append("; wildcardChars=").append(wildcardChars);
+        sb.append("; isCompactNodes=").append(isCompactNodes);
         sb.append("; nodeCount=").append(trieData.nodeCount);
         sb.append("; leafNodeCount=").append(trieData.leafNodeCount);
         sb.append("; singleChildNodeCount=").append(trieData.singleChildNodeCount);
@@ -441,16 +482,33 @@ TrieNode<T> getRoot() {
         return root;
     }
 
+    private TrieNode<T> getOwnedRoot() {
+        if (root.generation != generation) {
+            root = new TrieNode<>(root, generation);
+        }
+
+        return root;
+    }
+
     private void addInheritedEvaluator(T evaluator) {
         if (inheritedEvaluators == null) {
             inheritedEvaluators = new HashSet<>();
+        } else if (isInheritedEvaluatorsShared) {
+            inheritedEvaluators = new HashSet<>(inheritedEvaluators);
         }
 
+        isInheritedEvaluatorsShared = false;
+
         inheritedEvaluators.add(evaluator);
     }
 
     private void removeInheritedEvaluator(T evaluator) {
         if (CollectionUtils.isNotEmpty(inheritedEvaluators) && inheritedEvaluators.contains(evaluator)) {
+            if (isInheritedEvaluatorsShared) {
+                inheritedEvaluators         = new HashSet<>(inheritedEvaluators);
+                isInheritedEvaluatorsShared = false;
+            }
+
             inheritedEvaluators.remove(evaluator);
 
             if (CollectionUtils.isEmpty(inheritedEvaluators)) {
@@ -459,69 +517,6 @@ private void removeInheritedEvaluator(T evaluator) {
         }
     }
 
-    private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T> parent) {
-        if (TRACE_LOG.isTraceEnabled()) {
-            StringBuilder sb = new StringBuilder();
-
-            source.toString(sb);
-
-            TRACE_LOG.trace("==> copyTrieSubtree({})", sb);
-        }
-
-        TrieNode<T> dest = new TrieNode<>(source.str);
-
-        if (parent != null) {
-            parent.addChild(dest);
-        }
-
-        synchronized (source.children) {
-            dest.isSetup                           = source.isSetup;
-            dest.isSharingParentWildcardEvaluators = source.isSharingParentWildcardEvaluators;
-
-            if (source.isSharingParentWildcardEvaluators) {
-                if (dest.getParent() != null) {
-                    dest.wildcardEvaluators = dest.getParent().getWildcardEvaluators();
-                } else {
-                    dest.wildcardEvaluators = null;
-                }
-            } else {
-                if (source.wildcardEvaluators != null) {
-                    dest.wildcardEvaluators = new HashSet<>(source.wildcardEvaluators);
-                } else {
-                    dest.wildcardEvaluators = null;
-                }
-            }
-
-            if (source.evaluators != null) {
-                if (source.evaluators == source.wildcardEvaluators) {
-                    dest.evaluators = dest.wildcardEvaluators;
-                } else {
-                    dest.evaluators = new HashSet<>(source.evaluators);
-                }
-            } else {
-                dest.evaluators = null;
-            }
-        }
-
-        Map<Character, TrieNode<T>> children = source.getChildren();
-
-        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
-            copyTrieSubtree(entry.getValue(), dest);
-        }
-
-        if (TRACE_LOG.isTraceEnabled()) {
-            StringBuilder sourceAsString = new StringBuilder();
-            StringBuilder destAsString   = new StringBuilder();
-
-            source.toString(sourceAsString);
-            dest.toString(destAsString);
-
-            TRACE_LOG.trace("<== copyTrieSubtree({}) : {}", sourceAsString, destAsString);
-        }
-
-        return dest;
-    }
-
     private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluators, int builderThreadCount) {
         LOG.debug("==> buildTrie({}, evaluatorCount={}, isMultiThreaded={})", resourceDef.getName(), evaluators.size(), (builderThreadCount > 1));
 
@@ -531,7 +526,7 @@ private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluat
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(resourceDef=" + resourceDef.getName() + ")");
         }
 
-        TrieNode<T>                           ret                 = new TrieNode<>(null);
+        TrieNode<T>                           ret                 = new TrieNode<>(null, nodeOptions, generation);
         final boolean                         isMultiThreaded     = builderThreadCount > 1;
         final List<ResourceTrieBuilderThread> builderThreads;
         final Map<Character, Integer>         builderThreadMap;
@@ -627,7 +622,7 @@ private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluat
                         t.add("", false, null);
                         // Wait for threads to finish work
                         t.join();
-                        ret.getChildren().putAll(t.getSubtrees());
+                        t.getSubtrees().forEachChild(ret::addChild);
                     } catch (InterruptedException ex) {
                         LOG.error("BuilderThread {} was interrupted:", t, ex);
                         LOG.error("Failing and retrying with one thread");
@@ -678,11 +673,11 @@ private int getMaxDepth() {
         return root.getMaxDepth();
     }
 
-    private Character getLookupChar(char ch) {
+    private char getLookupChar(char ch) {
         return optIgnoreCase ? Character.toLowerCase(ch) : ch;
     }
 
-    private Character getLookupChar(String str, int index) {
+    private char getLookupChar(String str, int index) {
         return getLookupChar(str.charAt(index));
     }
 
@@ -718,8 +713,14 @@ private void insert(TrieNode<T> currentRoot, String resource, boolean isRecursiv
             curr = curr.getOrCreateChild(prefix);
         }
 
+        curr.undoSetup();
+
         if (isWildcard || isRecursive) {
             curr.addWildcardEvaluator(evaluator);
+
+            if (!isOptimizedForSpace) {
+                curr.undoSetupOfSubtree();
+            }
         } else {
             curr.addEvaluator(evaluator);
         }
@@ -754,7 +755,7 @@ private TrieNode<T> getNodeForResource(String resource) {
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerResourceTrie.getNodeForResource(resource=" + resource + ")");
         }
 
-        TrieNode<T> curr = root;
+        TrieNode<T> curr = getOwnedRoot(); // returned node will be updated, hence nodes in the path are owned by this trie
         final int   len  = getNonWildcardPrefixLength(resource);
         int         i    = 0;
 
@@ -771,7 +772,7 @@ private TrieNode<T> getNodeForResource(String resource) {
                 break;
             }
 
-            curr = child;
+            curr = curr.getOwnedChild(child);
             i += childStr.length();
         }
 
@@ -929,7 +930,7 @@ public boolean process(Set<T> evaluators) {
     }
 
     class ResourceTrieBuilderThread extends Thread {
-        private final TrieNode<T>             thisRoot  = new TrieNode<>(null);
+        private final TrieNode<T>             thisRoot  = new TrieNode<>(null, nodeOptions, generation);
         private final BlockingQueue<WorkItem> workQueue = new LinkedBlockingQueue<>();
 
         ResourceTrieBuilderThread() {
@@ -966,8 +967,8 @@ void add(String resourceName, boolean isRecursive, T evaluator) throws Interrupt
             workQueue.put(new WorkItem(resourceName, isRecursive, evaluator));
         }
 
-        Map<Character, TrieNode<T>> getSubtrees() {
-            return thisRoot.getChildren();
+        TrieNode<T> getSubtrees() {
+            return thisRoot;
         }
 
         class WorkItem {
@@ -990,17 +991,84 @@ public String toString() {
         }
     }
 
-    class TrieNode<U extends T> {
-        private final    Map<Character, TrieNode<U>> children = new HashMap<>();
+    /*
+     * Options of the trie used by its nodes. Nodes refer to these options instead of to the trie, as nodes are shared by
+     * copies of the trie: a reference to the trie would keep every earlier version of the trie reachable.
+     */
+    static final class TrieNodeOptions {
+        final boolean optIgnoreCase;
+        final boolean isOptimizedForSpace;
+        final boolean isCompactNodes;
+
+        TrieNodeOptions(boolean optIgnoreCase, boolean isOptimizedForSpace, boolean isCompactNodes) {
+            this.optIgnoreCase       = optIgnoreCase;
+            this.isOptimizedForSpace = isOptimizedForSpace;
+            this.isCompactNodes      = isCompactNodes;
+        }
+
+        char getLookupChar(char ch) {
+            return optIgnoreCase ? Character.toLowerCase(ch) : ch;
+        }
+
+        char getLookupChar(String str, int index) {
+            return getLookupChar(str.charAt(index));
+        }
+    }
+
+    /*
+     * Children of a node are kept either in a HashMap keyed by the lookup-char of the child, or - when isCompactNodes is
+     * set - in a sorted char[] of lookup-chars and a parallel array of child nodes. Compact layout avoids a HashMap (and a
+     * Map.Entry per child) in every node, at the cost of a binary search and an array copy when a child is added.
+     *
+     * A copy of the trie shares nodes with the trie it is copied from. Each node is owned by one generation of the trie;
+     * an update replaces nodes of older generations in its path with copies owned by the generation being updated, so
+     * that nodes reachable from other versions of the trie are never modified - other than by setupIfNeeded(), which
+     * results in the same evaluators in all versions. Evaluator sets of a node that is setup can be shared with its
+     * parent, children and copies; hence such sets are never modified, and undoSetup() creates new sets.
+     */
+    static class TrieNode<U extends RangerResourceEvaluator> {
+        private final    TrieNodeOptions             options;
+        private final    int                         generation;
+        private final    Map<Character, TrieNode<U>> children;
+        private          char[]                      childKeys;
+        private          Object[]                    childNodes;
         private          String                      str;
         private          TrieNode<U>                 parent;
         private volatile Set<U>                      evaluators;
         private volatile Set<U>                      wildcardEvaluators;
+        private          Set<U>                      parentWildcardEvaluators; // parent's wildcardEvaluators used in setup()
         private          boolean                     isSharingParentWildcardEvaluators;
         private volatile boolean                     isSetup;
-
-        TrieNode(String str) {
-            this.str = str;
+        private          boolean                     isSubtreeOwned; // all nodes in the subtree are owned by this generation, and are not setup
+
+        TrieNode(String str, TrieNodeOptions options, int generation) {
+            this.options    = options;
+            this.generation = generation;
+            this.str        = str;
+            this.children   = options.isCompactNodes ? null : new HashMap<>();
+        }
+
+        TrieNode(TrieNode<U> other, int generation) {
+            this.options    = other.options;
+            this.generation = generation;
+            this.str        = other.str;
+            this.parent     = other.parent;
+            this.children   = other.children != null ? new HashMap<>(other.children) : null;
+            this.childKeys  = other.childKeys; // not modified in place; see putChild() and removeChild()
+            this.childNodes = other.childNodes != null ? other.childNodes.clone() : null;
+
+            synchronized (other) {
+                if (other.isSetup) {
+                    this.evaluators                        = other.evaluators;
+                    this.wildcardEvaluators                = other.wildcardEvaluators;
+                    this.parentWildcardEvaluators          = other.parentWildcardEvaluators;
+                    this.isSharingParentWildcardEvaluators = other.isSharingParentWildcardEvaluators;
+                    this.isSetup                           = true;
+                } else {
+                    this.evaluators         = other.evaluators != null ? new HashSet<>(other.evaluators) : null;
+                    this.wildcardEvaluators = other.wildcardEvaluators != null ? new HashSet<>(other.wildcardEvaluators) : null;
+                }
+            }
         }
 
         @Override
@@ -1026,10 +1094,6 @@ void setParent(TrieNode<U> parent) {
             this.parent = parent;
         }
 
-        Map<Character, TrieNode<U>> getChildren() {
-            return children;
-        }
-
         Set<U> getEvaluators() {
             return evaluators;
         }
@@ -1038,8 +1102,109 @@ Set<U> getWildcardEvaluators() {
             return wildcardEvaluators;
         }
 
-        TrieNode<U> getChild(Character ch) {
-            return children.get(ch);
+        Map<Character, TrieNode<U>> getChildren() {
+            final Map<Character, TrieNode<U>> ret;
+
+            if (children != null) {
+                ret = children;
+            } else {
+                ret = new HashMap<>();
+
+                forEachChild(child -> ret.put(options.getLookupChar(child.getStr(), 0), child));
+            }
+
+            return ret;
+        }
+
+        TrieNode<U> getChild(char ch) {
+            final TrieNode<U> ret;
+
+            if (children != null) {
+                ret = children.get(ch);
+            } else {
+                int index = childKeys != null ? Arrays.binarySearch(childKeys, ch) : -1;
+
+                ret = index >= 0 ? (TrieNode<U>) childNodes[index] : null;
+            }
+
+            return ret;
+        }
+
+        int getChildCount() {
+            if (children != null) {
+                return children.size();
+            } else {
+                return childKeys != null ? childKeys.length : 0;
+            }
+        }
+
+        void forEachChild(Consumer<TrieNode<U>> action) {
+            if (children != null) {
+                children.values().forEach(action);
+            } else if (childNodes != null) {
+                for (Object child : childNodes) {
+                    action.accept((TrieNode<U>) child);
+                }
+            }
+        }
+
+        void putChild(TrieNode<U> child) {
+            final char key = options.getLookupChar(child.getStr(), 0);
+
+            if (children != null) {
+                children.put(key, child);
+            } else if (childKeys == null) {
+                childKeys  = new char[] {key};
+                childNodes = new Object[] {child};
+            } else {
+                int index = Arrays.binarySearch(childKeys, key);
+
+                if (index >= 0) {
+                    childNodes[index] = child;
+                } else {
+                    int      insertAt = -(index + 1);
+                    char[]   keys     = new char[childKeys.length + 1];
+                    Object[] nodes    = new Object[childNodes.length + 1];
+
+                    System.arraycopy(childKeys, 0, keys, 0, insertAt);
+                    System.arraycopy(childNodes, 0, nodes, 0, insertAt);
+
+                    keys[insertAt]  = key;
+                    nodes[insertAt] = child;
+
+                    System.arraycopy(childKeys, insertAt, keys, insertAt + 1, childKeys.length - insertAt);
+                    System.arraycopy(childNodes, insertAt, nodes, insertAt + 1, childNodes.length - insertAt);
+
+                    childKeys  = keys;
+                    childNodes = nodes;
+                }
+            }
+        }
+
+        void removeChild(char key) {
+            if (children != null) {
+                children.remove(key);
+            } else if (childKeys != null) {
+                int index = Arrays.binarySearch(childKeys, key);
+
+                if (index >= 0) {
+                    if (childKeys.length == 1) {
+                        childKeys  = null;
+                        childNodes = null;
+                    } else {
+                        char[]   keys  = new char[childKeys.length - 1];
+                        Object[] nodes = new Object[childNodes.length - 1];
+
+                        System.arraycopy(childKeys, 0, keys, 0, index);
+                        System.arraycopy(childNodes, 0, nodes, 0, index);
+                        System.arraycopy(childKeys, index + 1, keys, index, childKeys.length - index - 1);
+                        System.arraycopy(childNodes, index + 1, nodes, index, childNodes.length - index - 1);
+
+                        childKeys  = keys;
+                        childNodes = nodes;
+                    }
+                }
+            }
         }
 
         void populateTrieData(RangerResourceTrie.TrieData trieData) {
@@ -1061,56 +1226,54 @@ void populateTrieData(RangerResourceTrie.TrieData trieData) {
                 }
             }
 
-            if (!children.isEmpty()) {
-                if (children.size() == 1) {
+            int childCount = getChildCount();
+
+            if (childCount > 0) {
+                if (childCount == 1) {
                     trieData.singleChildNodeCount++;
                 }
 
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode<U> child = entry.getValue();
-
-                    child.populateTrieData(trieData);
-                }
+                forEachChild(child -> child.populateTrieData(trieData));
             } else {
                 trieData.leafNodeCount++;
             }
         }
 
         int getMaxDepth() {
-            int ret = 0;
-
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
+            int[] ret = new int[1];
 
+            forEachChild(child -> {
                 int maxChildDepth = child.getMaxDepth();
 
-                if (maxChildDepth > ret) {
-                    ret = maxChildDepth;
+                if (maxChildDepth > ret[0]) {
+                    ret[0] = maxChildDepth;
                 }
-            }
+            });
 
-            return ret + 1;
+            return ret[0] + 1;
         }
 
         TrieNode<U> getOrCreateChild(String str) {
             int         len   = str.length();
-            TrieNode<U> child = children.get(getLookupChar(str, 0));
+            TrieNode<U> child = getChild(options.getLookupChar(str, 0));
 
             if (child == null) {
-                child = new TrieNode<>(str);
+                child = new TrieNode<>(str, options, generation);
 
                 addChild(child);
             } else {
+                child = getOwnedChild(child);
+
                 final String  childStr     = child.getStr();
                 final int     childStrLen  = childStr.length();
-                final boolean isExactMatch = optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
+                final boolean isExactMatch = options.optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
 
                 if (!isExactMatch) {
                     final int numOfCharactersToMatch = Math.min(childStrLen, len);
                     int       index                  = 1;
 
                     for (; index < numOfCharactersToMatch; index++) {
-                        if (getLookupChar(childStr, index) != getLookupChar(str, index)) {
+                        if (options.getLookupChar(childStr, index) != options.getLookupChar(str, index)) {
                             break;
                         }
                     }
@@ -1119,7 +1282,7 @@ TrieNode<U> getOrCreateChild(String str) {
                         // Matched all
                         if (childStrLen > len) {
                             // Existing node has longer string, need to break up this node
-                            TrieNode<U> newChild = new TrieNode<>(str);
+                            TrieNode<U> newChild = new TrieNode<>(str, options, generation);
 
                             this.addChild(newChild);
                             child.setStr(childStr.substring(index));
@@ -1133,7 +1296,7 @@ TrieNode<U> getOrCreateChild(String str) {
                     } else {
                         // Partial match for both; both have leftovers
                         String      matchedPart = str.substring(0, index);
-                        TrieNode<U> newChild    = new TrieNode<>(matchedPart);
+                        TrieNode<U> newChild    = new TrieNode<>(matchedPart, options, generation);
 
                         this.addChild(newChild);
                         child.setStr(childStr.substring(index));
@@ -1183,92 +1346,95 @@ void removeWildcardEvaluator(U evaluator) {
             }
         }
 
+        /*
+         * reverts this node to its own evaluators, so that it can be updated. This node must be owned by the generation
+         * being updated
+         */
         void undoSetup() {
-            for (TrieNode<U> child : children.values()) {
-                child.undoSetup();
-            }
-
             if (isSetup) {
-                if (evaluators != null) {
-                    if (evaluators == wildcardEvaluators) {
-                        evaluators = null;
-                    } else {
-                        if (wildcardEvaluators != null) {
-                            evaluators.removeAll(wildcardEvaluators);
+                Set<U> ownEvaluators         = evaluators == wildcardEvaluators ? null : subtract(evaluators, wildcardEvaluators);
+                Set<U> ownWildcardEvaluators = isSharingParentWildcardEvaluators ? null : subtract(wildcardEvaluators, parentWildcardEvaluators);
 
-                            if (CollectionUtils.isEmpty(evaluators)) {
-                                evaluators = null;
-                            }
-                        }
+                evaluators                        = ownEvaluators;
+                wildcardEvaluators                = ownWildcardEvaluators;
+                parentWildcardEvaluators          = null;
+                isSharingParentWildcardEvaluators = false;
+                isSetup                           = false;
+            }
+        }
+
+        /*
+         * setup of nodes in the subtree includes wildcardEvaluators of this node; hence it must be undone when
+         * wildcardEvaluators of this node are updated. Nodes in the subtree are replaced with copies owned by this generation
+         */
+        void undoSetupOfSubtree() {
+            if (!isSubtreeOwned) {
+                if (children != null) {
+                    children.replaceAll((key, child) -> undoSetupOfChildSubtree(child));
+                } else if (childNodes != null) {
+                    for (int i = 0; i < childNodes.length; i++) {
+                        childNodes[i] = undoSetupOfChildSubtree((TrieNode<U>) childNodes[i]);
                     }
                 }
 
-                if (wildcardEvaluators != null) {
-                    if (isSharingParentWildcardEvaluators) {
-                        wildcardEvaluators = null;
-                    } else {
-                        Set<U> parentWildcardEvaluators = getParent() == null ? null : getParent().getWildcardEvaluators();
+                isSubtreeOwned = true;
+            }
+        }
 
-                        if (parentWildcardEvaluators != null) {
-                            wildcardEvaluators.removeAll(parentWildcardEvaluators);
+        /*
+         * returns the given child of this node, after replacing it with a copy if it is not owned by this node's generation
+         */
+        TrieNode<U> getOwnedChild(TrieNode<U> child) {
+            final TrieNode<U> ret;
 
-                            if (CollectionUtils.isEmpty(wildcardEvaluators)) {
-                                wildcardEvaluators = null;
-                            }
-                        }
-                    }
-                }
+            if (child.generation == generation) {
+                ret = child;
+            } else {
+                ret = new TrieNode<>(child, generation);
 
-                isSharingParentWildcardEvaluators = false;
-                isSetup                           = false;
+                addChild(ret);
             }
+
+            return ret;
         }
 
         void removeSelfFromTrie() {
             LOG.debug("==> removeSelfFromTrie({})", this);
 
-            if (evaluators == null && wildcardEvaluators == null && children.isEmpty()) {
+            if (evaluators == null && wildcardEvaluators == null && getChildCount() == 0) {
                 TrieNode<U> parent = getParent();
 
                 if (parent != null) {
-                    parent.children.remove(str.charAt(0));
+                    parent.removeChild(options.getLookupChar(str, 0));
                 }
             } else {
-                LOG.debug("removeSelfFromTrie({}): node is not removed from Trie : [evaluators:{}, wildcard-evaluators:{}, number-of-children-nodes:{}]", this, evaluators, wildcardEvaluators, children.size());
+                LOG.debug("removeSelfFromTrie({}): node is not removed from Trie : [evaluators:{}, wildcard-evaluators:{}, number-of-children-nodes:{}]", this, evaluators, wildcardEvaluators, getChildCount());
             }
 
             LOG.debug("<== removeSelfFromTrie({})", this);
         }
 
-        void wrapUpUpdate() {
-            if (isOptimizedForRetrieval) {
-                RangerPerfTracer postSetupPerf = null;
+        void postSetup(Set<U> parentWildcardEvaluators) {
+            setup(parentWildcardEvaluators);
 
-                if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
-                    postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
+            forEachChild(child -> {
+                if (child.generation == generation) { // nodes of earlier generations are already setup
+                    child.postSetup(wildcardEvaluators);
                 }
-
-                postSetup(null);
-
-                RangerPerfTracer.logAlways(postSetupPerf);
-            }
+            });
         }
 
-        void postSetup(Set<U> parentWildcardEvaluators) {
-            setup(parentWildcardEvaluators);
-
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
+        void warmUp(TrieNode<U> parent) {
+            setupIfNeeded(parent);
 
-                child.postSetup(wildcardEvaluators);
-            }
+            forEachChild(child -> child.warmUp(this));
         }
 
         void setupIfNeeded(TrieNode<U> parent) {
             boolean setupNeeded = !isSetup;
 
             if (setupNeeded) {
-                synchronized (this.children) {
+                synchronized (this) {
                     setupNeeded = !isSetup;
 
                     if (setupNeeded) {
@@ -1299,6 +1465,7 @@ void setup(Set<U> parentWildcardEvaluators) {
                     }
                 }
 
+                this.parentWildcardEvaluators          = parentWildcardEvaluators;
                 this.isSharingParentWildcardEvaluators = wildcardEvaluators == parentWildcardEvaluators;
 
                 // finalize evaluators list by including wildcard evaluators
@@ -1311,27 +1478,29 @@ void setup(Set<U> parentWildcardEvaluators) {
                         }
                     }
                 }
-                isSetup = true;
+
+                isSubtreeOwned = false;
+                isSetup        = true;
             }
         }
 
-        void collectChildEvaluators(Character sep, int startIdx, TraverseMatchHandler<U> handler) {
-            if (!isOptimizedForSpace) {
-                setupIfNeeded(getParent());
+        void collectChildEvaluators(TrieNode<U> parent, Character sep, int startIdx, TraverseMatchHandler<U> handler) {
+            if (!options.isOptimizedForSpace) {
+                setupIfNeeded(parent);
             }
 
             final int sepPos = startIdx < str.length() ? str.indexOf(sep, startIdx) : -1;
 
             if (sepPos == -1) { // ex: startIdx=5, path(str)=/tmp/test, path(a child) could be: /tmp/test.txt, /tmp/test/, /tmp/test/a, /tmp/test/a/b
-                if (isOptimizedForSpace) {
+                if (options.isOptimizedForSpace) {
                     handler.process(this.wildcardEvaluators);
                 }
 
                 handler.process(this.evaluators);
 
-                children.values().forEach(c -> c.collectChildEvaluators(sep, 0, handler));
+                forEachChild(c -> c.collectChildEvaluators(this, sep, 0, handler));
             } else if (sepPos == (str.length() - 1)) { // ex: str=/tmp/test/, startIdx=5
-                if (isOptimizedForSpace) {
+                if (options.isOptimizedForSpace) {
                     handler.process(this.wildcardEvaluators);
                 }
 
@@ -1343,25 +1512,24 @@ void collectChildEvaluators(String resource, int startIndex, TraverseMatchHandle
             if (startIndex == resource.length()) {
                 collectChildEvaluators(handler);
             } else if (startIndex < resource.length()) {
-                Character   startChar = getLookupChar(resource, startIndex);
-                TrieNode<U> childNode = children.get(startChar);
+                TrieNode<U> childNode = getChild(options.getLookupChar(resource, startIndex));
 
                 if (childNode != null) {
-                    if (!isOptimizedForSpace) {
-                        childNode.setupIfNeeded(childNode.getParent());
+                    if (!options.isOptimizedForSpace) {
+                        childNode.setupIfNeeded(this);
                     }
 
                     String childStr   = childNode.getStr();
                     int    lenToMatch = Math.min(resource.length() - startIndex, childStr.length());
 
-                    if (resource.regionMatches(optIgnoreCase, startIndex, childStr, 0, lenToMatch)) {
+                    if (resource.regionMatches(options.optIgnoreCase, startIndex, childStr, 0, lenToMatch)) {
                         handler.process(childNode.wildcardEvaluators);
                         handler.process(childNode.evaluators);
 
                         if (resource.length() == (startIndex + lenToMatch)) {
                             childNode.collectChildEvaluators(handler);
                         } else {
-                            childNode.children.values().forEach(c -> c.collectChildEvaluators(resource, startIndex + childStr.length(), handler));
+                            childNode.forEachChild(c -> c.collectChildEvaluators(resource, startIndex + childStr.length(), handler));
                         }
                     }
                 }
@@ -1374,7 +1542,7 @@ void toString(StringBuilder sb) {
             sb.append("nodeValue=").append(nodeValue == null ? "ROOT" : nodeValue);
             sb.append("; isSetup=").append(isSetup);
             sb.append("; isSharingParentWildcardEvaluators=").append(isSharingParentWildcardEvaluators);
-            sb.append("; childCount=").append(children.size());
+            sb.append("; childCount=").append(getChildCount());
             sb.append("; evaluators=[");
             if (evaluators != null) {
                 for (U evaluator : evaluators) {
@@ -1403,42 +1571,80 @@ void toString(String prefix, StringBuilder sb) {
             toString(sb);
             sb.append("]\n");
 
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
+            forEachChild(child -> child.toString(nodeValue, sb));
+        }
+
+        private static <V> Set<V> subtract(Set<V> set, Set<V> toRemove) {
+            Set<V> ret = null;
+
+            if (set != null) {
+                for (V item : set) {
+                    if (toRemove == null || !toRemove.contains(item)) {
+                        if (ret == null) {
+                            ret = new HashSet<>();
+                        }
 
-                child.toString(nodeValue, sb);
+                        ret.add(item);
+                    }
+                }
             }
+
+            return ret;
+        }
+
+        private TrieNode<U> undoSetupOfChildSubtree(TrieNode<U> child) {
+            final TrieNode<U> ret = child.generation == generation ? child : new TrieNode<>(child, generation);
+
+            ret.setParent(this);
+            ret.undoSetup();
+            ret.undoSetupOfSubtree();
+
+            return ret;
         }
 
         private void addChild(TrieNode<U> child) {
-            children.put(getLookupChar(child.getStr(), 0), child);
+            putChild(child);
             child.setParent(this);
         }
 
         private void collectChildEvaluators(TraverseMatchHandler<U> childEvaluators) {
-            Stack<TrieNode<U>> nodes = new Stack<>();
+            Stack<TrieNode<U>> nodes   = new Stack<>();
+            Stack<TrieNode<U>> parents = new Stack<>(); // parent of the node at the same position in nodes
 
-            nodes.addAll(children.values());
+            forEachChild(child -> {
+                nodes.push(child);
+                parents.push(this);
+            });
 
             while (!nodes.isEmpty()) {
                 TrieNode<U> childNode = nodes.pop();
+                TrieNode<U> parent    = parents.pop();
 
-                if (!isOptimizedForSpace) {
-                    childNode.setupIfNeeded(childNode.getParent());
+                if (!options.isOptimizedForSpace) {
+                    childNode.setupIfNeeded(parent);
                 }
 
                 childEvaluators.process(childNode.wildcardEvaluators);
                 childEvaluators.process(childNode.evaluators);
 
-                nodes.addAll(childNode.children.values());
+                childNode.forEachChild(child -> {
+                    nodes.push(child);
+                    parents.push(childNode);
+                });
             }
         }
 
         private void removeEvaluatorFromSubtree(U evaluator) {
             LOG.debug("==> removeEvaluatorFromSubtree({})", evaluator.getId());
 
+            undoSetup();
+
             if (CollectionUtils.isNotEmpty(wildcardEvaluators) && wildcardEvaluators.contains(evaluator)) {
                 removeWildcardEvaluator(evaluator);
+
+                if (!options.isOptimizedForSpace) {
+                    undoSetupOfSubtree();
+                }
             } else {
                 removeEvaluator(evaluator);
             }
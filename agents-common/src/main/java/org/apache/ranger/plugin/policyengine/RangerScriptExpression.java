@@ -0,0 +1,739 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_TAG;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_USER;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_ctx;
+
+/*
+ * Condition script compiled to Java, to evaluate commonly used simple scripts without a script engine. Supports scripts
+ * that, after macro expansion, use only the following:
+ *  - attributes of the user and the current tag: USER.attr, USER['attr'], TAG.attr, TAG['attr']
+ *  - string, number, boolean and null literals
+ *  - boolean methods of ctx, like ctx.hasTag('PII') or ctx.isInGroup('g') - i.e. macros HAS_TAG, IS_IN_GROUP, HAS_ANY_TAG, ...
+ *  - operators ||, &&, !, ==, !=, ===, !==, <, <=, >, >= and parentheses
+ *
+ * compile() returns null for other scripts, which must be evaluated using the script engine. Evaluation follows
+ * JavaScript (ECMAScript 5.1) semantics for truthiness and type conversions in comparisons, so that the result is the
+ * same as that from the script engine.
+ */
+public final class RangerScriptExpression {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerScriptExpression.class);
+
+    private static final Object  UNDEFINED             = new Object();
+    private static final Pattern NUMBER_LITERAL        = Pattern.compile("(?:0|[1-9][0-9]*)(?:\\.[0-9]*)?(?:[eE][+-]?[0-9]+)?|\\.[0-9]+(?:[eE][+-]?[0-9]+)?");
+    private static final Pattern STR_DECIMAL_NUMBER    = Pattern.compile("[+-]?(?:Infinity|(?:[0-9]+(?:\\.[0-9]*)?|\\.[0-9]+)(?:[eE][+-]?[0-9]+)?)");
+    private static final Pattern STR_HEX_NUMBER        = Pattern.compile("0[xX][0-9a-fA-F]+");
+    private static final Set<String> OBJECT_PROPERTIES = new HashSet<>(Arrays.asList("constructor", "hasOwnProperty", "isPrototypeOf", "propertyIsEnumerable", "toLocaleString", "toString", "valueOf",
+            "__proto__", "__defineGetter__", "__defineSetter__", "__lookupGetter__", "__lookupSetter__"));
+
+    private static final Map<String, Function<RangerRequestScriptEvaluator, Boolean>>           CTX_METHODS_NO_ARG  = new HashMap<>();
+    private static final Map<String, BiFunction<RangerRequestScriptEvaluator, String, Boolean>> CTX_METHODS_ONE_ARG = new HashMap<>();
+
+    private final String     script;
+    private final Expression expression;
+    private final boolean    needsJsonCtx;
+
+    private RangerScriptExpression(String script, Expression expression, boolean needsJsonCtx) {
+        this.script       = script;
+        this.expression   = expression;
+        this.needsJsonCtx = needsJsonCtx;
+    }
+
+    /*
+     * returns null if the script uses anything other than the subset supported by this class
+     */
+    public static RangerScriptExpression compile(String script) {
+        RangerScriptExpression ret = null;
+
+        if (script != null) {
+            Parser parser = new Parser(RangerRequestScriptEvaluator.expandMacros(script));
+
+            try {
+                Expression expression = parser.parse();
+
+                ret = new RangerScriptExpression(script, expression, parser.needsJsonCtx);
+            } catch (UnsupportedScriptException excp) {
+                LOG.debug("RangerScriptExpression.compile({}): not supported. error={}", script, excp.getMessage());
+            }
+        }
+
+        LOG.debug("RangerScriptExpression.compile({}): ret={}", script, ret);
+
+        return ret;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    /*
+     * true if the script references USER or TAG, which are available to scripts only when JSON context is enabled
+     */
+    public boolean needsJsonCtx() {
+        return needsJsonCtx;
+    }
+
+    /*
+     * returns Boolean, Double, String or null (for both null and undefined); same as the value returned by the script engine
+     */
+    public Object evaluate(RangerAccessRequest request) {
+        Object ret = expression.evaluate(new RangerRequestScriptEvaluator(request));
+
+        return ret != UNDEFINED ? ret : null;
+    }
+
+    public boolean isMatched(RangerAccessRequest request) {
+        Object ret = evaluate(request);
+
+        return ret instanceof Boolean && (Boolean) ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerScriptExpression={script=" + script + ", needsJsonCtx=" + needsJsonCtx + "}";
+    }
+
+    private static boolean isTruthy(Object value) {
+        final boolean ret;
+
+        if (value instanceof Boolean) {
+            ret = (Boolean) value;
+        } else if (value instanceof Double) {
+            double num = (Double) value;
+
+            ret = num != 0 && !Double.isNaN(num);
+        } else if (value instanceof String) {
+            ret = !((String) value).isEmpty();
+        } else { // null, UNDEFINED
+            ret = false;
+        }
+
+        return ret;
+    }
+
+    private static boolean isNullOrUndefined(Object value) {
+        return value == null || value == UNDEFINED;
+    }
+
+    private static boolean strictEquals(Object v1, Object v2) {
+        final boolean ret;
+
+        if (v1 instanceof Double && v2 instanceof Double) {
+            ret = ((Double) v1).doubleValue() == ((Double) v2).doubleValue(); // NaN != NaN, 0 == -0
+        } else if (v1 == null || v1 == UNDEFINED) {
+            ret = v1 == v2;
+        } else {
+            ret = v1.equals(v2);
+        }
+
+        return ret;
+    }
+
+    private static boolean looseEquals(Object v1, Object v2) {
+        final boolean ret;
+
+        if (isSameType(v1, v2)) {
+            ret = strictEquals(v1, v2);
+        } else if (isNullOrUndefined(v1) || isNullOrUndefined(v2)) {
+            ret = isNullOrUndefined(v1) && isNullOrUndefined(v2);
+        } else if (v1 instanceof Boolean || v1 instanceof String) {
+            ret = v2 instanceof Boolean || v2 instanceof String ? toNumber(v1) == toNumber(v2) : looseEquals(toNumber(v1), v2);
+        } else {
+            ret = looseEquals(v1, toNumber(v2));
+        }
+
+        return ret;
+    }
+
+    private static boolean isSameType(Object v1, Object v2) {
+        final boolean ret;
+
+        if (v1 == null || v2 == null) {
+            ret = v1 == v2;
+        } else if (v1 == UNDEFINED || v2 == UNDEFINED) {
+            ret = v1 == v2;
+        } else {
+            ret = v1.getClass() == v2.getClass();
+        }
+
+        return ret;
+    }
+
+    // returns negative, zero or positive; null if either value is NaN, in which case all relational operators return false
+    private static Integer compare(Object v1, Object v2) {
+        final Integer ret;
+
+        if (v1 instanceof String && v2 instanceof String) {
+            ret = ((String) v1).compareTo((String) v2);
+        } else {
+            double num1 = toNumber(v1);
+            double num2 = toNumber(v2);
+
+            if (Double.isNaN(num1) || Double.isNaN(num2)) {
+                ret = null;
+            } else {
+                ret = num1 < num2 ? -1 : (num1 > num2 ? 1 : 0);
+            }
+        }
+
+        return ret;
+    }
+
+    private static double toNumber(Object value) {
+        final double ret;
+
+        if (value instanceof Double) {
+            ret = (Double) value;
+        } else if (value instanceof Boolean) {
+            ret = (Boolean) value ? 1 : 0;
+        } else if (value == null) {
+            ret = 0;
+        } else if (value instanceof String) {
+            ret = stringToNumber((String) value);
+        } else { // UNDEFINED
+            ret = Double.NaN;
+        }
+
+        return ret;
+    }
+
+    private static double stringToNumber(String value) {
+        final double ret;
+        int          start = 0;
+        int          end   = value.length();
+
+        while (start < end && isWhitespace(value.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+
+        String str = value.substring(start, end);
+
+        if (str.isEmpty()) {
+            ret = 0;
+        } else if (STR_DECIMAL_NUMBER.matcher(str).matches()) {
+            ret = Double.parseDouble(str);
+        } else if (STR_HEX_NUMBER.matcher(str).matches()) {
+            ret = new BigInteger(str.substring(2), 16).doubleValue();
+        } else {
+            ret = Double.NaN;
+        }
+
+        return ret;
+    }
+
+    // whitespace and line terminators, as defined in ECMAScript
+    private static boolean isWhitespace(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+            case '\u000B':
+            case '\f':
+            case '\u00A0':
+            case '\uFEFF':
+            case '\u2028':
+            case '\u2029':
+                return true;
+            default:
+                return Character.getType(c) == Character.SPACE_SEPARATOR;
+        }
+    }
+
+    private static Object getAttribute(Map<String, ?> attributes, String name) {
+        final Object ret;
+
+        if (attributes == null || !attributes.containsKey(name)) {
+            ret = UNDEFINED;
+        } else {
+            Object value = attributes.get(name);
+
+            if (value == null || value instanceof String) {
+                ret = value;
+            } else if (value instanceof Enum) { // as serialized in JSON context
+                ret = ((Enum<?>) value).name();
+            } else {
+                ret = value.toString();
+            }
+        }
+
+        return ret;
+    }
+
+    private interface Expression {
+        Object evaluate(RangerRequestScriptEvaluator ctx);
+    }
+
+    private static final class UnsupportedScriptException extends Exception {
+        UnsupportedScriptException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /*
+     * recursive descent parser, with operator precedence same as in JavaScript: ||, &&, equality, relational, unary
+     */
+    private static final class Parser {
+        private final String  str;
+        private final int     len;
+        private       int     pos;
+        private       boolean needsJsonCtx;
+
+        Parser(String str) {
+            this.str = str;
+            this.len = str.length();
+        }
+
+        Expression parse() throws UnsupportedScriptException {
+            Expression ret = parseOr();
+
+            if (consume(";")) {
+                skipWhitespace();
+            }
+
+            if (pos != len) {
+                throw unsupported();
+            }
+
+            return ret;
+        }
+
+        private Expression parseOr() throws UnsupportedScriptException {
+            Expression ret = parseAnd();
+
+            while (consume("||")) {
+                final Expression left  = ret;
+                final Expression right = parseAnd();
+
+                ret = ctx -> {
+                    Object val = left.evaluate(ctx);
+
+                    return isTruthy(val) ? val : right.evaluate(ctx);
+                };
+            }
+
+            return ret;
+        }
+
+        private Expression parseAnd() throws UnsupportedScriptException {
+            Expression ret = parseEquality();
+
+            while (consume("&&")) {
+                final Expression left  = ret;
+                final Expression right = parseEquality();
+
+                ret = ctx -> {
+                    Object val = left.evaluate(ctx);
+
+                    return isTruthy(val) ? right.evaluate(ctx) : val;
+                };
+            }
+
+            return ret;
+        }
+
+        private Expression parseEquality() throws UnsupportedScriptException {
+            Expression ret = parseRelational();
+
+            while (true) {
+                final Expression left = ret;
+
+                if (consume("===")) {
+                    final Expression right = parseRelational();
+
+                    ret = ctx -> strictEquals(left.evaluate(ctx), right.evaluate(ctx));
+                } else if (consume("!==")) {
+                    final Expression right = parseRelational();
+
+                    ret = ctx -> !strictEquals(left.evaluate(ctx), right.evaluate(ctx));
+                } else if (consume("==")) {
+                    final Expression right = parseRelational();
+
+                    ret = ctx -> looseEquals(left.evaluate(ctx), right.evaluate(ctx));
+                } else if (consume("!=")) {
+                    final Expression right = parseRelational();
+
+                    ret = ctx -> !looseEquals(left.evaluate(ctx), right.evaluate(ctx));
+                } else {
+                    break;
+                }
+            }
+
+            return ret;
+        }
+
+        private Expression parseRelational() throws UnsupportedScriptException {
+            Expression ret = parseUnary();
+
+            while (true) {
+                final Expression left = ret;
+
+                if (consume("<=")) {
+                    final Expression right = parseUnary();
+
+                    ret = ctx -> {
+                        Integer cmp = compare(left.evaluate(ctx), right.evaluate(ctx));
+
+                        return cmp != null && cmp <= 0;
+                    };
+                } else if (consume(">=")) {
+                    final Expression right = parseUnary();
+
+                    ret = ctx -> {
+                        Integer cmp = compare(left.evaluate(ctx), right.evaluate(ctx));
+
+                        return cmp != null && cmp >= 0;
+                    };
+                } else if (consume("<")) {
+                    final Expression right = parseUnary();
+
+                    ret = ctx -> {
+                        Integer cmp = compare(left.evaluate(ctx), right.evaluate(ctx));
+
+                        return cmp != null && cmp < 0;
+                    };
+                } else if (consume(">")) {
+                    final Expression right = parseUnary();
+
+                    ret = ctx -> {
+                        Integer cmp = compare(left.evaluate(ctx), right.evaluate(ctx));
+
+                        return cmp != null && cmp > 0;
+                    };
+                } else {
+                    break;
+                }
+            }
+
+            return ret;
+        }
+
+        private Expression parseUnary() throws UnsupportedScriptException {
+            final Expression ret;
+
+            if (consume("!")) {
+                final Expression operand = parseUnary();
+
+                ret = ctx -> !isTruthy(operand.evaluate(ctx));
+            } else if (consume("-")) {
+                final Double value = -parseNumber();
+
+                ret = ctx -> value;
+            } else {
+                ret = parsePrimary();
+            }
+
+            return ret;
+        }
+
+        private Expression parsePrimary() throws UnsupportedScriptException {
+            final Expression ret;
+
+            skipWhitespace();
+
+            char c = pos < len ? str.charAt(pos) : 0;
+
+            if (c == '(') {
+                pos++;
+
+                ret = parseOr();
+
+                expect(")");
+            } else if (c == '\'' || c == '"') {
+                final String value = parseString();
+
+                ret = ctx -> value;
+            } else if (isDigit(c) || (c == '.' && pos + 1 < len && isDigit(str.charAt(pos + 1)))) {
+                final Double value = parseNumber();
+
+                ret = ctx -> value;
+            } else {
+                String identifier = parseIdentifier();
+
+                switch (identifier) {
+                    case "true":
+                        ret = ctx -> Boolean.TRUE;
+                        break;
+
+                    case "false":
+                        ret = ctx -> Boolean.FALSE;
+                        break;
+
+                    case "null":
+                        ret = ctx -> null;
+                        break;
+
+                    case SCRIPT_VAR_USER: {
+                        final String name = parsePropertyName();
+
+                        needsJsonCtx = true;
+
+                        ret = ctx -> getAttribute(ctx.getUserAttributesForScript(), name);
+                        break;
+                    }
+
+                    case SCRIPT_VAR_TAG: {
+                        final String name = parsePropertyName();
+
+                        needsJsonCtx = true;
+
+                        ret = ctx -> getAttribute(ctx.getCurrentTagForScript(), name);
+                        break;
+                    }
+
+                    case SCRIPT_VAR_ctx:
+                        ret = parseCtxMethodCall();
+                        break;
+
+                    default:
+                        throw unsupported();
+                }
+            }
+
+            return ret;
+        }
+
+        // .name or ['name']
+        private String parsePropertyName() throws UnsupportedScriptException {
+            final String ret;
+
+            if (consume(".")) {
+                skipWhitespace();
+
+                ret = parseIdentifier();
+            } else if (consume("[")) {
+                skipWhitespace();
+
+                char c = pos < len ? str.charAt(pos) : 0;
+
+                if (c != '\'' && c != '"') {
+                    throw unsupported();
+                }
+
+                ret = parseString();
+
+                expect("]");
+            } else {
+                throw unsupported();
+            }
+
+            if (OBJECT_PROPERTIES.contains(ret)) { // would be inherited from Object.prototype, when not present in attributes
+                throw unsupported();
+            }
+
+            return ret;
+        }
+
+        private Expression parseCtxMethodCall() throws UnsupportedScriptException {
+            final Expression ret;
+
+            expect(".");
+            skipWhitespace();
+
+            String methodName = parseIdentifier();
+
+            expect("(");
+
+            Function<RangerRequestScriptEvaluator, Boolean>           noArgMethod  = CTX_METHODS_NO_ARG.get(methodName);
+            BiFunction<RangerRequestScriptEvaluator, String, Boolean> oneArgMethod = CTX_METHODS_ONE_ARG.get(methodName);
+
+            if (noArgMethod != null) {
+                ret = noArgMethod::apply;
+            } else if (oneArgMethod != null) {
+                skipWhitespace();
+
+                char c = pos < len ? str.charAt(pos) : 0;
+
+                if (c != '\'' && c != '"') {
+                    throw unsupported();
+                }
+
+                final String arg = parseString();
+
+                ret = ctx -> oneArgMethod.apply(ctx, arg);
+            } else {
+                throw unsupported();
+            }
+
+            expect(")");
+
+            return ret;
+        }
+
+        private String parseIdentifier() throws UnsupportedScriptException {
+            int start = pos;
+
+            while (pos < len && isIdentifierChar(str.charAt(pos), pos == start)) {
+                pos++;
+            }
+
+            if (pos == start || isNonAsciiAt(pos)) { // non-ASCII identifiers are not supported
+                throw unsupported();
+            }
+
+            return str.substring(start, pos);
+        }
+
+        private String parseString() throws UnsupportedScriptException {
+            final char    quote = str.charAt(pos++);
+            StringBuilder sb    = new StringBuilder();
+
+            while (true) {
+                if (pos >= len) {
+                    throw unsupported();
+                }
+
+                char c = str.charAt(pos++);
+
+                if (c == quote) {
+                    break;
+                } else if (c == '\\') {
+                    if (pos >= len) {
+                        throw unsupported();
+                    }
+
+                    c = str.charAt(pos++);
+
+                    switch (c) {
+                        case '\\':
+                        case '\'':
+                        case '"':
+                            sb.append(c);
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        default: // other escape sequences are not supported
+                            throw unsupported();
+                    }
+                } else if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029') {
+                    throw unsupported();
+                } else {
+                    sb.append(c);
+                }
+            }
+
+            return sb.toString();
+        }
+
+        private Double parseNumber() throws UnsupportedScriptException {
+            skipWhitespace();
+
+            Matcher matcher = NUMBER_LITERAL.matcher(str).region(pos, len);
+
+            if (!matcher.lookingAt()) {
+                throw unsupported();
+            }
+
+            pos = matcher.end();
+
+            if ((pos < len && isIdentifierChar(str.charAt(pos), false)) || isNonAsciiAt(pos)) { // like 3in, 08
+                throw unsupported();
+            }
+
+            return Double.parseDouble(matcher.group());
+        }
+
+        private boolean consume(String token) {
+            skipWhitespace();
+
+            boolean ret = str.startsWith(token, pos);
+
+            if (ret) {
+                pos += token.length();
+            }
+
+            return ret;
+        }
+
+        private void expect(String token) throws UnsupportedScriptException {
+            if (!consume(token)) {
+                throw unsupported();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < len && isWhitespace(str.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean isNonAsciiAt(int idx) {
+            return idx < len && str.charAt(idx) > 0x7F && !isWhitespace(str.charAt(idx));
+        }
+
+        private UnsupportedScriptException unsupported() {
+            return new UnsupportedScriptException("unsupported token at position " + pos);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isIdentifierChar(char c, boolean isFirst) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$' || (!isFirst && isDigit(c));
+        }
+    }
+
+    static {
+        CTX_METHODS_NO_ARG.put("hasAnyTag", RangerRequestScriptEvaluator::hasAnyTag);
+        CTX_METHODS_NO_ARG.put("isInAnyGroup", RangerRequestScriptEvaluator::isInAnyGroup);
+        CTX_METHODS_NO_ARG.put("isInAnyRole", RangerRequestScriptEvaluator::isInAnyRole);
+
+        CTX_METHODS_ONE_ARG.put("hasTag", RangerRequestScriptEvaluator::hasTag);
+        CTX_METHODS_ONE_ARG.put("hasUserAttr", RangerRequestScriptEvaluator::hasUserAttr);
+        CTX_METHODS_ONE_ARG.put("hasUgAttr", RangerRequestScriptEvaluator::hasUgAttr);
+        CTX_METHODS_ONE_ARG.put("hasTagAttr", RangerRequestScriptEvaluator::hasTagAttr);
+        CTX_METHODS_ONE_ARG.put("isInGroup", RangerRequestScriptEvaluator::isInGroup);
+        CTX_METHODS_ONE_ARG.put("isInRole", RangerRequestScriptEvaluator::isInRole);
+    }
+}
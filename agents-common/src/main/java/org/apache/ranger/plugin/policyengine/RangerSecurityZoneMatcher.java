@@ -29,6 +29,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever.TrieLookupCache;
 import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,11 +63,16 @@ public boolean hasTagService(String zoneName) {
     }
 
     public Set<String> getZonesForResourceAndChildren(Map<String, ?> resource) {
-        return getZonesForResourceAndChildren(resource, convertToAccessResource(resource));
+        return getZonesForResourceAndChildren(resource, convertToAccessResource(resource), null);
     }
 
     public Set<String> getZonesForResourceAndChildren(RangerAccessResource resource) {
-        return getZonesForResourceAndChildren(resource.getAsMap(), resource);
+        return getZonesForResourceAndChildren(resource, null);
+    }
+
+    // lookupCache: to share zone-trie lookups across requests of a batch, like database/table of requests for columns
+    public Set<String> getZonesForResourceAndChildren(RangerAccessResource resource, TrieLookupCache lookupCache) {
+        return getZonesForResourceAndChildren(resource.getAsMap(), resource, lookupCache);
     }
 
     @Override
@@ -88,13 +94,13 @@ public boolean equals(Object obj) {
                 Objects.equals(zonesWithTagService, other.zonesWithTagService);
     }
 
-    private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
+    private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource, TrieLookupCache lookupCache) {
         LOG.debug("==> RangerSecurityZoneMatcher.getZonesForResourceAndChildren({})", accessResource);
 
         Set<String> ret = null;
 
         if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
-            Collection<RangerZoneResourceMatcher> matchers = RangerResourceEvaluatorsRetriever.getEvaluators(resourceZoneTrie, resource);
+            Collection<RangerZoneResourceMatcher> matchers = RangerResourceEvaluatorsRetriever.getEvaluators(resourceZoneTrie, resource, null, lookupCache);
 
             if (CollectionUtils.isNotEmpty(matchers)) {
                 LOG.debug("Resource:[{}], matchers:[{}]", resource, matchers);
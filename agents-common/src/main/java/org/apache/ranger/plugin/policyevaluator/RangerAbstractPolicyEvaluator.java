@@ -41,6 +41,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
 import org.apache.ranger.plugin.util.RangerRequestExprResolver;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.StringTokenReplacer;
@@ -76,6 +77,7 @@ public boolean containsKey(Object key) {
     };
 
     protected RangerPluginContext                 pluginContext;
+    private   RangerPrincipalIndex                principalIndex;
     private   RangerPolicy                        policy;
     private   RangerServiceDef                    serviceDef;
     private   boolean                             needsDynamicEval;
@@ -90,6 +92,17 @@ public void setPluginContext(RangerPluginContext pluginContext) {
         this.pluginContext = pluginContext;
     }
 
+    public RangerPrincipalIndex getPrincipalIndex() {
+        return principalIndex;
+    }
+
+    /*
+     * index to assign ids to principals of policy items with; policy items are matched by names if not set
+     */
+    public void setPrincipalIndex(RangerPrincipalIndex principalIndex) {
+        this.principalIndex = principalIndex;
+    }
+
     @Override
     public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
         LOG.debug("==> RangerAbstractPolicyEvaluator.init({}, {})", policy, serviceDef);
@@ -1223,8 +1223,9 @@ private List<RangerPolicyItemEvaluator> createPolicyItemEvaluators(RangerPolicy
             int policyItemCounter = 1;
 
             for (RangerPolicyItem policyItem : policyItems) {
-                RangerPolicyItemEvaluator itemEvaluator = new RangerDefaultPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemType, policyItemCounter++, options);
+                RangerDefaultPolicyItemEvaluator itemEvaluator = new RangerDefaultPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemType, policyItemCounter++, options);
 
+                itemEvaluator.setPrincipalIndex(getPrincipalIndex());
                 itemEvaluator.init();
 
                 ret.add(itemEvaluator);
@@ -1249,8 +1250,9 @@ private List<RangerDataMaskPolicyItemEvaluator> createDataMaskPolicyItemEvaluato
             int policyItemCounter = 1;
 
             for (RangerDataMaskPolicyItem policyItem : policyItems) {
-                RangerDataMaskPolicyItemEvaluator itemEvaluator = new RangerDefaultDataMaskPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemCounter++, options);
+                RangerDefaultDataMaskPolicyItemEvaluator itemEvaluator = new RangerDefaultDataMaskPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemCounter++, options);
 
+                itemEvaluator.setPrincipalIndex(getPrincipalIndex());
                 itemEvaluator.init();
 
                 ret.add(itemEvaluator);
@@ -1275,8 +1277,9 @@ private List<RangerRowFilterPolicyItemEvaluator> createRowFilterPolicyItemEvalua
             int policyItemCounter = 1;
 
             for (RangerRowFilterPolicyItem policyItem : policyItems) {
-                RangerRowFilterPolicyItemEvaluator itemEvaluator = new RangerDefaultRowFilterPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemCounter++, options);
+                RangerDefaultRowFilterPolicyItemEvaluator itemEvaluator = new RangerDefaultRowFilterPolicyItemEvaluator(serviceDef, policy, policyItem, policyItemCounter++, options);
 
+                itemEvaluator.setPrincipalIndex(getPrincipalIndex());
                 itemEvaluator.init();
 
                 ret.add(itemEvaluator);
@@ -34,6 +34,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,21 +48,34 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
     private static final Logger PERF_POLICYITEM_REQUEST_LOG      = RangerPerfTracer.getPerfLogger("policyitem.request");
     private static final Logger PERF_POLICYCONDITION_REQUEST_LOG = RangerPerfTracer.getPerfLogger("policycondition.request");
 
-    private boolean hasCurrentUser;
-    private boolean hasResourceOwner;
+    private boolean              hasCurrentUser;
+    private boolean              hasResourceOwner;
+    private boolean              hasPublicGroup;
+    private RangerPrincipalIndex principalIndex;
+    private int[]                principals; // ids of users, groups and roles in the policy item - see RangerPrincipalIndex
 
     public RangerDefaultPolicyItemEvaluator(RangerServiceDef serviceDef, RangerPolicy policy, RangerPolicyItem policyItem, int policyItemType, int policyItemIndex, RangerPolicyEngineOptions options) {
         super(serviceDef, policy, policyItem, policyItemType, policyItemIndex, options);
     }
 
+    /*
+     * must be called before init(); users, groups and roles are matched by names if not set
+     */
+    public void setPrincipalIndex(RangerPrincipalIndex principalIndex) {
+        this.principalIndex = principalIndex;
+    }
+
     public void init() {
         LOG.debug("==> RangerDefaultPolicyItemEvaluator(policyId={}, policyItem={}, serviceType={}, conditionsDisabled={})", policyId, policyItem, getServiceType(), getConditionsDisabledOption());
 
         conditionEvaluators = RangerCustomConditionEvaluator.getInstance().getPolicyItemConditionEvaluators(policy, policyItem, serviceDef, options, policyItemIndex);
 
-        List<String> users = policyItem.getUsers();
+        List<String> users  = policyItem.getUsers();
+        List<String> groups = policyItem.getGroups();
         this.hasCurrentUser   = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.USER_CURRENT);
         this.hasResourceOwner = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.RESOURCE_OWNER);
+        this.hasPublicGroup   = CollectionUtils.isNotEmpty(groups) && groups.contains(RangerPolicyEngine.GROUP_PUBLIC);
+        this.principals       = principalIndex != null ? principalIndex.getPolicyItemPrincipals(users, groups, policyItem.getRoles()) : null;
 
         LOG.debug("<== RangerDefaultPolicyItemEvaluator(policyId={}, conditionsCount={})", policyId, getConditionEvaluators().size());
     }
@@ -243,12 +257,22 @@ private boolean matchUserGroupAndOwner(RangerAccessRequest request) {
         RangerAccessResource accessedResource = request.getResource();
         String               resourceOwner    = accessedResource != null ? accessedResource.getOwnerUser() : null;
 
-        if (!ret) {
+        if (principals == null) { // not initialized
             Set<String> roles = null;
             if (CollectionUtils.isNotEmpty(policyItem.getRoles())) {
                 roles = RangerAccessRequestUtil.getUserRoles(request);
             }
             ret = matchUserGroupAndOwner(user, userGroups, roles, resourceOwner);
+        } else {
+            ret = (hasCurrentUser && user != null) || (hasPublicGroup && userGroups != null);
+
+            if (!ret && principals.length > 0) {
+                ret = RangerPrincipalIndex.intersects(principals, RangerAccessRequestUtil.getEffectivePrincipals(request, principalIndex));
+            }
+
+            if (!ret && hasResourceOwner) {
+                ret = user != null && user.equals(resourceOwner);
+            }
         }
 
         LOG.debug("<== RangerDefaultPolicyItemEvaluator.matchUserGroupAndOwner({}): {}", request, ret);
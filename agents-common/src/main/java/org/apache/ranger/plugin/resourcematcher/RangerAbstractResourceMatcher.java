@@ -620,18 +620,30 @@ int getPriority() {
     }
 
     static final class CaseSensitiveWildcardMatcher extends AbstractStringResourceMatcher {
+        private final WildcardPattern wildcardPattern;
+
         CaseSensitiveWildcardMatcher(String value, Map<String, String> options) {
             super(value, options);
+
+            this.wildcardPattern = new WildcardPattern(value);
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+            if (getNeedsDynamicEval()) {
+                return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+            } else {
+                return wildcardPattern.isMatch(resourceValue, IOCase.SENSITIVE);
+            }
         }
 
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
-            return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+            if (getNeedsDynamicEval()) {
+                return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+            } else {
+                return wildcardPattern.isPrefixMatch(resourceValue, IOCase.SENSITIVE);
+            }
         }
 
         int getPriority() {
@@ -640,18 +652,30 @@ int getPriority() {
     }
 
     static final class CaseInsensitiveWildcardMatcher extends AbstractStringResourceMatcher {
+        private final WildcardPattern wildcardPattern;
+
         CaseInsensitiveWildcardMatcher(String value, Map<String, String> options) {
             super(value, options);
+
+            this.wildcardPattern = new WildcardPattern(value);
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+            if (getNeedsDynamicEval()) {
+                return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+            } else {
+                return wildcardPattern.isMatch(resourceValue, IOCase.INSENSITIVE);
+            }
         }
 
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
-            return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+            if (getNeedsDynamicEval()) {
+                return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+            } else {
+                return wildcardPattern.isPrefixMatch(resourceValue, IOCase.INSENSITIVE);
+            }
         }
 
         int getPriority() {
@@ -660,26 +684,36 @@ int getPriority() {
     }
 
     static final class QuotedCaseSensitiveWildcardMatcher extends AbstractStringResourceMatcher {
-        private final String quoteChars;
+        private final String          quoteChars;
+        private final WildcardPattern wildcardPattern;
 
         QuotedCaseSensitiveWildcardMatcher(String value, Map<String, String> options, String quoteChars) {
             super(value, options);
 
-            this.quoteChars = quoteChars;
+            this.quoteChars      = quoteChars;
+            this.wildcardPattern = new WildcardPattern(value);
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             IOCase caseSensitivity = startsWithAnyChar(resourceValue, quoteChars) ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
 
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+            if (getNeedsDynamicEval()) {
+                return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+            } else {
+                return wildcardPattern.isMatch(resourceValue, caseSensitivity);
+            }
         }
 
         @Override
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             IOCase caseSensitivity = startsWithAnyChar(resourceValue, quoteChars) ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
 
-            return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+            if (getNeedsDynamicEval()) {
+                return ResourceMatcher.wildcardPrefixMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+            } else {
+                return wildcardPattern.isPrefixMatch(resourceValue, caseSensitivity);
+            }
         }
 
         int getPriority() {
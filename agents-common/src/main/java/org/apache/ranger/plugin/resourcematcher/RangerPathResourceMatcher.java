@@ -106,6 +106,84 @@ static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath,
         return ret;
     }
 
+    /*
+     * same as isRecursiveWildCardMatch() above, using a pre-compiled wildcardPath; instead of building a string for each
+     * level of pathToCheck, each level is matched in place. Paths having empty levels, like /home//user, are normalized
+     * by the above version before matching, hence are handled by it.
+     */
+    static boolean isRecursiveWildCardMatch(String pathToCheck, WildcardPattern wildcardPattern, char pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements) {
+        if (StringUtils.isEmpty(pathToCheck)) {
+            return false;
+        }
+
+        final int pathLen = pathToCheck.length();
+
+        for (int i = 1; i < pathLen; i++) {
+            if (pathToCheck.charAt(i) == pathSeparatorChar && pathToCheck.charAt(i - 1) == pathSeparatorChar) {
+                return isRecursiveWildCardMatch(pathToCheck, wildcardPattern.getValue(), pathSeparatorChar, caseSensitivity, wildcardPathElements);
+            }
+        }
+
+        int levelStart = pathToCheck.charAt(0) == pathSeparatorChar ? 1 : 0;
+
+        if (levelStart == pathLen) { // pathToCheck consists of only pathSeparatorChar
+            return wildcardPattern.isMatch(pathToCheck, caseSensitivity);
+        }
+
+        final boolean ignoreCase        = !caseSensitivity.isCaseSensitive();
+        boolean       ret               = false;
+        int           pathElementIndex  = 0;
+        boolean       useStringMatching = true;
+
+        while (levelStart < pathLen) {
+            int levelEnd = pathToCheck.indexOf(pathSeparatorChar, levelStart);
+
+            if (levelEnd == -1) {
+                levelEnd = pathLen;
+            }
+
+            if (useStringMatching) {
+                if (wildcardPathElements.length > pathElementIndex) {
+                    String wp = wildcardPathElements[pathElementIndex];
+
+                    if (!(StringUtils.contains(wp, '*') || StringUtils.contains(wp, '?'))) {
+                        boolean isMatch = wp.length() == (levelEnd - levelStart) && pathToCheck.regionMatches(ignoreCase, levelStart, wp, 0, wp.length());
+
+                        if (!isMatch) {
+                            useStringMatching = false;
+                            break;
+                        }
+                    } else {
+                        useStringMatching = false;
+                    }
+                } else {
+                    useStringMatching = false;
+                }
+            }
+
+            if (!useStringMatching) {
+                ret = wildcardPattern.isMatch(pathToCheck, levelEnd, caseSensitivity);
+
+                if (ret) {
+                    break;
+                }
+            }
+
+            levelStart = levelEnd + 1;
+            pathElementIndex++;
+        }
+
+        if (useStringMatching) {
+            if (pathElementIndex == wildcardPathElements.length) { // Loop finished normally and all sub-paths string-matched..
+                ret = true;
+            } else if (pathToCheck.charAt(pathLen - 1) == pathSeparatorChar) { // pathToCheck ends with separator, like /home/
+                ret = pathElementIndex == (wildcardPathElements.length - 1) && WILDCARD_ASTERISK.equals(wildcardPathElements[wildcardPathElements.length - 1]);
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     public void init() {
         LOG.debug("==> RangerPathResourceMatcher.init()");
@@ -470,20 +548,30 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
     static class WildcardResourceMatcher extends AbstractPathResourceMatcher {
         final TriFunction<String, String, IOCase, Boolean> function;
         final IOCase                                       ioCase;
+        final WildcardPattern                              wildcardPattern;
 
         WildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, TriFunction<String, String, IOCase, Boolean> function, int priority) {
             super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-            this.function = function;
-            this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+            this.function        = function;
+            this.ioCase          = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+            this.wildcardPattern = new WildcardPattern(value);
         }
 
         @Override
         public boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> WildcardResourceMatcher.isMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String  expandedValue = getExpandedValue(evalContext);
-            boolean ret           = function.apply(resourceValue, expandedValue, ioCase);
+            final String  expandedValue;
+            final boolean ret;
+
+            if (getNeedsDynamicEval()) {
+                expandedValue = getExpandedValue(evalContext);
+                ret           = function.apply(resourceValue, expandedValue, ioCase);
+            } else {
+                expandedValue = value;
+                ret           = wildcardPattern.isMatch(resourceValue, ioCase);
+            }
 
             LOG.debug("<== WildcardResourceMatcher.isMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
 
@@ -494,8 +582,16 @@ public boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> WildcardResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String  expandedValue = getExpandedValue(evalContext);
-            boolean ret           = ResourceMatcher.wildcardPrefixMatch(resourceValue, expandedValue, ioCase);
+            final String  expandedValue;
+            final boolean ret;
+
+            if (getNeedsDynamicEval()) {
+                expandedValue = getExpandedValue(evalContext);
+                ret           = ResourceMatcher.wildcardPrefixMatch(resourceValue, expandedValue, ioCase);
+            } else {
+                expandedValue = value;
+                ret           = wildcardPattern.isPrefixMatch(resourceValue, ioCase);
+            }
 
             LOG.debug("<== WildcardResourceMatcher.isPrefixMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
 
@@ -525,34 +621,33 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
     static class RecursiveWildcardResourceMatcher extends AbstractPathResourceMatcher {
         final QuintFunction<String, String, Character, IOCase, Boolean, String[]> function;
         final IOCase                                                              ioCase;
-        String[] wildcardPathElements;
+        final WildcardPattern                                                     wildcardPattern;
+        final String[]                                                            wildcardPathElements;
 
         RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, QuintFunction<String, String, Character, IOCase, Boolean, String[]> function, int priority) {
             super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-            this.function = function;
-            this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
-
-            if (!getNeedsDynamicEval()) {
-                wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
-            }
+            this.function             = function;
+            this.ioCase               = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+            this.wildcardPattern      = new WildcardPattern(value);
+            this.wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String expandedValue;
+            final String  expandedValue;
+            final boolean ret;
 
             if (getNeedsDynamicEval()) {
-                expandedValue        = getExpandedValue(evalContext);
-                wildcardPathElements = StringUtils.split(expandedValue, pathSeparatorChar);
+                expandedValue = getExpandedValue(evalContext);
+                ret           = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, StringUtils.split(expandedValue, pathSeparatorChar));
             } else {
                 expandedValue = value;
+                ret           = isRecursiveWildCardMatch(resourceValue, wildcardPattern, pathSeparatorChar, ioCase, wildcardPathElements);
             }
 
-            boolean ret = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, wildcardPathElements);
-
             LOG.debug("<== RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
 
             return ret;
@@ -562,8 +657,16 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
         public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> RecursiveWildcardResourceMatcher.isPrefixMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String  expandedValue = getExpandedValue(evalContext);
-            boolean ret           = ResourceMatcher.wildcardPrefixMatch(resourceValue, expandedValue, ioCase);
+            final String  expandedValue;
+            final boolean ret;
+
+            if (getNeedsDynamicEval()) {
+                expandedValue = getExpandedValue(evalContext);
+                ret           = ResourceMatcher.wildcardPrefixMatch(resourceValue, expandedValue, ioCase);
+            } else {
+                expandedValue = value;
+                ret           = wildcardPattern.isPrefixMatch(resourceValue, ioCase);
+            }
 
             LOG.debug("<== RecursiveWildcardResourceMatcher.isPrefixMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
 
@@ -32,11 +32,11 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 abstract class ResourceMatcher {
     static final         int                       DYNAMIC_EVALUATION_PENALTY = 8;
@@ -102,22 +102,28 @@ public static boolean wildcardPrefixMatch(String value, String wildcardMatcher,
             return false;
         }
 
+        return wildcardPrefixMatch(value, splitOnTokens(wildcardMatcher), caseSensitivity);
+    }
+
+    // wcsTokens: wildcardMatcher split by splitOnTokens(); WildcardPattern calls this with tokens computed at policy load
+    static boolean wildcardPrefixMatch(String value, List<String> wcsTokens, IOCase caseSensitivity) {
         if (caseSensitivity == null) {
             caseSensitivity = IOCase.SENSITIVE;
         }
 
-        List<String> wcsTokens = splitOnTokens(wildcardMatcher);
-        boolean      anyChars  = false;
-        int          textIdx   = 0;
-        int          wcsIdx    = 0;
-        Stack<int[]> backtrack = new Stack<>();
+        boolean ignoreCase    = !caseSensitivity.isCaseSensitive();
+        boolean anyChars      = false;
+        int     textIdx       = 0;
+        int     wcsIdx        = 0;
+        int[]   backtrack     = null; // pairs of (wcsIdx, textIdx); allocated only when there is a position to backtrack to
+        int     backtrackSize = 0;
 
         do {
-            if (!backtrack.isEmpty()) {
-                int[] array = backtrack.pop();
+            if (backtrackSize > 0) {
+                backtrackSize -= 2;
 
-                wcsIdx   = array[0];
-                textIdx  = array[1];
+                wcsIdx   = backtrack[backtrackSize];
+                textIdx  = backtrack[backtrackSize + 1];
                 anyChars = true;
             }
 
@@ -139,28 +145,33 @@ public static boolean wildcardPrefixMatch(String value, String wildcardMatcher,
                         textIdx = value.length();
                     }
                 } else {
-                    // changes from FilenameUtils.wildcardMatch(): added following 3 lines to check if value is a prefix match for wildcardMatcher
-                    if (wcsToken.length() > (value.length() - textIdx)) {
-                        wcsToken = wcsToken.substring(0, value.length() - textIdx);
-                    }
+                    // changes from FilenameUtils.wildcardMatch(): match only the part of wcsToken that fits in the remaining value, to check if value is a prefix match for wildcardMatcher
+                    int tokenLen = Math.min(wcsToken.length(), value.length() - textIdx);
 
                     if (anyChars) {
-                        textIdx = caseSensitivity.checkIndexOf(value, textIdx, wcsToken);
+                        textIdx = indexOf(value, textIdx, wcsToken, tokenLen, ignoreCase);
 
                         if (textIdx == -1) {
                             break;
                         }
 
-                        int repeat = caseSensitivity.checkIndexOf(value, textIdx + 1, wcsToken);
+                        int repeat = indexOf(value, textIdx + 1, wcsToken, tokenLen, ignoreCase);
 
                         if (repeat >= 0) {
-                            backtrack.push(new int[] {wcsIdx, repeat});
+                            if (backtrack == null) {
+                                backtrack = new int[4];
+                            } else if (backtrackSize == backtrack.length) {
+                                backtrack = Arrays.copyOf(backtrack, backtrackSize * 2);
+                            }
+
+                            backtrack[backtrackSize++] = wcsIdx;
+                            backtrack[backtrackSize++] = repeat;
                         }
-                    } else if (!caseSensitivity.checkRegionMatches(value, textIdx, wcsToken)) {
+                    } else if (!value.regionMatches(ignoreCase, textIdx, wcsToken, 0, tokenLen)) {
                         break;
                     }
 
-                    textIdx += wcsToken.length();
+                    textIdx += tokenLen;
 
                     anyChars = false;
                 }
@@ -172,7 +183,7 @@ public static boolean wildcardPrefixMatch(String value, String wildcardMatcher,
                 return true;
             }
         }
-        while (!backtrack.isEmpty());
+        while (backtrackSize > 0);
 
         return anyChars;
     }
@@ -213,6 +224,19 @@ static List<String> splitOnTokens(String text) {
         }
     }
 
+    // same as IOCase.checkIndexOf(), for the first searchLen characters of search
+    private static int indexOf(String str, int strStartIndex, String search, int searchLen, boolean ignoreCase) {
+        int endIndex = str.length() - searchLen;
+
+        for (int i = strStartIndex; i <= endIndex; i++) {
+            if (str.regionMatches(ignoreCase, i, search, 0, searchLen)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getName() + "(" + this.value + ")";
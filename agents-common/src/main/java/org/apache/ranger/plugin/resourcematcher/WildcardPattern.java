@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.IOCase;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Wildcard pattern ('*' and '?') compiled once, when the policy is loaded, for matches that don't allocate.
+ *
+ * isMatch() returns the same result as FilenameUtils.wildcardMatch() and isPrefixMatch() returns the same result as
+ * ResourceMatcher.wildcardPrefixMatch(). FilenameUtils.wildcardMatch() ignores a '*' that is immediately followed by
+ * a '?' - for example, "a*?" matches "ab" but not "abc". To retain this behavior, such '*'s are dropped at compile time.
+ */
+final class WildcardPattern {
+    private static final char WILDCARD_ASTERISK = '*';
+    private static final char WILDCARD_QUESTION = '?';
+
+    private final String       value;
+    private final char[]       pattern;
+    private final List<String> prefixMatchTokens;
+
+    WildcardPattern(String value) {
+        this.value             = value;
+        this.pattern           = compile(value);
+        this.prefixMatchTokens = Collections.unmodifiableList(ResourceMatcher.splitOnTokens(value));
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    boolean isMatch(String str, IOCase caseSensitivity) {
+        return str != null && isMatch(str, str.length(), caseSensitivity);
+    }
+
+    /*
+     * matches the first strLen characters of str, to avoid creating substrings while matching each level of a path
+     */
+    boolean isMatch(String str, int strLen, IOCase caseSensitivity) {
+        final boolean ignoreCase = caseSensitivity != null && !caseSensitivity.isCaseSensitive();
+        final int     patternLen = pattern.length;
+        int           patternIdx = 0;
+        int           strIdx     = 0;
+        int           starIdx    = -1; // index of the last '*' seen in pattern
+        int           starStrIdx = 0;  // index in str from where the last '*' is being matched
+
+        while (strIdx < strLen) {
+            if (patternIdx < patternLen) {
+                final char ch = pattern[patternIdx];
+
+                if (ch == WILDCARD_ASTERISK) {
+                    starIdx    = patternIdx++;
+                    starStrIdx = strIdx;
+
+                    continue;
+                } else if (ch == WILDCARD_QUESTION || isEqual(ch, str.charAt(strIdx), ignoreCase)) {
+                    patternIdx++;
+                    strIdx++;
+
+                    continue;
+                }
+            }
+
+            if (starIdx == -1) {
+                return false;
+            }
+
+            // mismatch after a '*': let the '*' consume one more character and retry the rest of the pattern
+            patternIdx = starIdx + 1;
+            strIdx     = ++starStrIdx;
+        }
+
+        while (patternIdx < patternLen && pattern[patternIdx] == WILDCARD_ASTERISK) {
+            patternIdx++;
+        }
+
+        return patternIdx == patternLen;
+    }
+
+    boolean isPrefixMatch(String str, IOCase caseSensitivity) {
+        return str != null && ResourceMatcher.wildcardPrefixMatch(str, prefixMatchTokens, caseSensitivity);
+    }
+
+    @Override
+    public String toString() {
+        return "WildcardPattern={" + value + "}";
+    }
+
+    private static char[] compile(String value) {
+        final int    len = value.length();
+        final char[] buf = new char[len];
+        int          idx = 0;
+
+        for (int i = 0; i < len; i++) {
+            final char ch = value.charAt(i);
+
+            if (ch == WILDCARD_ASTERISK) {
+                while (i + 1 < len && value.charAt(i + 1) == WILDCARD_ASTERISK) { // collapse consecutive '*'s
+                    i++;
+                }
+
+                if (i + 1 < len && value.charAt(i + 1) == WILDCARD_QUESTION) { // '*' followed by '?' is ignored by FilenameUtils.wildcardMatch()
+                    continue;
+                }
+            }
+
+            buf[idx++] = ch;
+        }
+
+        final char[] ret = new char[idx];
+
+        System.arraycopy(buf, 0, ret, 0, idx);
+
+        return ret;
+    }
+
+    // same as String.regionMatches(ignoreCase, ...) for a single character
+    private static boolean isEqual(char c1, char c2, boolean ignoreCase) {
+        if (c1 == c2) {
+            return true;
+        } else if (!ignoreCase) {
+            return false;
+        }
+
+        final char u1 = Character.toUpperCase(c1);
+        final char u2 = Character.toUpperCase(c2);
+
+        return u1 == u2 || Character.toLowerCase(u1) == Character.toLowerCase(u2);
+    }
+}
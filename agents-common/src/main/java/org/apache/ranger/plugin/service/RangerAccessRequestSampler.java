@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.service;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Keeps a sample of recent access requests - one in every sampleInterval requests, in a ring of sampleSize - to be
+ * replayed against a newly built policy-engine before it is published; see RangerBasePlugin.setPolicies(). Only the
+ * attributes given by the caller are kept: resource, user, groups, access-type etc.; the context is not, as it is
+ * populated while processing the request.
+ */
+public class RangerAccessRequestSampler {
+    public static final String PROP_SUFFIX_WARMUP_ENABLED         = ".policyengine.warmup.enabled";
+    public static final String PROP_SUFFIX_WARMUP_SAMPLE_SIZE     = ".policyengine.warmup.sample.size";
+    public static final String PROP_SUFFIX_WARMUP_SAMPLE_INTERVAL = ".policyengine.warmup.sample.interval";
+    public static final String PROP_SUFFIX_WARMUP_REPLAY_COUNT    = ".policyengine.warmup.replay.count";
+
+    public  static final int DEFAULT_WARMUP_REPLAY_COUNT    = 2;
+    private static final int DEFAULT_WARMUP_SAMPLE_SIZE     = 100;
+    private static final int DEFAULT_WARMUP_SAMPLE_INTERVAL = 100;
+
+    private final int                                        sampleInterval;
+    private final AtomicLong                                 requestCount = new AtomicLong();
+    private final AtomicReferenceArray<SampledAccessRequest> samples;
+
+    public RangerAccessRequestSampler(int sampleSize, int sampleInterval) {
+        this.sampleInterval = Math.max(1, sampleInterval);
+        this.samples        = new AtomicReferenceArray<>(Math.max(0, sampleSize));
+    }
+
+    public static RangerAccessRequestSampler create(RangerPluginConfig config) {
+        final RangerAccessRequestSampler ret;
+
+        if (config != null && config.getBoolean(config.getPropertyPrefix() + PROP_SUFFIX_WARMUP_ENABLED, false)) {
+            int sampleSize     = config.getInt(config.getPropertyPrefix() + PROP_SUFFIX_WARMUP_SAMPLE_SIZE, DEFAULT_WARMUP_SAMPLE_SIZE);
+            int sampleInterval = config.getInt(config.getPropertyPrefix() + PROP_SUFFIX_WARMUP_SAMPLE_INTERVAL, DEFAULT_WARMUP_SAMPLE_INTERVAL);
+
+            ret = new RangerAccessRequestSampler(sampleSize, sampleInterval);
+        } else {
+            ret = new RangerAccessRequestSampler(0, 1);
+        }
+
+        return ret;
+    }
+
+    public boolean isEnabled() {
+        return samples.length() > 0;
+    }
+
+    public void sample(RangerAccessRequest request) {
+        if (isEnabled() && !(request instanceof SampledAccessRequest)) {
+            long count = requestCount.getAndIncrement();
+
+            if (count % sampleInterval == 0) {
+                samples.set((int) ((count / sampleInterval) % samples.length()), new SampledAccessRequest(request));
+            }
+        }
+    }
+
+    /*
+     * returns copies of sampled requests, as processing a request updates its context and resource
+     */
+    public List<RangerAccessRequest> getSamples() {
+        List<RangerAccessRequest> ret = new ArrayList<>(samples.length());
+
+        for (int i = 0; i < samples.length(); i++) {
+            SampledAccessRequest sample = samples.get(i);
+
+            if (sample != null) {
+                ret.add(new SampledAccessRequest(sample));
+            }
+        }
+
+        return ret;
+    }
+
+    private static class SampledAccessRequest extends RangerAccessRequestImpl {
+        SampledAccessRequest(RangerAccessRequest request) {
+            super(request);
+
+            RangerAccessResource resource = request.getResource();
+
+            setResource(resource != null ? new RangerAccessResourceImpl(new HashMap<>(resource.getAsMap()), resource.getOwnerUser()) : null);
+            setUserGroups(request.getUserGroups() != null ? new HashSet<>(request.getUserGroups()) : null);
+            setUserRoles(request.getUserRoles() != null ? new HashSet<>(request.getUserRoles()) : null);
+            setContext(null);
+        }
+    }
+}
@@ -23,23 +23,31 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerSecurityZoneMatcher;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.RangerUserStoreUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class RangerAuthContext {
-    private final Map<RangerContextEnricher, Object> requestContextEnrichers;
-    private final RangerSecurityZoneMatcher          zoneMatcher;
-    private       RangerRolesUtil                    rolesUtil;
-    private       RangerUserStoreUtil                userStoreUtil;
+    private static final int PRINCIPALS_CACHE_MAX_SIZE = 10000;
+
+    private final Map<RangerContextEnricher, Object>                 requestContextEnrichers;
+    private final RangerSecurityZoneMatcher                          zoneMatcher;
+    private final ConcurrentCacheMap<List<Object>, CachedPrincipals> principalsCache = new ConcurrentCacheMap<>(PRINCIPALS_CACHE_MAX_SIZE);
+    private       RangerRolesUtil                                    rolesUtil;
+    private       RangerUserStoreUtil                                userStoreUtil;
 
     public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerSecurityZoneMatcher zoneMatcher, RangerRoles roles, RangerUserStore userStore) {
         this.requestContextEnrichers = requestContextEnrichers != null ? requestContextEnrichers : new ConcurrentHashMap<>();
@@ -73,10 +81,39 @@ public void cleanupRequestContextEnricher(RangerContextEnricher enricher) {
 
     public void setRoles(RangerRoles roles) {
         this.rolesUtil = new RangerRolesUtil(roles);
+
+        principalsCache.clear();
     }
 
     public Set<String> getRolesForUserAndGroups(String user, Set<String> groups) {
-        RangerRolesUtil          rolesUtil        = this.rolesUtil;
+        return getRolesForUserAndGroups(rolesUtil, user, groups);
+    }
+
+    /*
+     * returns roles of the user and groups, along with ids in the given index of the user, groups and roles to match
+     * policy items with. Results are cached, as requests from a user usually are for the same groups; the cache is
+     * cleared on update to roles or user-store, and entries computed with earlier roles or another index are ignored.
+     */
+    public RangerPrincipalIndex.EffectivePrincipals getEffectivePrincipals(RangerPrincipalIndex index, String user, Set<String> groups) {
+        final RangerPrincipalIndex.EffectivePrincipals ret;
+        RangerRolesUtil                                rolesUtil = this.rolesUtil;
+        CachedPrincipals                               cached    = principalsCache.get(Arrays.asList(user, groups));
+
+        if (cached != null && cached.rolesUtil == rolesUtil && cached.principals.getIndex() == index && !cached.principals.isStale()) {
+            ret = cached.principals;
+        } else {
+            Set<String> groupsCopy = groups != null ? Collections.unmodifiableSet(new HashSet<>(groups)) : null;
+            Set<String> roles      = Collections.unmodifiableSet(getRolesForUserAndGroups(rolesUtil, user, groupsCopy));
+
+            ret = index.getEffectivePrincipals(user, groupsCopy, roles);
+
+            principalsCache.put(Arrays.asList(user, groupsCopy), new CachedPrincipals(rolesUtil, ret));
+        }
+
+        return ret;
+    }
+
+    private static Set<String> getRolesForUserAndGroups(RangerRolesUtil rolesUtil, String user, Set<String> groups) {
         Map<String, Set<String>> userRoleMapping  = rolesUtil.getUserRoleMapping();
         Map<String, Set<String>> groupRoleMapping = rolesUtil.getGroupRoleMapping();
         Set<String>              allRoles         = new HashSet<>();
@@ -128,5 +165,17 @@ public RangerUserStoreUtil getUserStoreUtil() {
 
     public void setUserStore(RangerUserStore userStore) {
         this.userStoreUtil = new RangerUserStoreUtil(userStore);
+
+        principalsCache.clear();
+    }
+
+    private static final class CachedPrincipals {
+        private final RangerRolesUtil                          rolesUtil;
+        private final RangerPrincipalIndex.EffectivePrincipals principals;
+
+        CachedPrincipals(RangerRolesUtil rolesUtil, RangerPrincipalIndex.EffectivePrincipals principals) {
+            this.rolesUtil  = rolesUtil;
+            this.principals = principals;
+        }
     }
 }
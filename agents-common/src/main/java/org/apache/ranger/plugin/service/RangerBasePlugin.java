@@ -61,6 +61,7 @@
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.apache.ranger.plugin.util.PolicyRefresher;
+import org.apache.ranger.plugin.util.RangerEngineUpdater;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
@@ -88,20 +89,22 @@
 public class RangerBasePlugin {
     private static final Logger LOG = LoggerFactory.getLogger(RangerBasePlugin.class);
 
-    private final RangerPluginConfig          pluginConfig;
-    private final RangerPluginContext         pluginContext;
-    private final Map<String, LogHistory>     logHistoryList = new Hashtable<>();
-    private final int                         logInterval    = 30000; // 30 seconds
-    private final DownloadTrigger             accessTrigger  = new DownloadTrigger();
-    private final List<RangerChainedPlugin>   chainedPlugins;
-    private final boolean                     dedupStrings;
-    private       PolicyRefresher             refresher;
-    private       RangerPolicyEngine          policyEngine;
-    private       RangerAuthContext           currentAuthContext;
-    private       RangerAccessResultProcessor resultProcessor;
-    private       RangerRoles                 roles;
-    private       boolean                     isUserStoreEnricherAddedImplcitly;
-    private       Map<String, String>         serviceConfigs;
+    private final    RangerPluginConfig          pluginConfig;
+    private final    RangerPluginContext         pluginContext;
+    private final    Map<String, LogHistory>     logHistoryList = new Hashtable<>();
+    private final    int                         logInterval    = 30000; // 30 seconds
+    private final    DownloadTrigger             accessTrigger  = new DownloadTrigger();
+    private final    List<RangerChainedPlugin>   chainedPlugins;
+    private final    boolean                     dedupStrings;
+    private final    boolean                     warmUpPolicyEngine;
+    private final    int                         warmUpReplayCount;
+    private          PolicyRefresher             refresher;
+    private volatile RangerPolicyEngine          policyEngine;
+    private volatile RangerAuthContext           currentAuthContext;
+    private          RangerAccessResultProcessor resultProcessor;
+    private          RangerRoles                 roles;
+    private          boolean                     isUserStoreEnricherAddedImplcitly;
+    private          Map<String, String>         serviceConfigs;
 
     public RangerBasePlugin(String serviceType, String appId) {
         this(new RangerPluginConfig(serviceType, null, appId, null, null, null));
@@ -192,8 +195,10 @@ public RangerBasePlugin(RangerPluginConfig pluginConfig) {
 
         RangerRequestScriptEvaluator.init(pluginConfig);
 
-        this.dedupStrings   = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".dedup.strings", true);
-        this.chainedPlugins = initChainedPlugins();
+        this.dedupStrings       = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".dedup.strings", true);
+        this.warmUpPolicyEngine = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + RangerAccessRequestSampler.PROP_SUFFIX_WARMUP_ENABLED, false);
+        this.warmUpReplayCount  = pluginConfig.getInt(pluginConfig.getPropertyPrefix() + RangerAccessRequestSampler.PROP_SUFFIX_WARMUP_REPLAY_COUNT, RangerAccessRequestSampler.DEFAULT_WARMUP_REPLAY_COUNT);
+        this.chainedPlugins     = initChainedPlugins();
     }
 
     public RangerBasePlugin(RangerPluginConfig pluginConfig, ServicePolicies policies, ServiceTags tags, RangerRoles roles) {
@@ -336,15 +341,17 @@ public RangerRoles getRoles() {
     }
 
     public void setRoles(RangerRoles roles) {
-        this.roles = roles;
+        pluginContext.getEngineUpdater().execute("setRoles", () -> {
+            this.roles = roles;
 
-        RangerPolicyEngine policyEngine = this.policyEngine;
+            RangerPolicyEngine policyEngine = this.policyEngine;
 
-        if (policyEngine != null) {
-            policyEngine.setRoles(roles);
-        }
+            if (policyEngine != null) {
+                policyEngine.setRoles(roles);
+            }
 
-        pluginContext.notifyAuthContextChanged();
+            pluginContext.notifyAuthContextChanged();
+        });
     }
 
     public void setAuditExcludedUsersGroupsRoles(Set<String> users, Set<String> groups, Set<String> roles) {
@@ -439,185 +446,13 @@ public long getUserStoreVersion() {
         return ret != null ? ret : -1L;
     }
 
+    /*
+     * new policy-engine is built, warmed up and validated - one update at a time, see RangerEngineUpdater - while the
+     * current policy-engine continues to serve access requests; it is published, by replacing the reference to the
+     * current policy-engine, only if the validation succeeds.
+     */
     public void setPolicies(ServicePolicies policies) {
-        LOG.debug("==> setPolicies({})", policies);
-
-        this.serviceConfigs = (policies != null && policies.getServiceConfig() != null) ? policies.getServiceConfig() : new HashMap<>();
-
-        if (pluginConfig.isEnableImplicitUserStoreEnricher() && policies != null && !ServiceDefUtil.isUserStoreEnricherPresent(policies)) {
-            String retrieverClassName = pluginConfig.get(RangerUserStoreEnricher.USERSTORE_RETRIEVER_CLASSNAME_OPTION, RangerAdminUserStoreRetriever.class.getCanonicalName());
-            String retrieverPollIntMs = pluginConfig.get(RangerUserStoreEnricher.USERSTORE_REFRESHER_POLLINGINTERVAL_OPTION, Integer.toString(60 * 1000));
-
-            // in case of delta, policies will only have changes; hence add userStoreEnricher if it was implicitly added previous calls to setPolicies()
-            if (RangerPolicyDeltaUtil.hasPolicyDeltas(policies) == Boolean.TRUE && isUserStoreEnricherAddedImplcitly) {
-                ServiceDefUtil.addUserStoreEnricher(policies, retrieverClassName, retrieverPollIntMs);
-            } else if (pluginConfig.isUseRangerGroups() || pluginConfig.isConvertEmailToUsername()) {
-                isUserStoreEnricherAddedImplcitly = ServiceDefUtil.addUserStoreEnricher(policies, retrieverClassName, retrieverPollIntMs);
-            } else {
-                isUserStoreEnricherAddedImplcitly = ServiceDefUtil.addUserStoreEnricherIfNeeded(policies, retrieverClassName, retrieverPollIntMs);
-            }
-        }
-
-        if (pluginConfig.isEnableImplicitGdsInfoEnricher() && policies != null && !ServiceDefUtil.isGdsInfoEnricherPresent(policies)) {
-            String retrieverClassName = pluginConfig.get(RangerGdsEnricher.RETRIEVER_CLASSNAME_OPTION, RangerAdminGdsInfoRetriever.class.getCanonicalName());
-            String retrieverPollIntMs = pluginConfig.get(RangerGdsEnricher.REFRESHER_POLLINGINTERVAL_OPTION, Integer.toString(60 * 1000));
-
-            ServiceDefUtil.addGdsInfoEnricher(policies, retrieverClassName, retrieverPollIntMs);
-        }
-
-        // guard against catastrophic failure during policy engine Initialization or
-        try {
-            RangerPolicyEngine oldPolicyEngine   = this.policyEngine;
-            ServicePolicies    servicePolicies   = null;
-            boolean            isNewEngineNeeded = true;
-            boolean            usePolicyDeltas   = false;
-
-            if (policies == null) {
-                policies = getDefaultSvcPolicies();
-
-                if (policies == null) {
-                    LOG.error("Could not get default Service Policies. Keeping old policy-engine!");
-
-                    isNewEngineNeeded = false;
-                }
-            } else {
-                if (dedupStrings) {
-                    policies.dedupStrings();
-                }
-
-                Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(policies);
-
-                if (hasPolicyDeltas == null) {
-                    LOG.info("Downloaded policies do not require policy change !! [{}]", policies);
-
-                    if (this.policyEngine == null) {
-                        LOG.info("There are no material changes, and current policy-engine is null! Creating a policy-engine with default service policies");
-
-                        ServicePolicies defaultSvcPolicies = getDefaultSvcPolicies();
-
-                        if (defaultSvcPolicies == null) {
-                            LOG.error("Could not get default Service Policies. Keeping old policy-engine! This is a FATAL error as the old policy-engine is null!");
-
-                            isNewEngineNeeded = false;
-                        } else {
-                            defaultSvcPolicies.setPolicyVersion(policies.getPolicyVersion());
-                            policies          = defaultSvcPolicies;
-                            isNewEngineNeeded = true;
-                        }
-                    } else {
-                        LOG.info("Keeping old policy-engine!");
-
-                        isNewEngineNeeded = false;
-                    }
-                } else {
-                    if (hasPolicyDeltas.equals(Boolean.TRUE)) {
-                        // Rebuild policies from deltas
-                        RangerPolicyEngineImpl policyEngine = (RangerPolicyEngineImpl) oldPolicyEngine;
-
-                        servicePolicies = ServicePolicies.applyDelta(policies, policyEngine);
-
-                        if (servicePolicies != null) {
-                            usePolicyDeltas = true;
-                        } else {
-                            LOG.error("Could not apply deltas={}", Arrays.toString(policies.getPolicyDeltas().toArray()));
-                            LOG.warn("Keeping old policy-engine!");
-                            isNewEngineNeeded = false;
-                        }
-                    } else {
-                        if (policies.getPolicies() == null) {
-                            policies.setPolicies(new ArrayList<>());
-                        }
-                        if (MapUtils.isNotEmpty(policies.getSecurityZones())) {
-                            for (ServicePolicies.SecurityZoneInfo element : policies.getSecurityZones().values()) {
-                                if (element.getPolicies() == null) {
-                                    element.setPolicies(new ArrayList<>());
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (isNewEngineNeeded) {
-                RangerPolicyEngine newPolicyEngine      = null;
-                boolean            isPolicyEngineShared = false;
-
-                if (!usePolicyDeltas) {
-                    LOG.debug("Creating engine from policies");
-
-                    newPolicyEngine = new RangerPolicyEngineImpl(policies, pluginContext, roles);
-                } else {
-                    LOG.debug("policy-deltas are not null");
-
-                    if (CollectionUtils.isNotEmpty(policies.getPolicyDeltas()) || MapUtils.isNotEmpty(policies.getSecurityZones())) {
-                        LOG.debug("Non empty policy-deltas found. Cloning engine using policy-deltas");
-
-                        if (oldPolicyEngine != null) {
-                            RangerPolicyEngineImpl oldPolicyEngineImpl = (RangerPolicyEngineImpl) oldPolicyEngine;
-
-                            newPolicyEngine = RangerPolicyEngineImpl.getPolicyEngine(oldPolicyEngineImpl, policies);
-                        }
-
-                        if (newPolicyEngine != null) {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Applied policyDeltas={})", Arrays.toString(policies.getPolicyDeltas().toArray()));
-                            }
-
-                            isPolicyEngineShared = true;
-                        } else {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Failed to apply policyDeltas={}), Creating engine from policies", Arrays.toString(policies.getPolicyDeltas().toArray()));
-                                LOG.debug("Creating new engine from servicePolicies:[{}]", servicePolicies);
-                            }
-
-                            newPolicyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, roles);
-                        }
-                    } else {
-                        LOG.debug("Empty policy-deltas. No need to change policy engine");
-                    }
-                }
-
-                if (newPolicyEngine != null) {
-                    if (!isPolicyEngineShared) {
-                        newPolicyEngine.setUseForwardedIPAddress(pluginConfig.isUseForwardedIPAddress());
-                        newPolicyEngine.setTrustedProxyAddresses(pluginConfig.getTrustedProxyAddresses());
-                    }
-
-                    LOG.info("Switching policy engine from [{}]", getPolicyVersion());
-                    this.policyEngine = newPolicyEngine;
-                    LOG.info("Switched policy engine to [{}]", getPolicyVersion());
-                    this.currentAuthContext = pluginContext.getAuthContext();
-
-                    pluginContext.notifyAuthContextChanged();
-
-                    if (oldPolicyEngine != null && oldPolicyEngine != newPolicyEngine) {
-                        ((RangerPolicyEngineImpl) oldPolicyEngine).releaseResources(!isPolicyEngineShared);
-                    }
-
-                    if (this.refresher != null) {
-                        boolean doPreserveDeltas = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".preserve.deltas", false);
-                        if (!doPreserveDeltas) {
-                            this.refresher.saveToCache(usePolicyDeltas ? servicePolicies : policies);
-                        } else {
-                            // Save both deltas and all policies to cache for verification
-                            this.refresher.saveToCache(policies);
-
-                            if (usePolicyDeltas) {
-                                this.refresher.saveToCache(servicePolicies);
-                            }
-                        }
-                    }
-                }
-            } else {
-                LOG.warn("Leaving current policy engine as-is");
-                LOG.warn("Policies are not saved to cache. policyVersion in the policy-cache may be different than in Ranger-admin, even though the policies are the same!");
-                LOG.warn("Ranger-PolicyVersion:[{}], Cached-PolicyVersion:[{}]", policies != null ? policies.getPolicyVersion() : -1L, this.policyEngine != null ? this.policyEngine.getPolicyVersion() : -1L);
-            }
-        } catch (Exception e) {
-            LOG.error("setPolicies: policy engine initialization failed!  Leaving current policy engine as-is. Exception : ", e);
-        }
-
-        LOG.debug("<== setPolicies({})", policies);
+        pluginContext.getEngineUpdater().execute("setPolicies", () -> applyPolicies(policies));
     }
 
     public void cleanup() {
@@ -1232,6 +1067,291 @@ private void auditGrantRevoke(GrantRevokeRequest request, String action, boolean
         }
     }
 
+    private void applyPolicies(ServicePolicies policies) {
+        LOG.debug("==> applyPolicies({})", policies);
+
+        this.serviceConfigs = (policies != null && policies.getServiceConfig() != null) ? policies.getServiceConfig() : new HashMap<>();
+
+        if (pluginConfig.isEnableImplicitUserStoreEnricher() && policies != null && !ServiceDefUtil.isUserStoreEnricherPresent(policies)) {
+            String retrieverClassName = pluginConfig.get(RangerUserStoreEnricher.USERSTORE_RETRIEVER_CLASSNAME_OPTION, RangerAdminUserStoreRetriever.class.getCanonicalName());
+            String retrieverPollIntMs = pluginConfig.get(RangerUserStoreEnricher.USERSTORE_REFRESHER_POLLINGINTERVAL_OPTION, Integer.toString(60 * 1000));
+
+            // in case of delta, policies will only have changes; hence add userStoreEnricher if it was implicitly added previous calls to setPolicies()
+            if (RangerPolicyDeltaUtil.hasPolicyDeltas(policies) == Boolean.TRUE && isUserStoreEnricherAddedImplcitly) {
+                ServiceDefUtil.addUserStoreEnricher(policies, retrieverClassName, retrieverPollIntMs);
+            } else if (pluginConfig.isUseRangerGroups() || pluginConfig.isConvertEmailToUsername()) {
+                isUserStoreEnricherAddedImplcitly = ServiceDefUtil.addUserStoreEnricher(policies, retrieverClassName, retrieverPollIntMs);
+            } else {
+                isUserStoreEnricherAddedImplcitly = ServiceDefUtil.addUserStoreEnricherIfNeeded(policies, retrieverClassName, retrieverPollIntMs);
+            }
+        }
+
+        if (pluginConfig.isEnableImplicitGdsInfoEnricher() && policies != null && !ServiceDefUtil.isGdsInfoEnricherPresent(policies)) {
+            String retrieverClassName = pluginConfig.get(RangerGdsEnricher.RETRIEVER_CLASSNAME_OPTION, RangerAdminGdsInfoRetriever.class.getCanonicalName());
+            String retrieverPollIntMs = pluginConfig.get(RangerGdsEnricher.REFRESHER_POLLINGINTERVAL_OPTION, Integer.toString(60 * 1000));
+
+            ServiceDefUtil.addGdsInfoEnricher(policies, retrieverClassName, retrieverPollIntMs);
+        }
+
+        // guard against catastrophic failure during policy engine Initialization or
+        try {
+            long               buildStartTime    = System.nanoTime();
+            RangerPolicyEngine oldPolicyEngine   = this.policyEngine;
+            ServicePolicies    servicePolicies   = null;
+            boolean            isNewEngineNeeded = true;
+            boolean            usePolicyDeltas   = false;
+
+            if (policies == null) {
+                policies = getDefaultSvcPolicies();
+
+                if (policies == null) {
+                    LOG.error("Could not get default Service Policies. Keeping old policy-engine!");
+
+                    isNewEngineNeeded = false;
+                }
+            } else {
+                if (dedupStrings) {
+                    policies.dedupStrings();
+                }
+
+                Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(policies);
+
+                if (hasPolicyDeltas == null) {
+                    LOG.info("Downloaded policies do not require policy change !! [{}]", policies);
+
+                    if (this.policyEngine == null) {
+                        LOG.info("There are no material changes, and current policy-engine is null! Creating a policy-engine with default service policies");
+
+                        ServicePolicies defaultSvcPolicies = getDefaultSvcPolicies();
+
+                        if (defaultSvcPolicies == null) {
+                            LOG.error("Could not get default Service Policies. Keeping old policy-engine! This is a FATAL error as the old policy-engine is null!");
+
+                            isNewEngineNeeded = false;
+                        } else {
+                            defaultSvcPolicies.setPolicyVersion(policies.getPolicyVersion());
+                            policies          = defaultSvcPolicies;
+                            isNewEngineNeeded = true;
+                        }
+                    } else {
+                        LOG.info("Keeping old policy-engine!");
+
+                        isNewEngineNeeded = false;
+                    }
+                } else {
+                    if (hasPolicyDeltas.equals(Boolean.TRUE)) {
+                        // Rebuild policies from deltas
+                        RangerPolicyEngineImpl policyEngine = (RangerPolicyEngineImpl) oldPolicyEngine;
+
+                        servicePolicies = ServicePolicies.applyDelta(policies, policyEngine);
+
+                        if (servicePolicies != null) {
+                            usePolicyDeltas = true;
+                        } else {
+                            LOG.error("Could not apply deltas={}", Arrays.toString(policies.getPolicyDeltas().toArray()));
+                            LOG.warn("Keeping old policy-engine!");
+                            isNewEngineNeeded = false;
+                        }
+                    } else {
+                        if (policies.getPolicies() == null) {
+                            policies.setPolicies(new ArrayList<>());
+                        }
+                        if (MapUtils.isNotEmpty(policies.getSecurityZones())) {
+                            for (ServicePolicies.SecurityZoneInfo element : policies.getSecurityZones().values()) {
+                                if (element.getPolicies() == null) {
+                                    element.setPolicies(new ArrayList<>());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (isNewEngineNeeded) {
+                RangerPolicyEngine newPolicyEngine      = null;
+                boolean            isPolicyEngineShared = false;
+
+                if (!usePolicyDeltas) {
+                    LOG.debug("Creating engine from policies");
+
+                    newPolicyEngine = new RangerPolicyEngineImpl(policies, pluginContext, roles);
+                } else {
+                    LOG.debug("policy-deltas are not null");
+
+                    if (CollectionUtils.isNotEmpty(policies.getPolicyDeltas()) || MapUtils.isNotEmpty(policies.getSecurityZones())) {
+                        LOG.debug("Non empty policy-deltas found. Cloning engine using policy-deltas");
+
+                        if (oldPolicyEngine != null) {
+                            RangerPolicyEngineImpl oldPolicyEngineImpl = (RangerPolicyEngineImpl) oldPolicyEngine;
+
+                            newPolicyEngine = RangerPolicyEngineImpl.getPolicyEngine(oldPolicyEngineImpl, policies);
+                        }
+
+                        if (newPolicyEngine != null) {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Applied policyDeltas={})", Arrays.toString(policies.getPolicyDeltas().toArray()));
+                            }
+
+                            isPolicyEngineShared = true;
+                        } else {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Failed to apply policyDeltas={}), Creating engine from policies", Arrays.toString(policies.getPolicyDeltas().toArray()));
+                                LOG.debug("Creating new engine from servicePolicies:[{}]", servicePolicies);
+                            }
+
+                            newPolicyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, roles);
+                        }
+                    } else {
+                        LOG.debug("Empty policy-deltas. No need to change policy engine");
+                    }
+                }
+
+                if (newPolicyEngine != null) {
+                    if (!isPolicyEngineShared) {
+                        newPolicyEngine.setUseForwardedIPAddress(pluginConfig.isUseForwardedIPAddress());
+                        newPolicyEngine.setTrustedProxyAddresses(pluginConfig.getTrustedProxyAddresses());
+                    }
+
+                    RangerEngineUpdater.recordPhase("RangerBasePlugin.setPolicies.build", buildStartTime);
+                }
+
+                if (newPolicyEngine != null && warmUpPolicyEngine) {
+                    warmUpPolicyEngine(newPolicyEngine);
+                }
+
+                if (newPolicyEngine != null && !isValidPolicyEngine(newPolicyEngine, oldPolicyEngine)) {
+                    LOG.error("setPolicies: validation of new policy engine failed. Leaving current policy engine as-is");
+
+                    if (newPolicyEngine != oldPolicyEngine) {
+                        ((RangerPolicyEngineImpl) newPolicyEngine).releaseResources(!isPolicyEngineShared);
+                    }
+
+                    newPolicyEngine = null;
+                }
+
+                if (newPolicyEngine != null) {
+                    long publishStartTime = System.nanoTime();
+
+                    LOG.info("Switching policy engine from [{}]", getPolicyVersion());
+                    this.policyEngine = newPolicyEngine;
+                    LOG.info("Switched policy engine to [{}]", getPolicyVersion());
+                    this.currentAuthContext = pluginContext.getAuthContext();
+
+                    pluginContext.notifyAuthContextChanged();
+
+                    if (oldPolicyEngine != null && oldPolicyEngine != newPolicyEngine) {
+                        ((RangerPolicyEngineImpl) oldPolicyEngine).releaseResources(!isPolicyEngineShared);
+                    }
+
+                    if (this.refresher != null) {
+                        boolean doPreserveDeltas = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".preserve.deltas", false);
+                        if (!doPreserveDeltas) {
+                            this.refresher.saveToCache(usePolicyDeltas ? servicePolicies : policies);
+                        } else {
+                            // Save both deltas and all policies to cache for verification
+                            this.refresher.saveToCache(policies);
+
+                            if (usePolicyDeltas) {
+                                this.refresher.saveToCache(servicePolicies);
+                            }
+                        }
+                    }
+
+                    RangerEngineUpdater.recordPhase("RangerBasePlugin.setPolicies.publish", publishStartTime);
+
+                    LOG.info("setPolicies(policyVersion={}): policy engine published in {} ms", getPolicyVersion(), (System.nanoTime() - buildStartTime) / 1000000);
+                }
+            } else {
+                LOG.warn("Leaving current policy engine as-is");
+                LOG.warn("Policies are not saved to cache. policyVersion in the policy-cache may be different than in Ranger-admin, even though the policies are the same!");
+                LOG.warn("Ranger-PolicyVersion:[{}], Cached-PolicyVersion:[{}]", policies != null ? policies.getPolicyVersion() : -1L, this.policyEngine != null ? this.policyEngine.getPolicyVersion() : -1L);
+            }
+        } catch (Exception e) {
+            LOG.error("setPolicies: policy engine initialization failed!  Leaving current policy engine as-is. Exception : ", e);
+        }
+
+        LOG.debug("<== applyPolicies({})", policies);
+    }
+
+    /*
+     * sets up lazily initialized structures of the new policy-engine, and replays recently sampled requests against it
+     * - so that the first requests after the policy-engine is published don't pay for cold caches and code paths
+     */
+    private void warmUpPolicyEngine(RangerPolicyEngine newPolicyEngine) {
+        LOG.debug("==> warmUpPolicyEngine(policyVersion={})", newPolicyEngine.getPolicyVersion());
+
+        long warmUpStartTime = System.nanoTime();
+
+        ((RangerPolicyEngineImpl) newPolicyEngine).warmUp();
+
+        RangerAccessRequestSampler sampler          = pluginContext.getRequestSampler();
+        long                       firstPassLatency = -1;
+        long                       lastPassLatency  = -1;
+        int                        replayCount      = 0;
+
+        for (int pass = 0; pass < warmUpReplayCount && sampler.isEnabled(); pass++) {
+            List<RangerAccessRequest> samples = sampler.getSamples();
+
+            if (samples.isEmpty()) {
+                break;
+            }
+
+            long passStartTime = System.nanoTime();
+
+            for (RangerAccessRequest sample : samples) {
+                try {
+                    newPolicyEngine.evaluatePolicies(sample, RangerPolicy.POLICY_TYPE_ACCESS, null);
+                } catch (Exception excp) {
+                    LOG.debug("warmUpPolicyEngine(): failed to replay request {}", sample, excp);
+                }
+            }
+
+            lastPassLatency = (System.nanoTime() - passStartTime) / 1000 / samples.size();
+
+            if (pass == 0) {
+                firstPassLatency = lastPassLatency;
+            }
+
+            replayCount += samples.size();
+        }
+
+        RangerEngineUpdater.recordPhase("RangerBasePlugin.setPolicies.warmUp", warmUpStartTime);
+
+        LOG.info("warmUpPolicyEngine(policyVersion={}): warm-up took {} ms; replayed {} sampled requests, avg latency: first pass {} us, last pass {} us", newPolicyEngine.getPolicyVersion(), (System.nanoTime() - warmUpStartTime) / 1000000, replayCount, firstPassLatency, lastPassLatency);
+
+        LOG.debug("<== warmUpPolicyEngine(policyVersion={})", newPolicyEngine.getPolicyVersion());
+    }
+
+    private boolean isValidPolicyEngine(RangerPolicyEngine newPolicyEngine, RangerPolicyEngine oldPolicyEngine) {
+        boolean          ret        = true;
+        RangerServiceDef serviceDef = newPolicyEngine.getServiceDef();
+
+        if (serviceDef == null) {
+            LOG.error("isValidPolicyEngine(): new policy engine has no service-def");
+
+            ret = false;
+        } else if (oldPolicyEngine != null && oldPolicyEngine.getServiceDef() != null && !StringUtils.equals(serviceDef.getName(), oldPolicyEngine.getServiceDef().getName())) {
+            LOG.error("isValidPolicyEngine(): service-def of new policy engine {} is different from current {}", serviceDef.getName(), oldPolicyEngine.getServiceDef().getName());
+
+            ret = false;
+        } else {
+            int missingEvaluatorCount = ((RangerPolicyEngineImpl) newPolicyEngine).getPolicyEngine().getMissingPolicyEvaluatorCount();
+
+            if (missingEvaluatorCount > 0) {
+                LOG.error("isValidPolicyEngine(): {} enabled policies of new policy engine have no evaluator", missingEvaluatorCount);
+
+                ret = false;
+            }
+        }
+
+        if (ret && oldPolicyEngine != null && newPolicyEngine.getPolicyVersion() < oldPolicyEngine.getPolicyVersion()) {
+            // policies can be older than the ones in use, for example after Ranger admin is restored from a backup; hence only log
+            LOG.warn("isValidPolicyEngine(): policyVersion of new policy engine {} is older than current {}", newPolicyEngine.getPolicyVersion(), oldPolicyEngine.getPolicyVersion());
+        }
+
+        return ret;
+    }
+
     private RangerServiceDef getDefaultServiceDef() {
         RangerServiceDef ret = null;
 
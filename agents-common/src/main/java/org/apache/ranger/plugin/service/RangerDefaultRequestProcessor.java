@@ -32,6 +32,8 @@
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalIndex;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever.TrieLookupCache;
 import org.apache.ranger.plugin.util.RangerUserStoreUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,11 +79,15 @@ public void preProcess(RangerAccessRequest request) {
             return;
         }
 
-        setResourceServiceDef(request);
-
         RangerPluginContext     pluginContext = policyEngine.getPluginContext();
         RangerAccessRequestImpl reqImpl       = null;
 
+        if (pluginContext != null) {
+            pluginContext.getRequestSampler().sample(request);
+        }
+
+        setResourceServiceDef(request);
+
         if (request instanceof RangerAccessRequestImpl) {
             reqImpl = (RangerAccessRequestImpl) request;
 
@@ -112,9 +118,12 @@ public void preProcess(RangerAccessRequest request) {
             RangerAccessRequestUtil.setOwnerInContext(request.getContext(), owner);
         }
 
-        Set<String> roles = request.getUserRoles();
+        Set<String>                              roles      = request.getUserRoles();
+        RangerPrincipalIndex.EffectivePrincipals principals = null;
+
         if (pluginContext != null && CollectionUtils.isEmpty(roles)) {
-            roles = pluginContext.getAuthContext().getRolesForUserAndGroups(request.getUser(), request.getUserGroups());
+            principals = pluginContext.getAuthContext().getEffectivePrincipals(policyEngine.getPrincipalIndex(), request.getUser(), request.getUserGroups());
+            roles      = principals.getRoles();
 
             if (reqImpl != null && roles != null && !roles.isEmpty()) {
                 reqImpl.setUserRoles(roles);
@@ -125,7 +134,13 @@ public void preProcess(RangerAccessRequest request) {
             RangerAccessRequestUtil.setCurrentUserRolesInContext(request.getContext(), roles);
         }
 
-        Set<String> zoneNames = policyEngine.getMatchedZonesForResourceAndChildren(request.getResource());
+        if (principals != null) { // save in context for use in matching policy items, bound to groups/roles of this request
+            RangerAccessRequestUtil.setEffectivePrincipalsInContext(request.getContext(), principals.withGroupsAndRoles(request.getUserGroups(), RangerAccessRequestUtil.getUserRoles(request)));
+        }
+
+        // lookup cache is set in the context when the request is evaluated in a batch, to share zone-trie lookups across requests
+        TrieLookupCache lookupCache = RangerAccessRequestUtil.getTrieLookupCacheFromContext(request.getContext());
+        Set<String>     zoneNames   = policyEngine.getMatchedZonesForResourceAndChildren(request.getResource(), lookupCache);
 
         RangerAccessRequestUtil.setResourceZoneNamesInContext(request, zoneNames);
 
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/*
+ * Wraps a ScriptEngine to avoid repeating expensive steps for every evaluation:
+ *  - scripts are compiled once, if the engine supports Compilable, and the compiled scripts are cached by script text
+ *  - Bindings, each of which is a new global object (Nashorn) or a new context (GraalJS), are pooled for reuse
+ *
+ * A Bindings instance borrowed from the pool must be used by only one thread at a time and returned once the evaluation
+ * completes. Before a Bindings instance is pooled, variables set by the caller or by scripts are removed, so that an
+ * evaluation - possibly for a different user - doesn't see state left by an earlier one.
+ */
+public class CachedScriptEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(CachedScriptEngine.class);
+
+    public static final int DEFAULT_MAX_COMPILED_SCRIPTS = 100;
+    public static final int DEFAULT_MAX_POOLED_BINDINGS  = Runtime.getRuntime().availableProcessors();
+
+    private final ScriptEngine                scriptEngine;
+    private final Compilable                  compilable;
+    private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+    private final Queue<Bindings>             bindingsPool    = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger               pooledCount     = new AtomicInteger();
+    private final int                         maxCompiledScripts;
+    private final int                         maxPooledBindings;
+    private volatile Set<String>              baseBindingKeys; // keys in new Bindings; other keys are removed before pooling
+
+    public CachedScriptEngine(ScriptEngine scriptEngine) {
+        this(scriptEngine, DEFAULT_MAX_COMPILED_SCRIPTS, DEFAULT_MAX_POOLED_BINDINGS);
+    }
+
+    public CachedScriptEngine(ScriptEngine scriptEngine, int maxCompiledScripts, int maxPooledBindings) {
+        this.scriptEngine       = scriptEngine;
+        this.compilable         = scriptEngine instanceof Compilable ? (Compilable) scriptEngine : null;
+        this.maxCompiledScripts = maxCompiledScripts;
+        this.maxPooledBindings  = maxPooledBindings;
+
+        LOG.debug("CachedScriptEngine(engine={}, isCompilable={}, maxCompiledScripts={}, maxPooledBindings={})", scriptEngine, compilable != null, maxCompiledScripts, maxPooledBindings);
+    }
+
+    public ScriptEngine getScriptEngine() {
+        return scriptEngine;
+    }
+
+    public Bindings borrowBindings() {
+        Bindings ret = bindingsPool.poll();
+
+        if (ret != null) {
+            pooledCount.decrementAndGet();
+        } else {
+            ret = scriptEngine.createBindings();
+
+            if (baseBindingKeys == null) {
+                baseBindingKeys = new HashSet<>(ret.keySet());
+            }
+        }
+
+        return ret;
+    }
+
+    public void returnBindings(Bindings bindings) {
+        if (bindings != null && maxPooledBindings > 0 && resetBindings(bindings)) {
+            if (pooledCount.incrementAndGet() <= maxPooledBindings) {
+                bindingsPool.offer(bindings);
+            } else {
+                pooledCount.decrementAndGet();
+            }
+        }
+    }
+
+    public Object eval(String script, Bindings bindings) throws ScriptException {
+        return eval(script, null, bindings);
+    }
+
+    /*
+     * script is used as key to cache the compiled script; preprocessor, if not null, is applied to script before it is
+     * compiled. Hence the preprocessing (like macro expansion) is done only once per script.
+     */
+    public Object eval(String script, UnaryOperator<String> preprocessor, Bindings bindings) throws ScriptException {
+        final Object   ret;
+        CompiledScript compiledScript = compiledScripts.get(script);
+
+        if (compiledScript == null && compilable != null) {
+            compiledScript = compilable.compile(preprocessor != null ? preprocessor.apply(script) : script);
+
+            if (compiledScripts.size() < maxCompiledScripts) {
+                CompiledScript existing = compiledScripts.putIfAbsent(script, compiledScript);
+
+                if (existing != null) {
+                    compiledScript = existing;
+                }
+            }
+        }
+
+        if (compiledScript != null) {
+            ret = compiledScript.eval(bindings);
+        } else {
+            ret = scriptEngine.eval(preprocessor != null ? preprocessor.apply(script) : script, bindings);
+        }
+
+        return ret;
+    }
+
+    public int getCompiledScriptCount() {
+        return compiledScripts.size();
+    }
+
+    public int getPooledBindingsCount() {
+        return pooledCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CachedScriptEngine={engine=" + scriptEngine + ", isCompilable=" + (compilable != null) + ", compiledScripts=" + compiledScripts.size() + ", pooledBindings=" + pooledCount.get() + "}";
+    }
+
+    /*
+     * removes keys not present in new Bindings: variables set by the caller, like ctx, and globals set by scripts, like
+     * REQ, USER and TAGS. Returns false if a key could not be removed - like a global declared with 'var' in Nashorn,
+     * which is not deletable; such Bindings are not pooled.
+     */
+    private boolean resetBindings(Bindings bindings) {
+        Set<String> baseKeys = baseBindingKeys;
+        boolean     ret      = baseKeys != null;
+
+        if (ret) {
+            for (String key : new ArrayList<>(bindings.keySet())) {
+                if (!baseKeys.contains(key)) {
+                    bindings.remove(key);
+                }
+            }
+
+            for (String key : bindings.keySet()) {
+                if (!baseKeys.contains(key)) {
+                    LOG.debug("CachedScriptEngine.resetBindings(): failed to remove {}; bindings will not be pooled", key);
+
+                    ret = false;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+}
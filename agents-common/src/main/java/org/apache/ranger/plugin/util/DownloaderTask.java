@@ -30,13 +30,28 @@ public final class DownloaderTask extends TimerTask {
 
     private final DownloadTrigger                timerTrigger = new DownloadTrigger();
     private final BlockingQueue<DownloadTrigger> queue;
+    private final RangerChangeWatcher[]          changeWatchers;
 
     public DownloaderTask(BlockingQueue<DownloadTrigger> queue) {
-        this.queue = queue;
+        this(queue, new RangerChangeWatcher[0]);
+    }
+
+    /*
+     * downloads are skipped while all the given watchers are active, as they trigger downloads on changes
+     */
+    public DownloaderTask(BlockingQueue<DownloadTrigger> queue, RangerChangeWatcher... changeWatchers) {
+        this.queue          = queue;
+        this.changeWatchers = changeWatchers;
     }
 
     @Override
     public void run() {
+        if (isChangeNotificationActive()) {
+            LOG.debug("DownloaderTask: skipping download, as change notification is active");
+
+            return;
+        }
+
         try {
             queue.put(timerTrigger);
             timerTrigger.waitForCompletion();
@@ -44,4 +59,20 @@ public void run() {
             LOG.error("Caught exception. Exiting thread");
         }
     }
+
+    private boolean isChangeNotificationActive() {
+        boolean ret = changeWatchers != null && changeWatchers.length > 0;
+
+        if (ret) {
+            for (RangerChangeWatcher changeWatcher : changeWatchers) {
+                if (changeWatcher == null || !changeWatcher.isActive()) {
+                    ret = false;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
 }
@@ -24,6 +24,7 @@
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
@@ -31,9 +32,7 @@
 
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileReader;
 import java.io.FileWriter;
-import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +54,8 @@ public class PolicyRefresher extends Thread {
     private final String                         cacheDir;
     private final BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
     private       Timer                          policyDownloadTimer;
+    private       RangerChangeWatcher            policyChangeWatcher;
+    private       RangerChangeWatcher            roleChangeWatcher;
     private       long                           lastKnownVersion    = -1L;
     private       long                           lastActivationTimeInMillis;
     private       boolean                        policiesSetInPlugin;
@@ -133,10 +134,12 @@ public void startRefresher() {
 
         super.start();
 
+        startChangeWatchers();
+
         policyDownloadTimer = new Timer("policyDownloadTimer", true);
 
         try {
-            policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+            policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue, policyChangeWatcher, roleChangeWatcher), pollingIntervalMs, pollingIntervalMs);
 
             LOG.debug("Scheduled policyDownloadRefresher to download policies every {} milliseconds", pollingIntervalMs);
         } catch (IllegalStateException exception) {
@@ -156,6 +159,8 @@ public void stopRefresher() {
             policyDownloadTimer.cancel();
         }
 
+        stopChangeWatchers();
+
         if (super.isAlive()) {
             super.interrupt();
 
@@ -249,23 +254,18 @@ public void saveToCache(ServicePolicies policies) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
                 }
 
-                Writer writer = null;
-
                 try {
-                    writer = new FileWriter(cacheFile);
+                    if (CollectionUtils.isEmpty(policies.getPolicyDeltas())) {
+                        RangerCacheFileUtil.write(cacheFile, JsonUtils.getMapper(), policies, RangerCacheFileUtil.isBinaryFormat(plugIn.getConfig()));
+                    } else {
+                        try (Writer writer = new FileWriter(cacheFile)) {
+                            JsonUtils.objectToWriter(writer, policies);
+                        }
+                    }
 
-                    JsonUtils.objectToWriter(writer, policies);
+                    deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
                 } catch (Exception excp) {
                     LOG.error("failed to save policies to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                            deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                        }
-                    }
                 }
 
                 RangerPerfTracer.log(perf);
@@ -295,6 +295,36 @@ public void saveToCache(ServicePolicies policies) {
         LOG.debug("<== PolicyRefresher(serviceName={}).saveToCache()", serviceName);
     }
 
+    private void startChangeWatchers() {
+        RangerPluginConfig pluginConfig = plugIn.getConfig();
+
+        if (RangerChangeWatcher.isEnabled(pluginConfig)) {
+            long timeoutMs = RangerChangeWatcher.getTimeoutMs(pluginConfig);
+
+            policyChangeWatcher = new RangerChangeWatcher("PolicyChangeWatcher(serviceName=" + serviceName + ")", (version, timeout) -> rangerAdmin.waitForChange(RangerPluginInfo.ENTITY_TYPE_POLICIES, version, timeout), () -> lastKnownVersion, policyDownloadQueue, timeoutMs, pollingIntervalMs);
+            roleChangeWatcher   = new RangerChangeWatcher("RoleChangeWatcher(serviceName=" + serviceName + ")", (version, timeout) -> rangerAdmin.waitForChange(RangerPluginInfo.ENTITY_TYPE_ROLES, version, timeout), rolesProvider::getLastKnownRoleVersion, policyDownloadQueue, timeoutMs, pollingIntervalMs);
+
+            policyChangeWatcher.start();
+            roleChangeWatcher.start();
+
+            LOG.info("PolicyRefresher(serviceName={}): started change watchers, timeoutMs={}", serviceName, timeoutMs);
+        }
+    }
+
+    private void stopChangeWatchers() {
+        if (policyChangeWatcher != null) {
+            policyChangeWatcher.stopWatcher();
+
+            policyChangeWatcher = null;
+        }
+
+        if (roleChangeWatcher != null) {
+            roleChangeWatcher.stopWatcher();
+
+            roleChangeWatcher = null;
+        }
+    }
+
     private void loadPolicy() {
         LOG.debug("==> PolicyRefresher(serviceName={}).loadPolicy()", serviceName);
 
@@ -415,17 +445,15 @@ private ServicePolicies loadFromCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-            Reader           reader = null;
-            RangerPerfTracer perf   = null;
+        if (cacheFile != null && RangerCacheFileUtil.exists(cacheFile)) {
+            RangerPerfTracer perf = null;
 
             if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
                 perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.loadFromCache(serviceName=" + serviceName + ")");
             }
 
             try {
-                reader   = new FileReader(cacheFile);
-                policies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+                policies = RangerCacheFileUtil.read(cacheFile, JsonUtils.getMapper(), ServicePolicies.class);
 
                 if (policies != null) {
                     if (!StringUtils.equals(serviceName, policies.getServiceName())) {
@@ -440,14 +468,6 @@ private ServicePolicies loadFromCache() {
                 LOG.error("failed to load policies from cache file {}", cacheFile.getAbsolutePath(), excp);
             } finally {
                 RangerPerfTracer.log(perf);
-
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (Exception excp) {
-                        LOG.error("error while closing opened cache file {}", cacheFile.getAbsolutePath(), excp);
-                    }
-                }
             }
         } else {
             LOG.warn("cache file does not exist or not readable '{}'", cacheFile == null ? null : cacheFile.getAbsolutePath());
@@ -507,6 +527,10 @@ private void disableCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
+        if (cacheFile != null) {
+            RangerCacheFileUtil.deleteSnapshot(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local cache");
 
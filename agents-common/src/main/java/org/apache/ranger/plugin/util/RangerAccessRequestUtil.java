@@ -56,6 +56,9 @@ public class RangerAccessRequestUtil {
     public static final  String KEY_CONTEXT_GDS_RESULT                       = "_GDS_RESULT";
     public static final  String KEY_CONTEXT_IS_REQUEST_PREPROCESSED          = "ISREQUESTPREPROCESSED";
     public static final  String KEY_CONTEXT_RESOURCE_ZONE_NAMES              = "RESOURCE_ZONE_NAMES";
+    public static final  String KEY_CONTEXT_IS_ACCESS_RESULT_NOT_CACHEABLE   = "ISACCESSRESULTNOTCACHEABLE";
+    public static final  String KEY_CONTEXT_TRIE_LOOKUP_CACHE                = "_TRIE_LOOKUP_CACHE";
+    public static final  String KEY_CONTEXT_EFFECTIVE_PRINCIPALS             = "_EFFECTIVE_PRINCIPALS";
     private static final Logger LOG                                          = LoggerFactory.getLogger(RangerAccessRequestUtil.class);
 
     private RangerAccessRequestUtil() {
@@ -152,6 +155,7 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
             ret.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
             ret.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
             ret.remove(KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES);
+            ret.remove(KEY_CONTEXT_TRIE_LOOKUP_CACHE);
             // don't remove REQUESTED_RESOURCES
         }
 
@@ -204,6 +208,33 @@ public static Set<String> getUserRoles(RangerAccessRequest request) {
         return ret;
     }
 
+    public static void setEffectivePrincipalsInContext(Map<String, Object> context, RangerPrincipalIndex.EffectivePrincipals principals) {
+        if (context != null) {
+            context.put(KEY_CONTEXT_EFFECTIVE_PRINCIPALS, principals);
+        }
+    }
+
+    /*
+     * returns ids, in the given index, of the user, groups and roles of the request - computed once and saved in the
+     * request context
+     */
+    public static int[] getEffectivePrincipals(RangerAccessRequest request, RangerPrincipalIndex index) {
+        String                                   user    = request.getUser();
+        Set<String>                              groups  = request.getUserGroups();
+        Set<String>                              roles   = getUserRoles(request);
+        Map<String, Object>                      context = request.getContext();
+        Object                                   val     = context != null ? context.get(KEY_CONTEXT_EFFECTIVE_PRINCIPALS) : null;
+        RangerPrincipalIndex.EffectivePrincipals ret     = val instanceof RangerPrincipalIndex.EffectivePrincipals ? (RangerPrincipalIndex.EffectivePrincipals) val : null;
+
+        if (ret == null || !ret.isFor(index, user, groups, roles)) {
+            ret = index.getEffectivePrincipals(user, groups, roles);
+
+            setEffectivePrincipalsInContext(context, ret);
+        }
+
+        return ret.getPrincipals();
+    }
+
     public static void setRequestUserStoreInContext(Map<String, Object> context, RangerUserStore rangerUserStore) {
         context.put(KEY_CONTEXT_USERSTORE, rangerUserStore);
     }
@@ -237,6 +268,19 @@ public static boolean getIsRequestPreprocessed(Map<String, Object> context) {
         return value != null && value;
     }
 
+    public static void setIsAccessResultNotCacheable(Map<String, Object> context, Boolean value) {
+        if (value == null || !value) {
+            context.remove(KEY_CONTEXT_IS_ACCESS_RESULT_NOT_CACHEABLE);
+        } else {
+            context.put(KEY_CONTEXT_IS_ACCESS_RESULT_NOT_CACHEABLE, value);
+        }
+    }
+
+    public static boolean getIsAccessResultNotCacheable(Map<String, Object> context) {
+        Boolean value = (Boolean) context.get(KEY_CONTEXT_IS_ACCESS_RESULT_NOT_CACHEABLE);
+        return value != null && value;
+    }
+
     public static void setAllRequestedAccessTypes(Map<String, Object> context, Set<String> accessTypes) {
         context.put(KEY_CONTEXT_ALL_ACCESSTYPES, accessTypes);
     }
@@ -405,6 +449,30 @@ public static String getResourceZoneNameFromContext(Map<String, Object> context)
         return ret != null && ret.size() == 1 ? ret.iterator().next() : null;
     }
 
+    public static void setTrieLookupCacheInContext(Map<String, Object> context, RangerResourceEvaluatorsRetriever.TrieLookupCache lookupCache) {
+        if (context != null) {
+            if (lookupCache != null) {
+                context.put(KEY_CONTEXT_TRIE_LOOKUP_CACHE, lookupCache);
+            } else {
+                context.remove(KEY_CONTEXT_TRIE_LOOKUP_CACHE);
+            }
+        }
+    }
+
+    public static RangerResourceEvaluatorsRetriever.TrieLookupCache getTrieLookupCacheFromContext(Map<String, Object> context) {
+        RangerResourceEvaluatorsRetriever.TrieLookupCache ret = null;
+
+        if (context != null) {
+            Object val = context.get(KEY_CONTEXT_TRIE_LOOKUP_CACHE);
+
+            if (val instanceof RangerResourceEvaluatorsRetriever.TrieLookupCache) {
+                ret = (RangerResourceEvaluatorsRetriever.TrieLookupCache) val;
+            }
+        }
+
+        return ret;
+    }
+
     public static void setAccessTypeResults(Map<String, Object> context, Map<String, RangerAccessResult> accessTypeResults) {
         if (context != null) {
             if (accessTypeResults != null) {
@@ -0,0 +1,831 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import com.fasterxml.jackson.core.json.PackageVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+ * Compact binary encoding of the JSON token stream of an object - as produced by Jackson, using the annotations and
+ * configuration of the given ObjectMapper. Used for plugin cache files, which are read at each plugin start.
+ *
+ * Layout: magic, format version, tokens, END token, CRC32 of all preceding bytes.
+ *  - field names and string values are written once: the first occurrence as length + UTF-8 bytes, which adds
+ *    the string to a table; later occurrences as index in the table. Repeated names - like user, group, resource
+ *    and access-type names - are decoded to the same String instance
+ *  - integers are zigzag varint encoded; lengths and string-table indexes are varint encoded
+ *
+ * Objects are written through a JsonGenerator that encodes tokens as they are generated, and read through a
+ * JsonParser that decodes tokens from the buffer as they are consumed - hence the token stream isn't held in memory.
+ */
+public final class RangerBinarySnapshot {
+    private static final byte[] MAGIC   = {'R', 'S', 'N', 'P'};
+    private static final byte   VERSION = 1;
+
+    private static final byte TOKEN_END          = 0;
+    private static final byte TOKEN_START_OBJECT = 1;
+    private static final byte TOKEN_END_OBJECT   = 2;
+    private static final byte TOKEN_START_ARRAY  = 3;
+    private static final byte TOKEN_END_ARRAY    = 4;
+    private static final byte TOKEN_FIELD_NAME   = 5;
+    private static final byte TOKEN_STRING       = 6;
+    private static final byte TOKEN_LONG         = 7;
+    private static final byte TOKEN_DOUBLE       = 8;
+    private static final byte TOKEN_BIG_INTEGER  = 9;
+    private static final byte TOKEN_BIG_DECIMAL  = 10;
+    private static final byte TOKEN_TRUE         = 11;
+    private static final byte TOKEN_FALSE        = 12;
+    private static final byte TOKEN_NULL         = 13;
+    private static final byte TOKEN_BINARY       = 14;
+
+    private RangerBinarySnapshot() {
+        // to block instantiation
+    }
+
+    public static boolean hasMagic(ByteBuffer buffer) {
+        boolean ret = buffer.remaining() >= MAGIC.length;
+
+        for (int i = 0; ret && i < MAGIC.length; i++) {
+            ret = buffer.get(buffer.position() + i) == MAGIC[i];
+        }
+
+        return ret;
+    }
+
+    public static void write(ObjectMapper mapper, Object obj, OutputStream out) throws IOException {
+        try (Encoder encoder = new Encoder(mapper, out)) {
+            encoder.writeHeader();
+
+            mapper.writeValue(encoder, obj);
+
+            encoder.writeTrailer();
+        }
+    }
+
+    public static <T> T read(ObjectMapper mapper, ByteBuffer buffer, Class<T> cls) throws IOException {
+        try (Decoder decoder = new Decoder(mapper, buffer)) {
+            decoder.readHeader();
+
+            T ret = mapper.readValue(decoder, cls);
+
+            decoder.readTrailer();
+
+            return ret;
+        }
+    }
+
+    /*
+     * JsonGenerator that writes tokens to the output stream in snapshot encoding. Doesn't close the output stream.
+     */
+    private static final class Encoder extends GeneratorBase {
+        private final OutputStream         out;
+        private final CRC32                crc         = new CRC32();
+        private final Map<String, Integer> stringTable = new HashMap<>();
+        private final byte[]               buf         = new byte[10];
+
+        Encoder(ObjectMapper mapper, OutputStream out) {
+            super(0, mapper);
+
+            this.out = out;
+        }
+
+        void writeHeader() throws IOException {
+            writeBytes(MAGIC);
+            writeByte(VERSION);
+        }
+
+        void writeTrailer() throws IOException {
+            writeByte(TOKEN_END);
+            writeCrc();
+        }
+
+        @Override
+        public void writeStartArray() throws IOException {
+            _verifyValueWrite("start an array");
+
+            _writeContext = _writeContext.createChildArrayContext();
+
+            writeByte(TOKEN_START_ARRAY);
+        }
+
+        @Override
+        public void writeEndArray() throws IOException {
+            if (!_writeContext.inArray()) {
+                _reportError("current context not an array but " + _writeContext.typeDesc());
+            }
+
+            _writeContext = _writeContext.clearAndGetParent();
+
+            writeByte(TOKEN_END_ARRAY);
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            _verifyValueWrite("start an object");
+
+            _writeContext = _writeContext.createChildObjectContext();
+
+            writeByte(TOKEN_START_OBJECT);
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            if (!_writeContext.inObject()) {
+                _reportError("current context not an object but " + _writeContext.typeDesc());
+            }
+
+            _writeContext = _writeContext.clearAndGetParent();
+
+            writeByte(TOKEN_END_OBJECT);
+        }
+
+        @Override
+        public void writeFieldName(String name) throws IOException {
+            if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+                _reportError("can not write a field name, expecting a value");
+            }
+
+            writeByte(TOKEN_FIELD_NAME);
+            encodeString(name);
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            if (text == null) {
+                writeNull();
+            } else {
+                _verifyValueWrite("write a string");
+
+                writeByte(TOKEN_STRING);
+                encodeString(text);
+            }
+        }
+
+        @Override
+        public void writeString(char[] text, int offset, int len) throws IOException {
+            writeString(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+            writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+            writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeRaw(String text) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(String text, int offset, int len) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char[] text, int offset, int len) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char c) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeBinary(Base64Variant bv, byte[] data, int offset, int len) throws IOException {
+            if (data == null) {
+                writeNull();
+            } else {
+                _verifyValueWrite("write a binary value");
+
+                writeByte(TOKEN_BINARY);
+                writeVarLong(len);
+                writeBytes(data, offset, len);
+            }
+        }
+
+        @Override
+        public void writeNumber(int value) throws IOException {
+            writeNumber((long) value);
+        }
+
+        @Override
+        public void writeNumber(long value) throws IOException {
+            _verifyValueWrite("write a number");
+
+            writeByte(TOKEN_LONG);
+            writeVarLong(zigzag(value));
+        }
+
+        @Override
+        public void writeNumber(BigInteger value) throws IOException {
+            if (value == null) {
+                writeNull();
+            } else {
+                _verifyValueWrite("write a number");
+
+                writeByte(TOKEN_BIG_INTEGER);
+                encodeString(value.toString());
+            }
+        }
+
+        @Override
+        public void writeNumber(double value) throws IOException {
+            _verifyValueWrite("write a number");
+
+            writeByte(TOKEN_DOUBLE);
+            writeLong(Double.doubleToLongBits(value));
+        }
+
+        @Override
+        public void writeNumber(float value) throws IOException {
+            writeNumber((double) value);
+        }
+
+        @Override
+        public void writeNumber(BigDecimal value) throws IOException {
+            if (value == null) {
+                writeNull();
+            } else {
+                _verifyValueWrite("write a number");
+
+                writeByte(TOKEN_BIG_DECIMAL);
+                encodeString(value.toString());
+            }
+        }
+
+        @Override
+        public void writeNumber(String encodedValue) throws IOException {
+            if (encodedValue == null) {
+                writeNull();
+            } else {
+                writeNumber(new BigDecimal(encodedValue));
+            }
+        }
+
+        @Override
+        public void writeBoolean(boolean state) throws IOException {
+            _verifyValueWrite("write a boolean value");
+
+            writeByte(state ? TOKEN_TRUE : TOKEN_FALSE);
+        }
+
+        @Override
+        public void writeNull() throws IOException {
+            _verifyValueWrite("write a null");
+
+            writeByte(TOKEN_NULL);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        protected void _releaseBuffers() {
+        }
+
+        @Override
+        protected void _verifyValueWrite(String typeMsg) throws IOException {
+            if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+                _reportError("can not " + typeMsg + ", expecting field name");
+            }
+        }
+
+        private void encodeString(String value) throws IOException {
+            Integer idx = stringTable.get(value);
+
+            if (idx != null) {
+                writeVarLong(idx + 1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+                stringTable.put(value, stringTable.size());
+
+                writeVarLong(0);
+                writeVarLong(bytes.length);
+                writeBytes(bytes);
+            }
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            int len = 0;
+
+            while ((value & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            buf[len++] = (byte) value;
+
+            writeBytes(buf, 0, len);
+        }
+
+        private void writeLong(long value) throws IOException {
+            for (int i = 0; i < 8; i++) {
+                buf[i] = (byte) (value >>> (56 - 8 * i));
+            }
+
+            writeBytes(buf, 0, 8);
+        }
+
+        private void writeByte(byte value) throws IOException {
+            out.write(value);
+            crc.update(value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int len) throws IOException {
+            out.write(bytes, offset, len);
+            crc.update(bytes, offset, len);
+        }
+
+        private void writeCrc() throws IOException {
+            long value = crc.getValue();
+
+            for (int i = 0; i < 4; i++) {
+                out.write((int) (value >>> (24 - 8 * i)));
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /*
+     * JsonParser that decodes tokens from the buffer as they are consumed. String values and field names are returned
+     * from the string table - hence repeated strings are decoded to the same instance.
+     */
+    private static final class Decoder extends ParserMinimalBase {
+        private final ByteBuffer   buffer;
+        private final int          start;
+        private final List<String> stringTable = new ArrayList<>();
+        private ObjectCodec        codec;
+        private JsonReadContext    context     = JsonReadContext.createRootContext(null);
+        private Object             value;
+        private boolean            isEnded;
+        private boolean            isClosed;
+
+        Decoder(ObjectMapper mapper, ByteBuffer buffer) {
+            super(0);
+
+            this.codec  = mapper;
+            this.buffer = buffer;
+            this.start  = buffer.position();
+        }
+
+        void readHeader() throws IOException {
+            if (!hasMagic(buffer)) {
+                throw new IOException("not a snapshot: invalid magic");
+            }
+
+            buffer.position(buffer.position() + MAGIC.length);
+
+            byte version = buffer.get();
+
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version);
+            }
+        }
+
+        /*
+         * reads the END token, following the value read by the mapper, and verifies the checksum
+         */
+        void readTrailer() throws IOException {
+            if (nextToken() != null) {
+                throw new IOException("unexpected token " + _currToken + " at offset " + (buffer.position() - start - 1));
+            }
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            value = null;
+
+            if (isEnded || isClosed) {
+                _currToken = null;
+
+                return null;
+            }
+
+            byte token = buffer.get();
+
+            if (token != TOKEN_END && token != TOKEN_END_OBJECT && token != TOKEN_END_ARRAY && !context.inObject()) {
+                context.expectComma(); // advances the index of the array
+            }
+
+            switch (token) {
+                case TOKEN_END:
+                    verifyCrc();
+
+                    isEnded    = true;
+                    _currToken = null;
+                    break;
+                case TOKEN_START_OBJECT:
+                    context    = context.createChildObjectContext(-1, -1);
+                    _currToken = JsonToken.START_OBJECT;
+                    break;
+                case TOKEN_END_OBJECT:
+                    context    = context.clearAndGetParent();
+                    _currToken = JsonToken.END_OBJECT;
+                    break;
+                case TOKEN_START_ARRAY:
+                    context    = context.createChildArrayContext(-1, -1);
+                    _currToken = JsonToken.START_ARRAY;
+                    break;
+                case TOKEN_END_ARRAY:
+                    context    = context.clearAndGetParent();
+                    _currToken = JsonToken.END_ARRAY;
+                    break;
+                case TOKEN_FIELD_NAME:
+                    context.setCurrentName(readString());
+
+                    _currToken = JsonToken.FIELD_NAME;
+                    break;
+                case TOKEN_STRING:
+                    value      = readString();
+                    _currToken = JsonToken.VALUE_STRING;
+                    break;
+                case TOKEN_LONG: {
+                    long longValue = unzigzag(readVarLong());
+
+                    if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                        value = (int) longValue;
+                    } else {
+                        value = longValue;
+                    }
+
+                    _currToken = JsonToken.VALUE_NUMBER_INT;
+                    break;
+                }
+                case TOKEN_DOUBLE:
+                    value      = Double.longBitsToDouble(buffer.getLong());
+                    _currToken = JsonToken.VALUE_NUMBER_FLOAT;
+                    break;
+                case TOKEN_BIG_INTEGER:
+                    value      = new BigInteger(readString());
+                    _currToken = JsonToken.VALUE_NUMBER_INT;
+                    break;
+                case TOKEN_BIG_DECIMAL:
+                    value      = new BigDecimal(readString());
+                    _currToken = JsonToken.VALUE_NUMBER_FLOAT;
+                    break;
+                case TOKEN_TRUE:
+                    _currToken = JsonToken.VALUE_TRUE;
+                    break;
+                case TOKEN_FALSE:
+                    _currToken = JsonToken.VALUE_FALSE;
+                    break;
+                case TOKEN_NULL:
+                    _currToken = JsonToken.VALUE_NULL;
+                    break;
+                case TOKEN_BINARY:
+                    value      = readBytes(readLength());
+                    _currToken = JsonToken.VALUE_EMBEDDED_OBJECT;
+                    break;
+                default:
+                    throw new IOException("invalid token " + token + " at offset " + (buffer.position() - start - 1));
+            }
+
+            return _currToken;
+        }
+
+        @Override
+        public String getCurrentName() {
+            JsonReadContext ctx = context;
+
+            if ((_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) && ctx.getParent() != null) {
+                ctx = ctx.getParent();
+            }
+
+            return ctx.getCurrentName();
+        }
+
+        @Override
+        public void overrideCurrentName(String name) {
+            try {
+                context.setCurrentName(name);
+            } catch (IOException excp) {
+                throw new IllegalStateException(excp);
+            }
+        }
+
+        @Override
+        public JsonStreamContext getParsingContext() {
+            return context;
+        }
+
+        @Override
+        public String getText() {
+            final String ret;
+
+            if (_currToken == null) {
+                ret = null;
+            } else if (_currToken == JsonToken.FIELD_NAME) {
+                ret = context.getCurrentName();
+            } else if (_currToken == JsonToken.VALUE_STRING || _currToken.isNumeric()) {
+                ret = value.toString();
+            } else {
+                ret = _currToken.asString();
+            }
+
+            return ret;
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            String text = getText();
+
+            return text != null ? text.toCharArray() : null;
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            return false;
+        }
+
+        @Override
+        public int getTextLength() {
+            String text = getText();
+
+            return text != null ? text.length() : 0;
+        }
+
+        @Override
+        public int getTextOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getBinaryValue(Base64Variant bv) throws IOException {
+            final byte[] ret;
+
+            if (value instanceof byte[]) {
+                ret = (byte[]) value;
+            } else if (_currToken == JsonToken.VALUE_STRING) {
+                ret = bv.decode((String) value);
+            } else {
+                throw _constructError("current token (" + _currToken + ") not VALUE_STRING or VALUE_EMBEDDED_OBJECT, can not access as binary");
+            }
+
+            return ret;
+        }
+
+        @Override
+        public Object getEmbeddedObject() {
+            return _currToken == JsonToken.VALUE_EMBEDDED_OBJECT ? value : null;
+        }
+
+        @Override
+        public Number getNumberValue() throws IOException {
+            if (!(value instanceof Number)) {
+                _reportError("current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+            }
+
+            return (Number) value;
+        }
+
+        @Override
+        public NumberType getNumberType() throws IOException {
+            Number number = getNumberValue();
+
+            final NumberType ret;
+
+            if (number instanceof Integer) {
+                ret = NumberType.INT;
+            } else if (number instanceof Long) {
+                ret = NumberType.LONG;
+            } else if (number instanceof Double) {
+                ret = NumberType.DOUBLE;
+            } else if (number instanceof BigInteger) {
+                ret = NumberType.BIG_INTEGER;
+            } else {
+                ret = NumberType.BIG_DECIMAL;
+            }
+
+            return ret;
+        }
+
+        @Override
+        public int getIntValue() throws IOException {
+            return getNumberValue().intValue();
+        }
+
+        @Override
+        public long getLongValue() throws IOException {
+            return getNumberValue().longValue();
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() throws IOException {
+            Number number = getNumberValue();
+
+            final BigInteger ret;
+
+            if (number instanceof BigInteger) {
+                ret = (BigInteger) number;
+            } else if (number instanceof BigDecimal) {
+                ret = ((BigDecimal) number).toBigInteger();
+            } else {
+                ret = BigInteger.valueOf(number.longValue());
+            }
+
+            return ret;
+        }
+
+        @Override
+        public float getFloatValue() throws IOException {
+            return getNumberValue().floatValue();
+        }
+
+        @Override
+        public double getDoubleValue() throws IOException {
+            return getNumberValue().doubleValue();
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() throws IOException {
+            Number number = getNumberValue();
+
+            final BigDecimal ret;
+
+            if (number instanceof BigDecimal) {
+                ret = (BigDecimal) number;
+            } else if (number instanceof BigInteger) {
+                ret = new BigDecimal((BigInteger) number);
+            } else if (number instanceof Double) {
+                ret = BigDecimal.valueOf(number.doubleValue());
+            } else {
+                ret = BigDecimal.valueOf(number.longValue());
+            }
+
+            return ret;
+        }
+
+        @Override
+        public ObjectCodec getCodec() {
+            return codec;
+        }
+
+        @Override
+        public void setCodec(ObjectCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public Version version() {
+            return PackageVersion.VERSION;
+        }
+
+        @Override
+        public JsonLocation getTokenLocation() {
+            return JsonLocation.NA;
+        }
+
+        @Override
+        public JsonLocation getCurrentLocation() {
+            return JsonLocation.NA;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isClosed;
+        }
+
+        @Override
+        protected void _handleEOF() {
+        }
+
+        private void verifyCrc() throws IOException {
+            int        end      = buffer.position();
+            ByteBuffer content  = buffer.duplicate();
+            CRC32      crc      = new CRC32();
+            long       expected = buffer.getInt() & 0xFFFFFFFFL;
+
+            content.position(start);
+            content.limit(end);
+
+            crc.update(content);
+
+            if (crc.getValue() != expected) {
+                throw new IOException("snapshot checksum mismatch");
+            }
+        }
+
+        private String readString() throws IOException {
+            long idx = readVarLong();
+
+            final String ret;
+
+            if (idx == 0) {
+                ret = new String(readBytes(readLength()), StandardCharsets.UTF_8);
+
+                stringTable.add(ret);
+            } else if (idx > 0 && idx <= stringTable.size()) {
+                ret = stringTable.get((int) idx - 1);
+            } else {
+                throw new IOException("invalid string reference " + idx + " at offset " + (buffer.position() - start));
+            }
+
+            return ret;
+        }
+
+        private byte[] readBytes(int len) {
+            byte[] ret = new byte[len];
+
+            buffer.get(ret);
+
+            return ret;
+        }
+
+        private int readLength() throws IOException {
+            long ret = readVarLong();
+
+            if (ret < 0 || ret > buffer.remaining()) {
+                throw new IOException("invalid length " + ret + " at offset " + (buffer.position() - start));
+            }
+
+            return (int) ret;
+        }
+
+        private long readVarLong() throws IOException {
+            long ret   = 0;
+            int  shift = 0;
+
+            while (true) {
+                byte b = buffer.get();
+
+                ret |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+
+                shift += 7;
+
+                if (shift > 63) {
+                    throw new IOException("invalid varint at offset " + (buffer.position() - start));
+                }
+            }
+
+            return ret;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Reads and writes plugin cache files - of policies, tags, roles, userstore and gdsInfo.
+ *
+ * Cache files are written in binary snapshot format (RangerBinarySnapshot) to <cacheFile>.snapshot, or in JSON
+ * format to the cache file itself when property <propertyPrefix>.policy.cache.file.format is set to "json"; the
+ * JSON format is easier to inspect. Files are written to a temporary file first, which is then renamed, so that
+ * a plugin never reads a partially written cache file.
+ *
+ * When both files exist, the one modified last is read - to continue to read JSON cache files written by earlier
+ * versions and JSON files placed in the cache directory; if the snapshot can't be read, the JSON file is read.
+ */
+public final class RangerCacheFileUtil {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerCacheFileUtil.class);
+
+    public static final String PROP_SUFFIX_CACHE_FILE_FORMAT = ".policy.cache.file.format";
+    public static final String CACHE_FILE_FORMAT_JSON        = "json";
+    public static final String CACHE_FILE_FORMAT_BINARY      = "binary";
+    public static final String SNAPSHOT_FILE_SUFFIX          = ".snapshot";
+
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    private RangerCacheFileUtil() {
+        // to block instantiation
+    }
+
+    public static boolean isBinaryFormat(RangerPluginConfig config) {
+        String format = config != null ? config.get(config.getPropertyPrefix() + PROP_SUFFIX_CACHE_FILE_FORMAT, CACHE_FILE_FORMAT_BINARY) : CACHE_FILE_FORMAT_BINARY;
+
+        return !CACHE_FILE_FORMAT_JSON.equalsIgnoreCase(format);
+    }
+
+    public static File getSnapshotFile(File cacheFile) {
+        return new File(cacheFile.getPath() + SNAPSHOT_FILE_SUFFIX);
+    }
+
+    /*
+     * returns true if the cache file, in either format, exists and is readable
+     */
+    public static boolean exists(File cacheFile) {
+        return isReadable(cacheFile) || isReadable(getSnapshotFile(cacheFile));
+    }
+
+    /*
+     * returns null if the cache file doesn't exist in either format
+     */
+    public static <T> T read(File cacheFile, ObjectMapper mapper, Class<T> cls) throws IOException {
+        File jsonFile     = isReadable(cacheFile) ? cacheFile : null;
+        File snapshotFile = isReadable(getSnapshotFile(cacheFile)) ? getSnapshotFile(cacheFile) : null;
+        T    ret          = null;
+
+        if (snapshotFile != null && (jsonFile == null || snapshotFile.lastModified() >= jsonFile.lastModified())) {
+            try {
+                ret = readSnapshot(snapshotFile, mapper, cls);
+            } catch (IOException | RuntimeException excp) {
+                if (jsonFile == null) {
+                    throw excp instanceof IOException ? (IOException) excp : new IOException(excp);
+                }
+
+                LOG.warn("failed to read cache snapshot {}. Will read {}", snapshotFile.getAbsolutePath(), jsonFile.getAbsolutePath(), excp);
+            }
+        }
+
+        if (ret == null && jsonFile != null) {
+            try (Reader reader = Files.newBufferedReader(jsonFile.toPath(), StandardCharsets.UTF_8)) {
+                ret = mapper.readValue(reader, cls);
+            }
+        }
+
+        return ret;
+    }
+
+    public static void write(File cacheFile, ObjectMapper mapper, Object obj, boolean isBinaryFormat) throws IOException {
+        if (isBinaryFormat) {
+            writeAtomically(getSnapshotFile(cacheFile), out -> RangerBinarySnapshot.write(mapper, obj, out));
+        } else {
+            writeAtomically(cacheFile, out -> mapper.writeValue(out, obj));
+
+            deleteSnapshot(cacheFile); // so that an older snapshot isn't read instead of the JSON file
+        }
+    }
+
+    public static void deleteSnapshot(File cacheFile) {
+        File snapshotFile = getSnapshotFile(cacheFile);
+
+        if (snapshotFile.exists()) {
+            try {
+                Files.delete(snapshotFile.toPath());
+            } catch (IOException excp) {
+                LOG.error("failed to delete cache snapshot {}", snapshotFile.getAbsolutePath(), excp);
+            }
+        }
+    }
+
+    private static <T> T readSnapshot(File snapshotFile, ObjectMapper mapper, Class<T> cls) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return RangerBinarySnapshot.read(mapper, buffer, cls);
+        }
+    }
+
+    private static void writeAtomically(File file, ContentWriter writer) throws IOException {
+        Path target  = file.toPath();
+        Path tmpFile = target.resolveSibling("." + file.getName() + "." + System.nanoTime() + TMP_FILE_SUFFIX);
+
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 64 * 1024)) {
+                writer.write(out);
+            }
+
+            try {
+                Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException excp) {
+                Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static boolean isReadable(File file) {
+        return file != null && file.isFile() && file.canRead();
+    }
+
+    private interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
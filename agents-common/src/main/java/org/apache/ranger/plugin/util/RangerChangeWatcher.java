@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongSupplier;
+
+/*
+ * Waits in Ranger admin (long-poll) for the version of policies/tags/roles/userstore to change, and triggers a download
+ * right after a change - instead of waiting for the next poll. While Ranger admin services these waits, periodic
+ * downloads are skipped (see DownloaderTask); when it doesn't - for example an older Ranger admin, or one that is
+ * servicing its maximum number of waits - periodic downloads continue.
+ */
+public class RangerChangeWatcher extends Thread {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerChangeWatcher.class);
+
+    public static final String PROP_SUFFIX_CHANGE_NOTIFICATION_ENABLED    = ".policy.change.notification.enabled";
+    public static final String PROP_SUFFIX_CHANGE_NOTIFICATION_TIMEOUT_MS = ".policy.change.notification.timeoutMs";
+
+    private static final long DEFAULT_TIMEOUT_MS      = 20 * 1000L;
+    private static final int  DEFAULT_READ_TIMEOUT_MS = 30 * 1000;
+
+    private final ChangeSource                   changeSource;
+    private final LongSupplier                   lastKnownVersion;
+    private final BlockingQueue<DownloadTrigger> downloadQueue;
+    private final long                           timeoutMs;
+    private final long                           retryIntervalMs;
+    private final DownloadTrigger                trigger = new DownloadTrigger();
+    private volatile boolean                     isActive;
+
+    public RangerChangeWatcher(String name, ChangeSource changeSource, LongSupplier lastKnownVersion, BlockingQueue<DownloadTrigger> downloadQueue, long timeoutMs, long retryIntervalMs) {
+        this.changeSource     = changeSource;
+        this.lastKnownVersion = lastKnownVersion;
+        this.downloadQueue    = downloadQueue;
+        this.timeoutMs        = timeoutMs;
+        this.retryIntervalMs  = retryIntervalMs;
+
+        setName(name + "-" + getId());
+        setDaemon(true);
+    }
+
+    public static boolean isEnabled(RangerPluginConfig config) {
+        return config != null && config.getBoolean(config.getPropertyPrefix() + PROP_SUFFIX_CHANGE_NOTIFICATION_ENABLED, true) && getTimeoutMs(config) > 0;
+    }
+
+    /*
+     * the wait must complete before the REST client's read timeout; hence timeout is limited to 2/3 of the read timeout
+     */
+    public static long getTimeoutMs(RangerPluginConfig config) {
+        String propertyPrefix = config.getPropertyPrefix();
+        long   timeoutMs      = config.getLong(propertyPrefix + PROP_SUFFIX_CHANGE_NOTIFICATION_TIMEOUT_MS, DEFAULT_TIMEOUT_MS);
+        long   readTimeoutMs  = config.getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", DEFAULT_READ_TIMEOUT_MS);
+
+        return Math.min(timeoutMs, readTimeoutMs * 2 / 3);
+    }
+
+    /*
+     * returns true if Ranger admin is servicing waits for this watcher i.e. changes will be downloaded without polling
+     */
+    public boolean isActive() {
+        return isActive && isAlive();
+    }
+
+    public void stopWatcher() {
+        isActive = false;
+
+        // the thread might be blocked in a REST call, which doesn't respond to interrupt; it is a daemon thread, so don't wait for it to exit
+        interrupt();
+    }
+
+    @Override
+    public void run() {
+        LOG.debug("==> RangerChangeWatcher({}).run()", getName());
+
+        while (!isInterrupted()) {
+            try {
+                long    version   = lastKnownVersion.getAsLong();
+                Boolean isChanged = changeSource.waitForChange(version, timeoutMs);
+
+                isActive = isChanged != null;
+
+                if (isChanged == null) {
+                    sleep(retryIntervalMs);
+                } else if (isChanged) {
+                    downloadQueue.put(trigger);
+                    trigger.waitForCompletion();
+
+                    if (lastKnownVersion.getAsLong() == version) { // download didn't succeed; don't retry right away
+                        sleep(retryIntervalMs);
+                    }
+                }
+            } catch (InterruptedException excp) {
+                LOG.debug("RangerChangeWatcher({}).run(): interrupted! Exiting thread", getName());
+
+                break;
+            } catch (Exception excp) {
+                isActive = false;
+
+                LOG.warn("RangerChangeWatcher({}): failed to wait for change. Will retry after {} milliseconds", getName(), retryIntervalMs, excp);
+
+                try {
+                    sleep(retryIntervalMs);
+                } catch (InterruptedException excp1) {
+                    break;
+                }
+            }
+        }
+
+        isActive = false;
+
+        LOG.debug("<== RangerChangeWatcher({}).run()", getName());
+    }
+
+    public interface ChangeSource {
+        /*
+         * returns true if the version changed, false if it didn't change within timeoutMs, and null if changes can't be waited for now
+         */
+        Boolean waitForChange(long lastKnownVersion, long timeoutMs) throws Exception;
+    }
+}
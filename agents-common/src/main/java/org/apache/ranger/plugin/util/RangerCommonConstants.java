@@ -42,6 +42,8 @@ public class RangerCommonConstants {
     public static final boolean RANGER_SUPPORTS_TAGS_DEDUP_DEFAULT                   = true;
     public static final boolean POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED            = true;
     public static final String  SCRIPT_OPTION_ENABLE_JSON_CTX                        = "enableJsonCtx";
+    public static final String  SCRIPT_OPTION_ENABLE_BINDINGS_POOL                   = "enableBindingsPool";
+    public static final String  SCRIPT_OPTION_ENABLE_NATIVE_EVAL                     = "enableNativeEval";
     public static final String  SCRIPT_VAR_ctx                                       = "ctx";
     public static final String  SCRIPT_VAR_tag                                       = "tag";
     public static final String  SCRIPT_VAR_tagAttr                                   = "tagAttr";
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Applies updates of a plugin - policies, roles, tags and GDS info - one at a time. New policy-engine, tag index or
+ * GDS engine is built off the one currently in use, which continues to serve access requests until the new one is
+ * published; hence an update that takes a while to build delays only other updates of the same plugin - for example,
+ * a role update can't be lost to a concurrent policy-engine build.
+ *
+ * The update is applied in the caller's thread, so that the existing contract of setPolicies(), setRoles(),
+ * setServiceTags() and setGdsInfo() - the update is in effect on return - is retained. An update triggered while
+ * applying another update, like tags loaded by tag enricher initialized in a new policy-engine, is applied right away,
+ * as the lock is reentrant.
+ */
+public class RangerEngineUpdater {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerEngineUpdater.class);
+
+    private final String        name;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    public RangerEngineUpdater(String name) {
+        this.name = name;
+    }
+
+    public static void recordPhase(String tag, long startTimeNanos) {
+        long elapsedMicros = (System.nanoTime() - startTimeNanos + 500) / 1000;
+
+        PerfDataRecorder.recordStatistic(tag, elapsedMicros, elapsedMicros);
+    }
+
+    public void execute(String updateName, Runnable update) {
+        LOG.debug("==> RangerEngineUpdater.execute(name={}, update={})", name, updateName);
+
+        long waitStartTime = System.nanoTime();
+
+        updateLock.lock();
+
+        try {
+            recordPhase("RangerEngineUpdater." + updateName + ".wait", waitStartTime);
+
+            long startTime = System.nanoTime();
+
+            update.run();
+
+            recordPhase("RangerEngineUpdater." + updateName, startTime);
+        } finally {
+            updateLock.unlock();
+        }
+
+        LOG.debug("<== RangerEngineUpdater.execute(name={}, update={})", name, updateName);
+    }
+}
@@ -37,6 +37,8 @@
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Connect Worker system and runtime information.
@@ -55,6 +57,8 @@ public class RangerMetricsUtil {
     private static final long                  UP_TIME_OF_JVM                  = RUNTIME.getUptime();
     private static final String                JVM_VENDOR_NAME                 = RUNTIME.getVmVendor();
 
+    private static final Map<String, Supplier<Map<String, Object>>> CACHE_STATS_PROVIDERS = new ConcurrentHashMap<>();
+
     private static int isRoleActive;
 
     public static int getIsRoleActive() {
@@ -65,6 +69,28 @@ public static void setIsRoleActive(int isRoleActive) {
         RangerMetricsUtil.isRoleActive = isRoleActive;
     }
 
+    /**
+     * Register a provider of statistics (like hit/miss/eviction counts) of a cache. A provider registered earlier
+     * with the same name is replaced.
+     */
+    public static void registerCacheStats(String cacheName, Supplier<Map<String, Object>> statsProvider) {
+        CACHE_STATS_PROVIDERS.put(cacheName, statsProvider);
+    }
+
+    public static void unregisterCacheStats(String cacheName) {
+        CACHE_STATS_PROVIDERS.remove(cacheName);
+    }
+
+    public static Map<String, Object> getCacheStats() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : CACHE_STATS_PROVIDERS.entrySet()) {
+            ret.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return ret;
+    }
+
     public Map<String, Object> getValues() {
         LOG.debug("==> RangerMetricsUtil.getValues()");
 
@@ -74,6 +100,10 @@ public Map<String, Object> getValues() {
         values.put("os.vcpus", String.valueOf(OS.getAvailableProcessors()));
         values.put("memory", addMemoryDetails());
 
+        if (!CACHE_STATS_PROVIDERS.isEmpty()) {
+            values.put("caches", getCacheStats());
+        }
+
         LOG.debug("<== RangerMetricsUtil.getValues(): {}", values);
 
         return values;
@@ -51,6 +51,8 @@ public class RangerPluginCapability {
     - Audit-policies
     - User/group/tag attributes in policy
     - additional resources in policy
+    - GDS policies
+    - Change notification (long-poll)
      */
     private final long pluginCapabilities;
 
@@ -92,6 +94,10 @@ public long getPluginCapabilities() {
         return pluginCapabilities;
     }
 
+    public boolean isSupported(RangerPluginFeature feature) {
+        return (pluginCapabilities & (1L << feature.ordinal())) != 0;
+    }
+
     public List<String> compare(RangerPluginCapability other) {
         final List<String> ret;
 
@@ -174,7 +180,8 @@ public enum RangerPluginFeature {
         RANGER_PLUGIN_CAPABILITY_AUDIT_POLICY("Audit Policy"),
         RANGER_PLUGIN_CAPABILITY_UGT_ATTRIBUTES_IN_POLICY("User/group/tag attributes in policy"),
         RANGER_PLUGIN_CAPABILITY_ADDITIONAL_RESOURCES_IN_POLICY("additional resources in policy"),
-        RANGER_PLUGIN_CAPABILITY_GDS_POLICIES("GDS Policies");
+        RANGER_PLUGIN_CAPABILITY_GDS_POLICIES("GDS Policies"),
+        RANGER_PLUGIN_CAPABILITY_CHANGE_NOTIFICATION("Change notification");
 
         private final String name;
 
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Integer ids for names of users, groups and roles referenced in policy items. Principals of a policy item and the
+ * effective principals of a request (user, groups, roles) are represented as sorted arrays of these ids, so that a
+ * policy item is matched with a request by intersection of the arrays - instead of lookups of each name in the lists
+ * of the policy item. Sorted arrays are used instead of bitsets, as the size of a bitset would depend on the number of
+ * principals referenced across all policies, while the size of an array depends only on the number of principals in
+ * the policy item or request.
+ *
+ * An index is created for each policy engine built from all policies, and is shared by policy engines created from it
+ * with deltas - as these share policy item evaluators. Ids are assigned when policy items are initialized and are never
+ * reassigned within an index; ids of principals no longer referenced are reclaimed along with the index, when the policy
+ * engine is next built from all policies. Names not referenced in any policy item don't get an id, as they can't match
+ * any policy item; effective principals computed before an id is assigned are detected as stale using getVersion().
+ */
+public final class RangerPrincipalIndex {
+    private final    Map<String, Integer> userIds  = new ConcurrentHashMap<>();
+    private final    Map<String, Integer> groupIds = new ConcurrentHashMap<>();
+    private final    Map<String, Integer> roleIds  = new ConcurrentHashMap<>();
+    private          int                  nextId;  // guarded by this
+    private volatile int                  version; // updated after ids are added to the maps
+
+    public int getVersion() {
+        return version;
+    }
+
+    public synchronized int[] getPolicyItemPrincipals(Collection<String> users, Collection<String> groups, Collection<String> roles) {
+        int[] ret        = new int[size(users) + size(groups) + size(roles)];
+        int   count      = 0;
+        int   prevNextId = nextId;
+
+        count = addIds(users, userIds, ret, count);
+        count = addIds(groups, groupIds, ret, count);
+        count = addIds(roles, roleIds, ret, count);
+
+        if (nextId != prevNextId) {
+            version++;
+        }
+
+        return toSortedIds(ret, count);
+    }
+
+    public EffectivePrincipals getEffectivePrincipals(String user, Set<String> groups, Set<String> roles) {
+        int   curVersion = version; // read before lookups: ids assigned concurrently make the result stale, but not incorrect
+        int[] ret        = new int[(user != null ? 1 : 0) + size(groups) + size(roles)];
+        int   count      = 0;
+
+        if (user != null) {
+            count = setId(userIds.get(user), ret, count);
+        }
+
+        if (groups != null) {
+            for (String group : groups) {
+                count = setId(groupIds.get(group), ret, count);
+            }
+        }
+
+        if (roles != null) {
+            for (String role : roles) {
+                count = setId(roleIds.get(role), ret, count);
+            }
+        }
+
+        return new EffectivePrincipals(this, user, groups, roles, toSortedIds(ret, count), curVersion);
+    }
+
+    /*
+     * ids1 and ids2 must be sorted, as returned by getPolicyItemPrincipals() and EffectivePrincipals.getPrincipals()
+     */
+    public static boolean intersects(int[] ids1, int[] ids2) {
+        int i = 0;
+        int j = 0;
+
+        while (i < ids1.length && j < ids2.length) {
+            if (ids1[i] == ids2[j]) {
+                return true;
+            } else if (ids1[i] < ids2[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return false;
+    }
+
+    private int addIds(Collection<String> names, Map<String, Integer> ids, int[] principals, int count) {
+        if (names != null) {
+            for (String name : names) {
+                if (name != null) {
+                    Integer id = ids.get(name);
+
+                    if (id == null) {
+                        id = nextId++;
+
+                        ids.put(name, id);
+                    }
+
+                    principals[count++] = id;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static int setId(Integer id, int[] principals, int count) {
+        if (id != null) {
+            principals[count++] = id;
+        }
+
+        return count;
+    }
+
+    private static int size(Collection<String> names) {
+        return names != null ? names.size() : 0;
+    }
+
+    // sorts the first count ids and removes duplicates - like a user listed twice in a policy item
+    private static int[] toSortedIds(int[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+
+        int uniqueCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (uniqueCount == 0 || ids[uniqueCount - 1] != ids[i]) {
+                ids[uniqueCount++] = ids[i];
+            }
+        }
+
+        return uniqueCount == ids.length ? ids : Arrays.copyOf(ids, uniqueCount);
+    }
+
+    /*
+     * sorted ids of a user, groups and roles. Instances are not modified after creation, hence can be shared
+     * by requests for the same user, groups and roles.
+     */
+    public static final class EffectivePrincipals {
+        private final RangerPrincipalIndex index;
+        private final String               user;
+        private final Set<String>          groups;
+        private final Set<String>          roles;
+        private final int[]                principals;
+        private final int                  version;
+
+        EffectivePrincipals(RangerPrincipalIndex index, String user, Set<String> groups, Set<String> roles, int[] principals, int version) {
+            this.index      = index;
+            this.user       = user;
+            this.groups     = groups;
+            this.roles      = roles;
+            this.principals = principals;
+            this.version    = version;
+        }
+
+        public Set<String> getRoles() {
+            return roles;
+        }
+
+        public int[] getPrincipals() {
+            return principals;
+        }
+
+        public RangerPrincipalIndex getIndex() {
+            return index;
+        }
+
+        public boolean isStale() {
+            return version != index.version;
+        }
+
+        /*
+         * groups and roles are compared by reference, to keep the check inexpensive for each policy item evaluated
+         */
+        public boolean isFor(RangerPrincipalIndex index, String user, Set<String> groups, Set<String> roles) {
+            return this.index == index && this.groups == groups && this.roles == roles && Objects.equals(this.user, user) && !isStale();
+        }
+
+        public EffectivePrincipals withGroupsAndRoles(Set<String> groups, Set<String> roles) {
+            return new EffectivePrincipals(index, user, groups, roles, principals, version);
+        }
+
+        @Override
+        public String toString() {
+            return "EffectivePrincipals={user=" + user + ", groups=" + groups + ", roles=" + roles + ", principals=" + Arrays.toString(principals) + ", version=" + version + "}";
+        }
+    }
+}
@@ -27,6 +27,7 @@
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.api.client.filter.ClientFilter;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 import org.apache.commons.lang.StringUtils;
@@ -359,6 +360,10 @@ public ClientResponse get(String relativeUrl, Map<String, String> params) throws
     }
 
     public ClientResponse get(String relativeUrl, Map<String, String> params, Cookie sessionId) throws Exception {
+        return get(relativeUrl, params, sessionId, null);
+    }
+
+    public ClientResponse get(String relativeUrl, Map<String, String> params, Cookie sessionId, Map<String, String> headers) throws Exception {
         ClientResponse finalResponse = null;
         int            startIndex    = this.lastKnownActiveUrlIndex;
         int            retryAttempt  = 0;
@@ -369,6 +374,12 @@ public ClientResponse get(String relativeUrl, Map<String, String> params, Cookie
             try {
                 WebResource.Builder br = createWebResource(currentIndex, relativeUrl, params, sessionId);
 
+                if (headers != null) {
+                    for (Map.Entry<String, String> header : headers.entrySet()) {
+                        br = br.header(header.getKey(), header.getValue());
+                    }
+                }
+
                 finalResponse = br.accept(RangerRESTUtils.REST_EXPECTED_MIME_TYPE).type(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 
                 if (finalResponse != null) {
@@ -721,6 +732,8 @@ private Client buildClient() {
             client = Client.create(config);
         }
 
+        client.addFilter(new GZIPContentEncodingFilter(false)); // accept gzip compressed responses, like policy downloads; requests are not compressed
+
         if (basicAuthFilter != null && !client.isFilterPresent(basicAuthFilter)) {
             client.addFilter(basicAuthFilter);
         }
@@ -70,6 +70,16 @@ public class RangerRESTUtils {
     public static final  String REST_PARAM_ZONE_NAME                              = "zoneName";
     public static final  String REST_PARAM_EXEC_USER                              = "execUser";
     public static final  String REST_PARAM_CAPABILITIES                           = "pluginCapabilities";
+    public static final  String REST_URL_POLICY_WAIT_FOR_CHANGE                   = "/service/plugins/policies/wait/";
+    public static final  String REST_URL_SECURE_POLICY_WAIT_FOR_CHANGE            = "/service/plugins/secure/policies/wait/";
+    public static final  String REST_URL_TAGS_WAIT_FOR_CHANGE                     = "/service/tags/wait/";
+    public static final  String REST_URL_SECURE_TAGS_WAIT_FOR_CHANGE              = "/service/tags/secure/wait/";
+    public static final  String REST_URL_ROLES_WAIT_FOR_CHANGE                    = "/service/roles/wait/";
+    public static final  String REST_URL_SECURE_ROLES_WAIT_FOR_CHANGE             = "/service/roles/secure/wait/";
+    public static final  String REST_URL_USERSTORE_WAIT_FOR_CHANGE                = "/service/xusers/wait/";
+    public static final  String REST_URL_SECURE_USERSTORE_WAIT_FOR_CHANGE         = "/service/xusers/secure/wait/";
+    public static final  String REST_PARAM_WAIT_TIMEOUT_MS                        = "timeoutMs";
+    public static final  String REST_HEADER_ADMIN_CAPABILITIES                    = "X-Ranger-Admin-Capabilities";
     private static final Logger LOG                                               = LoggerFactory.getLogger(RangerRESTUtils.class);
     private static final int    MAX_PLUGIN_ID_LEN                                 = 255;
 
@@ -19,32 +19,57 @@
 
 package org.apache.ranger.plugin.util;
 
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class RangerReadWriteLock {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerReadWriteLock.class);
+
     private static final RangerLock NO_OP_LOCK = new RangerLock(null);
 
     private final ReentrantReadWriteLock lock;
+    private final StripedReadWriteLock   stripedLock;
+    private final RangerLock             readLock;
+    private final RangerLock             writeLock;
 
     public RangerReadWriteLock(boolean isUseLock) {
-        lock = isUseLock ? new ReentrantReadWriteLock(true) : null;
+        this(isUseLock, LockType.FAIR);
     }
 
-    public RangerLock getReadLock() {
-        final RangerLock ret;
-        if (lock != null) {
-            ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
-            readLock.lock();
-            ret = new RangerLock(readLock);
+    public RangerReadWriteLock(boolean isUseLock, LockType lockType) {
+        if (!isUseLock) {
+            lock        = null;
+            stripedLock = null;
+            readLock    = NO_OP_LOCK;
+            writeLock   = NO_OP_LOCK;
+        } else if (lockType == LockType.STRIPED) {
+            lock        = null;
+            stripedLock = new StripedReadWriteLock();
+            readLock    = new RangerLock(stripedLock.readLock());
+            writeLock   = new RangerLock(stripedLock.writeLock());
         } else {
-            ret = NO_OP_LOCK;
+            lock        = new ReentrantReadWriteLock(true);
+            stripedLock = null;
+            readLock    = new RangerLock(new LockAdapter(lock.readLock()));
+            writeLock   = new RangerLock(new LockAdapter(lock.writeLock()));
+        }
+    }
+
+    public RangerLock getReadLock() {
+        if (readLock.lock != null) {
+            readLock.lock.lock();
         }
-        return ret;
+
+        return readLock;
     }
 
     public RangerLock getWriteLock() {
-        final RangerLock ret;
         if (lock != null) {
             boolean                          isLocked  = false;
             ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
@@ -55,26 +80,56 @@ public RangerLock getWriteLock() {
                     Thread.yield();
                 }
             }
-            ret = new RangerLock(writeLock);
-        } else {
-            ret = NO_OP_LOCK;
+        } else if (writeLock.lock != null) {
+            writeLock.lock.lock();
         }
-        return ret;
+
+        return writeLock;
     }
 
     @Override
     public String toString() {
         if (lock != null) {
             return "ReadWriteLock:[" + lock + "], ReadLock:[" + lock.readLock() + "], WriteLock:[" + lock.writeLock() + "]";
+        } else if (stripedLock != null) {
+            return "ReadWriteLock:[" + stripedLock + "]";
         } else {
             return "ReadWriteLock:[null]";
         }
     }
 
+    public enum LockType {
+        FAIR, STRIPED;
+
+        public static LockType fromString(String value, LockType defaultValue) {
+            LockType ret = defaultValue;
+
+            if (StringUtils.isNotBlank(value)) {
+                try {
+                    ret = LockType.valueOf(value.trim().toUpperCase());
+                } catch (IllegalArgumentException excp) {
+                    LOG.warn("Invalid lock type: {}. Using {}", value, defaultValue);
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    /*
+     * operations RangerLock needs from the underlying lock. StripedReadWriteLock supports only these - hence doesn't
+     * implement java.util.concurrent.locks.Lock
+     */
+    interface BasicLock {
+        void lock();
+
+        void unlock();
+    }
+
     public static final class RangerLock implements AutoCloseable {
-        private final Lock lock;
+        private final BasicLock lock;
 
-        private RangerLock(Lock lock) {
+        private RangerLock(BasicLock lock) {
             this.lock = lock;
         }
 
@@ -94,4 +149,155 @@ public String toString() {
             return lock == null ? "null" : lock.toString();
         }
     }
+
+    /*
+     * Read-biased lock: a reader only updates a counter in the stripe selected by its thread-id, hence readers running on
+     * different cores don't contend on a shared cache-line. A writer announces itself via a volatile flag and waits for
+     * counters in all stripes to drain; readers arriving while a writer is active back-off and wait for the writer.
+     *
+     * Read lock is reentrant, and can be acquired by the thread holding the write lock - like ReentrantReadWriteLock.
+     */
+    static final class StripedReadWriteLock {
+        private static final int STRIPE_SIZE = 16; // 16 longs = 128 bytes, to keep each stripe counter in its own cache-line
+
+        private final AtomicLongArray    readerCounts;
+        private final int                stripeMask;
+        private final ReentrantLock      writerMutex = new ReentrantLock();
+        private final ThreadLocal<int[]> readHolds   = ThreadLocal.withInitial(() -> new int[1]);
+        private final BasicLock          readLock    = new ReadLock();
+        private final BasicLock          writeLock   = new WriteLock();
+        private volatile boolean         isWriterActive;
+
+        StripedReadWriteLock() {
+            int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+
+            this.stripeMask   = stripeCount - 1;
+            this.readerCounts = new AtomicLongArray(stripeCount * STRIPE_SIZE);
+        }
+
+        BasicLock readLock() {
+            return readLock;
+        }
+
+        BasicLock writeLock() {
+            return writeLock;
+        }
+
+        @Override
+        public String toString() {
+            return "StripedReadWriteLock={stripes=" + (stripeMask + 1) + ", readers=" + getReaderCount() + ", isWriterActive=" + isWriterActive + "}";
+        }
+
+        private int getStripeIndex() {
+            return ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_SIZE;
+        }
+
+        private long getReaderCount() {
+            long ret = 0;
+
+            for (int i = 0; i <= stripeMask; i++) {
+                ret += readerCounts.get(i * STRIPE_SIZE);
+            }
+
+            return ret;
+        }
+
+        private final class ReadLock implements BasicLock {
+            @Override
+            public void lock() {
+                int[] holds = readHolds.get();
+                int   index = getStripeIndex();
+
+                if (holds[0] > 0 || writerMutex.isHeldByCurrentThread()) { // reentrant read, or read by the writer
+                    readerCounts.incrementAndGet(index);
+                } else {
+                    while (true) {
+                        readerCounts.incrementAndGet(index);
+
+                        if (!isWriterActive) {
+                            break;
+                        }
+
+                        readerCounts.decrementAndGet(index);
+
+                        // wait for the active writer to complete
+                        writerMutex.lock();
+                        writerMutex.unlock();
+                    }
+                }
+
+                holds[0]++;
+            }
+
+            @Override
+            public void unlock() {
+                readHolds.get()[0]--;
+
+                readerCounts.decrementAndGet(getStripeIndex());
+            }
+
+            @Override
+            public String toString() {
+                return "StripedReadLock={readers=" + getReaderCount() + "}";
+            }
+        }
+
+        private final class WriteLock implements BasicLock {
+            @Override
+            public void lock() {
+                if (writerMutex.isHeldByCurrentThread()) { // reentrant write
+                    writerMutex.lock();
+
+                    return;
+                }
+
+                writerMutex.lock();
+
+                isWriterActive = true;
+
+                long readersHeldByThisThread = readHolds.get()[0];
+
+                while (getReaderCount() > readersHeldByThisThread) {
+                    Thread.yield();
+                }
+            }
+
+            @Override
+            public void unlock() {
+                if (writerMutex.getHoldCount() == 1) {
+                    isWriterActive = false;
+                }
+
+                writerMutex.unlock();
+            }
+
+            @Override
+            public String toString() {
+                return "StripedWriteLock={isWriterActive=" + isWriterActive + ", writerMutex=" + writerMutex + "}";
+            }
+        }
+    }
+
+    private static final class LockAdapter implements BasicLock {
+        private final Lock lock;
+
+        LockAdapter(Lock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void lock() {
+            lock.lock();
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+
+        @Override
+        public String toString() {
+            return lock.toString();
+        }
+    }
 }
@@ -30,7 +30,10 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class RangerResourceEvaluatorsRetriever {
@@ -45,7 +48,64 @@ public static <T extends RangerResourceEvaluator> Collection<T> getEvaluators(Ma
     }
 
     public static <T extends RangerResourceEvaluator> Collection<T> getEvaluators(Map<String, RangerResourceTrie<T>> resourceTrie, Map<String, ?> resource, Map<String, ResourceElementMatchingScope> scopes) {
-        return getEvaluators(resourceTrie, resource, scopes, null);
+        return getEvaluators(resourceTrie, resource, scopes, (Predicate) null);
+    }
+
+    /*
+     * lookupCache: evaluators retrieved from each trie are saved in the cache and reused for subsequent calls with the
+     * same resource value - for example, database and table values in requests for many columns of a table
+     */
+    public static <T extends RangerResourceEvaluator> Collection<T> getEvaluators(Map<String, RangerResourceTrie<T>> resourceTrie, Map<String, ?> resource, Map<String, ResourceElementMatchingScope> scopes, TrieLookupCache lookupCache) {
+        final Collection<T> ret;
+
+        if (lookupCache == null) {
+            ret = getEvaluators(resourceTrie, resource, scopes, (Predicate) null);
+        } else {
+            LOG.debug("==> RangerPolicyResourceEvaluatorsRetriever.getEvaluators({}, lookupCache={})", resource, lookupCache);
+
+            if (scopes == null) {
+                scopes = Collections.emptyMap();
+            }
+
+            Set<T> evaluators = null;
+
+            if (MapUtils.isNotEmpty(resourceTrie) && MapUtils.isNotEmpty(resource)) {
+                Set<T>[] lookupResults = null;
+                int      resultCount   = 0;
+
+                for (Map.Entry<String, ?> entry : resource.entrySet()) {
+                    RangerResourceTrie<T> trie = resourceTrie.get(entry.getKey());
+
+                    if (trie == null) {
+                        continue;
+                    }
+
+                    Set<T> lookupResult = lookupCache.getEvaluators(trie, entry.getValue(), scopes.get(entry.getKey()));
+
+                    if (CollectionUtils.isEmpty(lookupResult)) {
+                        evaluators = Collections.emptySet();
+
+                        break;
+                    }
+
+                    if (lookupResults == null) {
+                        lookupResults = newSetArray(resource.size());
+                    }
+
+                    lookupResults[resultCount++] = lookupResult;
+                }
+
+                if (evaluators == null && resultCount > 0) {
+                    evaluators = intersect(lookupResults, resultCount);
+                }
+            }
+
+            ret = evaluators;
+
+            LOG.debug("<== RangerResourceEvaluatorsRetriever.getEvaluators({}, lookupCache={}) : evaluator:[{}]", resource, lookupCache, ret);
+        }
+
+        return ret;
     }
 
     public static <T extends RangerResourceEvaluator> Collection<T> getEvaluators(Map<String, RangerResourceTrie<T>> resourceTrie, Map<String, ?> resource, Map<String, ResourceElementMatchingScope> scopes, Predicate predicate) {
@@ -129,4 +189,125 @@ public static <T extends RangerResourceEvaluator> Collection<T> getEvaluators(Ma
 
         return ret;
     }
+
+    // sets returned by tries and saved in the cache must not be updated; hence a new set is created when necessary
+    private static <T> Set<T> intersect(Set<T>[] sets, int count) {
+        Set<T> smallest = sets[0];
+
+        for (int i = 1; i < count; i++) {
+            if (sets[i].size() < smallest.size()) {
+                smallest = sets[i];
+            }
+        }
+
+        Set<T> ret = smallest;
+
+        for (int i = 0; i < count && !ret.isEmpty(); i++) {
+            Set<T> other = sets[i];
+
+            if (other == smallest) {
+                continue;
+            }
+
+            if (!other.containsAll(ret)) {
+                Set<T> common = new HashSet<>();
+
+                for (T evaluator : ret) {
+                    if (other.contains(evaluator)) {
+                        common.add(evaluator);
+                    }
+                }
+
+                ret = common;
+            }
+        }
+
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T>[] newSetArray(int size) {
+        return (Set<T>[]) new Set<?>[size];
+    }
+
+    /*
+     * Caches evaluators retrieved from tries, for use while evaluating a batch of requests, like requests for columns
+     * of a table. Not thread-safe: should be used by only one thread at a time.
+     */
+    public static class TrieLookupCache {
+        private final Map<LookupKey, Set<?>> cache = new HashMap<>();
+        private       int                    lookupCount;
+        private       int                    hitCount;
+
+        @SuppressWarnings("unchecked")
+        public <T extends RangerResourceEvaluator> Set<T> getEvaluators(RangerResourceTrie<T> trie, Object resourceValue, ResourceElementMatchingScope scope) {
+            LookupKey key = new LookupKey(trie, resourceValue, scope);
+            Set<T>    ret = (Set<T>) cache.get(key);
+
+            lookupCount++;
+
+            if (ret == null) {
+                ret = trie.getEvaluatorsForResource(resourceValue, scope);
+
+                if (ret == null) {
+                    ret = Collections.emptySet();
+                }
+
+                cache.put(key, ret);
+            } else {
+                hitCount++;
+            }
+
+            return ret;
+        }
+
+        public int getLookupCount() {
+            return lookupCount;
+        }
+
+        public int getHitCount() {
+            return hitCount;
+        }
+
+        @Override
+        public String toString() {
+            return "TrieLookupCache={size=" + cache.size() + ", lookupCount=" + lookupCount + ", hitCount=" + hitCount + "}";
+        }
+
+        private static final class LookupKey {
+            private final RangerResourceTrie<?>        trie;
+            private final Object                       resourceValue;
+            private final ResourceElementMatchingScope scope;
+            private final int                          hashCode;
+
+            LookupKey(RangerResourceTrie<?> trie, Object resourceValue, ResourceElementMatchingScope scope) {
+                this.trie          = trie;
+                this.resourceValue = resourceValue;
+                this.scope         = scope;
+                this.hashCode      = Objects.hash(System.identityHashCode(trie), resourceValue, scope);
+            }
+
+            @Override
+            public int hashCode() {
+                return hashCode;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                final boolean ret;
+
+                if (this == obj) {
+                    ret = true;
+                } else if (obj instanceof LookupKey) {
+                    LookupKey other = (LookupKey) obj;
+
+                    ret = trie == other.trie && scope == other.scope && Objects.equals(resourceValue, other.resourceValue);
+                } else {
+                    ret = false;
+                }
+
+                return ret;
+            }
+        }
+    }
 }
@@ -28,10 +28,6 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.Date;
 import java.util.HashSet;
 
@@ -46,6 +42,7 @@ public class RangerRolesProvider {
     private final String            cacheFileNamePrefix;
     private final String            cacheDir;
     private final boolean           disableCacheIfServiceNotFound;
+    private final boolean           isBinaryCacheFormat;
     private       long              lastActivationTimeInMillis;
     private       long              lastKnownRoleVersion = -1L;
     private       boolean           rangerUserGroupRolesSetInPlugin;
@@ -75,6 +72,7 @@ public RangerRolesProvider(String serviceType, String appId, String serviceName,
         String propertyPrefix = config.getPropertyPrefix();
 
         disableCacheIfServiceNotFound = config.getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+        isBinaryCacheFormat           = RangerCacheFileUtil.isBinaryFormat(config);
 
         LOG.debug("<== RangerRolesProvider(serviceName={}).RangerRolesProvider()", serviceName);
     }
@@ -87,6 +85,10 @@ public void setLastActivationTimeInMillis(long lastActivationTimeInMillis) {
         this.lastActivationTimeInMillis = lastActivationTimeInMillis;
     }
 
+    public long getLastKnownRoleVersion() {
+        return lastKnownRoleVersion;
+    }
+
     public void loadUserGroupRoles(RangerBasePlugin plugIn) {
         LOG.debug("==> RangerRolesProvider(serviceName= {} serviceType= {}).loadUserGroupRoles()", serviceName, serviceType);
 
@@ -183,22 +185,10 @@ public void saveToCache(RangerRoles roles) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.saveToCache(serviceName=" + serviceName + ")");
                 }
 
-                Writer writer = null;
-
                 try {
-                    writer = new FileWriter(cacheFile);
-
-                    JsonUtils.objectToWriter(writer, roles);
+                    RangerCacheFileUtil.write(cacheFile, JsonUtils.getMapper(), roles, isBinaryCacheFormat);
                 } catch (Exception excp) {
                     LOG.error("failed to save roles to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                        }
-                    }
                 }
 
                 RangerPerfTracer.log(perf);
@@ -259,17 +249,15 @@ private RangerRoles loadUserGroupRolesFromCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-            Reader           reader = null;
-            RangerPerfTracer perf   = null;
+        if (cacheFile != null && RangerCacheFileUtil.exists(cacheFile)) {
+            RangerPerfTracer perf = null;
 
             if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
                 perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.loadUserGroupRolesFromCache(serviceName=" + serviceName + ")");
             }
 
             try {
-                reader = new FileReader(cacheFile);
-                roles  = JsonUtils.jsonToObject(reader, RangerRoles.class);
+                roles = RangerCacheFileUtil.read(cacheFile, JsonUtils.getMapper(), RangerRoles.class);
 
                 if (roles != null) {
                     if (!StringUtils.equals(serviceName, roles.getServiceName())) {
@@ -284,14 +272,6 @@ private RangerRoles loadUserGroupRolesFromCache() {
                 LOG.error("failed to load userGroupRoles from cache file {}", cacheFile.getAbsolutePath(), excp);
             } finally {
                 RangerPerfTracer.log(perf);
-
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (Exception excp) {
-                        LOG.error("error while closing opened cache file {}", cacheFile.getAbsolutePath(), excp);
-                    }
-                }
             }
         } else {
             roles = new RangerRoles();
@@ -314,6 +294,10 @@ private void disableCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
+        if (cacheFile != null) {
+            RangerCacheFileUtil.deleteSnapshot(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local RangerRoles cache");
 
@@ -46,8 +46,14 @@ public RangerRolesUtil(RangerRoles roles) {
             roleVersion = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
 
             if (CollectionUtils.isNotEmpty(roles.getRangerRoles())) {
+                Map<String, RangerRole> rolesByName = new HashMap<>();
+
+                for (RangerRole role : roles.getRangerRoles()) {
+                    rolesByName.putIfAbsent(role.getName(), role);
+                }
+
                 for (RangerRole role : roles.getRangerRoles()) {
-                    Set<RangerRole> containedRoles = getAllContainedRoles(roles.getRangerRoles(), role);
+                    Set<RangerRole> containedRoles = getAllContainedRoles(rolesByName, role);
 
                     buildMap(userRoleMapping, role, containedRoles, ROLES_FOR.USER);
                     buildMap(groupRoleMapping, role, containedRoles, ROLES_FOR.GROUP);
@@ -101,7 +107,7 @@ public Map<String, Set<String>> getRoleToGroupMapping() {
         return this.roleToGroupMapping;
     }
 
-    private Set<RangerRole> getAllContainedRoles(Set<RangerRole> roles, RangerRole role) {
+    private Set<RangerRole> getAllContainedRoles(Map<String, RangerRole> roles, RangerRole role) {
         Set<RangerRole> allRoles = new HashSet<>();
 
         allRoles.add(role);
@@ -110,11 +116,11 @@ private Set<RangerRole> getAllContainedRoles(Set<RangerRole> roles, RangerRole r
         return allRoles;
     }
 
-    private void addContainedRoles(Set<RangerRole> allRoles, Set<RangerRole> roles, RangerRole role) {
+    private void addContainedRoles(Set<RangerRole> allRoles, Map<String, RangerRole> roles, RangerRole role) {
         List<RangerRole.RoleMember> roleMembers = role.getRoles();
 
         for (RangerRole.RoleMember roleMember : roleMembers) {
-            RangerRole containedRole = getContainedRole(roles, roleMember.getName());
+            RangerRole containedRole = roles.get(roleMember.getName());
 
             if (containedRole != null && !allRoles.contains(containedRole)) {
                 allRoles.add(containedRole);
@@ -160,10 +166,6 @@ private void getRoleMap(Map<String, Set<String>> map, String roleName, List<Rang
         }
     }
 
-    private RangerRole getContainedRole(Set<RangerRole> roles, String role) {
-        return (roles.stream().filter(containedRole -> role.equals(containedRole.getName())).findAny().orElse(null));
-    }
-
     private void addMemberNames(List<RangerRole.RoleMember> members, Set<String> names) {
         for (RangerRole.RoleMember member : members) {
             names.add(member.getName());
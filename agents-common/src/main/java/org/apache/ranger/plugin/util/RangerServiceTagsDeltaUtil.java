@@ -30,10 +30,14 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -264,6 +268,193 @@ public static ServiceTags applyDelta(ServiceTags serviceTags, ServiceTags delta,
         return ret;
     }
 
+    /*
+    Computes the delta that updates oldServiceTags to newServiceTags, in the format applied by applyDelta(). Tags in the
+    delta are not deduped, as tags deduped in oldServiceTags and newServiceTags are identified by their ids in both.
+    Returns null if either of given serviceTags is a delta.
+     */
+    public static ServiceTags computeDelta(ServiceTags oldServiceTags, ServiceTags newServiceTags) {
+        LOG.debug("==> RangerServiceTagsDeltaUtil.computeDelta(oldTagVersion={}, newTagVersion={})", oldServiceTags != null ? oldServiceTags.getTagVersion() : null, newServiceTags != null ? newServiceTags.getTagVersion() : null);
+
+        ServiceTags      ret  = null;
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_TAGS_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_TAGS_DELTA_LOG, "RangerServiceTagsDeltaUtil.computeDelta()");
+        }
+
+        if (oldServiceTags != null && !oldServiceTags.getIsDelta() && newServiceTags != null && !newServiceTags.getIsDelta()) {
+            boolean isTagsChanged     = false;
+            boolean isResourceChanged = false;
+
+            ret = new ServiceTags();
+
+            ret.setServiceName(newServiceTags.getServiceName());
+            ret.setTagVersion(newServiceTags.getTagVersion());
+            ret.setTagUpdateTime(newServiceTags.getTagUpdateTime());
+            ret.setIsDelta(true);
+            ret.setIsTagsDeduped(false);
+
+            for (Map.Entry<Long, RangerTagDef> entry : newServiceTags.getTagDefinitions().entrySet()) {
+                if (!Objects.equals(entry.getValue(), oldServiceTags.getTagDefinitions().get(entry.getKey()))) {
+                    ret.getTagDefinitions().put(entry.getKey(), entry.getValue());
+
+                    isTagsChanged = true;
+                }
+            }
+
+            for (Map.Entry<Long, RangerTag> entry : newServiceTags.getTags().entrySet()) {
+                if (!Objects.equals(entry.getValue(), oldServiceTags.getTags().get(entry.getKey()))) {
+                    ret.getTags().put(entry.getKey(), entry.getValue());
+
+                    isTagsChanged = true;
+                }
+            }
+
+            for (Long tagId : oldServiceTags.getTags().keySet()) {
+                if (!newServiceTags.getTags().containsKey(tagId)) {
+                    RangerTag removedTag = new RangerTag(); // tag with empty type is removed by applyDelta()
+
+                    removedTag.setId(tagId);
+                    removedTag.setOwner(null);
+
+                    ret.getTags().put(tagId, removedTag);
+
+                    isTagsChanged = true;
+                }
+            }
+
+            Map<Long, RangerServiceResource> oldResources     = oldServiceTags.getServiceResources().stream().collect(Collectors.toMap(RangerServiceResource::getId, Function.identity(), (r1, r2) -> r2));
+            Map<Long, List<Long>>            oldResourceToTag = oldServiceTags.getResourceToTagIds();
+            Map<Long, List<Long>>            newResourceToTag = newServiceTags.getResourceToTagIds();
+            List<RangerServiceResource>      removed          = new ArrayList<>();
+            List<RangerServiceResource>      added            = new ArrayList<>();
+
+            for (RangerServiceResource resource : newServiceTags.getServiceResources()) {
+                RangerServiceResource oldResource = oldResources.remove(resource.getId());
+                boolean               isAdded     = false;
+
+                if (oldResource == null) {
+                    added.add(resource);
+
+                    isAdded = true;
+                } else if (!StringUtils.equals(resource.getResourceSignature(), oldResource.getResourceSignature())) {
+                    removed.add(copyServiceResource(oldResource, null));
+                    added.add(resource);
+
+                    isAdded = true;
+                }
+
+                List<Long> tagIds = newResourceToTag.get(resource.getId());
+
+                // tag-ids of a removed service-resource are removed by applyDelta(), hence are included for added service-resources
+                if (isAdded ? tagIds != null : !Objects.equals(tagIds, oldResourceToTag.get(resource.getId()))) {
+                    ret.getResourceToTagIds().put(resource.getId(), tagIds != null ? new ArrayList<>(tagIds) : new ArrayList<>());
+
+                    isResourceChanged = true;
+                }
+            }
+
+            for (RangerServiceResource oldResource : oldResources.values()) {
+                removed.add(copyServiceResource(oldResource, null));
+            }
+
+            // as in deltas applied by applyDelta(), removed service-resources are at the head of the list
+            ret.getServiceResources().addAll(removed);
+            ret.getServiceResources().addAll(added);
+
+            if (isResourceChanged || !ret.getServiceResources().isEmpty()) {
+                ret.setTagsChangeExtent(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE);
+            } else if (isTagsChanged) {
+                ret.setTagsChangeExtent(ServiceTags.TagsChangeExtent.TAGS);
+            } else {
+                ret.setTagsChangeExtent(ServiceTags.TagsChangeExtent.NONE);
+            }
+
+            LOG.debug("RangerServiceTagsDeltaUtil.computeDelta(): tagDefs={}, tags={}, resources(removed={}, added={}), resourceToTagIds={}", ret.getTagDefinitions().size(), ret.getTags().size(), removed.size(), added.size(), ret.getResourceToTagIds().size());
+        }
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerServiceTagsDeltaUtil.computeDelta(oldTagVersion={}, newTagVersion={}): ret={}", oldServiceTags != null ? oldServiceTags.getTagVersion() : null, newServiceTags != null ? newServiceTags.getTagVersion() : null, ret);
+
+        return ret;
+    }
+
+    /*
+    Merges consecutive deltas - each to be applied on top of the previous one - into a single delta, which takes a
+    serviceTags from the version preceding the first delta to the version of the last delta.
+     */
+    public static ServiceTags mergeDeltas(List<ServiceTags> deltas) {
+        LOG.debug("==> RangerServiceTagsDeltaUtil.mergeDeltas(count={})", deltas != null ? deltas.size() : 0);
+
+        ServiceTags ret = null;
+
+        if (deltas != null && !deltas.isEmpty()) {
+            ServiceTags                      last             = deltas.get(deltas.size() - 1);
+            ServiceTags.TagsChangeExtent     tagsChangeExtent = ServiceTags.TagsChangeExtent.NONE;
+            boolean                          isTagsDeduped    = true;
+            Map<Long, RangerServiceResource> removed          = new LinkedHashMap<>(); // resource as known before the first delta
+            Map<Long, RangerServiceResource> latest           = new LinkedHashMap<>(); // resource as of the last delta
+            Set<Long>                        seenResourceIds  = new HashSet<>();
+
+            ret = new ServiceTags();
+
+            ret.setServiceName(last.getServiceName());
+            ret.setTagVersion(last.getTagVersion());
+            ret.setTagUpdateTime(last.getTagUpdateTime());
+            ret.setIsDelta(true);
+
+            for (ServiceTags delta : deltas) {
+                ret.getTagDefinitions().putAll(delta.getTagDefinitions());
+                ret.getTags().putAll(delta.getTags());
+                ret.getResourceToTagIds().putAll(delta.getResourceToTagIds());
+
+                for (RangerServiceResource resource : delta.getServiceResources()) {
+                    if (seenResourceIds.add(resource.getId()) && StringUtils.isEmpty(resource.getResourceSignature())) {
+                        removed.put(resource.getId(), resource);
+                    }
+
+                    latest.put(resource.getId(), resource);
+                }
+
+                if (delta.getTagsChangeExtent() != null && delta.getTagsChangeExtent().ordinal() > tagsChangeExtent.ordinal()) {
+                    tagsChangeExtent = delta.getTagsChangeExtent();
+                }
+
+                isTagsDeduped = isTagsDeduped && Boolean.TRUE.equals(delta.getIsTagsDeduped());
+            }
+
+            ret.getServiceResources().addAll(removed.values());
+
+            for (RangerServiceResource resource : latest.values()) {
+                if (StringUtils.isNotEmpty(resource.getResourceSignature())) {
+                    ret.getServiceResources().add(resource);
+                } else {
+                    ret.getResourceToTagIds().remove(resource.getId());
+                }
+            }
+
+            ret.setTagsChangeExtent(tagsChangeExtent);
+            ret.setIsTagsDeduped(isTagsDeduped);
+        }
+
+        LOG.debug("<== RangerServiceTagsDeltaUtil.mergeDeltas(count={}): ret={}", deltas != null ? deltas.size() : 0, ret);
+
+        return ret;
+    }
+
+    /*
+    Returns a copy of given service-resource, with given resource-signature; empty resource-signature marks removed service-resources in deltas
+     */
+    public static RangerServiceResource copyServiceResource(RangerServiceResource resource, String resourceSignature) {
+        RangerServiceResource ret = new RangerServiceResource(resource.getGuid(), resource.getServiceName(), resource.getResourceElements(), resourceSignature, resource.getOwnerUser(), resource.getAdditionalInfo());
+
+        ret.setId(resource.getId());
+
+        return ret;
+    }
+
     public static void pruneUnusedAttributes(ServiceTags serviceTags) {
         if (serviceTags != null) {
             serviceTags.setTagUpdateTime(null);
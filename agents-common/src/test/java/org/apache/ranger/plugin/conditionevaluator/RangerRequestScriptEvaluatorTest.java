@@ -21,12 +21,16 @@
 
 import org.apache.ranger.authorization.utils.TestStringUtil;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerTag;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
+import org.apache.ranger.plugin.policyengine.RangerScriptExpression;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.CachedScriptEngine;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ScriptEngineUtil;
@@ -43,6 +47,7 @@
 import java.util.Map;
 import java.util.Set;
 
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_NATIVE_EVAL;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -464,6 +469,117 @@ public void testIsTimeMacros() {
         Assert.assertTrue("test: IS_ACCESS_TIME_BETWEEN('2010/01/01 15:00:42', '2100/01/01 15:00:42', 'GMT')", (Boolean) evaluator.evaluateScript("IS_ACCESS_TIME_BETWEEN('2010/01/01 15:00:42', '2100/01/01 15:00:42', 'GMT')"));
     }
 
+    @Test
+    public void testCachedScriptEngine() {
+        CachedScriptEngine cachedScriptEngine = new CachedScriptEngine(scriptEngine, 10, 2);
+        String             script             = "USER.state == 'CA' && ctx.getUser() == 'test-user'";
+
+        for (int i = 0; i < 3; i++) {
+            RangerAccessRequest request1 = createRequest("test-user", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+            RangerAccessRequest request2 = createRequest("test-user2", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+
+            try (RangerRequestScriptEvaluator evaluator1 = new RangerRequestScriptEvaluator(request1, cachedScriptEngine, true);
+                    RangerRequestScriptEvaluator evaluator2 = new RangerRequestScriptEvaluator(request2, cachedScriptEngine, true)) {
+                // evaluators are active at the same time, hence must be using different bindings
+                Assert.assertTrue("test: " + script, (Boolean) evaluator1.evaluateConditionScript(script));
+                Assert.assertFalse("test: " + script, (Boolean) evaluator2.evaluateConditionScript(script));
+                Assert.assertTrue("test: " + script, evaluator1.getResult());
+            }
+
+            Assert.assertEquals("bindings must be returned to the pool", 2, cachedScriptEngine.getPooledBindingsCount());
+        }
+
+        Assert.assertEquals("script and pre-exec script must be compiled once", 2, cachedScriptEngine.getCompiledScriptCount());
+    }
+
+    @Test
+    public void testCachedScriptEngineResetsBindings() {
+        CachedScriptEngine  cachedScriptEngine = new CachedScriptEngine(scriptEngine, 10, 1);
+        RangerAccessRequest request1           = createRequest("test-user", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+        RangerAccessRequest request2           = createRequest("test-user2", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+
+        try (RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request1, cachedScriptEngine, true)) {
+            Assert.assertTrue((Boolean) evaluator.evaluateConditionScript("leakedState = USER.state; leakedState == 'CA'"));
+        }
+
+        Assert.assertEquals("bindings must be returned to the pool", 1, cachedScriptEngine.getPooledBindingsCount());
+
+        try (RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request2, cachedScriptEngine, true)) {
+            // bindings used for request1 are reused, but must not have variables set for request1
+            Assert.assertTrue("global set by an earlier script must not be visible", (Boolean) evaluator.evaluateConditionScript("typeof leakedState === 'undefined'"));
+            Assert.assertTrue("variables must be set for the current request", (Boolean) evaluator.evaluateConditionScript("USER._name == 'test-user2' && ctx.getUser() == 'test-user2'"));
+        }
+
+        Assert.assertEquals("bindings must be returned to the pool", 1, cachedScriptEngine.getPooledBindingsCount());
+    }
+
+    @Test
+    public void testNativeScriptExpression() {
+        RangerTag           tagPII   = new RangerTag("PII", TestStringUtil.mapFromStrings("attr1", "PII_value", "level", "5"));
+        RangerAccessRequest request  = createRequest("test-user", new HashSet<>(Arrays.asList("test-group1", "test-group2")), Collections.singleton("test-role1"), Collections.singletonList(tagPII));
+        RangerAccessRequest request2 = createRequest("test-user2", Collections.emptySet(), Collections.emptySet(), null);
+        String[]            scripts  = {
+                "USER.state == 'CA'", "USER['state'] === 'CA'", "USER.state != 'CA'", "USER.state > 'B'", "USER.dept == 'ENGG'", "USER.dept == null", "USER.dept === null", "USER._name == 'test-user'",
+                "TAG.attr1 == 'PII_value'", "TAG._type == 'PII'", "TAG._matchType == 'SELF'", "TAG.level > 3", "TAG.level >= '10'", "TAG.level == 5", "TAG.level === 5", "TAG.level < 5.5", "TAG.missing > 1", "TAG.missing <= 1",
+                "HAS_TAG('PII') && IS_IN_GROUP('test-group1')", "HAS_TAG('PCI') || IS_IN_ROLE('test-role1')", "HAS_ANY_TAG", "HAS_NO_TAG", "IS_IN_ANY_GROUP", "IS_IN_ANY_ROLE", "IS_NOT_IN_ANY_GROUP", "IS_NOT_IN_ANY_ROLE",
+                "!HAS_USER_ATTR('state')", "HAS_UG_ATTR('dept')", "HAS_TAG_ATTR('attr1')", "(USER.state == 'CA' || USER.state == 'NY') && !HAS_TAG(\"PCI\");",
+                "USER.state", "USER.state && true", "USER.dept || false", "1", "-1 < 0", "'abc'", "true == 1", "'' == 0", "null == false"
+        };
+
+        for (String script : scripts) {
+            RangerScriptExpression expression = RangerScriptExpression.compile(script);
+
+            Assert.assertNotNull("test: compile " + script, expression);
+
+            for (RangerAccessRequest req : Arrays.asList(request, request2)) {
+                RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(req, scriptEngine);
+
+                evaluator.evaluateConditionScript(script);
+
+                Assert.assertEquals("test: " + script + ", user=" + req.getUser(), evaluator.getResult(), expression.isMatched(req));
+            }
+        }
+
+        // scripts not supported by RangerScriptExpression, to be evaluated by the script engine
+        String[] unsupportedScripts = {
+                "USER.state.length > 1", "ctx.getUser() == 'test-user'", "UGNAMES.includes('test-group1')", "USER.state = 'CA'", "USER.toString == null", "USER.dept == undefined",
+                "[[TAG.value]].intersects([[USER.dept]])", "IS_ACCESS_TIME_AFTER('2020/01/01')", "HAS_TAG(TAG._type)", "HAS_ANY_TAG()", "USER.state == 'CA'; USER.state", "0x10 == 16"
+        };
+
+        for (String script : unsupportedScripts) {
+            Assert.assertNull("test: compile " + script, RangerScriptExpression.compile(script));
+        }
+    }
+
+    @Test
+    public void testScriptConditionEvaluatorWithNativeEval() {
+        for (String enableNativeEval : Arrays.asList("true", "false")) {
+            RangerScriptConditionEvaluator conditionEvaluator = createScriptConditionEvaluator("USER.state == 'CA' && IS_IN_GROUP('test-group1')", enableNativeEval);
+
+            Assert.assertTrue("test: enableNativeEval=" + enableNativeEval, conditionEvaluator.isMatched(createRequest("test-user", Collections.singleton("test-group1"), Collections.emptySet(), null)));
+            Assert.assertFalse("test: enableNativeEval=" + enableNativeEval, conditionEvaluator.isMatched(createRequest("test-user", Collections.singleton("test-group2"), Collections.emptySet(), null)));
+            Assert.assertFalse("test: enableNativeEval=" + enableNativeEval, conditionEvaluator.isMatched(createRequest("test-user2", Collections.singleton("test-group1"), Collections.emptySet(), null)));
+        }
+    }
+
+    RangerScriptConditionEvaluator createScriptConditionEvaluator(String script, String enableNativeEval) {
+        RangerServiceDef                          serviceDef   = new RangerServiceDef();
+        RangerServiceDef.RangerPolicyConditionDef conditionDef = new RangerServiceDef.RangerPolicyConditionDef();
+        RangerPolicy.RangerPolicyItemCondition    condition    = new RangerPolicy.RangerPolicyItemCondition("expression", Collections.singletonList(script));
+        RangerScriptConditionEvaluator            ret          = new RangerScriptConditionEvaluator();
+
+        serviceDef.setName("test");
+        conditionDef.setName("expression");
+        conditionDef.setEvaluatorOptions(Collections.singletonMap(SCRIPT_OPTION_ENABLE_NATIVE_EVAL, enableNativeEval));
+
+        ret.setServiceDef(serviceDef);
+        ret.setConditionDef(conditionDef);
+        ret.setPolicyItemCondition(condition);
+        ret.init();
+
+        return ret;
+    }
+
     RangerAccessRequest createRequest(String userName, Set<String> userGroups, Set<String> userRoles, List<RangerTag> resourceTags) {
         RangerAccessResource resource = mock(RangerAccessResource.class);
 
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentCacheMap {
+    @Test
+    public void testGetPut() {
+        ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(16);
+
+        assertNull(cache.get("key1"));
+
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        assertEquals("value1", cache.get("key1"));
+        assertEquals("value2", cache.get("key2"));
+        assertEquals(2, cache.size());
+
+        cache.put("key1", "value1-updated");
+
+        assertEquals("value1-updated", cache.get("key1"));
+        assertEquals(2, cache.size());
+
+        assertEquals("value2", cache.remove("key2"));
+        assertNull(cache.get("key2"));
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        final int                           maxSize = 16;
+        ConcurrentCacheMap<Integer, String> cache   = new ConcurrentCacheMap<>(maxSize);
+
+        for (int i = 0; i < maxSize; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+
+        // recently accessed entries must survive eviction of entries added later
+        for (int i = 0; i < maxSize / 2; i++) {
+            assertNotNull(cache.get(i));
+        }
+
+        for (int i = maxSize; i < maxSize + maxSize / 2; i++) {
+            cache.put(i, String.valueOf(i));
+
+            assertEquals(maxSize, cache.size());
+        }
+
+        for (int i = 0; i < maxSize / 2; i++) {
+            assertEquals(String.valueOf(i), cache.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int                           maxSize      = 1000;
+        final int                           keyCount     = 5000;
+        final int                           threadCount  = 8;
+        final int                           opsPerThread = 50000;
+        ConcurrentCacheMap<Integer, String> cache        = new ConcurrentCacheMap<>(maxSize);
+        AtomicInteger                       errorCount   = new AtomicInteger();
+        List<Thread>                        threads      = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < opsPerThread; j++) {
+                    int    key   = ThreadLocalRandom.current().nextInt(keyCount);
+                    String value = cache.get(key);
+
+                    if (value == null) {
+                        cache.put(key, String.valueOf(key));
+                    } else if (!value.equals(String.valueOf(key))) {
+                        errorCount.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, errorCount.get());
+        assertTrue("size=" + cache.size(), cache.size() <= maxSize + threadCount);
+
+        // an eviction after concurrent puts completes must bring the size back to maxSize
+        cache.put(keyCount, String.valueOf(keyCount));
+
+        assertEquals(maxSize, cache.size());
+    }
+}
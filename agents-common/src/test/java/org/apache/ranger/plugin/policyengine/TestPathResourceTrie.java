@@ -29,14 +29,19 @@
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class TestPathResourceTrie {
     private static final RangerResourceDef       PATH_RESOURCE_DEF = getPathResourceDef();
@@ -66,7 +71,8 @@ public class TestPathResourceTrie {
             EVAL_TMPdTXT,
             EVAL_TMPA_B);
 
-    private final RangerResourceTrie<RangerResourceEvaluator> trie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS);
+    private final RangerResourceTrie<RangerResourceEvaluator> trie        = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS);
+    private final RangerResourceTrie<RangerResourceEvaluator> compactTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, true, false, true, null);
 
     @Test
     public void testChildrenScope() {
@@ -113,13 +119,159 @@ public void testSelfScope() {
         verifyEvaluators("invalid: does-not-begin-with-sep", scope);
     }
 
+    @Test
+    public void testCompactNodesWithUpdates() {
+        for (boolean isCompactNodes : new boolean[] {false, true}) {
+            RangerResourceTrie<RangerResourceEvaluator> testTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, false, false, isCompactNodes, null);
+
+            testTrie.delete(EVAL_TMPFILE.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMPFILE);
+            testTrie.wrapUpUpdate();
+
+            verifyEvaluators(testTrie, "/tmpfile", ResourceElementMatchingScope.SELF, EVAL_);
+            verifyEvaluators(testTrie, "/tmp.txt", ResourceElementMatchingScope.SELF, EVAL_, EVAL_TMPdTXT);
+
+            RangerResourceTrie<RangerResourceEvaluator> copy = new RangerResourceTrie<>(testTrie);
+
+            copy.add(EVAL_TMPFILE.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMPFILE);
+            copy.wrapUpUpdate();
+
+            verifyEvaluators(copy, "/tmpfile", ResourceElementMatchingScope.SELF, EVAL_, EVAL_TMPFILE);
+            verifyEvaluators(copy, "/", ResourceElementMatchingScope.SELF_OR_CHILD, EVAL_, EVAL_nr, EVAL_HOME, EVAL_HOME_, EVAL_TMPnr, EVAL_TMP_nr, EVAL_TMPFILE, EVAL_TMPdTXT);
+            verifyEvaluators(testTrie, "/tmpfile", ResourceElementMatchingScope.SELF, EVAL_);
+        }
+    }
+
+    @Test
+    public void testCopyOnUpdate() {
+        for (boolean isOptimizedForRetrieval : new boolean[] {false, true}) {
+            RangerResourceTrie<RangerResourceEvaluator> testTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, isOptimizedForRetrieval, false, false, null);
+
+            verifyEvaluators(testTrie, "/tmp/ac/d/e", ResourceElementMatchingScope.SELF_OR_CHILD, EVAL_, EVAL_TMP_AC_D_E_F); // sets up nodes in the path
+
+            RangerResourceTrie<RangerResourceEvaluator> copy       = new RangerResourceTrie<>(testTrie);
+            RangerResourceEvaluator                     evalTmpAcD = getEvaluator("/tmp/ac/d");
+            RangerPolicyResource                        resTmpAcD  = evalTmpAcD.getPolicyResource().get(PATH_RESOURCE_DEF.getName());
+
+            copy.add(resTmpAcD, evalTmpAcD);
+            copy.wrapUpUpdate();
+
+            verifyEvaluators(copy, "/tmp/ac/d/e", ResourceElementMatchingScope.SELF_OR_CHILD, EVAL_, EVAL_TMP_AC_D_E_F, evalTmpAcD);
+            verifyEvaluators(copy, "/tmp/ac/d/e/f", ResourceElementMatchingScope.SELF, EVAL_, EVAL_TMP_AC_D_E_F, evalTmpAcD);
+            verifyEvaluators(testTrie, "/tmp/ac/d/e", ResourceElementMatchingScope.SELF_OR_CHILD, EVAL_, EVAL_TMP_AC_D_E_F);
+            verifyEvaluators(testTrie, "/tmp/ac/d/e/f", ResourceElementMatchingScope.SELF, EVAL_, EVAL_TMP_AC_D_E_F);
+
+            // only nodes in the updated path are copied
+            assertSame(getNode(testTrie, "/home"), getNode(copy, "/home"));
+            assertNotSame(getNode(testTrie, "/tmp"), getNode(copy, "/tmp"));
+
+            copy.delete(resTmpAcD, evalTmpAcD);
+            copy.wrapUpUpdate();
+
+            verifyEvaluators(copy, "/tmp/ac/d/e", ResourceElementMatchingScope.SELF_OR_CHILD, EVAL_, EVAL_TMP_AC_D_E_F);
+            verifyEvaluators(copy, "/tmp/ac/d/e/f", ResourceElementMatchingScope.SELF, EVAL_, EVAL_TMP_AC_D_E_F);
+        }
+    }
+
+    /*
+     * applies random adds/deletes to successive copies of a trie; each copy must return the same evaluators as a trie
+     * built afresh from its evaluators, and earlier copies - which share unchanged nodes with it - must not change
+     */
+    @Test
+    public void testRandomUpdatesOnCopies() {
+        String[] policyPaths = {"/", "/a", "/a/", "/a/b", "/a/bc", "/ab", "/ab/c", "/a/b/c/d", "/a/*", "/a/b*", "/ab*", "*", "/a/*/c", "/x/y"};
+        String[] queryPaths  = {"/", "/a", "/a/", "/a/b", "/a/bc", "/a/b/c", "/a/b/c/d", "/ab", "/ab/c", "/abc", "/a/x/c", "/x", "/x/y/z"};
+
+        List<RangerResourceEvaluator> allEvaluators = new ArrayList<>();
+
+        for (String policyPath : policyPaths) {
+            allEvaluators.add(getEvaluator(policyPath, false, true));
+            allEvaluators.add(getEvaluator(policyPath, false, false));
+        }
+
+        for (boolean[] options : new boolean[][] {{false, false}, {true, false}, {false, true}, {true, true}}) {
+            boolean isOptimizedForRetrieval = options[0];
+            boolean isCompactNodes          = options[1];
+            Random  random                  = new Random(1234);
+
+            List<RangerResourceEvaluator>                     evaluators = new ArrayList<>(allEvaluators.subList(0, allEvaluators.size() / 2));
+            RangerResourceTrie<RangerResourceEvaluator>       trie       = new RangerResourceTrie<>(PATH_RESOURCE_DEF, evaluators, isOptimizedForRetrieval, false, isCompactNodes, null);
+            List<RangerResourceTrie<RangerResourceEvaluator>> versions   = new ArrayList<>();
+            List<Map<String, Set<RangerResourceEvaluator>>>   results    = new ArrayList<>();
+
+            for (int step = 0; step < 200; step++) {
+                RangerResourceTrie<RangerResourceEvaluator> copy = new RangerResourceTrie<>(trie);
+
+                for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                    RangerResourceEvaluator evaluator      = allEvaluators.get(random.nextInt(allEvaluators.size()));
+                    RangerPolicyResource    policyResource = evaluator.getPolicyResource().get(PATH_RESOURCE_DEF.getName());
+
+                    if (evaluators.remove(evaluator)) {
+                        copy.delete(policyResource, evaluator);
+                    } else {
+                        evaluators.add(evaluator);
+                        copy.add(policyResource, evaluator);
+                    }
+                }
+
+                copy.wrapUpUpdate();
+
+                RangerResourceTrie<RangerResourceEvaluator> expectedTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, evaluators, isOptimizedForRetrieval, false, isCompactNodes, null);
+                Map<String, Set<RangerResourceEvaluator>>   expected     = getEvaluators(expectedTrie, queryPaths);
+
+                assertEquals("step=" + step + ", options=" + Arrays.toString(options), expected, getEvaluators(copy, queryPaths));
+
+                versions.add(copy);
+                results.add(expected);
+
+                trie = copy;
+            }
+
+            for (int i = 0; i < versions.size(); i++) {
+                assertEquals("version=" + i + ", options=" + Arrays.toString(options), results.get(i), getEvaluators(versions.get(i), queryPaths));
+            }
+        }
+    }
+
     private void verifyEvaluators(String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
+        verifyEvaluators(trie, resource, scope, evaluators);
+        verifyEvaluators(compactTrie, resource, scope, evaluators);
+    }
+
+    private void verifyEvaluators(RangerResourceTrie<RangerResourceEvaluator> trie, String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
         Set<RangerResourceEvaluator> expected = evaluators.length == 0 ? null : new HashSet<>(Arrays.asList(evaluators));
         Set<RangerResourceEvaluator> result   = trie.getEvaluatorsForResource(resource, scope);
 
         assertEquals("incorrect evaluators for resource " + resource, expected, result);
     }
 
+    private static Map<String, Set<RangerResourceEvaluator>> getEvaluators(RangerResourceTrie<RangerResourceEvaluator> trie, String[] resources) {
+        Map<String, Set<RangerResourceEvaluator>> ret = new HashMap<>();
+
+        for (String resource : resources) {
+            for (ResourceElementMatchingScope scope : ResourceElementMatchingScope.values()) {
+                Set<RangerResourceEvaluator> evaluators = trie.getEvaluatorsForResource(resource, scope);
+
+                ret.put(resource + ":" + scope, evaluators == null ? Collections.emptySet() : new HashSet<>(evaluators));
+            }
+        }
+
+        return ret;
+    }
+
+    private static RangerResourceTrie.TrieNode<RangerResourceEvaluator> getNode(RangerResourceTrie<RangerResourceEvaluator> trie, String resource) {
+        RangerResourceTrie.TrieNode<RangerResourceEvaluator> ret = trie.getRoot();
+
+        for (int i = 0; ret != null && i < resource.length(); ) {
+            ret = ret.getChild(resource.charAt(i));
+
+            if (ret != null) {
+                i += ret.getStr().length();
+            }
+        }
+
+        return ret;
+    }
+
     private static RangerResourceDef getPathResourceDef() {
         RangerResourceDef ret = new RangerResourceDef();
 
@@ -70,6 +70,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -817,6 +818,8 @@ private void runTests(InputStreamReader reader, String testName) {
     }
 
     private void runTestCaseTests(RangerPolicyEngine policyEngine, RangerServiceDef serviceDef, String testName, List<TestData> tests) {
+        runBatchedAccessTests(policyEngine, tests);
+
         tests.parallelStream().forEach(test -> {
             RangerAccessRequest request = test.request;
 
@@ -950,6 +953,44 @@ private void runTestCaseTests(RangerPolicyEngine policyEngine, RangerServiceDef
         });
     }
 
+    // evaluates access requests of the tests in a single batch, to verify that sharing of lookups across requests doesn't change the results
+    private void runBatchedAccessTests(RangerPolicyEngine policyEngine, List<TestData> tests) {
+        List<TestData>            batchTests = new ArrayList<>();
+        List<RangerAccessRequest> requests   = new ArrayList<>();
+
+        for (TestData test : tests) {
+            Map<String, Object> context = test.request.getContext();
+
+            if (test.result == null || MapUtils.isNotEmpty(test.userAttributes) || MapUtils.isNotEmpty(test.groupAttributes) ||
+                    context.containsKey(RangerAccessRequestUtil.KEY_CONTEXT_TAGS) || context.containsKey(RangerAccessRequestUtil.KEY_CONTEXT_REQUESTED_RESOURCES)) {
+                continue;
+            }
+
+            // evaluate a copy, as preProcess() updates the request and its context - like tags, roles and clientIPAddress; the
+            // original request must remain as given in the test, for evaluation by runTestCaseTests()
+            RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.request);
+
+            request.setContext(new HashMap<>(context));
+
+            batchTests.add(test);
+            requests.add(request);
+        }
+
+        if (requests.size() > 1) {
+            List<RangerAccessResult> results = new ArrayList<>(policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, null));
+
+            assertEquals("result count mismatched in batch evaluation", requests.size(), results.size());
+
+            for (int i = 0; i < results.size(); i++) {
+                TestData           test   = batchTests.get(i);
+                RangerAccessResult result = results.get(i);
+
+                assertNotNull("result was null in batch evaluation! - " + test.name, result);
+                assertEquals("isAllowed mismatched in batch evaluation! - " + test.name, test.result.getIsAllowed(), result.getIsAllowed());
+            }
+        }
+    }
+
     private void setPluginConfig(RangerPluginConfig conf, String suffix, Set<String> value) {
         conf.set(conf.getPropertyPrefix() + suffix, CollectionUtils.isNotEmpty(value) ? StringUtils.join(value, ',') : "");
     }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class TestPolicyEvaluatorOrdinals {
+    @Test
+    public void testOrdinalsInEvalOrder() {
+        RangerPolicyEvaluator   allow    = createPolicyEvaluator(1, 0, false, 10);
+        RangerPolicyEvaluator   deny     = createPolicyEvaluator(2, 0, true, 20);
+        RangerPolicyEvaluator   override = createPolicyEvaluator(3, 1, false, 30);
+        RangerPolicyEvaluator   allow2   = createPolicyEvaluator(4, 0, false, 5);
+        PolicyEvaluatorOrdinals ordinals = new PolicyEvaluatorOrdinals(Arrays.asList(allow, deny), Collections.singletonList(override), null, Collections.singletonList(allow2));
+
+        assertEquals(4, ordinals.size());
+        assertEquals(0, ordinals.getOrdinal(override));
+        assertEquals(1, ordinals.getOrdinal(deny));
+        assertEquals(2, ordinals.getOrdinal(allow2));
+        assertEquals(3, ordinals.getOrdinal(allow));
+        assertEquals(-1, ordinals.getOrdinal(createPolicyEvaluator(5, 0, false, 1)));
+    }
+
+    @Test
+    public void testGetPolicyEvaluators() {
+        List<RangerPolicyEvaluator>         evaluators         = new ArrayList<>();
+        List<RangerPolicyResourceEvaluator> resourceEvaluators = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            RangerPolicyEvaluator evaluator = createPolicyEvaluator(i, i % 3 == 0 ? 1 : 0, i % 5 == 0, 1000 - i);
+
+            evaluators.add(evaluator);
+            resourceEvaluators.add(createResourceEvaluator(evaluator));
+            resourceEvaluators.add(createResourceEvaluator(evaluator)); // 2 resource-evaluators per policy, as for a policy with additional resources
+        }
+
+        PolicyEvaluatorOrdinals     ordinals         = new PolicyEvaluatorOrdinals(evaluators);
+        Random                      random           = new Random(1);
+        List<RangerPolicyEvaluator> sortedEvaluators = new ArrayList<>(evaluators);
+
+        sortedEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+        for (int i = 0; i < 500; i++) {
+            int                                 count      = 1 + random.nextInt(i % 2 == 0 ? 4 : 2000); // few candidates: sorted ordinals; many: bitset
+            List<RangerPolicyResourceEvaluator> candidates = new ArrayList<>();
+            Set<RangerPolicyEvaluator>          expected   = new HashSet<>();
+
+            for (int j = 0; j < count; j++) {
+                RangerPolicyResourceEvaluator candidate = resourceEvaluators.get(random.nextInt(resourceEvaluators.size()));
+
+                candidates.add(candidate);
+                expected.add(candidate.getPolicyEvaluator());
+            }
+
+            List<RangerPolicyEvaluator> expectedList = new ArrayList<>(expected.size());
+
+            for (RangerPolicyEvaluator evaluator : sortedEvaluators) {
+                if (expected.contains(evaluator)) {
+                    expectedList.add(evaluator);
+                }
+            }
+
+            assertEquals(expectedList, ordinals.getPolicyEvaluators(candidates));
+        }
+    }
+
+    @Test
+    public void testUpdate() {
+        List<RangerPolicyEvaluator> evaluators = new ArrayList<>();
+        Random                      random     = new Random(1);
+        long                        policyId   = 0;
+
+        for (int i = 0; i < 50; i++, policyId++) {
+            evaluators.add(createPolicyEvaluator(policyId, random.nextInt(2), random.nextBoolean(), random.nextInt(100)));
+        }
+
+        PolicyEvaluatorOrdinals ordinals = new PolicyEvaluatorOrdinals(evaluators);
+
+        for (int i = 0; i < 25; i++) {
+            List<RangerPolicyEvaluator> removed = new ArrayList<>();
+            List<RangerPolicyEvaluator> added   = new ArrayList<>();
+
+            for (int j = random.nextInt(5); j > 0; j--) {
+                removed.add(evaluators.remove(random.nextInt(evaluators.size())));
+            }
+
+            for (int j = random.nextInt(5); j > 0; j--, policyId++) {
+                RangerPolicyEvaluator evaluator = createPolicyEvaluator(policyId, random.nextInt(2), random.nextBoolean(), random.nextInt(100));
+
+                evaluators.add(evaluator);
+                added.add(evaluator);
+            }
+
+            PolicyEvaluatorOrdinals previous = ordinals;
+            int                     prevSize = previous.size();
+
+            ordinals = ordinals.update(removed, added);
+
+            PolicyEvaluatorOrdinals expected = new PolicyEvaluatorOrdinals(evaluators);
+
+            assertEquals(expected.size(), ordinals.size());
+
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                assertEquals(expected.getOrdinal(evaluator), ordinals.getOrdinal(evaluator));
+            }
+
+            for (RangerPolicyEvaluator evaluator : removed) {
+                assertEquals(-1, ordinals.getOrdinal(evaluator));
+            }
+
+            assertEquals(prevSize, previous.size()); // earlier ordinals are not modified
+        }
+
+        assertSame(ordinals, ordinals.update(Collections.emptyList(), Collections.emptyList()));
+    }
+
+    @Test
+    public void testGetPolicyEvaluatorsWithUnknownEvaluator() {
+        RangerPolicyEvaluator   evaluator = createPolicyEvaluator(1, 0, false, 10);
+        PolicyEvaluatorOrdinals ordinals  = new PolicyEvaluatorOrdinals(Collections.singletonList(evaluator));
+
+        assertEquals(Collections.emptyList(), ordinals.getPolicyEvaluators(Collections.emptyList()));
+        assertNull(ordinals.getPolicyEvaluators(Arrays.asList(createResourceEvaluator(evaluator), createResourceEvaluator(createPolicyEvaluator(2, 0, false, 20)))));
+    }
+
+    private static RangerPolicyEvaluator createPolicyEvaluator(long policyId, int priority, boolean hasDeny, int evalOrder) {
+        RangerPolicy          policy    = new RangerPolicy();
+        RangerPolicyEvaluator evaluator = mock(RangerPolicyEvaluator.class, withSettings().stubOnly()); // stubOnly: invocations from sorting are not recorded
+
+        policy.setId(policyId);
+        policy.setName("policy-" + policyId);
+        policy.setPolicyPriority(priority);
+
+        when(evaluator.getPolicy()).thenReturn(policy);
+        when(evaluator.getPolicyId()).thenReturn(policyId);
+        when(evaluator.getPolicyPriority()).thenReturn(priority);
+        when(evaluator.hasDeny()).thenReturn(hasDeny);
+        when(evaluator.getEvalOrder()).thenReturn(evalOrder);
+
+        return evaluator;
+    }
+
+    private static RangerPolicyResourceEvaluator createResourceEvaluator(RangerPolicyEvaluator policyEvaluator) {
+        RangerPolicyResourceEvaluator ret = mock(RangerPolicyResourceEvaluator.class, withSettings().stubOnly());
+
+        when(ret.getPolicyEvaluator()).thenReturn(policyEvaluator);
+
+        return ret;
+    }
+}
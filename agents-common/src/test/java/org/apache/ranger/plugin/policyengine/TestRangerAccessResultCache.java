@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerMetricsUtil;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerAccessResultCache {
+    private static final RangerServiceDef SERVICE_DEF = createServiceDef();
+    private static final Object           ENGINE      = new Object();
+
+    @Test
+    public void testCacheKey() {
+        RangerAccessRequest request1 = createRequest("/a/b", "read", "user1", "group1");
+        RangerAccessRequest request2 = createRequest("/a/b", "read", "user1", "group1");
+        RangerAccessRequest request3 = createRequest("/a/b", "read", "user1", "group2");
+        RangerAccessRequest request4 = createRequest("/a/b", "write", "user1", "group1");
+
+        RangerAccessResultCache.CacheKey key1 = RangerAccessResultCache.CacheKey.of(request1, RangerPolicy.POLICY_TYPE_ACCESS);
+
+        assertNotNull(key1);
+        assertEquals(key1, RangerAccessResultCache.CacheKey.of(request2, RangerPolicy.POLICY_TYPE_ACCESS));
+        assertEquals(key1, key1.copy());
+        assertEquals(key1.hashCode(), key1.copy().hashCode());
+        assertFalse(key1.equals(RangerAccessResultCache.CacheKey.of(request3, RangerPolicy.POLICY_TYPE_ACCESS)));
+        assertFalse(key1.equals(RangerAccessResultCache.CacheKey.of(request4, RangerPolicy.POLICY_TYPE_ACCESS)));
+        assertFalse(key1.equals(RangerAccessResultCache.CacheKey.of(request1, RangerPolicy.POLICY_TYPE_DATAMASK)));
+    }
+
+    @Test
+    public void testVersionChangeInvalidatesEntries() {
+        RangerAccessResultCache            cache      = new RangerAccessResultCache("testVersionChange", 100);
+        RangerAccessResultCache.Generation generation = cache.getGeneration(ENGINE, 1, 1, 1, 1);
+        RangerAccessRequest                request    = createRequest("/a/b", "read", "user1", "group1");
+        RangerAccessResultCache.CacheKey   key        = RangerAccessResultCache.CacheKey.of(request, RangerPolicy.POLICY_TYPE_ACCESS);
+        RangerAccessResult                 result     = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "dev_hdfs", SERVICE_DEF, request);
+
+        result.setIsAllowed(true);
+        result.setPolicyId(10);
+        result.setIsAudited(true);
+
+        assertNull(generation.get(key));
+
+        generation.put(key, result);
+
+        RangerAccessResult cached = cache.getGeneration(ENGINE, 1, 1, 1, 1).get(key);
+
+        assertNotNull(cached);
+        assertNotSame(result, cached);
+        assertNull(cached.getAccessRequest());
+        assertTrue(cached.getIsAllowed());
+        assertTrue(cached.getIsAudited());
+        assertEquals(10, cached.getPolicyId());
+        assertSame(generation, cache.getGeneration(ENGINE, 1, 1, 1, 1));
+
+        assertNull(cache.getGeneration(ENGINE, 2, 1, 1, 1).get(key)); // policy version change
+        cache.getGeneration(ENGINE, 2, 1, 1, 1).put(key, result);
+        assertNull(cache.getGeneration(ENGINE, 2, 2, 1, 1).get(key)); // role version change
+        cache.getGeneration(ENGINE, 2, 2, 1, 1).put(key, result);
+        assertNull(cache.getGeneration(ENGINE, 2, 2, 2, 1).get(key)); // tag version change
+        cache.getGeneration(ENGINE, 2, 2, 2, 1).put(key, result);
+        assertNull(cache.getGeneration(ENGINE, 2, 2, 2, 2).get(key)); // user-store version change
+        cache.getGeneration(ENGINE, 2, 2, 2, 2).put(key, result);
+        assertNull(cache.getGeneration(new Object(), 2, 2, 2, 2).get(key)); // engine rebuilt, with the same versions
+
+        Map<String, Object> stats = cache.getStats();
+
+        assertEquals(1L, stats.get("hitCount"));
+        assertEquals(6L, stats.get("missCount"));
+        assertEquals(5L, stats.get("invalidationCount"));
+        assertTrue(RangerMetricsUtil.getCacheStats().containsKey(cache.getName()));
+    }
+
+    @Test
+    public void testCacheSizeIsBounded() {
+        int                                maxSize    = 50;
+        RangerAccessResultCache            cache      = new RangerAccessResultCache("testCacheSizeIsBounded", maxSize);
+        RangerAccessResultCache.Generation generation = cache.getGeneration(ENGINE, 1, 1, 1, 1);
+
+        for (int i = 0; i < maxSize * 4; i++) {
+            RangerAccessRequest request = createRequest("/a/b/" + i, "read", "user1", "group1");
+
+            generation.put(RangerAccessResultCache.CacheKey.of(request, RangerPolicy.POLICY_TYPE_ACCESS), new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "dev_hdfs", SERVICE_DEF, request));
+
+            assertTrue(generation.size() <= maxSize);
+        }
+
+        assertTrue((Long) cache.getStats().get("evictionCount") >= maxSize * 3);
+    }
+
+    @Test
+    public void testRecentlyUsedEntriesSurviveEviction() {
+        int                                maxSize    = 50;
+        RangerAccessResultCache            cache      = new RangerAccessResultCache("testRecentlyUsedEntriesSurviveEviction", maxSize);
+        RangerAccessResultCache.Generation generation = cache.getGeneration(ENGINE, 1, 1, 1, 1);
+
+        for (int i = 0; i < maxSize; i++) {
+            put(generation, "/a/b/" + i);
+        }
+
+        for (int i = 0; i < maxSize / 2; i++) {
+            assertNotNull(generation.get(createKey("/a/b/" + i)));
+        }
+
+        for (int i = maxSize; i < maxSize + maxSize / 2; i++) {
+            put(generation, "/a/b/" + i);
+        }
+
+        for (int i = 0; i < maxSize / 2; i++) {
+            assertNotNull(generation.get(createKey("/a/b/" + i)));
+        }
+
+        assertEquals((long) maxSize / 2, cache.getStats().get("evictionCount"));
+    }
+
+    @Test
+    public void testCacheIsSharedByEnginesOfPlugin() {
+        RangerPluginConfig config = new RangerPluginConfig("hdfs", "dev_hdfs", "hdfs", null, null, null);
+
+        assertNull(new RangerPluginContext(config).getAccessResultCache());
+
+        config.getPolicyEngineOptions().enableAccessResultCache = true;
+
+        RangerPluginContext     pluginContext = new RangerPluginContext(config);
+        RangerAccessResultCache cache         = pluginContext.getAccessResultCache();
+
+        assertNotNull(cache);
+        assertSame(cache, pluginContext.getAccessResultCache());
+        assertTrue(RangerMetricsUtil.getCacheStats().containsKey(cache.getName()));
+    }
+
+    @Test
+    public void testNotCacheableFlagIsRemovedFromContext() {
+        Map<String, Object> context = createRequest("/a/b", "read", "user1", "group1").getContext();
+
+        RangerAccessRequestUtil.setIsAccessResultNotCacheable(context, Boolean.TRUE);
+
+        assertTrue(RangerAccessRequestUtil.getIsAccessResultNotCacheable(context));
+
+        RangerAccessRequestUtil.setIsAccessResultNotCacheable(context, null);
+
+        assertFalse(RangerAccessRequestUtil.getIsAccessResultNotCacheable(context));
+        assertFalse(context.containsKey(RangerAccessRequestUtil.KEY_CONTEXT_IS_ACCESS_RESULT_NOT_CACHEABLE));
+    }
+
+    private static void put(RangerAccessResultCache.Generation generation, String path) {
+        RangerAccessRequest request = createRequest(path, "read", "user1", "group1");
+
+        generation.put(RangerAccessResultCache.CacheKey.of(request, RangerPolicy.POLICY_TYPE_ACCESS), new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "dev_hdfs", SERVICE_DEF, request));
+    }
+
+    private static RangerAccessResultCache.CacheKey createKey(String path) {
+        return RangerAccessResultCache.CacheKey.of(createRequest(path, "read", "user1", "group1"), RangerPolicy.POLICY_TYPE_ACCESS);
+    }
+
+    private static RangerAccessRequest createRequest(String path, String accessType, String user, String group) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(Collections.<String, Object>singletonMap("path", path));
+
+        resource.setServiceDef(SERVICE_DEF);
+
+        return new RangerAccessRequestImpl(resource, accessType, user, new HashSet<>(Collections.singleton(group)), null);
+    }
+
+    private static RangerServiceDef createServiceDef() {
+        RangerServiceDef  ret         = new RangerServiceDef();
+        RangerResourceDef resourceDef = new RangerResourceDef();
+
+        resourceDef.setName("path");
+
+        ret.setName("hdfs");
+        ret.setResources(Collections.singletonList(resourceDef));
+
+        return ret;
+    }
+}
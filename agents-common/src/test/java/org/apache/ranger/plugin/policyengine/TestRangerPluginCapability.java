@@ -32,6 +32,7 @@
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class TestRangerPluginCapability {
@@ -44,6 +45,21 @@ public void testRangerPluginCapabilities() {
         runTestsFromResourceFiles(tests);
     }
 
+    @Test
+    public void testIsSupported() {
+        RangerPluginCapability all     = new RangerPluginCapability();
+        RangerPluginCapability some    = new RangerPluginCapability(Arrays.asList("RANGER_PLUGIN_CAPABILITY_TAG_POLICIES", "RANGER_PLUGIN_CAPABILITY_ROLE"));
+        RangerPluginCapability fromHex = new RangerPluginCapability(Long.parseUnsignedLong(Long.toHexString(all.getPluginCapabilities()), 16));
+
+        for (RangerPluginCapability.RangerPluginFeature feature : RangerPluginCapability.RangerPluginFeature.values()) {
+            assertTrue(feature.name(), all.isSupported(feature));
+            assertTrue(feature.name(), fromHex.isSupported(feature));
+        }
+
+        assertTrue(some.isSupported(RangerPluginCapability.RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_ROLE));
+        assertFalse(some.isSupported(RangerPluginCapability.RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_CHANGE_NOTIFICATION));
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for (String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
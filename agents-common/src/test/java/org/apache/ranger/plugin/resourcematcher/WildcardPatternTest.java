@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WildcardPatternTest {
+    private static final IOCase[] CASE_SENSITIVITIES = {IOCase.SENSITIVE, IOCase.INSENSITIVE};
+
+    @Test
+    public void testMatch() {
+        WildcardPattern pattern = new WildcardPattern("/app/*/test?.db");
+
+        assertTrue(pattern.isMatch("/app/hive/test1.db", IOCase.SENSITIVE));
+        assertTrue(pattern.isMatch("/app/hive/warehouse/test1.db", IOCase.SENSITIVE));
+        assertFalse(pattern.isMatch("/app/hive/test.db", IOCase.SENSITIVE));
+        assertFalse(pattern.isMatch("/APP/hive/test1.db", IOCase.SENSITIVE));
+        assertTrue(pattern.isMatch("/APP/hive/TEST1.DB", IOCase.INSENSITIVE));
+        assertFalse(pattern.isMatch(null, IOCase.SENSITIVE));
+
+        // FilenameUtils.wildcardMatch() ignores '*' followed by '?'
+        assertTrue(new WildcardPattern("a*?").isMatch("ab", IOCase.SENSITIVE));
+        assertFalse(new WildcardPattern("a*?").isMatch("abc", IOCase.SENSITIVE));
+        assertTrue(new WildcardPattern("a*").isMatch("abc", IOCase.SENSITIVE));
+    }
+
+    @Test
+    public void testPrefixMatch() {
+        WildcardPattern pattern = new WildcardPattern("/app/*/test*");
+
+        assertTrue(pattern.isPrefixMatch("/app", IOCase.SENSITIVE));
+        assertTrue(pattern.isPrefixMatch("/app/hive/te", IOCase.SENSITIVE));
+        assertFalse(pattern.isPrefixMatch("/tmp", IOCase.SENSITIVE));
+        assertTrue(pattern.isPrefixMatch("/APP", IOCase.INSENSITIVE));
+        assertFalse(pattern.isPrefixMatch(null, IOCase.SENSITIVE));
+    }
+
+    @Test
+    public void testSameResultAsFilenameUtils() {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100000; i++) {
+            String          value   = randomString(random, "aAb*?", 7);
+            String          str     = randomString(random, "aAbB", 8);
+            WildcardPattern pattern = new WildcardPattern(value);
+
+            for (IOCase caseSensitivity : CASE_SENSITIVITIES) {
+                String msg = "value=" + value + ", str=" + str + ", caseSensitivity=" + caseSensitivity;
+
+                assertEquals(msg, FilenameUtils.wildcardMatch(str, value, caseSensitivity), pattern.isMatch(str, caseSensitivity));
+                assertEquals(msg, ResourceMatcher.wildcardPrefixMatch(str, value, caseSensitivity), pattern.isPrefixMatch(str, caseSensitivity));
+
+                int strLen = random.nextInt(str.length() + 1);
+
+                assertEquals(msg + ", strLen=" + strLen, FilenameUtils.wildcardMatch(str.substring(0, strLen), value, caseSensitivity), pattern.isMatch(str, strLen, caseSensitivity));
+            }
+        }
+    }
+
+    @Test
+    public void testRecursiveWildcardMatch() {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100000; i++) {
+            String   value                = "/" + randomString(random, "/ab*?", 7);
+            String   path                 = randomString(random, "/aAb", 9);
+            String[] wildcardPathElements = StringUtils.split(value, '/');
+
+            for (IOCase caseSensitivity : CASE_SENSITIVITIES) {
+                boolean expected = RangerPathResourceMatcher.isRecursiveWildCardMatch(path, value, '/', caseSensitivity, wildcardPathElements);
+                boolean actual   = RangerPathResourceMatcher.isRecursiveWildCardMatch(path, new WildcardPattern(value), '/', caseSensitivity, wildcardPathElements);
+
+                assertEquals("value=" + value + ", path=" + path + ", caseSensitivity=" + caseSensitivity, expected, actual);
+            }
+        }
+    }
+
+    private static String randomString(Random random, String chars, int maxLen) {
+        int           len = random.nextInt(maxLen + 1);
+        StringBuilder sb  = new StringBuilder(len);
+
+        for (int i = 0; i < len; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+
+        return sb.toString();
+    }
+}
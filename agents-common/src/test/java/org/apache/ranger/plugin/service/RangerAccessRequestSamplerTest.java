@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.service;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class RangerAccessRequestSamplerTest {
+    @Test
+    public void testSampleRing() {
+        RangerAccessRequestSampler sampler = new RangerAccessRequestSampler(2, 2);
+
+        for (int i = 0; i < 10; i++) {
+            sampler.sample(createRequest("db" + i));
+        }
+
+        // requests 0, 2, 4, 6, 8 are sampled; ring of 2 retains the last two
+        List<RangerAccessRequest> samples = sampler.getSamples();
+
+        assertEquals(2, samples.size());
+        assertEquals("db8", samples.get(0).getResource().getValue("database"));
+        assertEquals("db6", samples.get(1).getResource().getValue("database"));
+    }
+
+    @Test
+    public void testSamplesAreCopies() {
+        RangerAccessRequestSampler sampler = new RangerAccessRequestSampler(1, 1);
+        RangerAccessRequestImpl    request = createRequest("db1");
+
+        request.getContext().put("key", "value");
+
+        sampler.sample(request);
+
+        RangerAccessRequest sample1 = sampler.getSamples().get(0);
+        RangerAccessRequest sample2 = sampler.getSamples().get(0);
+
+        assertNotSame(sample1, sample2);
+        assertFalse(sample1.getContext().containsKey("key")); // context of the sampled request is not copied
+        assertEquals("user1", sample1.getUser());
+
+        // replay of a sample is not sampled again
+        sampler.sample(sample1);
+        sampler.sample(createRequest("db2"));
+
+        assertEquals("db2", sampler.getSamples().get(0).getResource().getValue("database"));
+    }
+
+    @Test
+    public void testDisabled() {
+        RangerAccessRequestSampler sampler = new RangerAccessRequestSampler(0, 1);
+
+        sampler.sample(createRequest("db1"));
+
+        assertFalse(sampler.isEnabled());
+        assertTrue(sampler.getSamples().isEmpty());
+    }
+
+    private static RangerAccessRequestImpl createRequest(String database) {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", database);
+
+        return new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", "user1", Collections.singleton("group1"), null);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangerCacheFileUtilTest {
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private final ObjectMapper mapper = JsonUtils.getMapper();
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        ServicePolicies       policies = createServicePolicies(10L, 100);
+        ByteArrayOutputStream out      = new ByteArrayOutputStream();
+
+        RangerBinarySnapshot.write(mapper, policies, out);
+
+        ServicePolicies copy = RangerBinarySnapshot.read(mapper, ByteBuffer.wrap(out.toByteArray()), ServicePolicies.class);
+
+        assertEquals(mapper.writeValueAsString(policies), mapper.writeValueAsString(copy));
+        assertTrue(out.size() < mapper.writeValueAsBytes(policies).length);
+
+        // repeated strings are decoded to the same instance
+        assertSame(copy.getPolicies().get(0).getPolicyItems().get(0).getUsers().get(0), copy.getPolicies().get(1).getPolicyItems().get(0).getUsers().get(0));
+    }
+
+    @Test
+    public void testSnapshotValueTypes() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        values.put("int", 42);
+        values.put("negativeLong", -12345678901234L);
+        values.put("double", 3.5d);
+        values.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+        values.put("bigDecimal", new BigDecimal("1234567890.0123456789"));
+        values.put("true", true);
+        values.put("false", false);
+        values.put("null", null);
+        values.put("binary", new byte[] {0, 1, 2, (byte) 0xFF});
+        values.put("list", Arrays.asList("a", "b", "a", Collections.singletonMap("a", "b")));
+        values.put("unicode", "r\u00e9sum\u00e9 \u20ac");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RangerBinarySnapshot.write(mapper, values, out);
+
+        Map<?, ?> copy = RangerBinarySnapshot.read(mapper, ByteBuffer.wrap(out.toByteArray()), Map.class);
+
+        // binary is written as embedded object, hence compare the JSON serialization - which encodes binary as base64
+        assertEquals(mapper.writeValueAsString(values), mapper.writeValueAsString(copy));
+        assertEquals(42, copy.get("int"));
+        assertEquals(-12345678901234L, copy.get("negativeLong"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), copy.get("bigInteger"));
+    }
+
+    @Test
+    public void testTruncatedSnapshot() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RangerBinarySnapshot.write(mapper, createServicePolicies(10L, 10), out);
+
+        byte[] bytes = out.toByteArray();
+
+        // truncated before the checksum, and in the middle of tokens
+        for (int len : new int[] {bytes.length - 2, bytes.length - 5, bytes.length / 2}) {
+            try {
+                RangerBinarySnapshot.read(mapper, ByteBuffer.wrap(bytes, 0, len), ServicePolicies.class);
+
+                fail("expected read of truncated snapshot to fail: length=" + len);
+            } catch (Exception excp) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RangerBinarySnapshot.write(mapper, createServicePolicies(10L, 10), out);
+
+        byte[] bytes = out.toByteArray();
+
+        bytes[bytes.length / 2] ^= 0x01;
+
+        try {
+            RangerBinarySnapshot.read(mapper, ByteBuffer.wrap(bytes), ServicePolicies.class);
+
+            fail("expected read of corrupt snapshot to fail");
+        } catch (Exception excp) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File cacheFile = new File(tmpFolder.getRoot(), "hive_dev.json");
+
+        assertFalse(RangerCacheFileUtil.exists(cacheFile));
+        assertNull(RangerCacheFileUtil.read(cacheFile, mapper, ServicePolicies.class));
+
+        RangerCacheFileUtil.write(cacheFile, mapper, createServicePolicies(1L, 5), true);
+
+        assertTrue(RangerCacheFileUtil.exists(cacheFile));
+        assertTrue(RangerCacheFileUtil.getSnapshotFile(cacheFile).isFile());
+        assertFalse(cacheFile.exists());
+        assertEquals(Long.valueOf(1L), RangerCacheFileUtil.read(cacheFile, mapper, ServicePolicies.class).getPolicyVersion());
+
+        // JSON format: snapshot is removed, so that it isn't read instead of the JSON file
+        RangerCacheFileUtil.write(cacheFile, mapper, createServicePolicies(2L, 5), false);
+
+        assertTrue(cacheFile.isFile());
+        assertFalse(RangerCacheFileUtil.getSnapshotFile(cacheFile).exists());
+        assertEquals(Long.valueOf(2L), RangerCacheFileUtil.read(cacheFile, mapper, ServicePolicies.class).getPolicyVersion());
+
+        // snapshot written after the JSON file is read
+        RangerCacheFileUtil.write(cacheFile, mapper, createServicePolicies(3L, 5), true);
+
+        assertTrue(cacheFile.setLastModified(System.currentTimeMillis() - 60 * 1000L));
+        assertEquals(Long.valueOf(3L), RangerCacheFileUtil.read(cacheFile, mapper, ServicePolicies.class).getPolicyVersion());
+
+        // unreadable snapshot: JSON file is read
+        Files.write(RangerCacheFileUtil.getSnapshotFile(cacheFile).toPath(), new byte[] {'R', 'S', 'N', 'P', 1, 99});
+
+        assertEquals(Long.valueOf(2L), RangerCacheFileUtil.read(cacheFile, mapper, ServicePolicies.class).getPolicyVersion());
+
+        RangerCacheFileUtil.deleteSnapshot(cacheFile);
+
+        assertFalse(RangerCacheFileUtil.getSnapshotFile(cacheFile).exists());
+
+        String[] files = tmpFolder.getRoot().list();
+
+        assertEquals(1, files.length); // no temporary files left behind
+    }
+
+    private static ServicePolicies createServicePolicies(long version, int policyCount) {
+        ServicePolicies    ret      = new ServicePolicies();
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy     policy     = new RangerPolicy();
+            RangerPolicyItem policyItem = new RangerPolicyItem();
+
+            policy.setId((long) i);
+            policy.setName("policy-" + i);
+            policy.setService("hive_dev");
+            policy.setIsEnabled(true);
+            policy.setUpdateTime(new Date(1700000000000L + i));
+            policy.getResources().put("database", new RangerPolicyResource("db" + (i % 5)));
+            policy.getResources().put("table", new RangerPolicyResource("tbl" + i));
+
+            policyItem.getUsers().add("user1");
+            policyItem.getGroups().add("group" + (i % 3));
+            policyItem.getAccesses().add(new RangerPolicyItemAccess("select", true));
+
+            policy.getPolicyItems().add(policyItem);
+
+            policies.add(policy);
+        }
+
+        ret.setServiceName("hive_dev");
+        ret.setServiceId(1L);
+        ret.setPolicyVersion(version);
+        ret.setPolicyUpdateTime(new Date(1700000000000L));
+        ret.setPolicies(policies);
+        ret.setServiceConfig(Collections.singletonMap("ranger.plugin.audit.filters", "[]"));
+
+        return ret;
+    }
+}
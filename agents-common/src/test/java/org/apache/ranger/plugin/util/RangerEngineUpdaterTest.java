@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RangerEngineUpdaterTest {
+    @Test
+    public void testUpdatesDoNotInterleave() throws Exception {
+        RangerEngineUpdater updater       = new RangerEngineUpdater("dev_hive");
+        AtomicInteger       activeCount   = new AtomicInteger();
+        AtomicInteger       maxActive     = new AtomicInteger();
+        AtomicInteger       completeCount = new AtomicInteger();
+        List<Thread>        callers       = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            Thread caller = new Thread(() -> updater.execute("test", () -> {
+                maxActive.accumulateAndGet(activeCount.incrementAndGet(), Math::max);
+
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                }
+
+                activeCount.decrementAndGet();
+                completeCount.incrementAndGet();
+            }));
+
+            callers.add(caller);
+
+            caller.start();
+        }
+
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        assertEquals(4, completeCount.get());
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    public void testNestedUpdateRunsInCallerThread() {
+        RangerEngineUpdater     updater      = new RangerEngineUpdater("dev_hive");
+        AtomicReference<Thread> outerThread  = new AtomicReference<>();
+        AtomicReference<Thread> nestedThread = new AtomicReference<>();
+
+        updater.execute("outer", () -> {
+            outerThread.set(Thread.currentThread());
+
+            updater.execute("nested", () -> nestedThread.set(Thread.currentThread()));
+        });
+
+        assertSame(Thread.currentThread(), outerThread.get());
+        assertSame(outerThread.get(), nestedThread.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUpdateFailureIsRethrown() {
+        RangerEngineUpdater updater = new RangerEngineUpdater("dev_hive");
+
+        updater.execute("failing", () -> {
+            throw new IllegalStateException("failed to build");
+        });
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.util.RangerPrincipalIndex.EffectivePrincipals;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RangerPrincipalIndexTest {
+    private final RangerPrincipalIndex index = new RangerPrincipalIndex();
+
+    @Test
+    public void testMatchByUserGroupRole() {
+        int[] byUser  = index.getPolicyItemPrincipals(Arrays.asList("pi-user1", "pi-user2"), null, null);
+        int[] byGroup = index.getPolicyItemPrincipals(null, Collections.singletonList("pi-group1"), null);
+        int[] byRole  = index.getPolicyItemPrincipals(null, null, Collections.singletonList("pi-role1"));
+
+        Set<String> groups     = new HashSet<>(Arrays.asList("pi-group1", "pi-group2"));
+        Set<String> roles      = new HashSet<>(Collections.singletonList("pi-role2"));
+        int[]       principals = index.getEffectivePrincipals("pi-user2", groups, roles).getPrincipals();
+
+        assertTrue(RangerPrincipalIndex.intersects(byUser, principals));
+        assertTrue(RangerPrincipalIndex.intersects(byGroup, principals));
+        assertFalse(RangerPrincipalIndex.intersects(byRole, principals));
+
+        principals = index.getEffectivePrincipals("pi-user3", Collections.emptySet(), Collections.singleton("pi-role1")).getPrincipals();
+
+        assertFalse(RangerPrincipalIndex.intersects(byUser, principals));
+        assertFalse(RangerPrincipalIndex.intersects(byGroup, principals));
+        assertTrue(RangerPrincipalIndex.intersects(byRole, principals));
+    }
+
+    @Test
+    public void testUserGroupRoleWithSameName() {
+        int[] byUser  = index.getPolicyItemPrincipals(Collections.singletonList("pi-same-name"), null, null);
+        int[] byGroup = index.getPolicyItemPrincipals(null, Collections.singletonList("pi-same-name"), null);
+
+        assertFalse(RangerPrincipalIndex.intersects(byUser, byGroup));
+        assertFalse(RangerPrincipalIndex.intersects(byUser, index.getEffectivePrincipals(null, Collections.singleton("pi-same-name"), null).getPrincipals()));
+        assertTrue(RangerPrincipalIndex.intersects(byGroup, index.getEffectivePrincipals(null, Collections.singleton("pi-same-name"), null).getPrincipals()));
+    }
+
+    @Test
+    public void testStaleAfterNewPrincipal() {
+        Set<String>         groups     = Collections.singleton("pi-new-group");
+        Set<String>         roles      = Collections.emptySet();
+        EffectivePrincipals principals = index.getEffectivePrincipals("pi-new-user", groups, roles);
+
+        assertTrue(principals.isFor(index, "pi-new-user", groups, roles));
+        assertFalse(principals.isFor(index, "pi-new-user", new HashSet<>(groups), roles));
+        assertFalse(principals.isFor(index, "pi-other-user", groups, roles));
+
+        int[] byGroup = index.getPolicyItemPrincipals(null, groups, null);
+
+        assertFalse(RangerPrincipalIndex.intersects(byGroup, principals.getPrincipals()));
+        assertTrue(principals.isStale());
+        assertFalse(principals.isFor(index, "pi-new-user", groups, roles));
+        assertTrue(RangerPrincipalIndex.intersects(byGroup, index.getEffectivePrincipals("pi-new-user", groups, roles).getPrincipals()));
+
+        int version = index.getVersion();
+
+        index.getPolicyItemPrincipals(null, groups, null); // no new principal: existing effective principals remain valid
+
+        assertEquals(version, index.getVersion());
+    }
+
+    @Test
+    public void testIndexesAreIndependent() {
+        RangerPrincipalIndex otherIndex = new RangerPrincipalIndex();
+        Set<String>          groups     = Collections.singleton("pi-group1");
+        Set<String>          roles      = Collections.emptySet();
+        int[]                byGroup    = index.getPolicyItemPrincipals(null, groups, null);
+
+        otherIndex.getPolicyItemPrincipals(Arrays.asList("pi-other-user1", "pi-other-user2"), null, null);
+
+        EffectivePrincipals principals = otherIndex.getEffectivePrincipals("pi-user1", groups, roles);
+
+        assertSame(otherIndex, principals.getIndex());
+        assertFalse(principals.isFor(index, "pi-user1", groups, roles)); // ids of another index must not be matched with policy items of this index
+        assertTrue(principals.isFor(otherIndex, "pi-user1", groups, roles));
+        assertTrue(RangerPrincipalIndex.intersects(byGroup, index.getEffectivePrincipals("pi-user1", groups, roles).getPrincipals()));
+    }
+
+    @Test
+    public void testSortedUniqueIds() {
+        int[] principals = index.getPolicyItemPrincipals(Arrays.asList("pi-sorted-user2", "pi-sorted-user1", "pi-sorted-user2"), Collections.singletonList("pi-sorted-group1"), null);
+
+        assertEquals(3, principals.length);
+        assertTrue(principals[0] < principals[1] && principals[1] < principals[2]);
+
+        assertTrue(RangerPrincipalIndex.intersects(new int[] {1, 5, 9}, new int[] {2, 9}));
+        assertFalse(RangerPrincipalIndex.intersects(new int[] {1, 5, 9}, new int[] {2, 6, 10}));
+        assertFalse(RangerPrincipalIndex.intersects(new int[0], new int[] {1}));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangerReadWriteLockTest {
+    @Test
+    public void testLockTypeFromString() {
+        assertEquals(RangerReadWriteLock.LockType.STRIPED, RangerReadWriteLock.LockType.fromString(" striped ", RangerReadWriteLock.LockType.FAIR));
+        assertEquals(RangerReadWriteLock.LockType.FAIR, RangerReadWriteLock.LockType.fromString("FAIR", RangerReadWriteLock.LockType.STRIPED));
+        assertEquals(RangerReadWriteLock.LockType.FAIR, RangerReadWriteLock.LockType.fromString(null, RangerReadWriteLock.LockType.FAIR));
+        assertEquals(RangerReadWriteLock.LockType.FAIR, RangerReadWriteLock.LockType.fromString("invalid", RangerReadWriteLock.LockType.FAIR));
+    }
+
+    @Test
+    public void testNoLock() {
+        RangerReadWriteLock lock = new RangerReadWriteLock(false, RangerReadWriteLock.LockType.STRIPED);
+
+        try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) {
+            assertFalse(readLock.isLockingEnabled());
+        }
+
+        try (RangerReadWriteLock.RangerLock writeLock = lock.getWriteLock()) {
+            assertFalse(writeLock.isLockingEnabled());
+        }
+    }
+
+    @Test
+    public void testReentrancy() {
+        for (RangerReadWriteLock.LockType lockType : RangerReadWriteLock.LockType.values()) {
+            RangerReadWriteLock lock = new RangerReadWriteLock(true, lockType);
+
+            try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) {
+                assertTrue(readLock.isLockingEnabled());
+
+                try (RangerReadWriteLock.RangerLock readLock2 = lock.getReadLock()) {
+                    assertTrue(readLock2.isLockingEnabled());
+                }
+            }
+
+            try (RangerReadWriteLock.RangerLock writeLock = lock.getWriteLock()) {
+                assertTrue(writeLock.isLockingEnabled());
+
+                try (RangerReadWriteLock.RangerLock writeLock2 = lock.getWriteLock()) {
+                    assertTrue(writeLock2.isLockingEnabled());
+                }
+
+                try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) { // read while holding write lock
+                    assertTrue(readLock.isLockingEnabled());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWriterExcludesReaders() throws Exception {
+        RangerReadWriteLock lock       = new RangerReadWriteLock(true, RangerReadWriteLock.LockType.STRIPED);
+        CountDownLatch      readerDone = new CountDownLatch(1);
+        AtomicBoolean       readDone   = new AtomicBoolean();
+        Thread              reader     = new Thread(() -> {
+            try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) {
+                readDone.set(true);
+            }
+
+            readerDone.countDown();
+        });
+
+        try (RangerReadWriteLock.RangerLock writeLock = lock.getWriteLock()) {
+            reader.start();
+
+            assertFalse(readerDone.await(200, TimeUnit.MILLISECONDS));
+            assertFalse(readDone.get());
+        }
+
+        assertTrue(readerDone.await(10, TimeUnit.SECONDS));
+        assertTrue(readDone.get());
+    }
+
+    @Test
+    public void testConcurrentReadersAndWriters() throws Exception {
+        RangerReadWriteLock lock        = new RangerReadWriteLock(true, RangerReadWriteLock.LockType.STRIPED);
+        long[]              sharedState = new long[2]; // writers keep both values equal; readers must never see them differ
+        AtomicLong          violations  = new AtomicLong();
+        AtomicLong          readCount   = new AtomicLong();
+        AtomicBoolean       isStopped   = new AtomicBoolean();
+        List<Thread>        threads     = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                while (!isStopped.get()) {
+                    try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) {
+                        if (sharedState[0] != sharedState[1]) {
+                            violations.incrementAndGet();
+                        }
+                    }
+
+                    readCount.incrementAndGet();
+                }
+            }));
+        }
+
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    try (RangerReadWriteLock.RangerLock writeLock = lock.getWriteLock()) {
+                        sharedState[0]++;
+                        Thread.yield();
+                        sharedState[1]++;
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        for (int i = 4; i < threads.size(); i++) {
+            threads.get(i).join();
+        }
+
+        isStopped.set(true);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, violations.get());
+        assertEquals(400, sharedState[0]);
+        assertEquals(400, sharedState[1]);
+        assertTrue(readCount.get() > 0);
+    }
+}
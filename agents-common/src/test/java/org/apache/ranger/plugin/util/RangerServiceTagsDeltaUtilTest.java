@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RangerServiceTagsDeltaUtilTest {
+    @Test
+    public void testComputeDelta() {
+        ServiceTags v1    = createVersion1();
+        ServiceTags v2    = createVersion2();
+        ServiceTags delta = RangerServiceTagsDeltaUtil.computeDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getTagVersion());
+        assertEquals(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE, delta.getTagsChangeExtent());
+        assertEquals(2, delta.getServiceResources().size()); // r2 removed, r4 added
+        assertNull(delta.getServiceResources().get(0).getResourceSignature());
+        assertEquals(Long.valueOf(2L), delta.getServiceResources().get(0).getId());
+        assertEquals(Long.valueOf(4L), delta.getServiceResources().get(1).getId());
+
+        ServiceTags updated = RangerServiceTagsDeltaUtil.applyDelta(createVersion1(), delta, delta.getIsTagsDeduped());
+
+        assertEquals(v2.getTags(), updated.getTags());
+        assertEquals(v2.getResourceToTagIds(), updated.getResourceToTagIds());
+    }
+
+    @Test
+    public void testComputeDeltaNoChange() {
+        ServiceTags delta = RangerServiceTagsDeltaUtil.computeDelta(createVersion1(), createVersion1());
+
+        assertEquals(ServiceTags.TagsChangeExtent.NONE, delta.getTagsChangeExtent());
+        assertTrue(delta.getTags().isEmpty());
+        assertTrue(delta.getServiceResources().isEmpty());
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        ServiceTags v3     = createVersion3();
+        ServiceTags delta1 = RangerServiceTagsDeltaUtil.computeDelta(createVersion1(), createVersion2());
+        ServiceTags delta2 = RangerServiceTagsDeltaUtil.computeDelta(createVersion2(), v3);
+        ServiceTags merged = RangerServiceTagsDeltaUtil.mergeDeltas(Arrays.asList(delta1, delta2));
+
+        assertEquals(Long.valueOf(3L), merged.getTagVersion());
+        assertEquals(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE, merged.getTagsChangeExtent());
+
+        // removed resources, as known in version 1, followed by resources as of version 3
+        List<RangerServiceResource> resources = merged.getServiceResources();
+
+        assertEquals(4, resources.size());
+        assertEquals(Long.valueOf(2L), resources.get(0).getId());
+        assertNull(resources.get(0).getResourceSignature());
+        assertEquals(Long.valueOf(3L), resources.get(1).getId());
+        assertNull(resources.get(1).getResourceSignature());
+        assertEquals("db3", resources.get(1).getResourceElements().get("database").getValues().get(0));
+        assertEquals(Long.valueOf(4L), resources.get(2).getId());
+        assertEquals(Long.valueOf(3L), resources.get(3).getId());
+        assertEquals("sig-3a", resources.get(3).getResourceSignature());
+
+        ServiceTags updated = RangerServiceTagsDeltaUtil.applyDelta(createVersion1(), merged, merged.getIsTagsDeduped());
+
+        assertEquals(v3.getTags(), updated.getTags());
+        assertEquals(v3.getResourceToTagIds(), updated.getResourceToTagIds());
+    }
+
+    // resources r1, r2, r3; tags t1, t2
+    private static ServiceTags createVersion1() {
+        ServiceTags ret = createServiceTags(1L);
+
+        ret.getServiceResources().add(createResource(1L, "db1", "sig-1"));
+        ret.getServiceResources().add(createResource(2L, "db2", "sig-2"));
+        ret.getServiceResources().add(createResource(3L, "db3", "sig-3"));
+        ret.getTags().put(1L, createTag(1L, "PII"));
+        ret.getTags().put(2L, createTag(2L, "PHI"));
+        ret.getResourceToTagIds().put(1L, new ArrayList<>(Collections.singletonList(1L)));
+        ret.getResourceToTagIds().put(2L, new ArrayList<>(Collections.singletonList(2L)));
+        ret.getResourceToTagIds().put(3L, new ArrayList<>(Collections.singletonList(1L)));
+
+        return ret;
+    }
+
+    // r2 removed, r4 added, t3 added, t2 added to r1
+    private static ServiceTags createVersion2() {
+        ServiceTags ret = createServiceTags(2L);
+
+        ret.getServiceResources().add(createResource(1L, "db1", "sig-1"));
+        ret.getServiceResources().add(createResource(3L, "db3", "sig-3"));
+        ret.getServiceResources().add(createResource(4L, "db4", "sig-4"));
+        ret.getTags().put(1L, createTag(1L, "PII"));
+        ret.getTags().put(2L, createTag(2L, "PHI"));
+        ret.getTags().put(3L, createTag(3L, "SSN"));
+        ret.getResourceToTagIds().put(1L, new ArrayList<>(Arrays.asList(1L, 2L)));
+        ret.getResourceToTagIds().put(3L, new ArrayList<>(Collections.singletonList(1L)));
+        ret.getResourceToTagIds().put(4L, new ArrayList<>(Collections.singletonList(3L)));
+
+        return ret;
+    }
+
+    // r3 updated, t2 removed
+    private static ServiceTags createVersion3() {
+        ServiceTags ret = createServiceTags(3L);
+
+        ret.getServiceResources().add(createResource(1L, "db1", "sig-1"));
+        ret.getServiceResources().add(createResource(3L, "db3a", "sig-3a"));
+        ret.getServiceResources().add(createResource(4L, "db4", "sig-4"));
+        ret.getTags().put(1L, createTag(1L, "PII"));
+        ret.getTags().put(3L, createTag(3L, "SSN"));
+        ret.getResourceToTagIds().put(1L, new ArrayList<>(Collections.singletonList(1L)));
+        ret.getResourceToTagIds().put(3L, new ArrayList<>(Collections.singletonList(1L)));
+        ret.getResourceToTagIds().put(4L, new ArrayList<>(Collections.singletonList(3L)));
+
+        return ret;
+    }
+
+    private static ServiceTags createServiceTags(long version) {
+        ServiceTags ret = new ServiceTags();
+
+        ret.setServiceName("dev_hive");
+        ret.setTagVersion(version);
+        ret.setIsTagsDeduped(false);
+
+        return ret;
+    }
+
+    private static RangerServiceResource createResource(long id, String database, String signature) {
+        Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+
+        resourceElements.put("database", new RangerPolicyResource(database));
+
+        RangerServiceResource ret = new RangerServiceResource("dev_hive", resourceElements);
+
+        ret.setId(id);
+        ret.setResourceSignature(signature);
+
+        return ret;
+    }
+
+    private static RangerTag createTag(long id, String type) {
+        RangerTag ret = new RangerTag(type, Collections.emptyMap());
+
+        ret.setId(id);
+
+        return ret;
+    }
+}
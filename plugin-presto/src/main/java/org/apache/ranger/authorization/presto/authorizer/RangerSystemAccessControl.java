@@ -36,7 +36,9 @@
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +48,7 @@
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -415,11 +418,9 @@ public void checkCanRenameColumn(SystemSecurityContext context, CatalogSchemaTab
 
     @Override
     public void checkCanSelectFromColumns(SystemSecurityContext context, CatalogSchemaTableName table, Set<String> columns) {
-        for (RangerPrestoResource res : createResource(table, columns)) {
-            if (!hasPermission(res, context, PrestoAccessType.SELECT)) {
-                LOG.debug("RangerSystemAccessControl.checkCanSelectFromColumns({}) denied", table.getSchemaTableName().getTableName());
-                AccessDeniedException.denySelectColumns(table.getSchemaTableName().getTableName(), columns);
-            }
+        if (!hasPermission(createResource(table, columns), context, PrestoAccessType.SELECT)) {
+            LOG.debug("RangerSystemAccessControl.checkCanSelectFromColumns({}) denied", table.getSchemaTableName().getTableName());
+            AccessDeniedException.denySelectColumns(table.getSchemaTableName().getTableName(), columns);
         }
     }
 
@@ -682,6 +683,42 @@ private boolean hasPermission(RangerPrestoResource resource, SystemSecurityConte
         return ret;
     }
 
+    /*
+     * evaluates requests for all resources in a single call to the plugin, to share work common to the requests - like
+     * resolving roles of the user and lookup of catalog/schema/table in policy tries, for requests on many columns.
+     * Results are audited in order up to the first denied one, as done earlier when each request was evaluated and
+     * audited separately until access was denied
+     */
+    private boolean hasPermission(List<RangerPrestoResource> resources, SystemSecurityContext context, PrestoAccessType accessType) {
+        boolean                   ret      = true;
+        List<RangerAccessRequest> requests = new ArrayList<>(resources.size());
+
+        for (RangerPrestoResource resource : resources) {
+            requests.add(createAccessRequest(resource, context, accessType));
+        }
+
+        Collection<RangerAccessResult> results         = rangerPlugin.isAccessAllowed(requests, null);
+        RangerAccessResultProcessor    resultProcessor = rangerPlugin.getResultProcessor();
+
+        if (results == null || results.size() != requests.size()) {
+            ret = false;
+        } else {
+            for (RangerAccessResult result : results) {
+                if (result != null && resultProcessor != null) {
+                    resultProcessor.processResult(result);
+                }
+
+                if (result == null || !result.getIsAllowed()) {
+                    ret = false;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     private static RangerPrestoResource createUserResource(String userName) {
         RangerPrestoResource res = new RangerPrestoResource();
 
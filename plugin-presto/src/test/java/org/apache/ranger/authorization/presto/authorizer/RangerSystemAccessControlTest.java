@@ -28,12 +28,19 @@
 import io.prestosql.spi.security.ViewExpression;
 import io.prestosql.spi.type.VarcharType;
 import org.apache.hadoop.thirdparty.com.google.common.collect.ImmutableSet;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import javax.security.auth.kerberos.KerberosPrincipal;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -178,6 +185,49 @@ public void testMisc() {
         accessControlManager.checkCanExecuteProcedure(context(alice), aliceProcedure);
     }
 
+    @Test
+    public void testSelectFromColumnsAuditsUntilFirstDeny() throws Exception {
+        Field rangerPluginField = RangerSystemAccessControl.class.getDeclaredField("rangerPlugin");
+
+        rangerPluginField.setAccessible(true);
+
+        RangerBasePlugin            rangerPlugin    = (RangerBasePlugin) rangerPluginField.get(accessControlManager);
+        RangerAccessResultProcessor resultProcessor = rangerPlugin.getResultProcessor();
+        List<RangerAccessResult>    auditedResults  = new ArrayList<>();
+
+        rangerPlugin.setResultProcessor(new RangerAccessResultProcessor() {
+            @Override
+            public void processResult(RangerAccessResult result) {
+                auditedResults.add(result);
+            }
+
+            @Override
+            public void processResults(Collection<RangerAccessResult> results) {
+                auditedResults.addAll(results);
+            }
+        });
+
+        try {
+            accessControlManager.checkCanSelectFromColumns(context(alice), aliceTable, ImmutableSet.of());
+
+            assertEquals(1, auditedResults.size());
+
+            auditedResults.clear();
+
+            try {
+                accessControlManager.checkCanSelectFromColumns(context(alice), aliceTable, ImmutableSet.of("col1", "col2", "col3"));
+
+                throw new AssertionError("expected AccessDeniedExeption");
+            } catch (AccessDeniedException expected) {
+                // only the first denied column is audited
+                assertEquals(1, auditedResults.size());
+                assertFalse(auditedResults.get(0).getIsAllowed());
+            }
+        } finally {
+            rangerPlugin.setResultProcessor(resultProcessor);
+        }
+    }
+
     private SystemSecurityContext context(Identity id) {
         return new SystemSecurityContext(id, Optional.empty());
     }
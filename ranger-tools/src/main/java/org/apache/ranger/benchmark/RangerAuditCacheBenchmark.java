@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Measures throughput of the audit-result cache of the policy-engine under the access pattern of RangerPolicyRepository:
+ * many threads look up the cache by resource and, on a miss, store the result. Compares
+ * Collections.synchronizedMap(new CacheMap<>(size)), used earlier, with ConcurrentCacheMap.
+ *
+ * Usage: ranger-audit-cache-benchmark.sh -t 16 -d 10 -s 65536 -k 100000 -z 2 -c synchronized,concurrent
+ */
+public class RangerAuditCacheBenchmark {
+    private static final String CACHE_TYPE_SYNCHRONIZED = "synchronized";
+    private static final String CACHE_TYPE_CONCURRENT   = "concurrent";
+
+    private final int         threadCount;
+    private final int         durationSecs;
+    private final int         cacheSize;
+    private final int         keyCount;
+    private final double      skew;
+    private final String[]    cacheTypes;
+    private final String[]    keys;
+    private final PrintStream out;
+
+    public RangerAuditCacheBenchmark(CommandLine cmdLine) {
+        this.out          = System.out;
+        this.threadCount  = Integer.parseInt(cmdLine.getOptionValue('t', Integer.toString(Runtime.getRuntime().availableProcessors())));
+        this.durationSecs = Integer.parseInt(cmdLine.getOptionValue('d', "10"));
+        this.cacheSize    = Integer.parseInt(cmdLine.getOptionValue('s', Integer.toString(64 * 1024)));
+        this.keyCount     = Integer.parseInt(cmdLine.getOptionValue('k', "100000"));
+        this.skew         = Double.parseDouble(cmdLine.getOptionValue('z', "2"));
+        this.cacheTypes   = cmdLine.getOptionValue('c', CACHE_TYPE_SYNCHRONIZED + "," + CACHE_TYPE_CONCURRENT).split(",");
+        this.keys         = new String[keyCount];
+
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "db_" + (i % 100) + "/table_" + i + "/col_" + (i % 10);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine cmdLine = parseArgs(args);
+
+        if (cmdLine != null) {
+            RangerAuditCacheBenchmark benchmark = new RangerAuditCacheBenchmark(cmdLine);
+
+            benchmark.run();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        out.printf("threads=%d, duration=%ds, cacheSize=%d, keys=%d, skew=%.1f%n", threadCount, durationSecs, cacheSize, keyCount, skew);
+
+        for (String cacheType : cacheTypes) {
+            runOnce(cacheType, Math.min(2000, TimeUnit.SECONDS.toMillis(durationSecs))); // warmup
+        }
+
+        for (String cacheType : cacheTypes) {
+            Result result = runOnce(cacheType, TimeUnit.SECONDS.toMillis(durationSecs));
+
+            out.println(result);
+        }
+    }
+
+    private Result runOnce(String cacheType, long durationMs) throws InterruptedException {
+        final Cache         cache     = createCache(cacheType);
+        final AtomicBoolean isStopped = new AtomicBoolean();
+        final AtomicLong    opCount   = new AtomicLong();
+        final AtomicLong    hitCount  = new AtomicLong();
+        final List<Thread>  threads   = new ArrayList<>(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long              ops    = 0;
+                long              hits   = 0;
+
+                while (!isStopped.get()) {
+                    String key = keys[(int) (keyCount * Math.pow(random.nextDouble(), skew))]; // skew > 1 favors keys with lower index
+
+                    if (cache.get(key) != null) {
+                        hits++;
+                    } else {
+                        cache.put(key, Boolean.TRUE);
+                    }
+
+                    ops++;
+                }
+
+                opCount.addAndGet(ops);
+                hitCount.addAndGet(hits);
+            }, "cache-user-" + i));
+        }
+
+        long startMs = System.currentTimeMillis();
+
+        threads.forEach(Thread::start);
+
+        Thread.sleep(durationMs);
+
+        isStopped.set(true);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return new Result(cacheType, System.currentTimeMillis() - startMs, opCount.get(), hitCount.get(), cache.size());
+    }
+
+    private Cache createCache(String cacheType) {
+        final Cache ret;
+
+        if (CACHE_TYPE_SYNCHRONIZED.equalsIgnoreCase(cacheType)) {
+            final Map<String, Boolean> map = Collections.synchronizedMap(new CacheMap<>(cacheSize));
+
+            ret = new Cache() {
+                @Override
+                public Boolean get(String key) {
+                    return map.get(key);
+                }
+
+                @Override
+                public void put(String key, Boolean value) {
+                    map.put(key, value);
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        } else if (CACHE_TYPE_CONCURRENT.equalsIgnoreCase(cacheType)) {
+            final ConcurrentCacheMap<String, Boolean> map = new ConcurrentCacheMap<>(cacheSize);
+
+            ret = new Cache() {
+                @Override
+                public Boolean get(String key) {
+                    return map.get(key);
+                }
+
+                @Override
+                public void put(String key, Boolean value) {
+                    map.put(key, value);
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        } else {
+            throw new IllegalArgumentException("unknown cache type: " + cacheType + "; supported: " + CACHE_TYPE_SYNCHRONIZED + ", " + CACHE_TYPE_CONCURRENT);
+        }
+
+        return ret;
+    }
+
+    private static CommandLine parseArgs(String[] args) {
+        Option help       = new Option("h", "help", false, "show help");
+        Option threads    = new Option("t", "threads", true, "number of threads; default: number of processors");
+        Option duration   = new Option("d", "duration", true, "duration of each run, in seconds; default: 10");
+        Option cacheSize  = new Option("s", "cacheSize", true, "maximum number of entries in the cache; default: 65536");
+        Option keyCount   = new Option("k", "keys", true, "number of distinct resources looked up; default: 100000");
+        Option skew       = new Option("z", "skew", true, "skew of lookups towards popular resources; 1 for uniform; default: 2");
+        Option cacheTypes = new Option("c", "cacheTypes", true, "cache types to compare (comma separated): synchronized|concurrent; default: synchronized,concurrent");
+
+        Options options = new Options();
+
+        options.addOption(help);
+        options.addOption(threads);
+        options.addOption(duration);
+        options.addOption(cacheSize);
+        options.addOption(keyCount);
+        options.addOption(skew);
+        options.addOption(cacheTypes);
+
+        try {
+            CommandLine cmdLine = new DefaultParser().parse(options, args);
+
+            if (!cmdLine.hasOption("h")) {
+                return cmdLine;
+            }
+
+            new HelpFormatter().printHelp("RangerAuditCacheBenchmark", options);
+        } catch (ParseException excp) {
+            System.out.println("Failed to parse arguments");
+            excp.printStackTrace(System.out);
+        }
+
+        return null;
+    }
+
+    private interface Cache {
+        Boolean get(String key);
+
+        void put(String key, Boolean value);
+
+        int size();
+    }
+
+    private static class Result {
+        private final String cacheType;
+        private final long   elapsedMs;
+        private final long   opCount;
+        private final long   hitCount;
+        private final int    finalSize;
+
+        Result(String cacheType, long elapsedMs, long opCount, long hitCount, int finalSize) {
+            this.cacheType = cacheType;
+            this.elapsedMs = elapsedMs;
+            this.opCount   = opCount;
+            this.hitCount  = hitCount;
+            this.finalSize = finalSize;
+        }
+
+        @Override
+        public String toString() {
+            long   opsPerSec = elapsedMs > 0 ? (opCount * 1000 / elapsedMs) : 0;
+            double hitRatio  = opCount > 0 ? (hitCount * 100.0 / opCount) : 0;
+
+            return String.format("cacheType=%-12s ops/sec=%,15d hitRatio=%6.2f%% size=%,d", cacheType, opsPerSec, hitRatio, finalSize);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.plugin.util.RangerReadWriteLock;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Measures throughput of RangerReadWriteLock under the access pattern of the policy-engine: many threads authorizing
+ * requests under the read-lock, with an occasional policy update (in-place delta) under the write-lock.
+ *
+ * Usage: ranger-lock-benchmark.sh -r 16 -d 10 -w 1000 -l fair,striped
+ */
+public class RangerLockContentionBenchmark {
+    private final int         readerCount;
+    private final int         durationSecs;
+    private final long        writeIntervalMs;
+    private final long        writeHoldMicros;
+    private final int         readWorkIterations;
+    private final String[]    lockTypes;
+    private final PrintStream out;
+    private volatile long     sharedState;
+    private volatile long     sink; // consumes results of read-work, so that JIT doesn't eliminate it
+
+    public RangerLockContentionBenchmark(CommandLine cmdLine) {
+        this.out                = System.out;
+        this.readerCount        = Integer.parseInt(cmdLine.getOptionValue('r', Integer.toString(Runtime.getRuntime().availableProcessors())));
+        this.durationSecs       = Integer.parseInt(cmdLine.getOptionValue('d', "10"));
+        this.writeIntervalMs    = Long.parseLong(cmdLine.getOptionValue('w', "1000"));
+        this.writeHoldMicros    = Long.parseLong(cmdLine.getOptionValue('u', "100"));
+        this.readWorkIterations = Integer.parseInt(cmdLine.getOptionValue('i', "100"));
+        this.lockTypes          = cmdLine.getOptionValue('l', "fair,striped").split(",");
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine cmdLine = parseArgs(args);
+
+        if (cmdLine != null) {
+            RangerLockContentionBenchmark benchmark = new RangerLockContentionBenchmark(cmdLine);
+
+            benchmark.run();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        out.printf("readers=%d, duration=%ds, writeInterval=%dms, writeHold=%dus, readWork=%d%n", readerCount, durationSecs, writeIntervalMs, writeHoldMicros, readWorkIterations);
+
+        for (String lockType : lockTypes) {
+            runWarmup(RangerReadWriteLock.LockType.fromString(lockType, RangerReadWriteLock.LockType.FAIR));
+        }
+
+        for (String lockType : lockTypes) {
+            Result result = runOnce(RangerReadWriteLock.LockType.fromString(lockType, RangerReadWriteLock.LockType.FAIR), TimeUnit.SECONDS.toMillis(durationSecs));
+
+            out.println(result);
+        }
+
+        out.println("checksum=" + sink);
+    }
+
+    private void runWarmup(RangerReadWriteLock.LockType lockType) throws InterruptedException {
+        runOnce(lockType, Math.min(2000, TimeUnit.SECONDS.toMillis(durationSecs)));
+    }
+
+    private Result runOnce(RangerReadWriteLock.LockType lockType, long durationMs) throws InterruptedException {
+        final RangerReadWriteLock lock         = new RangerReadWriteLock(true, lockType);
+        final AtomicBoolean       isStopped    = new AtomicBoolean();
+        final AtomicLong          readOps      = new AtomicLong();
+        final AtomicLong          writeOps     = new AtomicLong();
+        final AtomicLong          writeWaitNs  = new AtomicLong();
+        final AtomicLong          maxWriteWait = new AtomicLong();
+        final List<Thread>        threads      = new ArrayList<>(readerCount + 1);
+
+        for (int i = 0; i < readerCount; i++) {
+            threads.add(new Thread(() -> {
+                long ops     = 0;
+                long results = 0;
+
+                while (!isStopped.get()) {
+                    try (RangerReadWriteLock.RangerLock readLock = lock.getReadLock()) {
+                        results += doReadWork();
+                    }
+
+                    ops++;
+                }
+
+                readOps.addAndGet(ops);
+
+                sink = results;
+            }, "reader-" + i));
+        }
+
+        if (writeIntervalMs > 0) {
+            threads.add(new Thread(() -> {
+                while (!isStopped.get()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(writeIntervalMs));
+
+                    long startNs = System.nanoTime();
+
+                    try (RangerReadWriteLock.RangerLock writeLock = lock.getWriteLock()) {
+                        long waitNs = System.nanoTime() - startNs;
+
+                        writeWaitNs.addAndGet(waitNs);
+                        maxWriteWait.accumulateAndGet(waitNs, Math::max);
+
+                        sharedState++;
+
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(writeHoldMicros));
+                    }
+
+                    writeOps.incrementAndGet();
+                }
+            }, "writer"));
+        }
+
+        long startMs = System.currentTimeMillis();
+
+        threads.forEach(Thread::start);
+
+        Thread.sleep(durationMs);
+
+        isStopped.set(true);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return new Result(lockType, System.currentTimeMillis() - startMs, readOps.get(), writeOps.get(), writeWaitNs.get(), maxWriteWait.get());
+    }
+
+    private long doReadWork() {
+        long ret = sharedState;
+
+        for (int i = 0; i < readWorkIterations; i++) {
+            ret = ret * 31 + i;
+        }
+
+        return ret;
+    }
+
+    private static CommandLine parseArgs(String[] args) {
+        Option help          = new Option("h", "help", false, "show help");
+        Option readers       = new Option("r", "readers", true, "number of reader threads; default: number of processors");
+        Option duration      = new Option("d", "duration", true, "duration of each run, in seconds; default: 10");
+        Option writeInterval = new Option("w", "writeInterval", true, "interval between write-lock acquisitions, in milliseconds; 0 to disable writes; default: 1000");
+        Option writeHold     = new Option("u", "writeHold", true, "duration to hold the write-lock, in microseconds; default: 100");
+        Option readWork      = new Option("i", "readWork", true, "iterations of work done while holding the read-lock; default: 100");
+        Option lockTypes     = new Option("l", "lockTypes", true, "lock types to compare (comma separated): fair|striped; default: fair,striped");
+
+        Options options = new Options();
+
+        options.addOption(help);
+        options.addOption(readers);
+        options.addOption(duration);
+        options.addOption(writeInterval);
+        options.addOption(writeHold);
+        options.addOption(readWork);
+        options.addOption(lockTypes);
+
+        try {
+            CommandLine cmdLine = new DefaultParser().parse(options, args);
+
+            if (!cmdLine.hasOption("h")) {
+                return cmdLine;
+            }
+
+            new HelpFormatter().printHelp("RangerLockContentionBenchmark", options);
+        } catch (ParseException excp) {
+            System.out.println("Failed to parse arguments");
+            excp.printStackTrace(System.out);
+        }
+
+        return null;
+    }
+
+    private static class Result {
+        private final RangerReadWriteLock.LockType lockType;
+        private final long                         elapsedMs;
+        private final long                         readOps;
+        private final long                         writeOps;
+        private final long                         writeWaitNs;
+        private final long                         maxWriteWaitNs;
+
+        Result(RangerReadWriteLock.LockType lockType, long elapsedMs, long readOps, long writeOps, long writeWaitNs, long maxWriteWaitNs) {
+            this.lockType       = lockType;
+            this.elapsedMs      = elapsedMs;
+            this.readOps        = readOps;
+            this.writeOps       = writeOps;
+            this.writeWaitNs    = writeWaitNs;
+            this.maxWriteWaitNs = maxWriteWaitNs;
+        }
+
+        @Override
+        public String toString() {
+            long readsPerSec    = elapsedMs > 0 ? (readOps * 1000 / elapsedMs) : 0;
+            long avgWriteWaitUs = writeOps > 0 ? TimeUnit.NANOSECONDS.toMicros(writeWaitNs / writeOps) : 0;
+
+            return String.format("lockType=%-8s reads/sec=%,15d writes=%,6d avgWriteWait=%,8dus maxWriteWait=%,8dus", lockType, readsPerSec, writeOps, avgWriteWaitUs, TimeUnit.NANOSECONDS.toMicros(maxWriteWaitNs));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.model.EnumRepositoryType;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.utils.ORCFileUtil;
+import org.apache.ranger.audit.utils.RangerORCAuditWriter;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/*
+ * Measures throughput of writing audit events to ORC files, along the two paths HDFSAuditDestination can take:
+ *  json  : events are converted to JSON, and RangerORCAuditWriter converts them back to AuthzAuditEvent - as before
+ *  direct: events are given to ORCFileUtil as they are
+ * Files are written to the local file system; creation of events is included in both.
+ *
+ * Usage: ranger-orc-audit-benchmark.sh -n 10000 -b 100 -c zlib -m json,direct
+ */
+public class RangerORCAuditWriterBenchmark {
+    private static final String MODE_JSON   = "json";
+    private static final String MODE_DIRECT = "direct";
+
+    private final int         batchSize;
+    private final int         batchCount;
+    private final String      compression;
+    private final String[]    modes;
+    private final PrintStream out;
+
+    public RangerORCAuditWriterBenchmark(CommandLine cmdLine) {
+        this.out         = System.out;
+        this.batchSize   = Integer.parseInt(cmdLine.getOptionValue('n', "10000"));
+        this.batchCount  = Integer.parseInt(cmdLine.getOptionValue('b', "100"));
+        this.compression = cmdLine.getOptionValue('c', "zlib");
+        this.modes       = cmdLine.getOptionValue('m', MODE_JSON + "," + MODE_DIRECT).split(",");
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine cmdLine = parseArgs(args);
+
+        if (cmdLine != null) {
+            RangerORCAuditWriterBenchmark benchmark = new RangerORCAuditWriterBenchmark(cmdLine);
+
+            benchmark.run();
+        }
+    }
+
+    public void run() throws Exception {
+        out.printf("batchSize=%d, batches=%d, compression=%s%n", batchSize, batchCount, compression);
+
+        ORCFileUtil orcFileUtil = ORCFileUtil.getInstance();
+
+        orcFileUtil.init(batchSize, 64L * 1024 * 1024, compression);
+
+        for (String mode : modes) {
+            runOnce(orcFileUtil, mode, Math.max(1, batchCount / 10)); // warmup
+        }
+
+        for (String mode : modes) {
+            Result result = runOnce(orcFileUtil, mode, batchCount);
+
+            out.println(result);
+        }
+    }
+
+    private Result runOnce(ORCFileUtil orcFileUtil, String mode, int batches) throws Exception {
+        final boolean isJson;
+
+        if (MODE_JSON.equalsIgnoreCase(mode)) {
+            isJson = true;
+        } else if (MODE_DIRECT.equalsIgnoreCase(mode)) {
+            isJson = false;
+        } else {
+            throw new IllegalArgumentException("unknown mode: " + mode + "; supported: " + MODE_JSON + ", " + MODE_DIRECT);
+        }
+
+        Configuration        conf      = new Configuration();
+        FileSystem           fs        = FileSystem.getLocal(conf);
+        File                 file      = File.createTempFile("ranger-orc-audit-benchmark-", ".orc");
+        RangerORCAuditWriter orcWriter = new RangerORCAuditWriter();
+
+        file.delete(); // ORC writer fails if the file exists
+
+        Writer writer  = orcFileUtil.createWriter(conf, fs, file.getAbsolutePath());
+        long   startMs = System.currentTimeMillis();
+
+        for (int i = 0; i < batches; i++) {
+            Collection<AuthzAuditEvent> events = createEvents(i);
+
+            if (isJson) {
+                List<String> jsonList = new ArrayList<>(events.size());
+
+                for (AuthzAuditEvent event : events) {
+                    jsonList.add(MiscUtil.stringify(event));
+                }
+
+                events = orcWriter.getAuthzAuditEvents(jsonList);
+            }
+
+            orcFileUtil.log(writer, events);
+        }
+
+        orcFileUtil.close(writer);
+
+        long elapsedMs = System.currentTimeMillis() - startMs;
+        long fileSize  = file.length();
+
+        file.delete();
+        new File(file.getParent(), "." + file.getName() + ".crc").delete();
+
+        return new Result(mode, elapsedMs, (long) batches * batchSize, fileSize);
+    }
+
+    private List<AuthzAuditEvent> createEvents(int batchIdx) {
+        List<AuthzAuditEvent> ret = new ArrayList<>(batchSize);
+        Date                  now = new Date();
+
+        for (int i = 0; i < batchSize; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+            int             idx   = batchIdx * batchSize + i;
+
+            event.setEventId(Integer.toString(idx));
+            event.setEventTime(now);
+            event.setUser("user" + (idx % 100));
+            event.setClientIP("10.0.0." + (idx % 250));
+            event.setAccessResult((short) (idx % 2));
+            event.setAclEnforcer("ranger-acl");
+            event.setPolicyId(idx % 50);
+            event.setRepositoryName("dev_hdfs");
+            event.setRepositoryType(EnumRepositoryType.HDFS);
+            event.setResourcePath("/data/warehouse/db" + (idx % 20) + "/table" + (idx % 1000) + "/part-" + idx);
+            event.setResourceType("path");
+            event.setAccessType("read");
+            event.setAction("read");
+            event.setAgentId("hdfs");
+            event.setAgentHostname("host" + (idx % 10) + ".example.com");
+            event.setClusterName("cl1");
+
+            ret.add(event);
+        }
+
+        return ret;
+    }
+
+    private static CommandLine parseArgs(String[] args) {
+        Option help        = new Option("h", "help", false, "show help");
+        Option batchSize   = new Option("n", "batchSize", true, "number of events in each batch; default: 10000");
+        Option batchCount  = new Option("b", "batches", true, "number of batches written in each run; default: 100");
+        Option compression = new Option("c", "compression", true, "ORC compression: none|zlib|snappy|lzo; default: zlib");
+        Option modes       = new Option("m", "modes", true, "write paths to compare (comma separated): json|direct; default: json,direct");
+
+        Options options = new Options();
+
+        options.addOption(help);
+        options.addOption(batchSize);
+        options.addOption(batchCount);
+        options.addOption(compression);
+        options.addOption(modes);
+
+        try {
+            CommandLine cmdLine = new DefaultParser().parse(options, args);
+
+            if (!cmdLine.hasOption("h")) {
+                return cmdLine;
+            }
+
+            new HelpFormatter().printHelp("RangerORCAuditWriterBenchmark", options);
+        } catch (ParseException excp) {
+            System.out.println("Failed to parse arguments");
+            excp.printStackTrace(System.out);
+        }
+
+        return null;
+    }
+
+    private static class Result {
+        private final String mode;
+        private final long   elapsedMs;
+        private final long   eventCount;
+        private final long   fileSize;
+
+        Result(String mode, long elapsedMs, long eventCount, long fileSize) {
+            this.mode       = mode;
+            this.elapsedMs  = elapsedMs;
+            this.eventCount = eventCount;
+            this.fileSize   = fileSize;
+        }
+
+        @Override
+        public String toString() {
+            long eventsPerSec = elapsedMs > 0 ? (eventCount * 1000 / elapsedMs) : 0;
+
+            return String.format("mode=%-8s events/sec=%,12d events=%,d fileSize=%,d", mode, eventsPerSec, eventCount, fileSize);
+        }
+    }
+}
@@ -92,6 +92,7 @@ public class RangerMemSizing {
     private final boolean     deDupStrings;
     private final String      optimizationMode;
     private final boolean     reuseResourceMatchers;
+    private final boolean     compactTrieNodes;
     private final PrintStream out;
 
     public RangerMemSizing(CommandLine cmdLine) {
@@ -109,6 +110,7 @@ public RangerMemSizing(CommandLine cmdLine) {
         this.deDupStrings          = this.deDup;
         this.optimizationMode      = StringUtils.startsWithIgnoreCase(cmdLine.getOptionValue('o', "space"), "s") ? OPT_MODE_SPACE : OPT_MODEL_RETRIEVAL;
         this.reuseResourceMatchers = Boolean.parseBoolean(cmdLine.getOptionValue('m', "true"));
+        this.compactTrieNodes      = Boolean.parseBoolean(cmdLine.getOptionValue('n', "false"));
     }
 
     public static void main(String[] args) {
@@ -176,6 +178,7 @@ public void run() {
         out.println("  DeDup:         " + deDup);
         out.println("  OptMode:       " + optimizationMode);
         out.println("  ReuseMatchers: " + reuseResourceMatchers);
+        out.println("  CompactNodes:  " + compactTrieNodes);
         out.println();
 
         out.println("Results:");
@@ -573,6 +576,7 @@ private static CommandLine parseArgs(String[] args) {
         Option optimizeMode          = new Option("o", "optMode", true, "optimization mode: space|retrieval");
         Option reuseResourceMatchers = new Option("m", "reuseResourceMatchers", true, "reuse resource matchers: true|false");
         Option genResourceKeys       = new Option("k", "genResourceKeys", true, "list of resourceKeys (comma separated) to generate requests for");
+        Option compactTrieNodes      = new Option("n", "compactTrieNodes", true, "use compact array-based trie nodes: true|false");
 
         Options options = new Options();
 
@@ -589,6 +593,7 @@ private static CommandLine parseArgs(String[] args) {
         options.addOption(optimizeMode);
         options.addOption(reuseResourceMatchers);
         options.addOption(genResourceKeys);
+        options.addOption(compactTrieNodes);
 
         try {
             CommandLine cmdLine = new DefaultParser().parse(options, args);
@@ -619,15 +624,17 @@ private void log(String msg, Throwable excp) {
     private RangerPolicyEngineOptions getPolicyEngineOptions() {
         RangerPolicyEngineOptions ret = new RangerPolicyEngineOptions();
 
-        ret.disablePolicyRefresher      = true;
-        ret.disableTagRetriever         = true;
-        ret.disableUserStoreRetriever   = true;
-        ret.disableGdsInfoRetriever     = true;
-        ret.optimizeTrieForSpace        = optimizationMode.equals(OPT_MODE_SPACE);
-        ret.optimizeTrieForRetrieval    = !ret.optimizeTrieForSpace;
-        ret.optimizeTagTrieForSpace     = ret.optimizeTrieForSpace;
-        ret.optimizeTagTrieForRetrieval = ret.optimizeTrieForRetrieval;
-        ret.enableResourceMatcherReuse  = reuseResourceMatchers;
+        ret.disablePolicyRefresher         = true;
+        ret.disableTagRetriever            = true;
+        ret.disableUserStoreRetriever      = true;
+        ret.disableGdsInfoRetriever        = true;
+        ret.optimizeTrieForSpace           = optimizationMode.equals(OPT_MODE_SPACE);
+        ret.optimizeTrieForRetrieval       = !ret.optimizeTrieForSpace;
+        ret.optimizeTagTrieForSpace        = ret.optimizeTrieForSpace;
+        ret.optimizeTagTrieForRetrieval    = ret.optimizeTrieForRetrieval;
+        ret.optimizeTrieForCompactNodes    = compactTrieNodes;
+        ret.optimizeTagTrieForCompactNodes = compactTrieNodes;
+        ret.enableResourceMatcherReuse     = reuseResourceMatchers;
 
         return ret;
     }
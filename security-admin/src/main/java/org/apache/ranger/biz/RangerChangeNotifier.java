@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.ranger.db.XXGlobalStateDao.RANGER_GLOBAL_STATE_NAME_ROLE;
+import static org.apache.ranger.db.XXGlobalStateDao.RANGER_GLOBAL_STATE_NAME_USER_GROUP;
+
+/*
+ * Parks plugin requests waiting for a change in the version of policies/tags/roles/userstore of a service, until the
+ * version changes or the wait times out (long-poll). Versions are read from the database, so that changes made via any
+ * Ranger admin instance are noticed: a single thread reads the versions of all services every checkIntervalMs, only
+ * while there are waiting requests.
+ *
+ * Waiting requests are suspended with startAsync() - see RangerChangeWaitServlet, and are completed by the thread that
+ * reads the versions, or by the container on timeout; hence a waiting request doesn't hold a request thread. The
+ * number of waiting requests is limited to maxWaiters; requests beyond this limit fail with SC_SERVICE_UNAVAILABLE,
+ * and such plugins continue to poll.
+ */
+@Component
+public class RangerChangeNotifier {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerChangeNotifier.class);
+
+    public static final String PROP_ENABLED           = "ranger.admin.change.notification.enabled";
+    public static final String PROP_MAX_WAITERS       = "ranger.admin.change.notification.max.waiters";
+    public static final String PROP_MAX_WAIT_MS       = "ranger.admin.change.notification.max.wait.ms";
+    public static final String PROP_CHECK_INTERVAL_MS = "ranger.admin.change.notification.check.interval.ms";
+
+    private static final int  DEFAULT_MAX_WAITERS       = 1000;
+    private static final long DEFAULT_MAX_WAIT_MS       = 60 * 1000L;
+    private static final long DEFAULT_CHECK_INTERVAL_MS = 1000L;
+
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+
+    @Autowired
+    RangerDaoManager daoManager;
+
+    @Autowired
+    RESTErrorUtil restErrorUtil;
+
+    @Autowired
+    @Qualifier(value = "transactionManager")
+    PlatformTransactionManager txManager;
+
+    private boolean                  isEnabled;
+    private long                     maxWaitMs;
+    private Semaphore                waitPermits;
+    private TransactionTemplate      txTemplate;
+    private ScheduledExecutorService scheduler;
+
+    public static boolean isEnabled(RangerAdminConfig config) {
+        return config.getBoolean(PROP_ENABLED, true) && config.getInt(PROP_MAX_WAITERS, DEFAULT_MAX_WAITERS) > 0;
+    }
+
+    @PostConstruct
+    public void init() {
+        RangerAdminConfig config          = RangerAdminConfig.getInstance();
+        long              checkIntervalMs = config.getLong(PROP_CHECK_INTERVAL_MS, DEFAULT_CHECK_INTERVAL_MS);
+
+        isEnabled   = isEnabled(config);
+        maxWaitMs   = config.getLong(PROP_MAX_WAIT_MS, DEFAULT_MAX_WAIT_MS);
+        waitPermits = new Semaphore(Math.max(config.getInt(PROP_MAX_WAITERS, DEFAULT_MAX_WAITERS), 0));
+        txTemplate  = new TransactionTemplate(txManager);
+
+        txTemplate.setReadOnly(true);
+
+        if (isEnabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread ret = new Thread(runnable, "RangerChangeNotifier");
+
+                ret.setDaemon(true);
+
+                return ret;
+            });
+
+            scheduler.scheduleWithFixedDelay(this::checkForChanges, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        LOG.info("RangerChangeNotifier: enabled={}, maxWaiters={}, maxWaitMs={}, checkIntervalMs={}", isEnabled, waitPermits.availablePermits(), maxWaitMs, checkIntervalMs);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /*
+     * returns true if the version of given entity type of the service differs from lastKnownVersion. Otherwise, suspends
+     * the request until the version changes - when the request is completed with SC_NO_CONTENT, or timeoutMs elapses -
+     * when the request is completed with SC_NOT_MODIFIED; and returns false. Throws WebApplicationException with
+     * SC_SERVICE_UNAVAILABLE if the wait can't be serviced now.
+     */
+    public boolean waitForChange(int entityType, String serviceName, long lastKnownVersion, long timeoutMs, HttpServletRequest request) {
+        LOG.debug("==> RangerChangeNotifier.waitForChange(entityType={}, serviceName={}, lastKnownVersion={}, timeoutMs={})", entityType, serviceName, lastKnownVersion, timeoutMs);
+
+        if (!isEnabled) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "change notification is disabled", false);
+        }
+
+        if (!waitPermits.tryAcquire()) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "too many requests waiting for change", false);
+        }
+
+        final boolean ret;
+        boolean       isWaiting = false;
+
+        try {
+            Long version = txTemplate.execute(status -> getVersion(entityType, serviceName));
+
+            ret = isChanged(version, lastKnownVersion);
+
+            if (!ret) {
+                String       key          = getWatchKey(entityType, serviceName);
+                AsyncContext asyncContext = request.startAsync();
+                Waiter       waiter       = new Waiter(key, lastKnownVersion, asyncContext);
+
+                asyncContext.setTimeout(timeoutMs > 0 ? Math.min(timeoutMs, maxWaitMs) : maxWaitMs);
+                asyncContext.addListener(waiter);
+
+                Watch watch = watches.compute(key, (k, v) -> {
+                    Watch watchForKey = v != null ? v : new Watch(entityType, serviceName, version);
+
+                    watchForKey.addWaiter(waiter, version);
+
+                    return watchForKey;
+                });
+
+                isWaiting = true;
+
+                watch.notifyWaiters(); // outside compute(), as completing a request updates watches
+            }
+        } finally {
+            if (!isWaiting) {
+                waitPermits.release();
+            }
+        }
+
+        LOG.debug("<== RangerChangeNotifier.waitForChange(entityType={}, serviceName={}, lastKnownVersion={}, timeoutMs={}): ret={}", entityType, serviceName, lastKnownVersion, timeoutMs, ret);
+
+        return ret;
+    }
+
+    private void checkForChanges() {
+        if (watches.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Long> versions = txTemplate.execute(status -> getVersions());
+
+            for (Map.Entry<String, Watch> entry : watches.entrySet()) {
+                entry.getValue().setVersion(versions.get(entry.getKey()));
+            }
+        } catch (Throwable excp) {
+            LOG.warn("RangerChangeNotifier.checkForChanges(): failed to read versions. Will retry", excp);
+        }
+    }
+
+    private Map<String, Long> getVersions() {
+        Map<String, Long> ret              = new HashMap<>();
+        boolean           isRoleByService  = ServiceDBStore.isSupportsRolesDownloadByService();
+        Long              roleVersion      = isRoleByService ? null : daoManager.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_ROLE);
+        Long              userStoreVersion = daoManager.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_USER_GROUP);
+        List<Object[]>    serviceVersions  = daoManager.getXXServiceVersionInfo().getAllWithServiceNames();
+
+        for (Object[] row : serviceVersions) {
+            if (row.length != 2 || !(row[0] instanceof XXServiceVersionInfo)) {
+                continue;
+            }
+
+            XXServiceVersionInfo versionInfo = (XXServiceVersionInfo) row[0];
+            String               serviceName = (String) row[1];
+
+            ret.put(getWatchKey(RangerPluginInfo.ENTITY_TYPE_POLICIES, serviceName), versionInfo.getPolicyVersion());
+            ret.put(getWatchKey(RangerPluginInfo.ENTITY_TYPE_TAGS, serviceName), versionInfo.getTagVersion());
+            ret.put(getWatchKey(RangerPluginInfo.ENTITY_TYPE_ROLES, serviceName), isRoleByService ? versionInfo.getRoleVersion() : roleVersion);
+            ret.put(getWatchKey(RangerPluginInfo.ENTITY_TYPE_USERSTORE, serviceName), userStoreVersion);
+        }
+
+        return ret;
+    }
+
+    private Long getVersion(int entityType, String serviceName) {
+        final Long ret;
+
+        if (entityType == RangerPluginInfo.ENTITY_TYPE_USERSTORE) {
+            ret = daoManager.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_USER_GROUP);
+        } else if (entityType == RangerPluginInfo.ENTITY_TYPE_ROLES && !ServiceDBStore.isSupportsRolesDownloadByService()) {
+            ret = daoManager.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_ROLE);
+        } else {
+            XXServiceVersionInfo versionInfo = daoManager.getXXServiceVersionInfo().findByServiceName(serviceName);
+
+            if (versionInfo == null) {
+                ret = null;
+            } else if (entityType == RangerPluginInfo.ENTITY_TYPE_POLICIES) {
+                ret = versionInfo.getPolicyVersion();
+            } else if (entityType == RangerPluginInfo.ENTITY_TYPE_TAGS) {
+                ret = versionInfo.getTagVersion();
+            } else if (entityType == RangerPluginInfo.ENTITY_TYPE_ROLES) {
+                ret = versionInfo.getRoleVersion();
+            } else {
+                ret = null;
+            }
+        }
+
+        return ret;
+    }
+
+    private static String getWatchKey(int entityType, String serviceName) {
+        return entityType + ":" + serviceName;
+    }
+
+    private static boolean isChanged(Long version, long lastKnownVersion) {
+        return version != null && version != lastKnownVersion;
+    }
+
+    private static class Watch {
+        private final int          entityType;
+        private final String       serviceName;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private       Long         version;
+
+        Watch(int entityType, String serviceName, Long version) {
+            this.entityType  = entityType;
+            this.serviceName = serviceName;
+            this.version     = version;
+        }
+
+        /*
+         * version, as read by the request, is more recent than the one read earlier by checkForChanges()
+         */
+        synchronized void addWaiter(Waiter waiter, Long version) {
+            waiters.add(waiter);
+
+            if (version != null) {
+                this.version = version;
+            }
+        }
+
+        /*
+         * returns true if there are no more waiters
+         */
+        synchronized boolean removeWaiter(Waiter waiter) {
+            waiters.remove(waiter);
+
+            return waiters.isEmpty();
+        }
+
+        void setVersion(Long version) {
+            boolean isUpdated = false;
+
+            synchronized (this) {
+                if (!Objects.equals(this.version, version)) {
+                    LOG.debug("RangerChangeNotifier: version changed from {} to {}: entityType={}, serviceName={}", this.version, version, entityType, serviceName);
+
+                    this.version = version;
+                    isUpdated    = true;
+                }
+            }
+
+            if (isUpdated) {
+                notifyWaiters();
+            }
+        }
+
+        /*
+         * completes requests waiting for a version other than the current version. Requests are completed without
+         * holding the lock, as completion removes the waiter from watches - which locks the watch.
+         */
+        void notifyWaiters() {
+            List<Waiter> changedWaiters = null;
+
+            synchronized (this) {
+                for (Waiter waiter : waiters) {
+                    if (isChanged(version, waiter.lastKnownVersion)) {
+                        if (changedWaiters == null) {
+                            changedWaiters = new ArrayList<>();
+                        }
+
+                        changedWaiters.add(waiter);
+                    }
+                }
+            }
+
+            if (changedWaiters != null) {
+                for (Waiter waiter : changedWaiters) {
+                    waiter.complete(HttpServletResponse.SC_NO_CONTENT);
+                }
+            }
+        }
+    }
+
+    /*
+     * a request waiting for change; completed once - on change, timeout or error
+     */
+    private final class Waiter implements AsyncListener {
+        private final String        key;
+        private final long          lastKnownVersion;
+        private final AsyncContext  asyncContext;
+        private final AtomicBoolean isCompleted = new AtomicBoolean();
+
+        Waiter(String key, long lastKnownVersion, AsyncContext asyncContext) {
+            this.key              = key;
+            this.lastKnownVersion = lastKnownVersion;
+            this.asyncContext     = asyncContext;
+        }
+
+        void complete(int httpCode) {
+            if (isCompleted.compareAndSet(false, true)) {
+                try {
+                    ((HttpServletResponse) asyncContext.getResponse()).setStatus(httpCode);
+
+                    asyncContext.complete();
+                } catch (IllegalStateException excp) {
+                    LOG.debug("RangerChangeNotifier: request already completed: key={}", key, excp);
+                } finally {
+                    release();
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (isCompleted.compareAndSet(false, true)) { // completed by the container
+                release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            LOG.debug("RangerChangeNotifier: error while waiting for change: key={}", key, event.getThrowable());
+
+            complete(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release() {
+            watches.computeIfPresent(key, (k, v) -> v.removeWaiter(this) ? null : v);
+
+            waitPermits.release();
+        }
+    }
+}
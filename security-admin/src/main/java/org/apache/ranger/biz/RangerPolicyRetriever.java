@@ -22,6 +22,7 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.db.RangerDaoManager;
@@ -32,6 +33,7 @@
 import org.apache.ranger.entity.XXSecurityZone;
 import org.apache.ranger.entity.XXService;
 import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.entity.XXServiceVersionInfo;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
@@ -46,23 +48,68 @@
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/*
+ * Retrieves policies of a service from the database. When a transaction manager is given, policies are loaded in
+ * pages of policy-ids, each in a new read-only transaction: pages are loaded - i.e. queried, parsed from policyText
+ * and updated with current names of referenced users/groups/roles/resources/etc - in parallel by a bounded pool of
+ * threads shared by all retrievers. Loading a page only needs policies and labels of its range of policy-ids, so
+ * that entities of other pages aren't held in memory meanwhile.
+ * As pages are read in different transactions, policy version of the service is read before and after loading the
+ * pages; if it changed, i.e. policies were updated during the load, the load is retried. After a few such attempts,
+ * policies are loaded in a single transaction.
+ */
 public class RangerPolicyRetriever {
     static final Logger LOG      = LoggerFactory.getLogger(RangerPolicyRetriever.class);
     static final Logger PERF_LOG = RangerPerfTracer.getPerfLogger("db.RangerPolicyRetriever");
 
+    public static final String PROP_LOADER_THREADS   = "ranger.admin.policy.retriever.loader.threads";
+    public static final String PROP_LOADER_PAGE_SIZE = "ranger.admin.policy.retriever.loader.page.size";
+
+    private static final int DEFAULT_LOADER_THREADS   = 4;
+    private static final int DEFAULT_LOADER_PAGE_SIZE = 2000;
+    private static final int MAX_PAGED_LOAD_ATTEMPTS  = 3;
+
+    private static final Map<String, PolicyLoadStats> policyLoadStats = new ConcurrentHashMap<>();
+    private static volatile ThreadPoolExecutor       loaderExecutor;
+
     private final RangerDaoManager           daoMgr;
     private final LookupCache                lookupCache = new LookupCache();
     private final PlatformTransactionManager txManager;
     private final TransactionTemplate        txTemplate;
+    private final int                        pageSize;
 
     public RangerPolicyRetriever(RangerDaoManager daoMgr, PlatformTransactionManager txManager) {
+        this(daoMgr, txManager, getLoaderThreadCount() > 0 ? RangerAdminConfig.getInstance().getInt(PROP_LOADER_PAGE_SIZE, DEFAULT_LOADER_PAGE_SIZE) : 0);
+    }
+
+    public RangerPolicyRetriever(RangerDaoManager daoMgr) {
+        this.daoMgr     = daoMgr;
+        this.txManager  = null;
+        this.txTemplate = null;
+        this.pageSize   = 0;
+    }
+
+    /*
+     * pageSize <= 0 loads all policies of a service in a single new transaction
+     */
+    RangerPolicyRetriever(RangerDaoManager daoMgr, PlatformTransactionManager txManager, int pageSize) {
         this.daoMgr    = daoMgr;
         this.txManager = txManager;
+        this.pageSize  = pageSize;
 
         if (this.txManager != null) {
             this.txTemplate = new TransactionTemplate(this.txManager);
@@ -72,10 +119,11 @@ public RangerPolicyRetriever(RangerDaoManager daoMgr, PlatformTransactionManager
         }
     }
 
-    public RangerPolicyRetriever(RangerDaoManager daoMgr) {
-        this.daoMgr     = daoMgr;
-        this.txManager  = null;
-        this.txTemplate = null;
+    /*
+     * duration and policy count of the last load of policies of each service, by service name
+     */
+    public static Map<String, PolicyLoadStats> getPolicyLoadStats() {
+        return Collections.unmodifiableMap(policyLoadStats);
     }
 
     static List<XXPolicy> asList(XXPolicy policy) {
@@ -126,8 +174,9 @@ public List<RangerPolicy> getServicePolicies(final XXService xService) {
 
         LOG.debug("==> RangerPolicyRetriever.getServicePolicies(serviceName={}, serviceId={})", serviceName, serviceId);
 
-        List<RangerPolicy> ret  = null;
-        RangerPerfTracer   perf = null;
+        List<RangerPolicy> ret         = null;
+        RangerPerfTracer   perf        = null;
+        long               startTimeMs = System.currentTimeMillis();
 
         if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerPolicyRetriever.getServicePolicies(serviceName=" + serviceName + ",serviceId=" + serviceId + ")");
@@ -140,21 +189,22 @@ public List<RangerPolicy> getServicePolicies(final XXService xService) {
                 RetrieverContext ctx = new RetrieverContext(xService);
 
                 ret = ctx.getAllPolicies();
+            } else if (pageSize > 0) {
+                LOG.debug("Retrieving policies in pages of {} policies, each in a new, read-only transaction", pageSize);
+
+                ret = getServicePoliciesInPages(xService);
             } else {
                 LOG.debug("Retrieving policies in a new, read-only transaction");
 
-                PolicyLoaderThread t = new PolicyLoaderThread(txTemplate, xService);
+                ret = getServicePoliciesInTransaction(xService);
+            }
 
-                t.setDaemon(true);
-                t.start();
+            if (ret != null) {
+                long loadTimeMs = System.currentTimeMillis() - startTimeMs;
 
-                try {
-                    t.join();
+                policyLoadStats.put(serviceName, new PolicyLoadStats(loadTimeMs, ret.size()));
 
-                    ret = t.getPolicies();
-                } catch (InterruptedException ie) {
-                    LOG.error("Failed to retrieve policies in a new, read-only thread.", ie);
-                }
+                LOG.info("RangerPolicyRetriever.getServicePolicies(serviceName={}): loaded {} policies in {} ms", serviceName, ret.size(), loadTimeMs);
             }
         } else {
             LOG.debug("RangerPolicyRetriever.getServicePolicies(xService={}): invalid parameter", xService);
@@ -226,6 +276,177 @@ public RangerPolicy getPolicy(XXPolicy xPolicy, XXService xService) {
         return ret;
     }
 
+    private List<RangerPolicy> getServicePoliciesInTransaction(final XXService xService) {
+        List<RangerPolicy> ret = null;
+
+        PolicyLoaderThread t = new PolicyLoaderThread(txTemplate, xService);
+
+        t.setDaemon(true);
+        t.start();
+
+        try {
+            t.join();
+
+            ret = t.getPolicies();
+        } catch (InterruptedException ie) {
+            LOG.error("Failed to retrieve policies in a new, read-only thread.", ie);
+        }
+
+        return ret;
+    }
+
+    private List<RangerPolicy> getServicePoliciesInPages(final XXService xService) {
+        ThreadPoolExecutor executor   = getLoaderExecutor();
+        List<RangerPolicy> ret        = null;
+        boolean            isComplete = false;
+
+        for (int attempt = 1; attempt <= MAX_PAGED_LOAD_ATTEMPTS && !isComplete; attempt++) {
+            try {
+                Long versionBefore = executor.submit(() -> getPolicyVersion(xService.getId())).get();
+
+                ret = getServicePoliciesInPages(xService, executor);
+
+                if (ret == null) { // failure is logged by getServicePoliciesInPages()
+                    isComplete = true;
+                } else {
+                    Long versionAfter = executor.submit(() -> getPolicyVersion(xService.getId())).get();
+
+                    isComplete = Objects.equals(versionBefore, versionAfter);
+
+                    if (!isComplete) {
+                        LOG.info("RangerPolicyRetriever.getServicePolicies(serviceName={}): policy version changed from {} to {} while loading policies; attempt={}", xService.getName(), versionBefore, versionAfter, attempt);
+                    }
+                }
+            } catch (ExecutionException excp) {
+                ret        = null;
+                isComplete = true;
+
+                LOG.error("RangerPolicyRetriever.getServicePolicies(): Failed to get policy version for service:[{}]", xService.getName(), excp.getCause());
+            } catch (InterruptedException excp) {
+                ret        = null;
+                isComplete = true;
+
+                LOG.error("RangerPolicyRetriever.getServicePolicies(): interrupted while getting policies for service:[{}]", xService.getName(), excp);
+            }
+        }
+
+        if (!isComplete) {
+            LOG.info("RangerPolicyRetriever.getServicePolicies(serviceName={}): policies were updated during each of {} paged loads; loading in a single transaction", xService.getName(), MAX_PAGED_LOAD_ATTEMPTS);
+
+            ret = getServicePoliciesInTransaction(xService);
+        }
+
+        return ret;
+    }
+
+    private List<RangerPolicy> getServicePoliciesInPages(final XXService xService, ThreadPoolExecutor executor) {
+        List<Future<List<RangerPolicy>>> pages = new ArrayList<>();
+        List<RangerPolicy>               ret   = null;
+
+        try {
+            // name mappings are loaded before the pages, and only read while loading the pages
+            List<Long> policyIds = executor.submit(() -> txTemplate.execute(status -> {
+                lookupCache.setNameMappingsForService(xService.getId());
+
+                return daoMgr.getXXPolicy().findSortedPolicyIdsByServiceId(xService.getId());
+            })).get();
+
+            for (int i = 0; i < policyIds.size(); i += pageSize) {
+                final Long minPolicyId = policyIds.get(i);
+                final Long maxPolicyId = policyIds.get(Math.min(i + pageSize, policyIds.size()) - 1);
+
+                pages.add(executor.submit(() -> getPolicyPage(xService, minPolicyId, maxPolicyId)));
+            }
+
+            ret = new ArrayList<>(policyIds.size());
+
+            for (Future<List<RangerPolicy>> page : pages) {
+                List<RangerPolicy> policies = page.get();
+
+                if (policies == null) { // failure is logged by getPolicyPage()
+                    ret = null;
+
+                    break;
+                }
+
+                ret.addAll(policies);
+            }
+        } catch (ExecutionException excp) {
+            ret = null;
+
+            LOG.error("RangerPolicyRetriever.getServicePolicies(): Failed to get policies for service:[{}]", xService.getName(), excp.getCause());
+        } catch (InterruptedException excp) {
+            ret = null;
+
+            LOG.error("RangerPolicyRetriever.getServicePolicies(): interrupted while getting policies for service:[{}]", xService.getName(), excp);
+        } finally {
+            for (Future<List<RangerPolicy>> page : pages) {
+                page.cancel(true);
+            }
+        }
+
+        return ret;
+    }
+
+    private Long getPolicyVersion(Long serviceId) {
+        return txTemplate.execute(status -> {
+            XXServiceVersionInfo versionInfo = daoMgr.getXXServiceVersionInfo().findByServiceId(serviceId);
+
+            return versionInfo != null ? versionInfo.getPolicyVersion() : null;
+        });
+    }
+
+    private List<RangerPolicy> getPolicyPage(XXService xService, Long minPolicyId, Long maxPolicyId) {
+        return txTemplate.execute(status -> {
+            try {
+                List<XXPolicy>         xPolicies     = daoMgr.getXXPolicy().findByServiceIdAndIdRange(xService.getId(), minPolicyId, maxPolicyId);
+                List<XXPolicyLabelMap> xPolicyLabels = daoMgr.getXXPolicyLabelMap().findByServiceIdAndPolicyIdRange(xService.getId(), minPolicyId, maxPolicyId);
+                RetrieverContext       ctx           = new RetrieverContext(xService, xPolicies, xPolicyLabels);
+
+                return ctx.getAllPolicies();
+            } catch (Exception ex) {
+                LOG.error("RangerPolicyRetriever.getServicePolicies(): Failed to get policies with id {} to {} for service:[{}]", minPolicyId, maxPolicyId, xService.getName(), ex);
+
+                status.setRollbackOnly();
+
+                return null;
+            }
+        });
+    }
+
+    private static int getLoaderThreadCount() {
+        return RangerAdminConfig.getInstance().getInt(PROP_LOADER_THREADS, DEFAULT_LOADER_THREADS);
+    }
+
+    private static ThreadPoolExecutor getLoaderExecutor() {
+        ThreadPoolExecutor ret = loaderExecutor;
+
+        if (ret == null) {
+            synchronized (RangerPolicyRetriever.class) {
+                ret = loaderExecutor;
+
+                if (ret == null) {
+                    int           threadCount = Math.max(getLoaderThreadCount(), 1);
+                    AtomicInteger threadNum   = new AtomicInteger();
+
+                    ret = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "RangerPolicyLoader-" + threadNum.incrementAndGet());
+
+                        thread.setDaemon(true);
+
+                        return thread;
+                    });
+
+                    ret.allowCoreThreadTimeOut(true); // threads are needed only while loading policies
+
+                    loaderExecutor = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     private XXService getXXService(Long serviceId) {
         XXService ret = null;
 
@@ -268,6 +489,24 @@ public PolicyTextNameMap(Long policyId, String oldName, String currentName) {
         }
     }
 
+    public static class PolicyLoadStats {
+        private final long loadTimeMs;
+        private final int  policyCount;
+
+        PolicyLoadStats(long loadTimeMs, int policyCount) {
+            this.loadTimeMs  = loadTimeMs;
+            this.policyCount = policyCount;
+        }
+
+        public long getLoadTimeMs() {
+            return loadTimeMs;
+        }
+
+        public int getPolicyCount() {
+            return policyCount;
+        }
+    }
+
     private class PolicyLoaderThread extends Thread {
         final TransactionTemplate txTemplate;
         final XXService           xService;
@@ -305,9 +544,13 @@ public void run() {
         }
     }
 
+    /*
+     * names looked up on demand are cached in concurrent maps, as pages of policies are loaded in parallel; name
+     * mappings are set before loading policies, and only read afterwards
+     */
     class LookupCache {
-        final Map<Long, String>              userScreenNames            = new HashMap<>();
-        final Map<Long, String>              zoneNames                  = new HashMap<>();
+        final Map<Long, String>              userScreenNames            = new ConcurrentHashMap<>();
+        final Map<Long, String>              zoneNames                  = new ConcurrentHashMap<>();
         final Map<Long, Map<String, String>> roleMappingsPerPolicy      = new HashMap<>();
         final Map<Long, Map<String, String>> groupMappingsPerPolicy     = new HashMap<>();
         final Map<Long, Map<String, String>> userMappingsPerPolicy      = new HashMap<>();
@@ -315,7 +558,17 @@ class LookupCache {
         final Map<Long, Map<String, String>> resourceMappingsPerPolicy  = new HashMap<>();
         final Map<Long, Map<String, String>> dataMaskMappingsPerPolicy  = new HashMap<>();
         final Map<Long, Map<String, String>> conditionMappingsPerPolicy = new HashMap<>();
-        final Map<Long, String>              policyLabels               = new HashMap<>();
+        final Map<Long, String>              policyLabels               = new ConcurrentHashMap<>();
+
+        void setNameMappingsForService(Long serviceId) {
+            setRoleNameMapping(daoMgr.getXXPolicyRefRole().findUpdatedRoleNamesByService(serviceId));
+            setGroupNameMapping(daoMgr.getXXPolicyRefGroup().findUpdatedGroupNamesByService(serviceId));
+            setUserNameMapping(daoMgr.getXXPolicyRefUser().findUpdatedUserNamesByService(serviceId));
+            setAccessNameMapping(daoMgr.getXXPolicyRefAccessType().findUpdatedAccessNamesByService(serviceId));
+            setResourceNameMapping(daoMgr.getXXPolicyRefResource().findUpdatedResourceNamesByService(serviceId));
+            setDataMaskNameMapping(daoMgr.getXXPolicyRefDataMaskType().findUpdatedDataMaskNamesByService(serviceId));
+            setConditionNameMapping(daoMgr.getXXPolicyRefCondition().findUpdatedConditionNamesByService(serviceId));
+        }
 
         public void setResourceNameMapping(List<PolicyTextNameMap> resourceNameMapping) {
             setNameMapping(resourceMappingsPerPolicy, resourceNameMapping);
@@ -341,7 +594,9 @@ String getPolicyLabelName(Long policyLabelId) {
                     if (xxPolicyLabel != null) {
                         ret = xxPolicyLabel.getPolicyLabel();
 
-                        policyLabels.put(policyLabelId, ret);
+                        if (ret != null) {
+                            policyLabels.put(policyLabelId, ret);
+                        }
                     }
                 }
             }
@@ -452,13 +707,7 @@ class RetrieverContext {
             if (xService != null) {
                 Long serviceId = xService.getId();
 
-                lookupCache.setRoleNameMapping(daoMgr.getXXPolicyRefRole().findUpdatedRoleNamesByService(serviceId));
-                lookupCache.setGroupNameMapping(daoMgr.getXXPolicyRefGroup().findUpdatedGroupNamesByService(serviceId));
-                lookupCache.setUserNameMapping(daoMgr.getXXPolicyRefUser().findUpdatedUserNamesByService(serviceId));
-                lookupCache.setAccessNameMapping(daoMgr.getXXPolicyRefAccessType().findUpdatedAccessNamesByService(serviceId));
-                lookupCache.setResourceNameMapping(daoMgr.getXXPolicyRefResource().findUpdatedResourceNamesByService(serviceId));
-                lookupCache.setDataMaskNameMapping(daoMgr.getXXPolicyRefDataMaskType().findUpdatedDataMaskNamesByService(serviceId));
-                lookupCache.setConditionNameMapping(daoMgr.getXXPolicyRefCondition().findUpdatedConditionNamesByService(serviceId));
+                lookupCache.setNameMappingsForService(serviceId);
 
                 this.service          = xService;
                 this.serviceDef       = daoMgr.getXXServiceDef().getById(xService.getType());
@@ -472,6 +721,16 @@ class RetrieverContext {
             }
         }
 
+        /*
+         * name mappings of the service must be set in lookupCache before this
+         */
+        RetrieverContext(XXService xService, List<XXPolicy> xPolicies, List<XXPolicyLabelMap> xPolicyLabels) {
+            this.service          = xService;
+            this.serviceDef       = daoMgr.getXXServiceDef().getById(xService.getType());
+            this.iterPolicy       = xPolicies.listIterator();
+            this.iterPolicyLabels = xPolicyLabels != null ? xPolicyLabels.listIterator() : null;
+        }
+
         RetrieverContext(XXPolicy xPolicy, XXService xService) {
             Long policyId = xPolicy.getId();
 
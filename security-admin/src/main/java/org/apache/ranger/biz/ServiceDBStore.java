@@ -47,6 +47,7 @@
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.common.RangerFactory;
 import org.apache.ranger.common.RangerServicePoliciesCache;
+import org.apache.ranger.common.RangerSharedSnapshotStore;
 import org.apache.ranger.common.RangerVersionInfo;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.StringUtil;
@@ -187,6 +188,7 @@
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
@@ -2040,6 +2042,15 @@ public void initStore() {
         LOG.debug("<== ServiceDBStore.initStore()");
     }
 
+    @PreDestroy
+    public void destroyStore() {
+        LOG.debug("==> ServiceDBStore.destroyStore()");
+
+        RangerSharedSnapshotStore.shutdown();
+
+        LOG.debug("<== ServiceDBStore.destroyStore()");
+    }
+
     public void deleteXXAccessTypeDef(XXAccessTypeDef xAccess) {
         List<XXAccessTypeDefGrants> atdGrantsList = daoMgr.getXXAccessTypeDefGrants().findByATDId(xAccess.getId());
 
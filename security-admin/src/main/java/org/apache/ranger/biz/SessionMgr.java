@@ -159,7 +159,7 @@ public UserSessionBase processSuccessLogin(int authType, String userAgent, HttpS
                                 gjAuthSession = storeAuthSession(gjAuthSession);
 
                                 session.setAttribute("auditLoginId", gjAuthSession.getId());
-                            } else if (!StringUtils.isEmpty(httpRequest.getRequestURI()) && !(httpRequest.getRequestURI().contains("/secure/policies/download/") || httpRequest.getRequestURI().contains("/secure/download/"))) {
+                            } else if (!StringUtils.isEmpty(httpRequest.getRequestURI()) && !(httpRequest.getRequestURI().contains("/secure/policies/download/") || httpRequest.getRequestURI().contains("/secure/download/") || httpRequest.getRequestURI().contains("/secure/policies/wait/") || httpRequest.getRequestURI().contains("/secure/wait/"))) {
                                 gjAuthSession = storeAuthSession(gjAuthSession);
 
                                 session.setAttribute("auditLoginId", gjAuthSession.getId());
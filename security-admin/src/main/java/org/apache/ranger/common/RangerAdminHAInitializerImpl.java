@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.RangerHAInitializer;
+import org.apache.ranger.ha.ActiveInstanceElectorService;
+import org.apache.ranger.ha.ActiveStateChangeHandler;
+import org.apache.ranger.ha.HAConfiguration;
+import org.apache.ranger.ha.ServiceState;
+import org.apache.ranger.ha.service.HARangerService;
+import org.apache.ranger.ha.service.ServiceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Elects one active instance among Ranger admin instances of a cluster, using ZooKeeper - configured with properties
+ * ranger-admin.server.ha.*, like ranger-admin.server.ha.enabled and ranger-admin.server.ha.zookeeper.connect. When HA
+ * is not enabled, the instance is always active.
+ */
+public class RangerAdminHAInitializerImpl extends RangerHAInitializer {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAdminHAInitializerImpl.class);
+
+    public static final String RANGER_ADMIN_SERVICE_NAME = "ranger-admin";
+
+    private static volatile RangerAdminHAInitializerImpl theInstance;
+
+    private ServiceManager serviceManager;
+
+    private RangerAdminHAInitializerImpl(Configuration configuration) {
+        LOG.debug("==> RangerAdminHAInitializerImpl.RangerAdminHAInitializerImpl()");
+
+        try {
+            init(configuration);
+        } catch (Exception e) {
+            LOG.error("RangerAdminHAInitializerImpl initialization failed", e);
+        }
+
+        LOG.debug("<== RangerAdminHAInitializerImpl.RangerAdminHAInitializerImpl()");
+    }
+
+    public static RangerAdminHAInitializerImpl getInstance(Configuration configuration) {
+        RangerAdminHAInitializerImpl me = theInstance;
+
+        if (me == null) {
+            synchronized (RangerAdminHAInitializerImpl.class) {
+                me = theInstance;
+
+                if (me == null) {
+                    me          = new RangerAdminHAInitializerImpl(configuration);
+                    theInstance = me;
+                }
+            }
+        }
+
+        return me;
+    }
+
+    /*
+     * stops the instance created by getInstance(), if any - the election service is started on creation
+     */
+    public static void shutdown() {
+        RangerAdminHAInitializerImpl me;
+
+        synchronized (RangerAdminHAInitializerImpl.class) {
+            me          = theInstance;
+            theInstance = null;
+        }
+
+        if (me != null) {
+            me.stop();
+        }
+    }
+
+    @Override
+    public void init(Configuration configuration) throws Exception {
+        Configuration haConfiguration = new Configuration(configuration);
+
+        if (haConfiguration.get(HAConfiguration.RANGER_SERVICE_NAME) == null) {
+            haConfiguration.set(HAConfiguration.RANGER_SERVICE_NAME, RANGER_ADMIN_SERVICE_NAME);
+        }
+
+        super.init(haConfiguration);
+
+        LOG.info("==> RangerAdminHAInitializerImpl.init() initialization started");
+
+        Set<ActiveStateChangeHandler> activeStateChangeHandlerProviders = new HashSet<>();
+        List<HARangerService>         haRangerServices                  = new ArrayList<>();
+
+        haRangerServices.add(new ActiveInstanceElectorService(activeStateChangeHandlerProviders, curatorFactory, activeInstanceState, serviceState, haConfiguration));
+
+        serviceManager = new ServiceManager(haRangerServices);
+
+        LOG.info("<== RangerAdminHAInitializerImpl.init() initialization completed");
+    }
+
+    @Override
+    public void stop() {
+        LOG.debug("==> RangerAdminHAInitializerImpl.stop()");
+
+        if (serviceManager != null) {
+            serviceManager.stop();
+        }
+
+        if (curatorFactory != null) {
+            curatorFactory.close();
+        }
+
+        LOG.debug("<== RangerAdminHAInitializerImpl.stop()");
+    }
+
+    public boolean isActive() {
+        return serviceState != null && serviceState.getState() == ServiceState.ServiceStateValue.ACTIVE;
+    }
+}
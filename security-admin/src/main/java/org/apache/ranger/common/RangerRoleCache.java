@@ -29,7 +29,10 @@
 
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -40,10 +43,10 @@ public class RangerRoleCache {
 
     private static volatile RangerRoleCache sInstance;
 
-    private final int           waitTimeInSeconds;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final int                               waitTimeInSeconds;
+    private final Map<Long, RangerRoleCacheWrapper> roleCacheWrappers = new ConcurrentHashMap<>(); // keyed by role version
 
-    RangerRoleCacheWrapper roleCacheWrapper;
+    private volatile RangerRoles latestRoles; // most recently loaded roles
 
     private RangerRoleCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -72,8 +75,9 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
         final RangerRoles ret;
 
         if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-            roleCacheWrapper = new RangerRoleCacheWrapper();
-            ret              = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
+            RangerRoleCacheWrapper roleCacheWrapper = rangerRoleVersionInDB != null ? roleCacheWrappers.computeIfAbsent(rangerRoleVersionInDB, RangerRoleCacheWrapper::new) : new RangerRoleCacheWrapper(null);
+
+            ret = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion);
         } else {
             ret = null;
         }
@@ -81,13 +85,18 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
         return ret;
     }
 
+    /*
+     * roles of a version are loaded once: concurrent requests for the version wait for the request that loads them, except
+     * requests that already have the most recently loaded roles - these are told there is no change
+     */
     private class RangerRoleCacheWrapper {
-        RangerRoles roles;
-        Long        rolesVersion;
+        final    Long          rolesVersion;
+        final    ReentrantLock lock = new ReentrantLock();
+        volatile RangerRoles   roles;
 
-        RangerRoleCacheWrapper() {
+        RangerRoleCacheWrapper(Long rolesVersion) {
+            this.rolesVersion = rolesVersion;
             this.roles        = null;
-            this.rolesVersion = -1L;
         }
 
         public RangerRoles getRoles() {
@@ -98,51 +107,96 @@ public Long getRolesVersion() {
             return this.rolesVersion;
         }
 
-        public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rolesVersionInDB) throws Exception {
-            RangerRoles ret        = null;
-            boolean     lockResult = false;
+        public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion) throws Exception {
+            RangerRoles ret           = this.roles;
+            boolean     lockResult    = false;
+            boolean     isServedStale = false;
+
+            LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {})", serviceName, lastKnownRoleVersion, rolesVersion);
 
-            LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {})", serviceName, lastKnownRoleVersion, rolesVersionInDB);
+            if (ret == null) {
+                RangerRoles cachedRoles = latestRoles;
 
-            try {
-                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                try {
+                    // wait for the snapshot, if it would be used, without holding the lock
+                    RangerSharedSnapshotStore.getInstance().waitFor(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, rolesVersion);
 
-                if (lockResult) {
-                    // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
-                    final long            startTimeMs  = System.currentTimeMillis();
-                    SearchFilter          searchFilter = null;
-                    final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
-                    final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
-                    Date                  updateTime   = new Date();
+                    lockResult = lock.tryLock();
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
+                    if (!lockResult) {
+                        if (cachedRoles != null && Objects.equals(lastKnownRoleVersion, cachedRoles.getRoleVersion())) {
+                            isServedStale = true;
+                        } else {
+                            lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                        }
                     }
 
-                    ret = new RangerRoles();
+                    if (lockResult) {
+                        ret = this.roles; // loaded by the request that held the lock
 
-                    ret.setRangerRoles(rolesInDB);
-                    ret.setRoleUpdateTime(updateTime);
-                    ret.setRoleVersion(rolesVersionInDB);
+                        if (ret == null) {
+                            ret = loadRoles(roleDBStore);
 
-                    rolesVersion = rolesVersionInDB;
-                    roles        = ret;
-                } else {
-                    LOG.debug("Could not get lock in [{}] seconds, returning cached RangerRoles", waitTimeInSeconds);
+                            roles = ret;
 
-                    ret = getRoles();
-                }
-            } catch (InterruptedException exception) {
-                LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
-            } finally {
-                if (lockResult) {
-                    lock.unlock();
+                            onLoad(this);
+                        }
+                    } else if (isServedStale) {
+                        LOG.debug("RangerRoles version {} is being loaded; returning no change for lastKnownRoleVersion= {}", rolesVersion, lastKnownRoleVersion);
+                    } else {
+                        LOG.debug("Could not get lock in [{}] seconds, returning cached RangerRoles", waitTimeInSeconds);
+
+                        ret = cachedRoles;
+                    }
+                } catch (InterruptedException exception) {
+                    LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
+                } finally {
+                    if (lockResult) {
+                        lock.unlock();
+                    }
                 }
             }
 
-            LOG.debug("<== RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {} RangerRoles= {})", serviceName, lastKnownRoleVersion, rolesVersionInDB, ret);
+            LOG.debug("<== RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {} RangerRoles= {})", serviceName, lastKnownRoleVersion, rolesVersion, ret);
 
             return ret;
         }
+
+        private RangerRoles loadRoles(RoleDBStore roleDBStore) throws Exception {
+            RangerSharedSnapshotStore snapshotStore = RangerSharedSnapshotStore.getInstance();
+            RangerRoles               ret           = snapshotStore.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, rolesVersion, RangerRoles.class);
+
+            if (ret == null) {
+                // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
+                final long            startTimeMs  = System.currentTimeMillis();
+                SearchFilter          searchFilter = null;
+                final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
+                final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
+                Date                  updateTime   = new Date();
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
+                }
+
+                ret = new RangerRoles();
+
+                ret.setRangerRoles(rolesInDB);
+                ret.setRoleUpdateTime(updateTime);
+                ret.setRoleVersion(rolesVersion);
+
+                snapshotStore.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, rolesVersion, ret);
+            }
+
+            return ret;
+        }
+    }
+
+    private void onLoad(RangerRoleCacheWrapper loaded) {
+        latestRoles = loaded.getRoles();
+
+        if (loaded.getRolesVersion() != null) {
+            // roles of earlier versions will not be requested again
+            roleCacheWrappers.values().removeIf(wrapper -> wrapper.getRolesVersion() < loaded.getRolesVersion());
+        }
     }
 }
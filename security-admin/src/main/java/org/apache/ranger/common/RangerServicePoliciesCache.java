@@ -23,6 +23,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.store.ServiceStore;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
@@ -36,30 +37,35 @@
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class RangerServicePoliciesCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerServicePoliciesCache.class);
 
-    private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int MAX_WAIT_TIME_FOR_UPDATE        = 10;
+    private static final int MAX_SERIALIZED_POLICIES_ENTRIES = 4;
 
     public static volatile RangerServicePoliciesCache sInstance;
 
     private final int                                 waitTimeInSeconds;
     private final boolean                             dedupStrings;
-    private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new HashMap<>();
+    private final int                                 maxSerializedPoliciesEntries;
+    private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new ConcurrentHashMap<>();
 
     private RangerServicePoliciesCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
-        waitTimeInSeconds = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
-        dedupStrings      = config.getBoolean("ranger.admin.policy.dedup.strings", Boolean.TRUE);
+        waitTimeInSeconds            = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+        dedupStrings                 = config.getBoolean("ranger.admin.policy.dedup.strings", Boolean.TRUE);
+        maxSerializedPoliciesEntries = config.getInt("ranger.admin.policy.download.serialized.cache.max.entries", MAX_SERIALIZED_POLICIES_ENTRIES);
     }
 
     public static RangerServicePoliciesCache getInstance() {
@@ -80,19 +86,11 @@ public static RangerServicePoliciesCache getInstance() {
     }
 
     public void dump() {
-        final Set<String> serviceNames;
-
-        synchronized (this) {
-            serviceNames = servicePoliciesMap.keySet();
-        }
+        final Set<String> serviceNames = servicePoliciesMap.keySet();
 
         if (CollectionUtils.isNotEmpty(serviceNames)) {
             for (String serviceName : serviceNames) {
-                final ServicePoliciesWrapper cachedServicePoliciesWrapper;
-
-                synchronized (this) {
-                    cachedServicePoliciesWrapper = servicePoliciesMap.get(serviceName);
-                }
+                final ServicePoliciesWrapper cachedServicePoliciesWrapper = servicePoliciesMap.get(serviceName);
 
                 LOG.debug("serviceName:{}, Cached-MetaData:{}", serviceName, cachedServicePoliciesWrapper);
             }
@@ -105,29 +103,22 @@ public ServicePolicies getServicePolicies(String serviceName, Long serviceId, Lo
         ServicePolicies ret = null;
 
         if (StringUtils.isNotBlank(serviceName) && serviceId != null) {
-            ServicePoliciesWrapper servicePoliciesWrapper;
-
-            synchronized (this) {
-                servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+            ServicePoliciesWrapper servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
 
-                if (servicePoliciesWrapper != null) {
-                    if (!serviceId.equals(servicePoliciesWrapper.getServiceId())) {
+            if (servicePoliciesWrapper == null || !serviceId.equals(servicePoliciesWrapper.getServiceId())) {
+                // only the entry of this service is locked while it is replaced
+                servicePoliciesWrapper = servicePoliciesMap.compute(serviceName, (name, wrapper) -> {
+                    if (wrapper != null && !serviceId.equals(wrapper.getServiceId())) {
                         if (LOG.isDebugEnabled()) {
-                            LOG.debug("Service [{}] changed service-id from {} to {}", serviceName, servicePoliciesWrapper.getServiceId(), serviceId);
-                            LOG.debug("Recreating servicePoliciesWrapper for serviceName [{}]", serviceName);
+                            LOG.debug("Service [{}] changed service-id from {} to {}", name, wrapper.getServiceId(), serviceId);
+                            LOG.debug("Recreating servicePoliciesWrapper for serviceName [{}]", name);
                         }
 
-                        servicePoliciesMap.remove(serviceName);
-
-                        servicePoliciesWrapper = null;
+                        wrapper = null;
                     }
-                }
 
-                if (servicePoliciesWrapper == null) {
-                    servicePoliciesWrapper = new ServicePoliciesWrapper(serviceId);
-
-                    servicePoliciesMap.put(serviceName, servicePoliciesWrapper);
-                }
+                    return wrapper != null ? wrapper : new ServicePoliciesWrapper(serviceId);
+                });
             }
 
             if (serviceStore != null) {
@@ -146,6 +137,44 @@ public ServicePolicies getServicePolicies(String serviceName, Long serviceId, Lo
         return ret;
     }
 
+    /**
+     * Returns given servicePolicies, returned by ServiceStore.getServicePoliciesIfUpdated(), serialized to JSON. Serialized
+     * policies are cached for the service, keyed by versions and the parameters that determine the content of
+     * servicePolicies; as changes to the service, its tag-service, security-zones or plugin configuration update the
+     * policy-version of the service, cached entries don't need to be invalidated except when the version changes.
+     *
+     * @return serialized servicePolicies, or null if serialization fails
+     */
+    public SerializedServicePolicies getSerializedServicePolicies(String serviceName, Long lastKnownVersion, boolean needsBackwardCompatibility, ServicePolicies servicePolicies) {
+        LOG.debug("==> RangerServicePoliciesCache.getSerializedServicePolicies({}, {}, {})", serviceName, lastKnownVersion, needsBackwardCompatibility);
+
+        SerializedServicePolicies ret = null;
+
+        if (servicePolicies != null) {
+            final ServicePoliciesWrapper servicePoliciesWrapper;
+
+            if (maxSerializedPoliciesEntries > 0) {
+                servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+            } else {
+                servicePoliciesWrapper = null;
+            }
+
+            try {
+                if (servicePoliciesWrapper != null && Objects.equals(servicePoliciesWrapper.getServiceId(), servicePolicies.getServiceId())) {
+                    ret = servicePoliciesWrapper.getSerializedPolicies(lastKnownVersion, needsBackwardCompatibility, servicePolicies);
+                } else {
+                    ret = new SerializedServicePolicies(servicePolicies);
+                }
+            } catch (Exception excp) {
+                LOG.warn("getSerializedServicePolicies({}): failed to serialize policies. Policies will be serialized for each download", serviceName, excp);
+            }
+        }
+
+        LOG.debug("<== RangerServicePoliciesCache.getSerializedServicePolicies({}, {}, {}): ret={}", serviceName, lastKnownVersion, needsBackwardCompatibility, ret);
+
+        return ret;
+    }
+
     /**
      * Reset policy cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -158,28 +187,26 @@ public boolean resetCache(final String serviceName) {
 
         boolean ret = false;
 
-        synchronized (this) {
-            if (!servicePoliciesMap.isEmpty()) {
-                if (StringUtils.isBlank(serviceName)) {
-                    servicePoliciesMap.clear();
+        if (!servicePoliciesMap.isEmpty()) {
+            if (StringUtils.isBlank(serviceName)) {
+                servicePoliciesMap.clear();
 
-                    LOG.debug("RangerServicePoliciesCache.resetCache(): Removed policy caching for all services.");
+                LOG.debug("RangerServicePoliciesCache.resetCache(): Removed policy caching for all services.");
 
-                    ret = true;
-                } else {
-                    ServicePoliciesWrapper removedServicePoliciesWrapper = servicePoliciesMap.remove(serviceName.trim()); // returns null if key not found
+                ret = true;
+            } else {
+                ServicePoliciesWrapper removedServicePoliciesWrapper = servicePoliciesMap.remove(serviceName.trim()); // returns null if key not found
 
-                    ret = removedServicePoliciesWrapper != null;
+                ret = removedServicePoliciesWrapper != null;
 
-                    if (ret) {
-                        LOG.debug("RangerServicePoliciesCache.resetCache(): Removed policy caching for [{}] service.", serviceName);
-                    } else {
-                        LOG.warn("RangerServicePoliciesCache.resetCache(): Caching for [{}] service not found, hence reset is skipped.", serviceName);
-                    }
+                if (ret) {
+                    LOG.debug("RangerServicePoliciesCache.resetCache(): Removed policy caching for [{}] service.", serviceName);
+                } else {
+                    LOG.warn("RangerServicePoliciesCache.resetCache(): Caching for [{}] service not found, hence reset is skipped.", serviceName);
                 }
-            } else {
-                LOG.warn("RangerServicePoliciesCache.resetCache(): Policy cache is already empty.");
             }
+        } else {
+            LOG.warn("RangerServicePoliciesCache.resetCache(): Policy cache is already empty.");
         }
 
         LOG.debug("<== RangerServicePoliciesCache.resetCache(): ret={}", ret);
@@ -287,11 +314,14 @@ public void saveToCache(ServicePolicies policies) {
     private class ServicePoliciesWrapper {
         final Long               serviceId;
         final ReentrantLock      lock                  = new ReentrantLock();
-        ServicePolicies          servicePolicies;
         Date                     updateTime;
         long                     longestDbLoadTimeInMs = -1;
         ServicePolicyDeltasCache deltaCache;
 
+        volatile ServicePolicies servicePolicies; // read without the lock, while another request loads policies
+
+        final SerializedPoliciesCache serializedPolicies = new SerializedPoliciesCache(maxSerializedPoliciesEntries);
+
         ServicePoliciesWrapper(Long serviceId) {
             this.serviceId  = serviceId;
             servicePolicies = null;
@@ -323,12 +353,27 @@ ServicePolicies getLatestOrCached(String serviceName, ServiceStore serviceStore,
 
             ServicePolicies ret           = null;
             boolean         lockResult    = false;
+            boolean         isServedStale = false;
             boolean         doSaveToCache = false;
 
             try {
                 final boolean isCacheReloadedByDQEvent;
 
-                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                waitForSharedSnapshot(serviceName, serviceStore);
+
+                lockResult = lock.tryLock();
+
+                if (!lockResult) {
+                    ServicePolicies cachedServicePolicies = this.servicePolicies;
+
+                    // while another request loads policies of this service, a caller that has the cached version is told
+                    // that there is no change - instead of waiting for the load; the load is shared by other callers
+                    if (cachedServicePolicies != null && Objects.equals(lastKnownVersion, cachedServicePolicies.getPolicyVersion())) {
+                        isServedStale = true;
+                    } else {
+                        lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                    }
+                }
 
                 if (lockResult) {
                     isCacheReloadedByDQEvent = getLatest(serviceName, serviceStore, lastKnownVersion);
@@ -374,6 +419,8 @@ ServicePolicies getLatestOrCached(String serviceName, ServiceStore serviceStore,
                     } else {
                         LOG.error("ServicePolicies object is null!");
                     }
+                } else if (isServedStale) {
+                    LOG.debug("ServicePolicies of service {} are being loaded; returning no change for lastKnownVersion:[{}]", serviceName, lastKnownVersion);
                 } else {
                     LOG.error("Could not get lock in [{}] seconds, returning cached ServicePolicies and wait Queue Length:[{}], servicePolicies version:[{}]", waitTimeInSeconds, lock.getQueueLength(), servicePolicies != null ? servicePolicies.getPolicyVersion() : -1L);
 
@@ -399,6 +446,10 @@ ServicePolicies getLatestOrCached(String serviceName, ServiceStore serviceStore,
             return ret;
         }
 
+        SerializedServicePolicies getSerializedPolicies(Long lastKnownVersion, boolean needsBackwardCompatibility, ServicePolicies servicePolicies) throws Exception {
+            return serializedPolicies.get(lastKnownVersion, needsBackwardCompatibility, servicePolicies);
+        }
+
         boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownVersion) throws Exception {
             LOG.debug("==> ServicePoliciesWrapper.getLatest(serviceName={}, lastKnownVersion={})", serviceName, lastKnownVersion);
 
@@ -412,9 +463,11 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
             if (servicePolicyVersionInDb == null || !servicePolicyVersionInDb.equals(cachedServicePoliciesVersion)) {
                 LOG.debug("loading servicePolicies from database");
 
-                final long            startTimeMs           = System.currentTimeMillis();
-                final ServicePolicies servicePoliciesFromDb = serviceStore.getServicePolicyDeltasOrPolicies(serviceName, cachedServicePoliciesVersion);
-                final long            dbLoadTime            = System.currentTimeMillis() - startTimeMs;
+                final long                      startTimeMs           = System.currentTimeMillis();
+                final RangerSharedSnapshotStore snapshotStore         = RangerSharedSnapshotStore.getInstance();
+                final ServicePolicies           sharedSnapshot        = (servicePolicies == null || !ServiceDBStore.isSupportsPolicyDeltas()) ? snapshotStore.get(RangerSharedSnapshotStore.TYPE_POLICIES, String.valueOf(serviceId), servicePolicyVersionInDb, ServicePolicies.class) : null;
+                final ServicePolicies           servicePoliciesFromDb = sharedSnapshot != null ? sharedSnapshot : serviceStore.getServicePolicyDeltasOrPolicies(serviceName, cachedServicePoliciesVersion);
+                final long                      dbLoadTime            = System.currentTimeMillis() - startTimeMs;
 
                 if (dbLoadTime > longestDbLoadTimeInMs) {
                     longestDbLoadTimeInMs = dbLoadTime;
@@ -473,6 +526,10 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 
                     pruneUnusedAttributes();
 
+                    if (sharedSnapshot == null) {
+                        snapshotStore.put(RangerSharedSnapshotStore.TYPE_POLICIES, String.valueOf(serviceId), servicePolicies.getPolicyVersion(), servicePolicies);
+                    }
+
                     this.deltaCache = null;
                 } else {
                     LOG.error("Could not get policies from database, from-version:[{})", cachedServicePoliciesVersion);
@@ -503,6 +560,26 @@ StringBuilder toString(StringBuilder sb) {
             return sb;
         }
 
+        /*
+         * waits, without holding the lock, for the snapshot of the version in database to be published by another
+         * instance - if getLatest() would look for it
+         */
+        private void waitForSharedSnapshot(String serviceName, ServiceStore serviceStore) throws Exception {
+            RangerSharedSnapshotStore snapshotStore = RangerSharedSnapshotStore.getInstance();
+
+            if (snapshotStore.isEnabled()) {
+                ServicePolicies cachedServicePolicies = this.servicePolicies;
+
+                if (cachedServicePolicies == null || !ServiceDBStore.isSupportsPolicyDeltas()) {
+                    Long servicePolicyVersionInDb = serviceStore.getServicePolicyVersion(serviceName);
+
+                    if (servicePolicyVersionInDb != null && (cachedServicePolicies == null || !servicePolicyVersionInDb.equals(cachedServicePolicies.getPolicyVersion()))) {
+                        snapshotStore.waitFor(RangerSharedSnapshotStore.TYPE_POLICIES, String.valueOf(serviceId), servicePolicyVersionInDb);
+                    }
+                }
+            }
+        }
+
         private void checkCacheSanity(String serviceName, ServiceStore serviceStore, boolean isTagService) {
             Long    dbPolicyVersion     = serviceStore.getServicePolicyVersion(serviceName);
             Long    cachedPolicyVersion = isTagService ? servicePolicies.getTagPolicies().getPolicyVersion() : servicePolicies.getPolicyVersion();
@@ -554,4 +631,55 @@ ServicePolicies getServicePolicyDeltasFromVersion(long fromVersion) {
             }
         }
     }
+
+    /*
+     * serialized policies of a service, keyed by versions and the parameters that determine the content of the
+     * policies; entries of earlier versions are evicted, as are the least recently added entries beyond maxEntries
+     */
+    static class SerializedPoliciesCache {
+        private final int                                    maxEntries;
+        private final Map<String, SerializedServicePolicies> entries = new LinkedHashMap<>(); // guarded by itself
+
+        SerializedPoliciesCache(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        SerializedServicePolicies get(Long lastKnownVersion, boolean needsBackwardCompatibility, ServicePolicies servicePolicies) throws Exception {
+            final Long    policyVersion    = servicePolicies.getPolicyVersion();
+            final Long    tagPolicyVersion = servicePolicies.getTagPolicies() != null ? servicePolicies.getTagPolicies().getPolicyVersion() : null;
+            final boolean isFiltered       = lastKnownVersion == null || lastKnownVersion == -1L || needsBackwardCompatibility;
+            final String  key              = policyVersion + ":" + tagPolicyVersion + ":" + isFiltered + ":" + (servicePolicies.getPolicyDeltas() != null ? lastKnownVersion : "all");
+
+            SerializedServicePolicies ret;
+
+            // serialize while holding the lock, so that concurrent downloads of the same version by plugins serialize only once
+            synchronized (entries) {
+                ret = entries.get(key);
+
+                if (ret == null) {
+                    ret = new SerializedServicePolicies(servicePolicies);
+
+                    for (Iterator<SerializedServicePolicies> iter = entries.values().iterator(); iter.hasNext(); ) {
+                        SerializedServicePolicies entry = iter.next();
+
+                        if (policyVersion == null || entry.getPolicyVersion() == null || entry.getPolicyVersion() < policyVersion || entries.size() >= maxEntries) {
+                            iter.remove();
+                        }
+                    }
+
+                    entries.put(key, ret);
+
+                    LOG.debug("SerializedPoliciesCache.get(): cached {}, key={}", ret, key);
+                }
+            }
+
+            return ret;
+        }
+
+        int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+    }
 }
@@ -23,16 +23,22 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.biz.TagDBStore;
+import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.store.TagStore;
 import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -40,14 +46,16 @@ public class RangerServiceTagsCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerServiceTagsCache.class);
 
     private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int MAX_TAG_CHANGE_SETS      = 20;
 
     private static volatile RangerServiceTagsCache sInstance;
 
     private final boolean useServiceTagsCache;
     private final int     waitTimeInSeconds;
     private final boolean dedupStrings;
+    private final int     maxTagChangeSets;
 
-    private final Map<String, ServiceTagsWrapper> serviceTagsMap = new HashMap<>();
+    private final Map<String, ServiceTagsWrapper> serviceTagsMap = new ConcurrentHashMap<>();
 
     private RangerServiceTagsCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -55,6 +63,7 @@ private RangerServiceTagsCache() {
         useServiceTagsCache = config.getBoolean("ranger.admin.tag.download.usecache", true);
         waitTimeInSeconds   = config.getInt("ranger.admin.tag.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
         dedupStrings        = config.getBoolean("ranger.admin.tag.dedup.strings", Boolean.TRUE);
+        maxTagChangeSets    = config.getInt("ranger.admin.tag.download.delta.cache.max.versions", MAX_TAG_CHANGE_SETS);
     }
 
     public static RangerServiceTagsCache getInstance() {
@@ -76,19 +85,11 @@ public static RangerServiceTagsCache getInstance() {
 
     public void dump() {
         if (useServiceTagsCache) {
-            final Set<String> serviceNames;
-
-            synchronized (this) {
-                serviceNames = serviceTagsMap.keySet();
-            }
+            final Set<String> serviceNames = serviceTagsMap.keySet();
 
             if (CollectionUtils.isNotEmpty(serviceNames)) {
-                ServiceTagsWrapper cachedServiceTagsWrapper;
-
                 for (String serviceName : serviceNames) {
-                    synchronized (this) {
-                        cachedServiceTagsWrapper = serviceTagsMap.get(serviceName);
-                    }
+                    ServiceTagsWrapper cachedServiceTagsWrapper = serviceTagsMap.get(serviceName);
 
                     LOG.debug("serviceName:{}, Cached-MetaData:{}", serviceName, cachedServiceTagsWrapper);
                 }
@@ -119,25 +120,20 @@ public ServiceTags getServiceTags(String serviceName, Long serviceId, Long lastK
                     LOG.error("getServiceTags({}): failed to get latest tags as tag-store is null!", serviceName);
                 }
             } else {
-                ServiceTagsWrapper serviceTagsWrapper;
-
-                synchronized (this) {
-                    serviceTagsWrapper = serviceTagsMap.get(serviceName);
+                ServiceTagsWrapper serviceTagsWrapper = serviceTagsMap.get(serviceName);
 
-                    if (serviceTagsWrapper != null) {
-                        if (!serviceId.equals(serviceTagsWrapper.getServiceId())) {
-                            LOG.debug("Service [{}] changed service-id from {} to {}", serviceName, serviceTagsWrapper.getServiceId(), serviceId);
-                            LOG.debug("Recreating serviceTagsWrapper for serviceName [{}]", serviceName);
+                if (serviceTagsWrapper == null || !serviceId.equals(serviceTagsWrapper.getServiceId())) {
+                    // only the entry of this service is locked while it is replaced
+                    serviceTagsWrapper = serviceTagsMap.compute(serviceName, (name, wrapper) -> {
+                        if (wrapper != null && !serviceId.equals(wrapper.getServiceId())) {
+                            LOG.debug("Service [{}] changed service-id from {} to {}", name, wrapper.getServiceId(), serviceId);
+                            LOG.debug("Recreating serviceTagsWrapper for serviceName [{}]", name);
 
-                            serviceTagsMap.remove(serviceName);
-                            serviceTagsWrapper = null;
+                            wrapper = null;
                         }
-                    }
-                    if (serviceTagsWrapper == null) {
-                        serviceTagsWrapper = new ServiceTagsWrapper(serviceId);
 
-                        serviceTagsMap.put(serviceName, serviceTagsWrapper);
-                    }
+                        return wrapper != null ? wrapper : new ServiceTagsWrapper(serviceId);
+                    });
                 }
 
                 if (tagStore != null) {
@@ -169,28 +165,26 @@ public boolean resetCache(final String serviceName) {
 
         boolean ret = false;
 
-        synchronized (this) {
-            if (!serviceTagsMap.isEmpty()) {
-                if (StringUtils.isBlank(serviceName)) {
-                    serviceTagsMap.clear();
+        if (!serviceTagsMap.isEmpty()) {
+            if (StringUtils.isBlank(serviceName)) {
+                serviceTagsMap.clear();
 
-                    LOG.debug("RangerServiceTagsCache.resetCache(): Removed policy caching for all services.");
+                LOG.debug("RangerServiceTagsCache.resetCache(): Removed policy caching for all services.");
 
-                    ret = true;
-                } else {
-                    ServiceTagsWrapper removedServicePoliciesWrapper = serviceTagsMap.remove(serviceName.trim()); // returns null if key not found
+                ret = true;
+            } else {
+                ServiceTagsWrapper removedServicePoliciesWrapper = serviceTagsMap.remove(serviceName.trim()); // returns null if key not found
 
-                    ret = removedServicePoliciesWrapper != null;
+                ret = removedServicePoliciesWrapper != null;
 
-                    if (ret) {
-                        LOG.debug("RangerServiceTagsCache.resetCache(): Removed policy caching for [{}] service.", serviceName);
-                    } else {
-                        LOG.warn("RangerServiceTagsCache.resetCache(): Caching for [{}] service not found, hence reset is skipped.", serviceName);
-                    }
+                if (ret) {
+                    LOG.debug("RangerServiceTagsCache.resetCache(): Removed policy caching for [{}] service.", serviceName);
+                } else {
+                    LOG.warn("RangerServiceTagsCache.resetCache(): Caching for [{}] service not found, hence reset is skipped.", serviceName);
                 }
-            } else {
-                LOG.warn("RangerServiceTagsCache.resetCache(): Policy cache is already empty.");
             }
+        } else {
+            LOG.warn("RangerServiceTagsCache.resetCache(): Policy cache is already empty.");
         }
 
         LOG.debug("<== RangerServiceTagsCache.resetCache(): ret={}", ret);
@@ -200,11 +194,13 @@ public boolean resetCache(final String serviceName) {
 
     private class ServiceTagsWrapper {
         final Long             serviceId;
-        ServiceTags            serviceTags;
         Date                   updateTime;
         long                   longestDbLoadTimeInMs = -1;
         ServiceTagsDeltasCache deltaCache;
-        ReentrantLock          lock = new ReentrantLock();
+        ReentrantLock          lock       = new ReentrantLock();
+        Deque<TagsChangeSet>   changeSets = new ArrayDeque<>(); // ordered by version; each is applied on top of the previous one
+
+        volatile ServiceTags serviceTags; // read without the lock, while another request loads tags
 
         ServiceTagsWrapper(Long serviceId) {
             this.serviceId = serviceId;
@@ -235,13 +231,28 @@ Date getUpdateTime() {
         ServiceTags getLatestOrCached(String serviceName, TagStore tagStore, Long lastKnownVersion, boolean needsBackwardCompatibility) throws Exception {
             LOG.debug("==> RangerServiceTagsCache.getLatestOrCached(lastKnownVersion={}, {})", lastKnownVersion, needsBackwardCompatibility);
 
-            ServiceTags ret        = null;
-            boolean     lockResult = false;
+            ServiceTags ret           = null;
+            boolean     lockResult    = false;
+            boolean     isServedStale = false;
 
             try {
                 final boolean isCacheCompletelyLoaded;
 
-                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                waitForSharedSnapshot(serviceName, tagStore);
+
+                lockResult = lock.tryLock();
+
+                if (!lockResult) {
+                    ServiceTags cachedServiceTags = this.serviceTags;
+
+                    // while another request loads tags of this service, a caller that has the cached version is told that
+                    // there is no change - instead of waiting for the load; the load is shared by other callers
+                    if (cachedServiceTags != null && Objects.equals(lastKnownVersion, cachedServiceTags.getTagVersion())) {
+                        isServedStale = true;
+                    } else {
+                        lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+                    }
+                }
 
                 if (lockResult) {
                     isCacheCompletelyLoaded = getLatest(serviceName, tagStore);
@@ -250,25 +261,37 @@ ServiceTags getLatestOrCached(String serviceName, TagStore tagStore, Long lastKn
                         LOG.debug("ServiceTags cache was completely loaded from database ");
                     }
 
-                    if (needsBackwardCompatibility || isCacheCompletelyLoaded || lastKnownVersion == -1L || lastKnownVersion.equals(serviceTags.getTagVersion())) {
+                    ServiceTags serviceTagsDelta = null;
+
+                    if (!needsBackwardCompatibility && lastKnownVersion != -1L && !lastKnownVersion.equals(serviceTags.getTagVersion())) {
+                        serviceTagsDelta = this.deltaCache != null ? this.deltaCache.getServiceTagsDeltaFromVersion(lastKnownVersion) : null;
+
+                        if (serviceTagsDelta == null) {
+                            serviceTagsDelta = getDeltaFromChangeSets(lastKnownVersion);
+
+                            if (serviceTagsDelta != null) {
+                                this.deltaCache = new ServiceTagsDeltasCache(lastKnownVersion, serviceTagsDelta);
+                            }
+                        }
+                    }
+
+                    if (serviceTagsDelta != null) {
+                        LOG.debug("Deltas were requested. Returning cached deltas from lastKnownVersion:[{}]", lastKnownVersion);
+
+                        ret = serviceTagsDelta;
+                    } else if (needsBackwardCompatibility || isCacheCompletelyLoaded || lastKnownVersion == -1L || lastKnownVersion.equals(serviceTags.getTagVersion())) {
                         // Looking for all tags, or Some disqualifying change encountered
                         LOG.debug("Need to return all cached ServiceTags: [needsBackwardCompatibility:{}, isCacheCompletelyLoaded:{}, lastKnownVersion:{}, serviceTagsVersion:{}]", needsBackwardCompatibility, isCacheCompletelyLoaded, lastKnownVersion, serviceTags.getTagVersion());
 
                         ret = this.serviceTags;
                     } else {
-                        boolean     isDeltaCacheReinitialized = false;
-                        ServiceTags serviceTagsDelta          = this.deltaCache != null ? this.deltaCache.getServiceTagsDeltaFromVersion(lastKnownVersion) : null;
+                        // changes since lastKnownVersion are not in changeSets
+                        serviceTagsDelta = tagStore.getServiceTagsDelta(serviceName, lastKnownVersion);
 
-                        if (serviceTagsDelta == null) {
-                            serviceTagsDelta          = tagStore.getServiceTagsDelta(serviceName, lastKnownVersion);
-                            isDeltaCacheReinitialized = true;
-                        }
                         if (serviceTagsDelta != null) {
                             LOG.debug("Deltas were requested. Returning deltas from lastKnownVersion:[{}]", lastKnownVersion);
 
-                            if (isDeltaCacheReinitialized) {
-                                this.deltaCache = new ServiceTagsDeltasCache(lastKnownVersion, serviceTagsDelta);
-                            }
+                            this.deltaCache = new ServiceTagsDeltasCache(lastKnownVersion, serviceTagsDelta);
 
                             ret = serviceTagsDelta;
                         } else {
@@ -278,6 +301,8 @@ ServiceTags getLatestOrCached(String serviceName, TagStore tagStore, Long lastKn
                             ret             = this.serviceTags;
                         }
                     }
+                } else if (isServedStale) {
+                    LOG.debug("ServiceTags of service {} are being loaded; returning no change for lastKnownVersion:[{}]", serviceName, lastKnownVersion);
                 } else {
                     LOG.debug("Could not get lock in [{}] seconds, returning cached ServiceTags", waitTimeInSeconds);
 
@@ -307,11 +332,15 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
             Long tagVersionInDb = tagStore.getTagVersion(serviceName);
 
             if (serviceTags == null || tagVersionInDb == null || !tagVersionInDb.equals(cachedServiceTagsVersion)) {
+                final ServiceTags cachedServiceTags = serviceTags;
+
                 LOG.debug("loading serviceTags from db ... cachedServiceTagsVersion={}, tagVersionInDb={}", cachedServiceTagsVersion, tagVersionInDb);
 
-                long        startTimeMs       = System.currentTimeMillis();
-                ServiceTags serviceTagsFromDb = tagStore.getServiceTags(serviceName, cachedServiceTagsVersion);
-                long        dbLoadTime        = System.currentTimeMillis() - startTimeMs;
+                long                      startTimeMs       = System.currentTimeMillis();
+                RangerSharedSnapshotStore snapshotStore     = RangerSharedSnapshotStore.getInstance();
+                ServiceTags               sharedSnapshot    = (serviceTags == null || !TagDBStore.isSupportsTagDeltas()) ? snapshotStore.get(RangerSharedSnapshotStore.TYPE_TAGS, String.valueOf(serviceId), tagVersionInDb, ServiceTags.class) : null;
+                ServiceTags               serviceTagsFromDb = sharedSnapshot != null ? sharedSnapshot : tagStore.getServiceTags(serviceName, cachedServiceTagsVersion);
+                long                      dbLoadTime        = System.currentTimeMillis() - startTimeMs;
 
                 if (dbLoadTime > longestDbLoadTimeInMs) {
                     longestDbLoadTimeInMs = dbLoadTime;
@@ -333,6 +362,7 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
                         this.deltaCache  = null;
 
                         pruneUnusedAttributes();
+                        changeSets.clear();
 
                         isCacheCompletelyLoaded = true;
                     } else if (!serviceTagsFromDb.getIsDelta()) {
@@ -344,6 +374,11 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
 
                         pruneUnusedAttributes();
 
+                        // plugins at cached version can still be sent just the changes
+                        if (maxTagChangeSets > 0) {
+                            addChangeSet(cachedServiceTagsVersion, RangerServiceTagsDeltaUtil.computeDelta(cachedServiceTags, serviceTags));
+                        }
+
                         isCacheCompletelyLoaded = true;
                     } else { // Previously cached service tags are still valid - no disqualifying change
                         // Rebuild tags cache from original tags and deltas
@@ -353,6 +388,12 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
 
                         this.serviceTags = RangerServiceTagsDeltaUtil.applyDelta(serviceTags, serviceTagsFromDb, supportsTagsDedeup);
                         this.deltaCache  = new ServiceTagsDeltasCache(cachedServiceTagsVersion, serviceTagsFromDb);
+
+                        addChangeSet(cachedServiceTagsVersion, serviceTagsFromDb);
+                    }
+
+                    if (sharedSnapshot == null) {
+                        snapshotStore.put(RangerSharedSnapshotStore.TYPE_TAGS, String.valueOf(serviceId), serviceTags.getTagVersion(), serviceTags);
                     }
                 } else {
                     LOG.error("Could not get tags from database, from-version:[{})", cachedServiceTagsVersion);
@@ -381,10 +422,95 @@ StringBuilder toString(StringBuilder sb) {
             return sb;
         }
 
+        /*
+         * waits, without holding the lock, for the snapshot of the version in database to be published by another
+         * instance - if getLatest() would look for it
+         */
+        private void waitForSharedSnapshot(String serviceName, TagStore tagStore) throws Exception {
+            RangerSharedSnapshotStore snapshotStore = RangerSharedSnapshotStore.getInstance();
+
+            if (snapshotStore.isEnabled()) {
+                ServiceTags cachedServiceTags = this.serviceTags;
+
+                if (cachedServiceTags == null || !TagDBStore.isSupportsTagDeltas()) {
+                    Long tagVersionInDb = tagStore.getTagVersion(serviceName);
+
+                    if (tagVersionInDb != null && (cachedServiceTags == null || !tagVersionInDb.equals(cachedServiceTags.getTagVersion()))) {
+                        snapshotStore.waitFor(RangerSharedSnapshotStore.TYPE_TAGS, String.valueOf(serviceId), tagVersionInDb);
+                    }
+                }
+            }
+        }
+
         private void pruneUnusedAttributes() {
             RangerServiceTagsDeltaUtil.pruneUnusedAttributes(this.serviceTags);
         }
 
+        private void addChangeSet(long fromVersion, ServiceTags delta) {
+            if (maxTagChangeSets > 0 && delta != null && delta.getTagVersion() != null) {
+                TagsChangeSet last = changeSets.peekLast();
+
+                if (last != null && last.toVersion != fromVersion) {
+                    LOG.debug("ServiceTagsWrapper.addChangeSet(): fromVersion={} doesn't follow last change-set toVersion={}. Discarding earlier change-sets", fromVersion, last.toVersion);
+
+                    changeSets.clear();
+                }
+
+                changeSets.addLast(new TagsChangeSet(fromVersion, delta));
+
+                while (changeSets.size() > maxTagChangeSets) {
+                    changeSets.removeFirst();
+                }
+            }
+        }
+
+        private ServiceTags getDeltaFromChangeSets(long lastKnownVersion) {
+            List<ServiceTags> deltas = null;
+
+            for (TagsChangeSet changeSet : changeSets) {
+                if (deltas == null && changeSet.fromVersion == lastKnownVersion) {
+                    deltas = new ArrayList<>();
+                }
+
+                if (deltas != null) {
+                    deltas.add(changeSet.delta);
+                }
+            }
+
+            final ServiceTags ret;
+
+            if (deltas != null && Objects.equals(changeSets.peekLast().toVersion, serviceTags.getTagVersion())) {
+                ret = RangerServiceTagsDeltaUtil.mergeDeltas(deltas);
+
+                LOG.debug("ServiceTagsWrapper.getDeltaFromChangeSets(lastKnownVersion={}): merged {} change-sets", lastKnownVersion, deltas.size());
+            } else {
+                ret = null;
+            }
+
+            return ret;
+        }
+
+        class TagsChangeSet {
+            final long        fromVersion;
+            final long        toVersion;
+            final ServiceTags delta;
+
+            TagsChangeSet(long fromVersion, ServiceTags delta) {
+                this.fromVersion = fromVersion;
+                this.toVersion   = delta.getTagVersion();
+                this.delta       = new ServiceTags(delta);
+
+                // service-resources in cached serviceTags get updated by later deltas; keep a copy of them as of this version
+                List<RangerServiceResource> serviceResources = new ArrayList<>(delta.getServiceResources().size());
+
+                for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+                    serviceResources.add(RangerServiceTagsDeltaUtil.copyServiceResource(serviceResource, serviceResource.getResourceSignature()));
+                }
+
+                this.delta.setServiceResources(serviceResources);
+            }
+        }
+
         class ServiceTagsDeltasCache {
             final long        fromVersion;
             final ServiceTags serviceTagsDelta;
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Shares snapshots of policies, tags, roles and userstore - as built by RangerServicePoliciesCache,
+ * RangerServiceTagsCache, RangerRoleCache and RangerUserStoreCache - among Ranger admin instances of a cluster, via
+ * a directory shared by all instances, like an NFS mount. Snapshots are written in binary snapshot format
+ * (see RangerCacheFileUtil), to <dir>/<type>/<key>.<version>.snapshot.
+ *
+ * To build a version not in its cache, an instance first looks for the snapshot of the version: the instance elected
+ * active (see RangerAdminHAInitializerImpl) loads from the database right away if the snapshot isn't found, while
+ * other instances wait up to waitMs for it to be published - before taking the lock of the cache, so that requests
+ * served from the cache aren't blocked by the wait. The instance that loads a version from the database
+ * publishes its snapshot; hence a version is loaded from the database by one instance, and by others only if it isn't
+ * published in time - for example, when the active instance didn't receive a request for it.
+ */
+public class RangerSharedSnapshotStore {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerSharedSnapshotStore.class);
+
+    public static final String PROP_SNAPSHOT_DIR = "ranger.admin.shared.snapshot.dir";
+    public static final String PROP_WAIT_MS      = "ranger.admin.shared.snapshot.wait.ms";
+
+    public static final String TYPE_POLICIES  = "policies";
+    public static final String TYPE_TAGS      = "tags";
+    public static final String TYPE_ROLES     = "roles";
+    public static final String TYPE_USERSTORE = "userstore";
+
+    public static final String KEY_ALL = "all";
+
+    private static final long DEFAULT_WAIT_MS  = 5 * 1000L;
+    private static final long POLL_INTERVAL_MS = 100L;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIR_PERMISSIONS  = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private static final Pattern SNAPSHOT_FILE_NAME_PATTERN = Pattern.compile("^(.+)\\.([0-9]+)" + Pattern.quote(RangerCacheFileUtil.SNAPSHOT_FILE_SUFFIX) + "$");
+
+    private static volatile RangerSharedSnapshotStore sInstance;
+
+    private final File            snapshotDir;
+    private final long            waitMs;
+    private final BooleanSupplier isActiveInstance;
+    private final ObjectMapper    mapper = JsonUtils.getMapper();
+
+    RangerSharedSnapshotStore(File snapshotDir, long waitMs, BooleanSupplier isActiveInstance) {
+        this.snapshotDir      = snapshotDir;
+        this.waitMs           = waitMs;
+        this.isActiveInstance = isActiveInstance;
+    }
+
+    public static RangerSharedSnapshotStore getInstance() {
+        RangerSharedSnapshotStore me = sInstance;
+
+        if (me == null) {
+            synchronized (RangerSharedSnapshotStore.class) {
+                me = sInstance;
+
+                if (me == null) {
+                    RangerAdminConfig config = RangerAdminConfig.getInstance();
+                    String            dir    = config.get(PROP_SNAPSHOT_DIR);
+
+                    if (StringUtils.isNotBlank(dir)) {
+                        RangerAdminHAInitializerImpl haInitializer = RangerAdminHAInitializerImpl.getInstance(config);
+
+                        me = new RangerSharedSnapshotStore(new File(dir.trim()), config.getLong(PROP_WAIT_MS, DEFAULT_WAIT_MS), haInitializer::isActive);
+                    } else {
+                        me = new RangerSharedSnapshotStore(null, 0, () -> true);
+                    }
+
+                    LOG.info("RangerSharedSnapshotStore: snapshotDir={}, waitMs={}", me.snapshotDir, me.waitMs);
+
+                    sInstance = me;
+                }
+            }
+        }
+
+        return me;
+    }
+
+    /*
+     * stops services started for the store, like election of the active instance; called when Ranger admin shuts down
+     */
+    public static void shutdown() {
+        LOG.debug("==> RangerSharedSnapshotStore.shutdown()");
+
+        RangerAdminHAInitializerImpl.shutdown();
+
+        LOG.debug("<== RangerSharedSnapshotStore.shutdown()");
+    }
+
+    public boolean isEnabled() {
+        return snapshotDir != null;
+    }
+
+    /*
+     * waits up to waitMs for the snapshot of given version to be published, unless this is the active instance. Must
+     * be called without holding locks of the caches - the wait would otherwise block requests that can be served
+     * from the cache.
+     */
+    public void waitFor(String type, String key, Long version) {
+        LOG.debug("==> RangerSharedSnapshotStore.waitFor(type={}, key={}, version={})", type, key, version);
+
+        if (isEnabled() && version != null && !isActiveInstance.getAsBoolean()) {
+            File file        = getFile(type, key, version);
+            long waitUntilMs = System.currentTimeMillis() + waitMs;
+
+            while (!RangerCacheFileUtil.exists(file) && System.currentTimeMillis() < waitUntilMs) {
+                try {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+
+                    break;
+                }
+            }
+        }
+
+        LOG.debug("<== RangerSharedSnapshotStore.waitFor(type={}, key={}, version={})", type, key, version);
+    }
+
+    /*
+     * returns the snapshot of given version, or null if it isn't published; doesn't wait - see waitFor()
+     */
+    public <T> T get(String type, String key, Long version, Class<T> cls) {
+        LOG.debug("==> RangerSharedSnapshotStore.get(type={}, key={}, version={})", type, key, version);
+
+        T ret = null;
+
+        if (isEnabled() && version != null) {
+            File file = getFile(type, key, version);
+
+            if (RangerCacheFileUtil.exists(file)) {
+                try {
+                    ret = RangerCacheFileUtil.read(file, mapper, cls);
+
+                    LOG.info("RangerSharedSnapshotStore.get(type={}, key={}, version={}): loaded from shared snapshot {}", type, key, version, file);
+                } catch (Exception excp) {
+                    LOG.warn("RangerSharedSnapshotStore.get(type={}, key={}, version={}): failed to read shared snapshot {}", type, key, version, file, excp);
+                }
+            } else {
+                LOG.debug("RangerSharedSnapshotStore.get(type={}, key={}, version={}): shared snapshot not found", type, key, version);
+            }
+        }
+
+        LOG.debug("<== RangerSharedSnapshotStore.get(type={}, key={}, version={}): ret={}", type, key, version, ret != null);
+
+        return ret;
+    }
+
+    /*
+     * publishes the snapshot of given version, unless already published; snapshots of earlier versions are removed
+     */
+    public void put(String type, String key, Long version, Object obj) {
+        LOG.debug("==> RangerSharedSnapshotStore.put(type={}, key={}, version={})", type, key, version);
+
+        if (isEnabled() && version != null && obj != null) {
+            File file = getFile(type, key, version);
+
+            if (!RangerCacheFileUtil.exists(file)) {
+                try {
+                    File typeDir = file.getParentFile();
+
+                    if (!typeDir.isDirectory() && !typeDir.mkdirs() && !typeDir.isDirectory()) {
+                        throw new IllegalStateException("failed to create directory " + typeDir);
+                    }
+
+                    restrictToOwner(typeDir.toPath(), OWNER_ONLY_DIR_PERMISSIONS); // before the file is written, as the temporary file is created with default permissions
+
+                    RangerCacheFileUtil.write(file, mapper, obj, true);
+
+                    restrictToOwner(RangerCacheFileUtil.getSnapshotFile(file).toPath(), OWNER_ONLY_FILE_PERMISSIONS);
+
+                    LOG.info("RangerSharedSnapshotStore.put(type={}, key={}, version={}): published shared snapshot {}", type, key, version, file);
+
+                    deleteEarlierVersions(typeDir, key, version);
+                } catch (Exception excp) {
+                    LOG.warn("RangerSharedSnapshotStore.put(type={}, key={}, version={}): failed to publish shared snapshot {}", type, key, version, file, excp);
+                }
+            }
+        }
+
+        LOG.debug("<== RangerSharedSnapshotStore.put(type={}, key={}, version={})", type, key, version);
+    }
+
+    private File getFile(String type, String key, long version) {
+        return new File(new File(snapshotDir, type), key + "." + version);
+    }
+
+    /*
+     * snapshots include policies, tags and users - hence are made accessible only to the user Ranger admin runs as
+     */
+    private static void restrictToOwner(Path path, Set<PosixFilePermission> permissions) {
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (UnsupportedOperationException excp) {
+            File    file      = path.toFile();
+            boolean isUpdated = file.setReadable(false, false) && file.setReadable(true, true) && file.setWritable(false, false) && file.setWritable(true, true) && file.setExecutable(false, false);
+
+            if (file.isDirectory()) {
+                isUpdated = isUpdated && file.setExecutable(true, true);
+            }
+
+            if (!isUpdated) {
+                LOG.warn("RangerSharedSnapshotStore: failed to restrict permissions of {}", path);
+            }
+        } catch (IOException excp) {
+            LOG.warn("RangerSharedSnapshotStore: failed to restrict permissions of {}", path, excp);
+        }
+    }
+
+    private void deleteEarlierVersions(File typeDir, String key, long version) {
+        File[] files = typeDir.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SNAPSHOT_FILE_NAME_PATTERN.matcher(file.getName());
+
+                if (matcher.matches() && key.equals(matcher.group(1)) && Long.parseLong(matcher.group(2)) < version) {
+                    LOG.debug("RangerSharedSnapshotStore: deleting earlier version {}", file);
+
+                    if (!file.delete() && file.exists()) {
+                        LOG.warn("RangerSharedSnapshotStore: failed to delete {}", file);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -40,10 +40,10 @@ public class RangerUserStoreCache {
 
     public static volatile RangerUserStoreCache sInstance;
 
-    private final int             waitTimeInSeconds;
-    private final boolean         dedupStrings;
-    private final ReentrantLock   lock = new ReentrantLock();
-    private       RangerUserStore rangerUserStore;
+    private final    int             waitTimeInSeconds;
+    private final    boolean         dedupStrings;
+    private final    ReentrantLock   lock = new ReentrantLock();
+    private volatile RangerUserStore rangerUserStore; // read without the lock, to decide whether to wait for a shared snapshot
 
     private RangerUserStoreCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -81,6 +81,8 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
         boolean         lockResult = false;
 
         try {
+            waitForSharedSnapshot(xUserMgr);
+
             lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
 
             if (lockResult) {
@@ -90,19 +92,26 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
                 if (!Objects.equals(cachedUserStoreVersion, dbUserStoreVersion)) {
                     LOG.info("RangerUserStoreCache refreshing from version {} to {}", cachedUserStoreVersion, dbUserStoreVersion);
 
-                    final long                     startTimeMs      = System.currentTimeMillis();
-                    final Set<UserInfo>            rangerUsersInDB  = xUserMgr.getUsers();
-                    final Set<GroupInfo>           rangerGroupsInDB = xUserMgr.getGroups();
-                    final Map<String, Set<String>> userGroups       = xUserMgr.getUserGroups();
-                    final long                     dbLoadTime       = System.currentTimeMillis() - startTimeMs;
+                    RangerSharedSnapshotStore snapshotStore   = RangerSharedSnapshotStore.getInstance();
+                    RangerUserStore           rangerUserStore = snapshotStore.get(RangerSharedSnapshotStore.TYPE_USERSTORE, RangerSharedSnapshotStore.KEY_ALL, dbUserStoreVersion, RangerUserStore.class);
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("No. of users from DB = {} and no. of groups from DB = {}", rangerUsersInDB.size(), rangerGroupsInDB.size());
-                        LOG.debug("No. of userGroupMappings = {}", userGroups.size());
-                        LOG.debug("loading Users from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTime));
-                    }
+                    if (rangerUserStore == null) {
+                        final long                     startTimeMs      = System.currentTimeMillis();
+                        final Set<UserInfo>            rangerUsersInDB  = xUserMgr.getUsers();
+                        final Set<GroupInfo>           rangerGroupsInDB = xUserMgr.getGroups();
+                        final Map<String, Set<String>> userGroups       = xUserMgr.getUserGroups();
+                        final long                     dbLoadTime       = System.currentTimeMillis() - startTimeMs;
 
-                    RangerUserStore rangerUserStore = new RangerUserStore(dbUserStoreVersion, rangerUsersInDB, rangerGroupsInDB, userGroups);
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("No. of users from DB = {} and no. of groups from DB = {}", rangerUsersInDB.size(), rangerGroupsInDB.size());
+                            LOG.debug("No. of userGroupMappings = {}", userGroups.size());
+                            LOG.debug("loading Users from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTime));
+                        }
+
+                        rangerUserStore = new RangerUserStore(dbUserStoreVersion, rangerUsersInDB, rangerGroupsInDB, userGroups);
+
+                        snapshotStore.put(RangerSharedSnapshotStore.TYPE_USERSTORE, RangerSharedSnapshotStore.KEY_ALL, dbUserStoreVersion, rangerUserStore);
+                    }
 
                     if (dedupStrings) {
                         rangerUserStore.dedupStrings();
@@ -110,7 +119,7 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
 
                     this.rangerUserStore = rangerUserStore;
 
-                    LOG.info("RangerUserStoreCache refreshed from version {} to {}: users={}, groups={}, userGroupMappings={}", cachedUserStoreVersion, dbUserStoreVersion, rangerUsersInDB.size(), rangerGroupsInDB.size(), userGroups.size());
+                    LOG.info("RangerUserStoreCache refreshed from version {} to {}: users={}, groups={}, userGroupMappings={}", cachedUserStoreVersion, dbUserStoreVersion, size(rangerUserStore.getUserAttrMapping()), size(rangerUserStore.getGroupAttrMapping()), size(rangerUserStore.getUserGroupMapping()));
                 }
             } else {
                 LOG.debug("Could not get lock in [{}] seconds, returning cached RangerUserStore", waitTimeInSeconds);
@@ -129,4 +138,23 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
 
         return ret;
     }
+
+    /*
+     * waits, without holding the lock, for the snapshot of the version in database to be published by another instance
+     */
+    private void waitForSharedSnapshot(XUserMgr xUserMgr) {
+        RangerSharedSnapshotStore snapshotStore = RangerSharedSnapshotStore.getInstance();
+
+        if (snapshotStore.isEnabled()) {
+            Long dbUserStoreVersion = xUserMgr.getUserStoreVersion();
+
+            if (dbUserStoreVersion != null && !dbUserStoreVersion.equals(rangerUserStore.getUserStoreVersion())) {
+                snapshotStore.waitFor(RangerSharedSnapshotStore.TYPE_USERSTORE, RangerSharedSnapshotStore.KEY_ALL, dbUserStoreVersion);
+            }
+        }
+    }
+
+    private static int size(Map<?, ?> map) {
+        return map != null ? map.size() : 0;
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.ServicePolicies;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * ServicePolicies serialized to JSON, along with gzip compressed JSON and an ETag. Instances are cached in
+ * RangerServicePoliciesCache, so that a policy download by many plugins serializes and compresses the policies once.
+ */
+public class SerializedServicePolicies {
+    public static final String REQUEST_ATTRIBUTE = "rangerSerializedServicePolicies";
+
+    private final Long   policyVersion;
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String eTag;
+
+    public SerializedServicePolicies(ServicePolicies servicePolicies) throws IOException {
+        this.policyVersion = servicePolicies.getPolicyVersion();
+        this.json          = JsonUtilsV2.getMapper().writeValueAsBytes(servicePolicies);
+        this.gzipJson      = gzip(json);
+        this.eTag          = "W/\"" + policyVersion + "-" + Long.toHexString(crc32(json)) + "\"";
+    }
+
+    public Long getPolicyVersion() {
+        return policyVersion;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzipJson() {
+        return gzipJson;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /*
+     * weak comparison of ETags, as the same ETag is used for the JSON and gzip compressed JSON
+     */
+    public boolean matches(String ifNoneMatch) {
+        boolean ret = false;
+
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = StringUtils.removeStart(tag.trim(), "W/");
+
+                if (StringUtils.equals(tag, StringUtils.removeStart(eTag, "W/"))) {
+                    ret = true;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedServicePolicies={policyVersion=" + policyVersion + ", jsonLength=" + json.length + ", gzipJsonLength=" + gzipJson.length + ", eTag=" + eTag + "}";
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length / 8, 64));
+
+        try (GZIPOutputStream gos = new GZIPOutputStream(out)) {
+            gos.write(data);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static long crc32(byte[] data) {
+        CRC32 crc = new CRC32();
+
+        crc.update(data, 0, data.length);
+
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.util.ServicePolicies;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Jersey provider that writes ServicePolicies from the pre-serialized payload set in the request by policy download
+ * APIs - gzip compressed if the client accepts it. For requests without such payload, RangerJsonProvider is used.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class SerializedServicePoliciesWriter implements MessageBodyWriter<ServicePolicies> {
+    private static final String ENCODING_GZIP = "gzip";
+
+    @Context
+    private HttpServletRequest request;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return ServicePolicies.class.isAssignableFrom(type) && getSerializedPolicies() != null;
+    }
+
+    @Override
+    public long getSize(ServicePolicies servicePolicies, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        SerializedServicePolicies serialized = getSerializedPolicies();
+
+        return serialized != null ? getContent(serialized).length : -1;
+    }
+
+    @Override
+    public void writeTo(ServicePolicies servicePolicies, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        SerializedServicePolicies serialized = getSerializedPolicies();
+
+        httpHeaders.putSingle(HttpHeaders.ETAG, serialized.getETag());
+        httpHeaders.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip()) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+        }
+
+        entityStream.write(getContent(serialized));
+    }
+
+    private SerializedServicePolicies getSerializedPolicies() {
+        Object ret = request != null ? request.getAttribute(SerializedServicePolicies.REQUEST_ATTRIBUTE) : null;
+
+        return ret instanceof SerializedServicePolicies ? (SerializedServicePolicies) ret : null;
+    }
+
+    private byte[] getContent(SerializedServicePolicies serialized) {
+        return acceptsGzip() ? serialized.getGzipJson() : serialized.getJson();
+    }
+
+    private boolean acceptsGzip() {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        return acceptEncoding != null && StringUtils.containsIgnoreCase(acceptEncoding, ENCODING_GZIP);
+    }
+}
@@ -22,9 +22,12 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXGroup;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceDef;
 import org.apache.ranger.entity.XXUser;
 import org.apache.ranger.plugin.model.RangerBaseModelObject;
 import org.apache.ranger.plugin.model.RangerPolicy;
@@ -92,6 +95,9 @@ public class ServiceUtil {
     @Autowired
     ServiceDBStore svcStore;
 
+    @Autowired
+    RangerBizUtil bizUtil;
+
     public static String toAccessType(int permType) {
         String ret = null;
 
@@ -1116,6 +1122,45 @@ public boolean isValidService(String serviceName, HttpServletRequest request) {
         return isValid;
     }
 
+    /*
+     * returns true if the current user can download policies/tags/roles/userstore of the service: i.e. the user is
+     * an admin (keyadmin for KMS services), or is listed in one of the given service configs
+     */
+    public boolean isAllowedToDownload(String serviceName, String... cfgNamesAllowedUsers) {
+        boolean ret = false;
+
+        try {
+            XXService    xService    = xaDaoMgr.getXXService().findByName(serviceName);
+            XXServiceDef xServiceDef = xService != null ? xaDaoMgr.getXXServiceDef().getById(xService.getType()) : null;
+
+            if (xServiceDef != null) {
+                final RangerService rangerService;
+
+                if (StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME)) {
+                    rangerService = svcStore.getServiceByNameForDP(serviceName);
+                    ret           = bizUtil.isKeyAdmin();
+                } else {
+                    rangerService = svcStore.getServiceByName(serviceName);
+                    ret           = bizUtil.isAdmin();
+                }
+
+                if (!ret && rangerService != null) {
+                    for (String cfgNameAllowedUsers : cfgNamesAllowedUsers) {
+                        if (bizUtil.isUserAllowed(rangerService, cfgNameAllowedUsers)) {
+                            ret = true;
+
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (Exception excp) {
+            LOG.error("isAllowedToDownload({}) failed", serviceName, excp);
+        }
+
+        return ret;
+    }
+
     public List<RangerPolicy> getMatchingPoliciesForResource(HttpServletRequest request, List<RangerPolicy> policyLists) {
         List<RangerPolicy> policies          = new ArrayList<>();
         final String       serviceTypeForTag = EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME;
@@ -101,6 +101,37 @@ public List<XXPolicy> findByServiceId(Long serviceId) {
         }
     }
 
+    public List<Long> findSortedPolicyIdsByServiceId(Long serviceId) {
+        if (serviceId == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return getEntityManager()
+                    .createNamedQuery("XXPolicy.findSortedPolicyIdsByServiceId", Long.class)
+                    .setParameter("serviceId", serviceId).getResultList();
+        } catch (NoResultException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    public List<XXPolicy> findByServiceIdAndIdRange(Long serviceId, Long minId, Long maxId) {
+        if (serviceId == null || minId == null || maxId == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return getEntityManager()
+                    .createNamedQuery("XXPolicy.findByServiceIdAndIdRange", tClass)
+                    .setParameter("serviceId", serviceId)
+                    .setParameter("minId", minId)
+                    .setParameter("maxId", maxId)
+                    .getResultList();
+        } catch (NoResultException e) {
+            return new ArrayList<>();
+        }
+    }
+
     public List<Long> findPolicyIdsByServiceId(Long serviceId) {
         List<Long> ret;
 
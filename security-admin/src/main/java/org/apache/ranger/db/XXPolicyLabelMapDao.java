@@ -70,4 +70,20 @@ public List<XXPolicyLabelMap> findByServiceId(Long serviceId) {
             return null;
         }
     }
+
+    public List<XXPolicyLabelMap> findByServiceIdAndPolicyIdRange(Long serviceId, Long minPolicyId, Long maxPolicyId) {
+        if (serviceId == null || minPolicyId == null || maxPolicyId == null) {
+            return null;
+        }
+
+        try {
+            return getEntityManager().createNamedQuery("XXPolicyLabelMap.findByServiceIdAndPolicyIdRange", tClass)
+                    .setParameter("serviceId", serviceId)
+                    .setParameter("minId", minPolicyId)
+                    .setParameter("maxId", maxPolicyId)
+                    .getResultList();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
 }
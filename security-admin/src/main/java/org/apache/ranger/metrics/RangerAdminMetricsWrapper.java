@@ -21,6 +21,7 @@
 
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourceContextEnricher;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourceDenyConditions;
+import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyLoad;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyMasking;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyResourceAccess;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyRowFiltering;
@@ -68,6 +69,9 @@ public class RangerAdminMetricsWrapper {
     @Autowired
     private RangerAdminMetricsSourceDenyConditions denyConditionSource;
 
+    @Autowired
+    private RangerAdminMetricsSourcePolicyLoad policyLoadSource;
+
     @PostConstruct
     public void init() {
         LOG.info("===>> RangerAdminMetricsWrapper.init()");
@@ -86,6 +90,7 @@ public void init() {
             sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourcePolicyResourceAccess", "Resource Policy Access metrics in Ranger Admin", context, policyResourceAccessSource));
             sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourcePolicyRowFiltering", "Row Filtering Policy Access metrics in Ranger Admin", context, policyRowFilteringSource));
             sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourcePolicyMasking", "Masking Policy Access metrics in Ranger Admin", context, policyMaskingSource));
+            sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourcePolicyLoad", "Policy load metrics, per service, in Ranger Admin", context, policyLoadSource));
 
             //Source: ContextEnricher
             sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourceContextEnricher", "Context Enricher metrics in Ranger Admin", context, contextEnricherSource));
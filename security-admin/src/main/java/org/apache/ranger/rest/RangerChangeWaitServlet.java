@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.rest;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.biz.RangerChangeNotifier;
+import org.apache.ranger.common.JSONUtil;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/*
+ * Serves plugin requests to wait for change in policies/tags/roles/userstore of a service - see RangerChangeNotifier.
+ * Waiting requests are suspended with startAsync(), which isn't supported by Jersey 1; hence this servlet is mapped in
+ * web.xml to the wait URLs, which take precedence over /service/* mapped to Jersey. Requests are authorized by the
+ * REST resource that serves downloads of the entity, like ServiceREST.checkWaitForPolicyChange().
+ */
+public class RangerChangeWaitServlet extends HttpServlet {
+    private static final long   serialVersionUID = 1L;
+    private static final Logger LOG              = LoggerFactory.getLogger(RangerChangeWaitServlet.class);
+
+    private transient ApplicationContext   context;
+    private transient RangerChangeNotifier changeNotifier;
+    private transient JSONUtil             jsonUtil;
+
+    @Override
+    public void init() {
+        context        = WebApplicationContextUtils.getRequiredWebApplicationContext(getServletContext());
+        changeNotifier = context.getBean(RangerChangeNotifier.class);
+        jsonUtil       = context.getBean(JSONUtil.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String serviceName = StringUtils.removeStart(request.getPathInfo(), "/");
+
+        LOG.debug("==> RangerChangeWaitServlet.doGet(servletPath={}, serviceName={})", request.getServletPath(), serviceName);
+
+        try {
+            final long lastKnownVersion;
+            final long timeoutMs;
+
+            try {
+                lastKnownVersion = getLongParam(request, RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, -1L);
+                timeoutMs        = getLongParam(request, RangerRESTUtils.REST_PARAM_WAIT_TIMEOUT_MS, 0L);
+            } catch (NumberFormatException excp) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage());
+
+                return;
+            }
+
+            if (StringUtils.isBlank(serviceName)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+                return;
+            }
+
+            Integer entityType = authorize(request.getServletPath() + "/", serviceName, request);
+
+            if (entityType == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            } else if (changeNotifier.waitForChange(entityType, serviceName, lastKnownVersion, timeoutMs, request)) {
+                response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            }
+        } catch (WebApplicationException excp) {
+            sendError(response, excp);
+        }
+
+        LOG.debug("<== RangerChangeWaitServlet.doGet(servletPath={}, serviceName={})", request.getServletPath(), serviceName);
+    }
+
+    /*
+     * returns the entity type to wait for; null if the servlet path isn't a wait URL. Throws WebApplicationException if
+     * the request isn't authorized.
+     */
+    private Integer authorize(String servletPath, String serviceName, HttpServletRequest request) {
+        final Integer ret;
+
+        switch (servletPath) {
+            case RangerRESTUtils.REST_URL_POLICY_WAIT_FOR_CHANGE:
+                context.getBean(ServiceREST.class).checkWaitForPolicyChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_POLICIES;
+                break;
+            case RangerRESTUtils.REST_URL_SECURE_POLICY_WAIT_FOR_CHANGE:
+                context.getBean(ServiceREST.class).checkWaitForSecurePolicyChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_POLICIES;
+                break;
+            case RangerRESTUtils.REST_URL_TAGS_WAIT_FOR_CHANGE:
+                context.getBean(TagREST.class).checkWaitForTagChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_TAGS;
+                break;
+            case RangerRESTUtils.REST_URL_SECURE_TAGS_WAIT_FOR_CHANGE:
+                context.getBean(TagREST.class).checkWaitForSecureTagChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_TAGS;
+                break;
+            case RangerRESTUtils.REST_URL_ROLES_WAIT_FOR_CHANGE:
+                context.getBean(RoleREST.class).checkWaitForRoleChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_ROLES;
+                break;
+            case RangerRESTUtils.REST_URL_SECURE_ROLES_WAIT_FOR_CHANGE:
+                context.getBean(RoleREST.class).checkWaitForSecureRoleChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_ROLES;
+                break;
+            case RangerRESTUtils.REST_URL_USERSTORE_WAIT_FOR_CHANGE:
+                context.getBean(XUserREST.class).checkWaitForUserStoreChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_USERSTORE;
+                break;
+            case RangerRESTUtils.REST_URL_SECURE_USERSTORE_WAIT_FOR_CHANGE:
+                context.getBean(XUserREST.class).checkWaitForSecureUserStoreChange(serviceName, request);
+                ret = RangerPluginInfo.ENTITY_TYPE_USERSTORE;
+                break;
+            default:
+                ret = null;
+                break;
+        }
+
+        return ret;
+    }
+
+    private void sendError(HttpServletResponse response, WebApplicationException excp) throws IOException {
+        Object entity = excp.getResponse().getEntity();
+
+        response.setStatus(excp.getResponse().getStatus());
+
+        if (entity instanceof Serializable) {
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write(jsonUtil.writeObjectAsString((Serializable) entity));
+        }
+    }
+
+    private static long getLongParam(HttpServletRequest request, String name, long defaultValue) {
+        String value = request.getParameter(name);
+
+        return StringUtils.isBlank(value) ? defaultValue : Long.parseLong(value.trim());
+    }
+}
@@ -1112,6 +1112,36 @@ public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") Strin
         return ret;
     }
 
+    // These are used to authorize plug-in requests to wait for change in roles; see ServiceREST.checkWaitForPolicyChange()
+
+    public void checkWaitForRoleChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> RoleREST.checkWaitForRoleChange({})", serviceName);
+
+        try {
+            bizUtil.failUnauthenticatedDownloadIfNotAllowed();
+        } catch (Exception excp) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage(), false);
+        }
+
+        serviceUtil.isValidService(serviceName, request);
+
+        LOG.debug("<== RoleREST.checkWaitForRoleChange({})", serviceName);
+    }
+
+    public void checkWaitForSecureRoleChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> RoleREST.checkWaitForSecureRoleChange({})", serviceName);
+
+        request.setAttribute("downloadPolicy", "secure");
+
+        serviceUtil.isValidService(serviceName, request);
+
+        if (!serviceUtil.isAllowedToDownload(serviceName, POLICY_DOWNLOAD_USERS)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_FORBIDDEN, "User doesn't have permission to download UserGroupRoles", false);
+        }
+
+        LOG.debug("<== RoleREST.checkWaitForSecureRoleChange({})", serviceName);
+    }
+
     protected List<RangerRole> getAllFilteredRoleList(HttpServletRequest request) throws Exception {
         LOG.debug("==> getAllFilteredRoleList()");
 
@@ -51,7 +51,9 @@
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.RangerValidatorFactory;
+import org.apache.ranger.common.SerializedServicePolicies;
 import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.common.SortField.SORT_ORDER;
 import org.apache.ranger.common.UserSessionBase;
@@ -143,6 +145,7 @@
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
 import java.io.IOException;
@@ -2537,8 +2540,8 @@ public ServicePolicies getServicePoliciesIfUpdated(@PathParam("serviceName") Str
 
                 ret = svcStore.getServicePoliciesIfUpdated(serviceName, lastKnownVersion, !supportsPolicyDeltas);
 
-                if (ret == null) {
-                    downloadedVersion = lastKnownVersion;
+                if (ret == null || !setSerializedServicePolicies(serviceName, lastKnownVersion, !supportsPolicyDeltas, ret, request)) {
+                    downloadedVersion = ret == null ? lastKnownVersion : ret.getPolicyVersion();
                     httpCode          = HttpServletResponse.SC_NOT_MODIFIED;
                     logMsg            = "No change since last update";
                 } else {
@@ -2639,8 +2642,8 @@ public ServicePolicies getSecureServicePoliciesIfUpdated(@PathParam("serviceName
                 if (isAllowed) {
                     ret = svcStore.getServicePoliciesIfUpdated(serviceName, lastKnownVersion, !supportsPolicyDeltas);
 
-                    if (ret == null) {
-                        downloadedVersion = lastKnownVersion;
+                    if (ret == null || !setSerializedServicePolicies(serviceName, lastKnownVersion, !supportsPolicyDeltas, ret, request)) {
+                        downloadedVersion = ret == null ? lastKnownVersion : ret.getPolicyVersion();
                         httpCode          = HttpServletResponse.SC_NOT_MODIFIED;
                         logMsg            = "No change since last update";
                     } else {
@@ -2677,6 +2680,41 @@ public ServicePolicies getSecureServicePoliciesIfUpdated(@PathParam("serviceName
         return ret;
     }
 
+    /*
+     * authorizes a plugin request to wait for change in policies of the service; throws WebApplicationException if the
+     * request isn't authorized. The wait is served by RangerChangeWaitServlet, as Jersey 1 doesn't support asynchronous
+     * requests - see RangerChangeNotifier.
+     */
+    public void checkWaitForPolicyChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> ServiceREST.checkWaitForPolicyChange({})", serviceName);
+
+        try {
+            bizUtil.failUnauthenticatedDownloadIfNotAllowed();
+        } catch (Exception excp) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage(), false);
+        }
+
+        if (!serviceUtil.isValidateHttpsAuthentication(serviceName, request)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized access", false);
+        }
+
+        LOG.debug("<== ServiceREST.checkWaitForPolicyChange({})", serviceName);
+    }
+
+    public void checkWaitForSecurePolicyChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> ServiceREST.checkWaitForSecurePolicyChange({})", serviceName);
+
+        request.setAttribute("downloadPolicy", "secure");
+
+        serviceUtil.isValidService(serviceName, request);
+
+        if (!serviceUtil.isAllowedToDownload(serviceName, Allowed_User_List_For_Download, Allowed_User_List_For_Grant_Revoke)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_FORBIDDEN, "User doesn't have permission to download policy", false);
+        }
+
+        LOG.debug("<== ServiceREST.checkWaitForSecurePolicyChange({})", serviceName);
+    }
+
     @DELETE
     @Path("/server/policydeltas")
     @PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
@@ -3870,6 +3908,27 @@ private RangerPolicyList getServicePolicies(String serviceName, SearchFilter fil
         }
     }
 
+    /*
+     * sets serialized policies in the request, to be written by SerializedServicePoliciesWriter.
+     * Returns false if the client already has these policies, i.e. If-None-Match header matches the ETag.
+     */
+    private boolean setSerializedServicePolicies(String serviceName, Long lastKnownVersion, boolean needsBackwardCompatibility, ServicePolicies policies, HttpServletRequest request) {
+        boolean                   ret        = true;
+        SerializedServicePolicies serialized = RangerServicePoliciesCache.getInstance().getSerializedServicePolicies(serviceName, lastKnownVersion, needsBackwardCompatibility, policies);
+
+        if (serialized != null) {
+            if (serialized.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                LOG.debug("setSerializedServicePolicies({}, {}): ETag {} matches If-None-Match", serviceName, lastKnownVersion, serialized.getETag());
+
+                ret = false;
+            } else {
+                request.setAttribute(SerializedServicePolicies.REQUEST_ATTRIBUTE, serialized);
+            }
+        }
+
+        return ret;
+    }
+
     private void createPolicyDownloadAudit(String serviceName, Long lastKnownVersion, String pluginId, int httpRespCode, String clusterName, String zoneName, HttpServletRequest request) {
         try {
             String ipAddress = request.getHeader("X-FORWARDED-FOR");
@@ -28,6 +28,7 @@
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXService;
 import org.apache.ranger.entity.XXServiceDef;
@@ -105,6 +106,9 @@ public class TagREST {
     @Autowired
     RangerBizUtil bizUtil;
 
+    @Autowired
+    ServiceUtil serviceUtil;
+
     @Autowired
     AssetMgr assetMgr;
 
@@ -1385,6 +1389,38 @@ public ServiceTags getSecureServiceTagsIfUpdated(@PathParam("serviceName") Strin
         return ret;
     }
 
+    // These are used to authorize plug-in requests to wait for change in tags of the service; see ServiceREST.checkWaitForPolicyChange()
+
+    public void checkWaitForTagChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> TagREST.checkWaitForTagChange({})", serviceName);
+
+        try {
+            bizUtil.failUnauthenticatedDownloadIfNotAllowed();
+        } catch (Exception excp) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage(), false);
+        }
+
+        if (!serviceUtil.isValidateHttpsAuthentication(serviceName, request)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized access", false);
+        }
+
+        LOG.debug("<== TagREST.checkWaitForTagChange({})", serviceName);
+    }
+
+    public void checkWaitForSecureTagChange(String serviceName, HttpServletRequest request) {
+        LOG.debug("==> TagREST.checkWaitForSecureTagChange({})", serviceName);
+
+        request.setAttribute("downloadPolicy", "secure");
+
+        serviceUtil.isValidService(serviceName, request);
+
+        if (!serviceUtil.isAllowedToDownload(serviceName, Allowed_User_List_For_Tag_Download)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_FORBIDDEN, "User doesn't have permission to download tags", false);
+        }
+
+        LOG.debug("<== TagREST.checkWaitForSecureTagChange({})", serviceName);
+    }
+
     @DELETE
     @Path("/server/tagdeltas")
     @PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
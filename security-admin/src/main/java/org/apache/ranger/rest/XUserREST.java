@@ -1523,6 +1523,36 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
         return ret;
     }
 
+    // These are used to authorize plug-in requests to wait for change in users/groups; see ServiceREST.checkWaitForPolicyChange()
+
+    public void checkWaitForUserStoreChange(String serviceName, HttpServletRequest request) {
+        logger.debug("==> XUserREST.checkWaitForUserStoreChange({})", serviceName);
+
+        try {
+            bizUtil.failUnauthenticatedDownloadIfNotAllowed();
+        } catch (Exception excp) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage(), false);
+        }
+
+        serviceUtil.isValidService(serviceName, request);
+
+        logger.debug("<== XUserREST.checkWaitForUserStoreChange({})", serviceName);
+    }
+
+    public void checkWaitForSecureUserStoreChange(String serviceName, HttpServletRequest request) {
+        logger.debug("==> XUserREST.checkWaitForSecureUserStoreChange({})", serviceName);
+
+        request.setAttribute("downloadPolicy", "secure");
+
+        serviceUtil.isValidService(serviceName, request);
+
+        if (!serviceUtil.isAllowedToDownload(serviceName, USERSTORE_DOWNLOAD_USERS)) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_FORBIDDEN, "User doesn't have permission to download UsersAndGroups", false);
+        }
+
+        logger.debug("<== XUserREST.checkWaitForSecureUserStoreChange({})", serviceName);
+    }
+
     @POST
     @Path("/ugsync/auditinfo")
     @Consumes("application/json")
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.biz.RangerChangeNotifier;
+import org.apache.ranger.plugin.util.RangerPluginCapability;
+import org.apache.ranger.plugin.util.RangerPluginCapability.RangerPluginFeature;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
+
+/*
+ * Adds capabilities of this Ranger admin to responses of download APIs, for plugins to find features supported by
+ * Ranger admin - like change notification.
+ */
+public class RangerAdminCapabilityFilter implements ContainerResponseFilter {
+    private static volatile String adminCapabilities;
+
+    @Override
+    public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+        String path = request.getPath();
+
+        if (path != null && path.contains("download/")) {
+            response.getHttpHeaders().putSingle(RangerRESTUtils.REST_HEADER_ADMIN_CAPABILITIES, getAdminCapabilities());
+        }
+
+        return response;
+    }
+
+    private static String getAdminCapabilities() {
+        String ret = adminCapabilities;
+
+        if (ret == null) {
+            long capabilities = new RangerPluginCapability().getPluginCapabilities();
+
+            if (!RangerChangeNotifier.isEnabled(RangerAdminConfig.getInstance())) {
+                capabilities &= ~(1L << RangerPluginFeature.RANGER_PLUGIN_CAPABILITY_CHANGE_NOTIFICATION.ordinal());
+            }
+
+            ret               = Long.toHexString(capabilities);
+            adminCapabilities = ret;
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXGlobalStateDao;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.model.RangerPluginInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.Collections;
+
+public class TestRangerChangeNotifier {
+    private static final String SERVICE_NAME = "hive_dev";
+
+    private final RangerChangeNotifier    notifier          = new RangerChangeNotifier();
+    private final XXServiceVersionInfoDao serviceVersionDao = Mockito.mock(XXServiceVersionInfoDao.class);
+    private final HttpServletRequest      request           = Mockito.mock(HttpServletRequest.class);
+    private final HttpServletResponse     response          = Mockito.mock(HttpServletResponse.class);
+    private final AsyncContext            asyncContext      = Mockito.mock(AsyncContext.class);
+
+    @Before
+    public void setUp() {
+        RangerDaoManager daoManager = Mockito.mock(RangerDaoManager.class);
+
+        Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(serviceVersionDao);
+        Mockito.when(daoManager.getXXGlobalState()).thenReturn(Mockito.mock(XXGlobalStateDao.class));
+        Mockito.when(request.startAsync()).thenReturn(asyncContext);
+        Mockito.when(asyncContext.getResponse()).thenReturn(response);
+
+        notifier.daoManager    = daoManager;
+        notifier.restErrorUtil = new RESTErrorUtil();
+        notifier.txManager     = Mockito.mock(PlatformTransactionManager.class);
+
+        notifier.init();
+    }
+
+    @After
+    public void tearDown() {
+        notifier.destroy();
+    }
+
+    @Test
+    public void testReturnsWhenAlreadyChanged() {
+        Mockito.when(serviceVersionDao.findByServiceName(SERVICE_NAME)).thenReturn(createVersionInfo(5L));
+
+        Assert.assertTrue(notifier.waitForChange(RangerPluginInfo.ENTITY_TYPE_POLICIES, SERVICE_NAME, 4L, 10 * 1000L, request));
+
+        Mockito.verify(request, Mockito.never()).startAsync();
+    }
+
+    @Test
+    public void testNotModifiedOnTimeout() throws Exception {
+        Mockito.when(serviceVersionDao.findByServiceName(SERVICE_NAME)).thenReturn(createVersionInfo(5L));
+
+        Assert.assertFalse(notifier.waitForChange(RangerPluginInfo.ENTITY_TYPE_POLICIES, SERVICE_NAME, 5L, 200L, request));
+
+        Mockito.verify(asyncContext).setTimeout(200L);
+
+        // timeout is notified by the container
+        getListener().onTimeout(null);
+
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Mockito.verify(asyncContext).complete();
+    }
+
+    @Test
+    public void testReturnsOnChange() throws Exception {
+        Mockito.when(serviceVersionDao.findByServiceName(SERVICE_NAME)).thenReturn(createVersionInfo(5L));
+        Mockito.when(serviceVersionDao.getAllWithServiceNames()).thenReturn(Collections.singletonList(new Object[] {createVersionInfo(6L), SERVICE_NAME}));
+
+        Assert.assertFalse(notifier.waitForChange(RangerPluginInfo.ENTITY_TYPE_POLICIES, SERVICE_NAME, 5L, 30 * 1000L, request));
+
+        // version is updated by the background check, well before the timeout
+        Mockito.verify(response, Mockito.timeout(10 * 1000L)).setStatus(HttpServletResponse.SC_NO_CONTENT);
+        Mockito.verify(asyncContext).complete();
+
+        // the request is completed only once
+        getListener().onTimeout(null);
+
+        Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Mockito.verify(asyncContext).complete();
+    }
+
+    private AsyncListener getListener() {
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+
+        Mockito.verify(asyncContext).addListener(listener.capture());
+
+        return listener.getValue();
+    }
+
+    private static XXServiceVersionInfo createVersionInfo(long policyVersion) {
+        XXServiceVersionInfo ret = new XXServiceVersionInfo();
+
+        ret.setPolicyVersion(policyVersion);
+        ret.setTagVersion(1L);
+        ret.setRoleVersion(1L);
+
+        return ret;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXPolicyDao;
+import org.apache.ranger.db.XXPolicyLabelDao;
+import org.apache.ranger.db.XXPolicyLabelMapDao;
+import org.apache.ranger.db.XXPolicyRefAccessTypeDao;
+import org.apache.ranger.db.XXPolicyRefConditionDao;
+import org.apache.ranger.db.XXPolicyRefDataMaskTypeDao;
+import org.apache.ranger.db.XXPolicyRefGroupDao;
+import org.apache.ranger.db.XXPolicyRefResourceDao;
+import org.apache.ranger.db.XXPolicyRefRoleDao;
+import org.apache.ranger.db.XXPolicyRefUserDao;
+import org.apache.ranger.db.XXServiceDefDao;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXPolicy;
+import org.apache.ranger.entity.XXPolicyLabel;
+import org.apache.ranger.entity.XXPolicyLabelMap;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestRangerPolicyRetriever {
+    private static final Long   SERVICE_ID   = 1L;
+    private static final String SERVICE_NAME = "hive_dev";
+    private static final int    POLICY_COUNT = 10;
+
+    private final RangerDaoManager           daoMgr         = Mockito.mock(RangerDaoManager.class);
+    private final XXPolicyDao                policyDao      = Mockito.mock(XXPolicyDao.class);
+    private final XXPolicyLabelMapDao        policyLabelDao = Mockito.mock(XXPolicyLabelMapDao.class);
+    private final XXServiceVersionInfoDao    versionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+    private final PlatformTransactionManager txManager      = Mockito.mock(PlatformTransactionManager.class);
+    private final List<XXPolicy>             xPolicies      = new ArrayList<>();
+    private final XXService                  xService       = new XXService();
+    private final AtomicLong                 policyVersion  = new AtomicLong(1);
+
+    @Before
+    public void setUp() {
+        XXServiceDef     xServiceDef   = new XXServiceDef();
+        XXServiceDefDao  serviceDefDao = Mockito.mock(XXServiceDefDao.class);
+        XXPolicyLabel    xPolicyLabel  = new XXPolicyLabel();
+        XXPolicyLabelDao labelDao      = Mockito.mock(XXPolicyLabelDao.class);
+
+        xServiceDef.setId(10L);
+        xServiceDef.setName("hive");
+        xService.setId(SERVICE_ID);
+        xService.setName(SERVICE_NAME);
+        xService.setType(xServiceDef.getId());
+        xPolicyLabel.setId(100L);
+        xPolicyLabel.setPolicyLabel("label-1");
+
+        for (long policyId = 1; policyId <= POLICY_COUNT; policyId++) {
+            xPolicies.add(createXXPolicy(policyId));
+        }
+
+        Mockito.when(serviceDefDao.getById(xServiceDef.getId())).thenReturn(xServiceDef);
+        Mockito.when(labelDao.getById(xPolicyLabel.getId())).thenReturn(xPolicyLabel);
+        Mockito.when(policyDao.findSortedPolicyIdsByServiceId(SERVICE_ID)).thenAnswer(invocation -> getPolicyIds());
+        Mockito.when(policyDao.findByServiceId(SERVICE_ID)).thenAnswer(invocation -> new ArrayList<>(xPolicies));
+        Mockito.when(policyDao.findByServiceIdAndIdRange(ArgumentMatchers.eq(SERVICE_ID), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong())).thenAnswer(invocation -> getPolicies(invocation.getArgument(1), invocation.getArgument(2)));
+        Mockito.when(policyLabelDao.findByServiceId(SERVICE_ID)).thenAnswer(invocation -> getPolicyLabels(1L, (long) POLICY_COUNT));
+        Mockito.when(policyLabelDao.findByServiceIdAndPolicyIdRange(ArgumentMatchers.eq(SERVICE_ID), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong())).thenAnswer(invocation -> getPolicyLabels(invocation.getArgument(1), invocation.getArgument(2)));
+        Mockito.when(versionInfoDao.findByServiceId(SERVICE_ID)).thenAnswer(invocation -> createVersionInfo(policyVersion.get()));
+        Mockito.when(txManager.getTransaction(ArgumentMatchers.any())).thenReturn(Mockito.mock(TransactionStatus.class));
+
+        Mockito.when(daoMgr.getXXPolicy()).thenReturn(policyDao);
+        Mockito.when(daoMgr.getXXPolicyLabelMap()).thenReturn(policyLabelDao);
+        Mockito.when(daoMgr.getXXPolicyLabels()).thenReturn(labelDao);
+        Mockito.when(daoMgr.getXXServiceDef()).thenReturn(serviceDefDao);
+        Mockito.when(daoMgr.getXXServiceVersionInfo()).thenReturn(versionInfoDao);
+        Mockito.when(daoMgr.getXXPolicyRefRole()).thenReturn(Mockito.mock(XXPolicyRefRoleDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefGroup()).thenReturn(Mockito.mock(XXPolicyRefGroupDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefUser()).thenReturn(Mockito.mock(XXPolicyRefUserDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefAccessType()).thenReturn(Mockito.mock(XXPolicyRefAccessTypeDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefResource()).thenReturn(Mockito.mock(XXPolicyRefResourceDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefDataMaskType()).thenReturn(Mockito.mock(XXPolicyRefDataMaskTypeDao.class));
+        Mockito.when(daoMgr.getXXPolicyRefCondition()).thenReturn(Mockito.mock(XXPolicyRefConditionDao.class));
+    }
+
+    @Test
+    public void testPagedLoad() {
+        List<RangerPolicy> expected = new RangerPolicyRetriever(daoMgr, txManager, 0).getServicePolicies(xService);
+
+        for (int pageSize : new int[] {1, 3, POLICY_COUNT, POLICY_COUNT + 1}) {
+            List<RangerPolicy> policies = new RangerPolicyRetriever(daoMgr, txManager, pageSize).getServicePolicies(xService);
+
+            Assert.assertEquals("pageSize=" + pageSize, JsonUtils.objectToJson(expected), JsonUtils.objectToJson(policies));
+        }
+
+        Assert.assertEquals(POLICY_COUNT, expected.size());
+        Assert.assertEquals(Collections.singletonList("label-1"), expected.get(2).getPolicyLabels());
+        Assert.assertEquals(POLICY_COUNT, RangerPolicyRetriever.getPolicyLoadStats().get(SERVICE_NAME).getPolicyCount());
+    }
+
+    @Test
+    public void testPagedLoadFailure() {
+        Mockito.when(policyDao.findByServiceIdAndIdRange(SERVICE_ID, 7L, 9L)).thenThrow(new RuntimeException("test failure"));
+
+        Assert.assertNull(new RangerPolicyRetriever(daoMgr, txManager, 3).getServicePolicies(xService));
+    }
+
+    @Test
+    public void testPagedLoadRetriedOnPolicyUpdate() {
+        List<RangerPolicy> expected = new RangerPolicyRetriever(daoMgr, txManager, 0).getServicePolicies(xService);
+
+        // a policy update is committed while the first page is loaded, in the first attempt only
+        Mockito.when(policyDao.findByServiceIdAndIdRange(SERVICE_ID, 1L, 3L)).thenAnswer(invocation -> {
+            policyVersion.incrementAndGet();
+
+            return getPolicies(1L, 3L);
+        }).thenAnswer(invocation -> getPolicies(1L, 3L));
+
+        List<RangerPolicy> policies = new RangerPolicyRetriever(daoMgr, txManager, 3).getServicePolicies(xService);
+
+        Assert.assertEquals(JsonUtils.objectToJson(expected), JsonUtils.objectToJson(policies));
+        Mockito.verify(policyDao, Mockito.times(2)).findSortedPolicyIdsByServiceId(SERVICE_ID);
+        Mockito.verify(policyDao, Mockito.times(1)).findByServiceId(SERVICE_ID);
+    }
+
+    @Test
+    public void testPagedLoadFallbackOnPolicyUpdates() {
+        List<RangerPolicy> expected = new RangerPolicyRetriever(daoMgr, txManager, 0).getServicePolicies(xService);
+
+        // a policy update is committed during each attempt; policies are then loaded in a single transaction
+        Mockito.when(policyDao.findByServiceIdAndIdRange(SERVICE_ID, 1L, 3L)).thenAnswer(invocation -> {
+            policyVersion.incrementAndGet();
+
+            return getPolicies(1L, 3L);
+        });
+
+        List<RangerPolicy> policies = new RangerPolicyRetriever(daoMgr, txManager, 3).getServicePolicies(xService);
+
+        Assert.assertEquals(JsonUtils.objectToJson(expected), JsonUtils.objectToJson(policies));
+        Mockito.verify(policyDao, Mockito.times(3)).findSortedPolicyIdsByServiceId(SERVICE_ID);
+        Mockito.verify(policyDao, Mockito.times(2)).findByServiceId(SERVICE_ID);
+    }
+
+    private List<Long> getPolicyIds() {
+        List<Long> ret = new ArrayList<>();
+
+        for (XXPolicy xPolicy : xPolicies) {
+            ret.add(xPolicy.getId());
+        }
+
+        return ret;
+    }
+
+    private List<XXPolicy> getPolicies(Long minPolicyId, Long maxPolicyId) {
+        List<XXPolicy> ret = new ArrayList<>();
+
+        for (XXPolicy xPolicy : xPolicies) {
+            if (xPolicy.getId() >= minPolicyId && xPolicy.getId() <= maxPolicyId) {
+                ret.add(xPolicy);
+            }
+        }
+
+        return ret;
+    }
+
+    private static List<XXPolicyLabelMap> getPolicyLabels(Long minPolicyId, Long maxPolicyId) {
+        List<XXPolicyLabelMap> ret = new ArrayList<>();
+
+        if (minPolicyId <= 3L && maxPolicyId >= 3L) {
+            XXPolicyLabelMap xPolicyLabelMap = new XXPolicyLabelMap();
+
+            xPolicyLabelMap.setId(1L);
+            xPolicyLabelMap.setPolicyId(3L);
+            xPolicyLabelMap.setPolicyLabelId(100L);
+
+            ret.add(xPolicyLabelMap);
+        }
+
+        return ret;
+    }
+
+    private static XXServiceVersionInfo createVersionInfo(long policyVersion) {
+        XXServiceVersionInfo ret = new XXServiceVersionInfo();
+
+        ret.setServiceId(SERVICE_ID);
+        ret.setPolicyVersion(policyVersion);
+
+        return ret;
+    }
+
+    private static XXPolicy createXXPolicy(long policyId) {
+        RangerPolicy policy  = new RangerPolicy();
+        XXPolicy     xPolicy = new XXPolicy();
+
+        policy.setName("policy-" + policyId);
+        policy.setIsEnabled(true);
+        policy.getResources().put("database", new RangerPolicyResource("db" + policyId));
+
+        xPolicy.setId(policyId);
+        xPolicy.setGuid("guid-" + policyId);
+        xPolicy.setService(SERVICE_ID);
+        xPolicy.setVersion(1L);
+        xPolicy.setPolicyText(JsonUtils.objectToJson(policy));
+
+        return xPolicy;
+    }
+}
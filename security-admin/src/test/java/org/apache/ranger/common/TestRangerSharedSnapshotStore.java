@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+
+public class TestRangerSharedSnapshotStore {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        RangerSharedSnapshotStore store = new RangerSharedSnapshotStore(tempFolder.getRoot(), 0, () -> true);
+
+        store.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, createRoles(1L));
+        store.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 2L, createRoles(2L));
+
+        RangerRoles roles = store.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 2L, RangerRoles.class);
+
+        Assert.assertNotNull(roles);
+        Assert.assertEquals(Long.valueOf(2L), roles.getRoleVersion());
+        Assert.assertEquals("role-2", roles.getRangerRoles().iterator().next().getName());
+
+        // earlier version is removed on publishing a later version
+        Assert.assertNull(store.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, RangerRoles.class));
+        Assert.assertEquals(1, new File(tempFolder.getRoot(), RangerSharedSnapshotStore.TYPE_ROLES).list().length);
+    }
+
+    @Test
+    public void testPassiveInstanceWaitsForSnapshot() {
+        RangerSharedSnapshotStore store     = new RangerSharedSnapshotStore(tempFolder.getRoot(), 300, () -> false);
+        long                      startTime = System.currentTimeMillis();
+
+        // get() doesn't wait; waitFor() does, as it is called without holding locks of the caches
+        Assert.assertNull(store.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, RangerRoles.class));
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 300L);
+
+        store.waitFor(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L);
+
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 300L);
+    }
+
+    @Test
+    public void testWaitForReturnsOnPublish() throws Exception {
+        RangerSharedSnapshotStore store     = new RangerSharedSnapshotStore(tempFolder.getRoot(), 60 * 1000L, () -> false);
+        RangerSharedSnapshotStore publisher = new RangerSharedSnapshotStore(tempFolder.getRoot(), 0, () -> true);
+        Thread                    thread    = new Thread(() -> publisher.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, createRoles(1L)));
+        long                      startTime = System.currentTimeMillis();
+
+        thread.start();
+
+        store.waitFor(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L);
+
+        thread.join();
+
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 60 * 1000L);
+        Assert.assertNotNull(store.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, RangerRoles.class));
+    }
+
+    @Test
+    public void testActiveInstanceDoesNotWait() {
+        RangerSharedSnapshotStore store     = new RangerSharedSnapshotStore(tempFolder.getRoot(), 60 * 1000L, () -> true);
+        long                      startTime = System.currentTimeMillis();
+
+        store.waitFor(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L);
+
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 60 * 1000L);
+    }
+
+    @Test
+    public void testSnapshotAccessibleOnlyToOwner() throws Exception {
+        RangerSharedSnapshotStore store = new RangerSharedSnapshotStore(tempFolder.getRoot(), 0, () -> true);
+
+        store.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, createRoles(1L));
+
+        File typeDir = new File(tempFolder.getRoot(), RangerSharedSnapshotStore.TYPE_ROLES);
+        File file    = typeDir.listFiles()[0];
+
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        Assert.assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(typeDir.toPath()));
+        Assert.assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    @Test
+    public void testDisabled() {
+        RangerSharedSnapshotStore store = new RangerSharedSnapshotStore(null, 0, () -> true);
+
+        store.put(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, createRoles(1L));
+
+        Assert.assertFalse(store.isEnabled());
+        Assert.assertNull(store.get(RangerSharedSnapshotStore.TYPE_ROLES, RangerSharedSnapshotStore.KEY_ALL, 1L, RangerRoles.class));
+    }
+
+    private static RangerRoles createRoles(long version) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(version);
+        ret.setRangerRoles(Collections.singleton(new RangerRole("role-" + version, null, null, null, null)));
+
+        return ret;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ranger.common;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ranger.common.RangerServicePoliciesCache.SerializedPoliciesCache;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+public class TestSerializedServicePolicies {
+    @Test
+    public void testSerialize() throws Exception {
+        ServicePolicies           policies   = createServicePolicies(5L);
+        SerializedServicePolicies serialized = new SerializedServicePolicies(policies);
+
+        Assert.assertEquals(Long.valueOf(5L), serialized.getPolicyVersion());
+        Assert.assertArrayEquals(JsonUtilsV2.getMapper().writeValueAsBytes(policies), serialized.getJson());
+        Assert.assertArrayEquals(serialized.getJson(), IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(serialized.getGzipJson()))));
+    }
+
+    @Test
+    public void testETag() throws Exception {
+        SerializedServicePolicies serialized = new SerializedServicePolicies(createServicePolicies(5L));
+        String                    eTag       = serialized.getETag();
+
+        Assert.assertTrue(serialized.matches(eTag));
+        Assert.assertTrue(serialized.matches(eTag.substring(2))); // weak comparison
+        Assert.assertTrue(serialized.matches("W/\"other\", " + eTag));
+        Assert.assertFalse(serialized.matches(null));
+        Assert.assertFalse(serialized.matches("W/\"other\""));
+
+        Assert.assertEquals(eTag, new SerializedServicePolicies(createServicePolicies(5L)).getETag());
+        Assert.assertNotEquals(eTag, new SerializedServicePolicies(createServicePolicies(6L)).getETag());
+
+        ServicePolicies renamed = createServicePolicies(5L);
+
+        renamed.setServiceName("hdfs-renamed");
+
+        Assert.assertNotEquals(eTag, new SerializedServicePolicies(renamed).getETag());
+    }
+
+    @Test
+    public void testCacheKey() throws Exception {
+        SerializedPoliciesCache   cache      = new SerializedPoliciesCache(4);
+        SerializedServicePolicies serialized = cache.get(-1L, false, createServicePolicies(5L));
+
+        // same versions and parameters: returns the cached entry, without serializing the given policies
+        Assert.assertSame(serialized, cache.get(-1L, false, createServicePolicies(5L)));
+        Assert.assertSame(serialized, cache.get(3L, true, createServicePolicies(5L))); // filtered, like lastKnownVersion=-1
+        Assert.assertEquals(1, cache.size());
+
+        // unfiltered policies, policies with tag-policies, and deltas from different versions are cached separately
+        SerializedServicePolicies unfiltered  = cache.get(3L, false, createServicePolicies(5L));
+        SerializedServicePolicies withTags    = cache.get(-1L, false, createServicePolicies(5L, 2L));
+        SerializedServicePolicies deltasFrom3 = cache.get(3L, false, createServicePolicyDeltas(5L));
+        SerializedServicePolicies deltasFrom4 = cache.get(4L, false, createServicePolicyDeltas(5L));
+
+        Assert.assertNotSame(serialized, unfiltered);
+        Assert.assertNotSame(serialized, withTags);
+        Assert.assertNotSame(deltasFrom3, deltasFrom4);
+        Assert.assertSame(deltasFrom3, cache.get(3L, false, createServicePolicyDeltas(5L)));
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        SerializedPoliciesCache   cache    = new SerializedPoliciesCache(2);
+        SerializedServicePolicies version5 = cache.get(-1L, false, createServicePolicies(5L));
+
+        cache.get(3L, false, createServicePolicyDeltas(5L));
+        cache.get(4L, false, createServicePolicyDeltas(5L));
+
+        // least recently added entry is evicted beyond maxEntries
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotSame(version5, cache.get(-1L, false, createServicePolicies(5L)));
+
+        // entries of earlier versions are evicted when a later version is cached
+        SerializedServicePolicies version6 = cache.get(-1L, false, createServicePolicies(6L));
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertSame(version6, cache.get(-1L, false, createServicePolicies(6L)));
+    }
+
+    private static ServicePolicies createServicePolicies(long policyVersion) {
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceId(1L);
+        ret.setServiceName("hdfs");
+        ret.setPolicyVersion(policyVersion);
+
+        return ret;
+    }
+
+    private static ServicePolicies createServicePolicies(long policyVersion, long tagPolicyVersion) {
+        ServicePolicies             ret         = createServicePolicies(policyVersion);
+        ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+        tagPolicies.setServiceName("tag");
+        tagPolicies.setPolicyVersion(tagPolicyVersion);
+
+        ret.setTagPolicies(tagPolicies);
+
+        return ret;
+    }
+
+    private static ServicePolicies createServicePolicyDeltas(long policyVersion) {
+        ServicePolicies ret = createServicePolicies(policyVersion);
+
+        ret.setPolicyDeltas(new ArrayList<>());
+
+        return ret;
+    }
+}
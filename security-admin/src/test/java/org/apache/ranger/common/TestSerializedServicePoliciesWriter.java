@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ranger.common;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import org.apache.commons.io.IOUtils;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPInputStream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestSerializedServicePoliciesWriter {
+    @InjectMocks
+    SerializedServicePoliciesWriter writer = new SerializedServicePoliciesWriter();
+
+    @Mock
+    HttpServletRequest request;
+
+    @Test
+    public void testNotWriteableWithoutSerializedPolicies() {
+        Assert.assertFalse(writer.isWriteable(ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Test
+    public void testWriteJson() throws Exception {
+        ServicePolicies           policies   = createServicePolicies();
+        SerializedServicePolicies serialized = new SerializedServicePolicies(policies);
+
+        Mockito.when(request.getAttribute(SerializedServicePolicies.REQUEST_ATTRIBUTE)).thenReturn(serialized);
+
+        MultivaluedMap<String, Object> headers = new OutBoundHeaders();
+        ByteArrayOutputStream          out     = new ByteArrayOutputStream();
+
+        Assert.assertTrue(writer.isWriteable(ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE));
+        Assert.assertEquals(serialized.getJson().length, writer.getSize(policies, ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE));
+
+        writer.writeTo(policies, ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE, headers, out);
+
+        Assert.assertArrayEquals(serialized.getJson(), out.toByteArray());
+        Assert.assertEquals(serialized.getETag(), headers.getFirst(HttpHeaders.ETAG));
+        Assert.assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testWriteGzip() throws Exception {
+        ServicePolicies           policies   = createServicePolicies();
+        SerializedServicePolicies serialized = new SerializedServicePolicies(policies);
+
+        Mockito.when(request.getAttribute(SerializedServicePolicies.REQUEST_ATTRIBUTE)).thenReturn(serialized);
+        Mockito.when(request.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("deflate, GZIP");
+
+        MultivaluedMap<String, Object> headers = new OutBoundHeaders();
+        ByteArrayOutputStream          out     = new ByteArrayOutputStream();
+
+        Assert.assertEquals(serialized.getGzipJson().length, writer.getSize(policies, ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE));
+
+        writer.writeTo(policies, ServicePolicies.class, ServicePolicies.class, null, MediaType.APPLICATION_JSON_TYPE, headers, out);
+
+        Assert.assertArrayEquals(serialized.getJson(), IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        Assert.assertEquals(serialized.getETag(), headers.getFirst(HttpHeaders.ETAG));
+        Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private static ServicePolicies createServicePolicies() {
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceId(1L);
+        ret.setServiceName("hdfs");
+        ret.setPolicyVersion(5L);
+
+        return ret;
+    }
+}
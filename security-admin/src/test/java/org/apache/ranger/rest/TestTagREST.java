@@ -22,6 +22,7 @@
 import org.apache.ranger.biz.TagDBStore;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXServiceDao;
 import org.apache.ranger.db.XXServiceDefDao;
@@ -105,6 +106,8 @@ public class TestTagREST {
     RangerServiceResourceService resourceService;
     @Mock
     RangerServiceResourceWithTagsService serviceResourceWithTagsService;
+    @Mock
+    ServiceUtil serviceUtil;
 
     @Test
     public void test1createTagDef() {
@@ -1996,6 +1999,63 @@ public void test59resetTagCacheWhenServiceNameIsInvalid() {
         Mockito.verify(restErrorUtil).createRESTException(Mockito.anyInt(), Mockito.anyString(), Mockito.anyBoolean());
     }
 
+    @Test
+    public void test60checkWaitForTagChange() {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        Mockito.when(serviceUtil.isValidateHttpsAuthentication(serviceName, request)).thenReturn(true);
+
+        tagREST.checkWaitForTagChange(serviceName, request);
+
+        Mockito.verify(serviceUtil).isValidateHttpsAuthentication(serviceName, request);
+    }
+
+    @Test
+    public void test61checkWaitForTagChangeWhenNotAuthenticated() {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        Mockito.when(serviceUtil.isValidateHttpsAuthentication(serviceName, request)).thenReturn(false);
+        Mockito.when(restErrorUtil.createRESTException(Mockito.anyInt(), Mockito.anyString(), Mockito.anyBoolean())).thenThrow(new WebApplicationException());
+
+        try {
+            tagREST.checkWaitForTagChange(serviceName, request);
+
+            Assert.fail("checkWaitForTagChange() must fail when https authentication is not valid");
+        } catch (WebApplicationException excp) {
+            // expected
+        }
+    }
+
+    @Test
+    public void test62checkWaitForSecureTagChange() {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        Mockito.when(serviceUtil.isAllowedToDownload(serviceName, TagREST.Allowed_User_List_For_Tag_Download)).thenReturn(true);
+
+        tagREST.checkWaitForSecureTagChange(serviceName, request);
+
+        Mockito.verify(request).setAttribute("downloadPolicy", "secure");
+        Mockito.verify(serviceUtil).isValidService(serviceName, request);
+        Mockito.verify(serviceUtil).isAllowedToDownload(serviceName, TagREST.Allowed_User_List_For_Tag_Download);
+    }
+
+    @Test
+    public void test63checkWaitForSecureTagChangeForInvalidService() {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        Mockito.when(serviceUtil.isValidService(serviceName, request)).thenThrow(new WebApplicationException());
+
+        try {
+            tagREST.checkWaitForSecureTagChange(serviceName, request);
+
+            Assert.fail("checkWaitForSecureTagChange() must fail for an invalid service");
+        } catch (WebApplicationException excp) {
+            // expected
+        }
+
+        Mockito.verify(serviceUtil, Mockito.never()).isAllowedToDownload(serviceName, TagREST.Allowed_User_List_For_Tag_Download);
+    }
+
     static {
         capabilityVector = Long.toHexString(new RangerPluginCapability().getPluginCapabilities());
     }